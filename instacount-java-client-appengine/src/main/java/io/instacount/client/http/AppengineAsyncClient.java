@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.appengine.api.urlfetch.HTTPRequest;
+import com.google.appengine.api.urlfetch.HTTPResponse;
+import com.google.appengine.api.urlfetch.URLFetchService;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+
+/**
+ * An implementation of {@link AsyncClient} for use inside of Google Appengine, using the asynchronous API of the URL
+ * Fetch Service. Use it with {@link io.instacount.client.InstacountAsync} to issue several Instacount calls from a
+ * single App Engine request in parallel, without creating any threads.
+ * <p>
+ * URL Fetch does not notify anyone when a fetch completes, so the returned futures complete (and run their listeners)
+ * on the thread that calls {@link Future#get()} or {@link Future#isDone()} on them. Issue every call first, then join
+ * them by calling {@code get()} on each future.
+ *
+ * @see "https://cloud.google.com/appengine/docs/java/urlfetch/"
+ */
+public class AppengineAsyncClient implements AsyncClient
+{
+	private final URLFetchService urlFetchService;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param urlFetchService
+	 */
+	public AppengineAsyncClient(final URLFetchService urlFetchService)
+	{
+		this.urlFetchService = Preconditions.checkNotNull(urlFetchService);
+	}
+
+	@Override
+	public ListenableFuture<Response> execute(final Request request, final Options options)
+	{
+		final HTTPRequest httpRequest;
+		try
+		{
+			httpRequest = AppengineClient.toHttpRequest(request, options);
+		}
+		catch (MalformedURLException e)
+		{
+			return Futures.immediateFailedFuture(e);
+		}
+
+		return new URLFetchFuture(this.urlFetchService.fetchAsync(httpRequest));
+	}
+
+	/**
+	 * An implementation of {@link ListenableFuture} that completes from a pending URL Fetch {@link Future} whenever it
+	 * is waited upon or polled.
+	 */
+	private static class URLFetchFuture extends AbstractFuture<Response>
+	{
+		private final Future<HTTPResponse> fetchFuture;
+
+		/**
+		 * Required-args Constructor.
+		 *
+		 * @param fetchFuture
+		 */
+		private URLFetchFuture(final Future<HTTPResponse> fetchFuture)
+		{
+			this.fetchFuture = Preconditions.checkNotNull(fetchFuture);
+		}
+
+		@Override
+		public Response get() throws InterruptedException, ExecutionException
+		{
+			if (!super.isDone())
+			{
+				this.complete(this.fetchResponse());
+			}
+			return super.get();
+		}
+
+		@Override
+		public Response get(final long timeout, final TimeUnit unit)
+				throws InterruptedException, TimeoutException, ExecutionException
+		{
+			if (!super.isDone())
+			{
+				try
+				{
+					this.complete(this.fetchFuture.get(timeout, unit));
+				}
+				catch (ExecutionException e)
+				{
+					this.setException(causeOf(e));
+				}
+			}
+			return super.get();
+		}
+
+		@Override
+		public boolean isDone()
+		{
+			if (!super.isDone() && this.fetchFuture.isDone())
+			{
+				try
+				{
+					this.complete(this.fetchResponse());
+				}
+				catch (InterruptedException e)
+				{
+					// Unreachable, because the fetch has already completed.
+					Thread.currentThread().interrupt();
+				}
+			}
+			return super.isDone();
+		}
+
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning)
+		{
+			this.fetchFuture.cancel(mayInterruptIfRunning);
+			return super.cancel(mayInterruptIfRunning);
+		}
+
+		//////////////////
+		// Private Helpers
+		//////////////////
+
+		/**
+		 * Helper to wait for the underlying fetch, completing this future exceptionally if it failed.
+		 *
+		 * @return The {@link HTTPResponse} of the fetch, or {@code null} if it failed.
+		 * @throws InterruptedException
+		 */
+		private HTTPResponse fetchResponse() throws InterruptedException
+		{
+			try
+			{
+				return this.fetchFuture.get();
+			}
+			catch (ExecutionException e)
+			{
+				this.setException(causeOf(e));
+				return null;
+			}
+		}
+
+		/**
+		 * Helper to unwrap the failure of the underlying fetch, which is typically an {@link IOException}.
+		 *
+		 * @param e
+		 * @return
+		 */
+		private static Throwable causeOf(final ExecutionException e)
+		{
+			return e.getCause() == null ? new IOException(e) : e.getCause();
+		}
+
+		/**
+		 * Helper to complete this future with the Feign {@link Response} for {@code httpResponse}, if the fetch
+		 * succeeded.
+		 *
+		 * @param httpResponse
+		 */
+		private void complete(final HTTPResponse httpResponse)
+		{
+			if (httpResponse != null)
+			{
+				try
+				{
+					this.set(AppengineClient.toAppengineResponse(httpResponse));
+				}
+				catch (RuntimeException e)
+				{
+					this.setException(e);
+				}
+			}
+		}
+	}
+}
@@ -1,17 +1,12 @@
 package io.instacount.client.http;
 
-import static feign.Util.UTF_8;
-
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import com.google.appengine.api.urlfetch.HTTPHeader;
@@ -20,6 +15,7 @@ import com.google.appengine.api.urlfetch.HTTPRequest;
 import com.google.appengine.api.urlfetch.HTTPResponse;
 import com.google.appengine.api.urlfetch.URLFetchService;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
 
 import feign.Client;
 import feign.Request;
@@ -50,7 +46,7 @@ public class AppengineClient implements Client
 	{
 		/////////////////////
 		// Assemble the Request...
-		final HTTPRequest httpRequest = this.toHttpRequest(request, options);
+		final HTTPRequest httpRequest = toHttpRequest(request, options);
 
 		/////////////////////
 		// Make the Request...
@@ -58,7 +54,7 @@ public class AppengineClient implements Client
 
 		/////////////////////
 		// Convert Response to Feign and return...
-		return this.toAppengineResponse(httpResponse);
+		return toAppengineResponse(httpResponse);
 	}
 
 	/**
@@ -69,7 +65,7 @@ public class AppengineClient implements Client
 	 * @return
 	 * @throws MalformedURLException
 	 */
-	private HTTPRequest toHttpRequest(final Request request, final Options options) throws MalformedURLException
+	static HTTPRequest toHttpRequest(final Request request, final Options options) throws MalformedURLException
 	{
 		final URL url = new URL(request.url());
 		final HTTPRequest httpRequest = new HTTPRequest(url, HTTPMethod.valueOf(request.method()));
@@ -94,86 +90,46 @@ public class AppengineClient implements Client
 
 	/**
 	 * Convert an instance of {@link HTTPResponse} from the Google Appengine URLFetch service into an instance of
-	 * {@link Response} that feign can deal with.
+	 * {@link Response} that feign can deal with. The body is wrapped without copying, and can be read more than once.
 	 * 
 	 * @param httpResponse
 	 * @return
 	 */
-	private Response toAppengineResponse(final HTTPResponse httpResponse)
+	static Response toAppengineResponse(final HTTPResponse httpResponse)
 	{
-		int statusCode = httpResponse.getResponseCode();
-
-		final Map<String, Collection<String>> headers = new HashMap();
-		for (final HTTPHeader header : httpResponse.getHeadersUncombined())
-		{
-			final String name = header.getName();
-			if (headers.get(name) == null)
-			{
-				headers.put(name, new LinkedList<String>());
-			}
-
-			headers.get(name).add(header.getValue());
-		}
-
-		try
-		{
-			return Response.create(statusCode, "", headers, toFeignBody(httpResponse));
-		}
-		catch (IOException e)
-		{
-			throw new RuntimeException(e);
-		}
+		final byte[] httpResponseContent = httpResponse.getContent();
+		return Response.create(httpResponse.getResponseCode(), "", toFeignHeaders(httpResponse),
+			httpResponseContent == null ? null : new ByteArrayBody(httpResponseContent));
 	}
 
 	/**
-	 * Convert the Google Appengine {@link HTTPResponse} to an instance of {@link Response.Body} that feign can deal
-	 * with.
+	 * Convert the headers of the Google Appengine {@link HTTPResponse} into the map of header values that feign
+	 * expects. Most headers have a single value, so a list is only allocated for headers that are repeated.
 	 * 
 	 * @param httpResponse An instance of {@link HTTPResponse} returned from the Appengine infrastructure.
 	 * @return
-	 * @throws IOException
 	 */
-	private Response.Body toFeignBody(final HTTPResponse httpResponse) throws IOException
+	private static Map<String, Collection<String>> toFeignHeaders(final HTTPResponse httpResponse)
 	{
-		final byte[] httpResponseContent = httpResponse.getContent();
-		if (httpResponseContent == null)
+		final List<HTTPHeader> httpHeaders = httpResponse.getHeadersUncombined();
+		final Map<String, Collection<String>> headers = Maps.newHashMapWithExpectedSize(httpHeaders.size());
+		for (final HTTPHeader header : httpHeaders)
 		{
-			return null;
-		}
-		return new Response.Body()
-		{
-			final InputStream contentStream = new ByteArrayInputStream(httpResponseContent);
-
-			@Override
-			public Integer length()
-			{
-				return httpResponseContent.length > 0 ? httpResponseContent.length : null;
-			}
-
-			@Override
-			public boolean isRepeatable()
-			{
-				return false;
-			}
-
-			@Override
-			public InputStream asInputStream() throws IOException
-			{
-				return this.contentStream;
-			}
-
-			@Override
-			public Reader asReader() throws IOException
+			final String name = header.getName();
+			final Collection<String> values = headers.get(name);
+			if (values == null)
 			{
-				return new InputStreamReader(asInputStream(), UTF_8);
+				headers.put(name, Collections.singletonList(header.getValue()));
 			}
-
-			@Override
-			public void close() throws IOException
+			else
 			{
-				this.contentStream.close();
+				final List<String> repeatedValues = new ArrayList<>(values.size() + 1);
+				repeatedValues.addAll(values);
+				repeatedValues.add(header.getValue());
+				headers.put(name, repeatedValues);
 			}
-		};
+		}
+		return headers;
 	}
 
 }
\ No newline at end of file
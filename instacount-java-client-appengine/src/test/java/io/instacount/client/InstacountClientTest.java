@@ -34,6 +34,7 @@ import io.instacount.client.Constants.Links;
 import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
 import io.instacount.client.exceptions.InstacountClientException;
 import io.instacount.client.http.AppengineClient;
+import io.instacount.client.http.InMemoryInstacountClient;
 import io.instacount.client.model.Errors;
 import io.instacount.client.model.Errors.Error;
 import io.instacount.client.model.InstacountResponse;
@@ -70,6 +71,40 @@ public class InstacountClientTest
 		helper = new LocalServiceTestHelper(new LocalURLFetchServiceTestConfig());
 		helper.setUp();
 
+		if (System.getenv("INSTACOUNT_APPLICATION_ID") == null)
+		{
+			// Without credentials for the live API, run every test against the in-memory stand-in instead.
+			client = Instacount.Builder.build(new AbstractInstacountClientParams(false)
+			{
+				private final InMemoryInstacountClient inMemoryClient = new InMemoryInstacountClient();
+
+				@Override
+				public String getInstacountApplicationId()
+				{
+					return "in-memory-application-id";
+				}
+
+				@Override
+				public String getInstacountReadOnlyApplicationKey()
+				{
+					return "in-memory-read-only-key";
+				}
+
+				@Override
+				public String getInstacountReadWriteApplicationKey()
+				{
+					return "in-memory-read-write-key";
+				}
+
+				@Override
+				public Client getClient()
+				{
+					return inMemoryClient;
+				}
+			});
+			return;
+		}
+
 		final AbstractInstacountClientParams params = new AbstractInstacountClientParams(false)
 		{
 			@Override
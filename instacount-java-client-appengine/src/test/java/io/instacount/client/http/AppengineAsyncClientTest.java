@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.appengine.api.urlfetch.HTTPHeader;
+import com.google.appengine.api.urlfetch.HTTPRequest;
+import com.google.appengine.api.urlfetch.HTTPResponse;
+import com.google.appengine.api.urlfetch.URLFetchService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import feign.Util;
+
+/**
+ * Unit tests for {@link AppengineAsyncClient}, using a stub {@link URLFetchService} whose fetches complete only when
+ * told to.
+ */
+public class AppengineAsyncClientTest
+{
+	private static final Request REQUEST = Request.create("GET", "https://api.instacount.io/sharded_counters/foo",
+		Collections.<String, Collection<String>> emptyMap(), null, Util.UTF_8);
+
+	private SettableFuture<HTTPResponse> fetchFuture;
+	private AppengineAsyncClient appengineAsyncClient;
+
+	@Before
+	public void before()
+	{
+		fetchFuture = SettableFuture.create();
+		final URLFetchService urlFetchService = mock(URLFetchService.class);
+		when(urlFetchService.fetchAsync(any(HTTPRequest.class))).thenReturn(fetchFuture);
+		appengineAsyncClient = new AppengineAsyncClient(urlFetchService);
+	}
+
+	@Test
+	public void testGetWaitsForFetch() throws Exception
+	{
+		final ListenableFuture<Response> future = appengineAsyncClient.execute(REQUEST, new Options());
+		fetchFuture.set(httpResponse(200, "{}"));
+
+		final Response response = future.get();
+		assertThat(response.status(), is(200));
+		assertThat(Util.toString(response.body().asReader()), is("{}"));
+		assertThat(response.headers().get("X-Ratelimit-Access-Counters-Limit"),
+			is((Collection<String>) Collections.singletonList("1000")));
+	}
+
+	@Test
+	public void testTimedGetTimesOutWhileFetchIsPending() throws Exception
+	{
+		final ListenableFuture<Response> future = appengineAsyncClient.execute(REQUEST, new Options());
+
+		try
+		{
+			future.get(10, TimeUnit.MILLISECONDS);
+			fail();
+		}
+		catch (TimeoutException e)
+		{
+			assertThat(future.isDone(), is(false));
+		}
+
+		fetchFuture.set(httpResponse(200, "{}"));
+		assertThat(future.get(10, TimeUnit.MILLISECONDS).status(), is(200));
+	}
+
+	@Test
+	public void testIsDoneCompletesFutureAndRunsListeners() throws Exception
+	{
+		final ListenableFuture<Response> future = appengineAsyncClient.execute(REQUEST, new Options());
+		final AtomicBoolean listenerRan = new AtomicBoolean();
+		future.addListener(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				listenerRan.set(true);
+			}
+		}, MoreExecutors.directExecutor());
+
+		assertThat(future.isDone(), is(false));
+		fetchFuture.set(httpResponse(204, null));
+		assertThat(listenerRan.get(), is(false));
+
+		// URL Fetch never notifies anyone, so the future only completes once it is polled.
+		assertThat(future.isDone(), is(true));
+		assertThat(listenerRan.get(), is(true));
+		assertThat(future.get().status(), is(204));
+	}
+
+	@Test
+	public void testCancelCancelsFetch()
+	{
+		final ListenableFuture<Response> future = appengineAsyncClient.execute(REQUEST, new Options());
+
+		assertThat(future.cancel(true), is(true));
+		assertThat(future.isCancelled(), is(true));
+		assertThat(fetchFuture.isCancelled(), is(true));
+	}
+
+	@Test
+	public void testFailedFetchIsUnwrapped() throws Exception
+	{
+		final ListenableFuture<Response> future = appengineAsyncClient.execute(REQUEST, new Options());
+		final IOException failure = new IOException("Deadline exceeded");
+		fetchFuture.setException(failure);
+
+		try
+		{
+			future.get();
+			fail();
+		}
+		catch (ExecutionException e)
+		{
+			assertThat(e.getCause() == failure, is(true));
+		}
+	}
+
+	@Test
+	public void testFailedTimedGetIsUnwrapped() throws Exception
+	{
+		final ListenableFuture<Response> future = appengineAsyncClient.execute(REQUEST, new Options());
+		final IOException failure = new IOException("Deadline exceeded");
+		fetchFuture.setException(failure);
+
+		try
+		{
+			future.get(10, TimeUnit.MILLISECONDS);
+			fail();
+		}
+		catch (ExecutionException e)
+		{
+			assertThat(e.getCause() == failure, is(true));
+		}
+	}
+
+	@Test
+	public void testMalformedUrlFailsImmediately() throws Exception
+	{
+		final ListenableFuture<Response> future = appengineAsyncClient.execute(Request.create("GET", "not a url",
+			Collections.<String, Collection<String>> emptyMap(), null, Util.UTF_8), new Options());
+
+		assertThat(future.isDone(), is(true));
+		try
+		{
+			future.get();
+			fail();
+		}
+		catch (ExecutionException e)
+		{
+			assertThat(e.getCause() instanceof MalformedURLException, is(true));
+		}
+	}
+
+	/**
+	 * Helper to construct an {@link HTTPResponse} as URL Fetch would return it.
+	 *
+	 * @param status
+	 * @param content May be {@code null}.
+	 * @return
+	 */
+	private static HTTPResponse httpResponse(final int status, final String content)
+	{
+		final HTTPResponse httpResponse = mock(HTTPResponse.class);
+		when(httpResponse.getResponseCode()).thenReturn(status);
+		when(httpResponse.getContent()).thenReturn(
+			content == null ? null : content.getBytes(StandardCharsets.UTF_8));
+		when(httpResponse.getHeadersUncombined()).thenReturn(
+			ImmutableList.of(new HTTPHeader("X-Ratelimit-Access-Counters-Limit", "1000")));
+		return httpResponse;
+	}
+}
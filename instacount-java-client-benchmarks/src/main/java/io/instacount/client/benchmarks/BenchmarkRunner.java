@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Accepts the usual JMH command line options, and always enables the GC
+ * profiler so that allocation rates ({@code gc.alloc.rate.norm}, in bytes per operation) are reported alongside
+ * throughput.
+ */
+public final class BenchmarkRunner
+{
+	private BenchmarkRunner()
+	{
+	}
+
+	public static void main(final String[] args) throws Exception
+	{
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build())
+			.run();
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import feign.Client;
+import io.instacount.client.Instacount;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.http.InMemoryInstacountClient;
+import io.instacount.client.model.shardedcounters.inputs.CreateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+
+/**
+ * End-to-end benchmarks for the complete client (interceptors, encoding, transport and decoding) against an
+ * {@link InMemoryInstacountClient}, with an optional injected latency per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ClientBenchmark
+{
+	@Param({ "0" })
+	private long latencyMicros;
+
+	private Instacount client;
+	private IncrementShardedCounterInput incrementShardedCounterInput;
+
+	@Setup
+	public void setup()
+	{
+		final InMemoryInstacountClient inMemoryClient = new InMemoryInstacountClient(Long.MAX_VALUE, Long.MAX_VALUE);
+		inMemoryClient.setLatency(latencyMicros, TimeUnit.MICROSECONDS);
+
+		client = Instacount.Builder.build(new AbstractInstacountClientParams(false)
+		{
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "benchmark-application-id";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "benchmark-read-only-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return "benchmark-read-write-key";
+			}
+
+			@Override
+			public Client getClient()
+			{
+				return inMemoryClient;
+			}
+		});
+
+		client.createShardedCounter(new CreateShardedCounterInput(Payloads.COUNTER_NAME));
+		incrementShardedCounterInput = new IncrementShardedCounterInput(BigInteger.ONE, true);
+	}
+
+	@Benchmark
+	public GetShardedCounterResponse getShardedCounter()
+	{
+		return client.getShardedCounter(Payloads.COUNTER_NAME);
+	}
+
+	@Benchmark
+	public IncrementShardedCounterResponse incrementShardedCounter()
+	{
+		return client.incrementShardedCounter(Payloads.COUNTER_NAME, incrementShardedCounterInput);
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import io.instacount.client.jackson.InstacountClientObjectMapper;
+import io.instacount.client.jackson.LongOrBigIntegerDeserializer;
+import io.instacount.client.model.shardedcounters.ShardedCounter;
+
+/**
+ * Benchmarks for reading counts as a {@code long} (with {@link LongOrBigIntegerDeserializer}) versus as a
+ * {@link BigInteger}: decoding the count of a canned counter payload, and summing the counts of 64 counters, as an
+ * aggregation layer would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountBenchmark
+{
+	private ObjectMapper objectMapper;
+	private byte[] shardedCounterBytes;
+	private ShardedCounter[] shardedCounters;
+
+	/**
+	 * Only the count of a counter, read as a {@code long} when it fits.
+	 */
+	public static class LongCount
+	{
+		@JsonProperty("count")
+		@JsonDeserialize(using = LongOrBigIntegerDeserializer.class)
+		private Number count;
+	}
+
+	/**
+	 * Only the count of a counter, always read as a {@link BigInteger}.
+	 */
+	public static class BigIntegerCount
+	{
+		@JsonProperty("count")
+		private BigInteger count;
+	}
+
+	@Setup
+	public void setup() throws IOException
+	{
+		objectMapper = new InstacountClientObjectMapper();
+		shardedCounterBytes = Payloads.SHARDED_COUNTER_JSON.getBytes(StandardCharsets.UTF_8);
+
+		final ShardedCounter shardedCounter = objectMapper.readValue(shardedCounterBytes, ShardedCounter.class);
+		shardedCounters = new ShardedCounter[64];
+		for (int i = 0; i < shardedCounters.length; i++)
+		{
+			shardedCounters[i] = new ShardedCounter(shardedCounter.getMeta(), shardedCounter.getName(),
+				shardedCounter.getOptDescription(), shardedCounter.getNumShards(), shardedCounter.getCounterStatus(),
+				shardedCounter.getCreatedDateTime(), shardedCounter.getCountAsLong() + i);
+		}
+	}
+
+	@Benchmark
+	public Object decodeLongCount() throws IOException
+	{
+		return objectMapper.readValue(shardedCounterBytes, LongCount.class);
+	}
+
+	@Benchmark
+	public Object decodeBigIntegerCount() throws IOException
+	{
+		return objectMapper.readValue(shardedCounterBytes, BigIntegerCount.class);
+	}
+
+	@Benchmark
+	public long sumCountsAsLong()
+	{
+		long sum = 0L;
+		for (final ShardedCounter shardedCounter : shardedCounters)
+		{
+			sum += shardedCounter.getCountAsLong();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public BigInteger sumCountsAsBigInteger()
+	{
+		BigInteger sum = BigInteger.ZERO;
+		for (final ShardedCounter shardedCounter : shardedCounters)
+		{
+			sum = sum.add(shardedCounter.getCount());
+		}
+		return sum;
+	}
+}
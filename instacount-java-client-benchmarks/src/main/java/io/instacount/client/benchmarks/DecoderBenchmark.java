@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+
+import feign.Response;
+import feign.codec.Decoder;
+import feign.codec.ErrorDecoder;
+import io.instacount.client.decoders.InstacountErrorDecoder;
+import io.instacount.client.decoders.InstacountJacksonDecoder;
+import io.instacount.client.jackson.InstacountClientObjectMapper;
+import io.instacount.client.model.shardedcounters.responses.CreateShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterOperationResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.UpdateShardedCounterResponse;
+
+/**
+ * Benchmarks for decoding each Instacount response type, and error responses, from canned payloads and headers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoderBenchmark
+{
+	private Decoder decoder;
+	private ErrorDecoder errorDecoder;
+
+	private Response createdResponse;
+	private Response shardedCounterResponse;
+	private Response acceptedResponse;
+	private Response counterOperationResponse;
+	private Response errorsResponse;
+
+	@Setup
+	public void setup()
+	{
+		final ObjectMapper objectMapper = new InstacountClientObjectMapper();
+		decoder = new InstacountJacksonDecoder(objectMapper);
+		errorDecoder = new InstacountErrorDecoder(objectMapper);
+
+		createdResponse = Payloads.response(201, ImmutableMap.<String, Collection<String>> of("Location",
+			Collections.singletonList("https://api.instacount.io/sharded_counters/" + Payloads.COUNTER_NAME)), null);
+		shardedCounterResponse = Payloads.response(200, Payloads.SHARDED_COUNTER_JSON);
+		acceptedResponse = Payloads.response(202, null);
+		counterOperationResponse = Payloads.response(201, Payloads.SHARDED_COUNTER_OPERATION_JSON);
+		errorsResponse = Payloads.response(404, Payloads.ERRORS_JSON);
+	}
+
+	@Benchmark
+	public Object decodeCreateShardedCounterResponse() throws IOException
+	{
+		return decoder.decode(createdResponse, CreateShardedCounterResponse.class);
+	}
+
+	@Benchmark
+	public Object decodeGetShardedCounterResponse() throws IOException
+	{
+		return decoder.decode(shardedCounterResponse, GetShardedCounterResponse.class);
+	}
+
+	@Benchmark
+	public Object decodeUpdateShardedCounterResponse() throws IOException
+	{
+		return decoder.decode(shardedCounterResponse, UpdateShardedCounterResponse.class);
+	}
+
+	@Benchmark
+	public Object decodeAcceptedIncrementShardedCounterResponse() throws IOException
+	{
+		return decoder.decode(acceptedResponse, IncrementShardedCounterResponse.class);
+	}
+
+	@Benchmark
+	public Object decodeCreatedIncrementShardedCounterResponse() throws IOException
+	{
+		return decoder.decode(counterOperationResponse, IncrementShardedCounterResponse.class);
+	}
+
+	@Benchmark
+	public Object decodeCreatedDecrementShardedCounterResponse() throws IOException
+	{
+		return decoder.decode(counterOperationResponse, DecrementShardedCounterResponse.class);
+	}
+
+	@Benchmark
+	public Object decodeGetShardedCounterOperationResponse() throws IOException
+	{
+		return decoder.decode(counterOperationResponse, GetShardedCounterOperationResponse.class);
+	}
+
+	@Benchmark
+	public Object decodeErrors()
+	{
+		return errorDecoder.decode("InstacountFeign#getShardedCounter(String)", errorsResponse);
+	}
+}
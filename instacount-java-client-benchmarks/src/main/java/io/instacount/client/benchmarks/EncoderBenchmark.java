@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Optional;
+
+import feign.RequestTemplate;
+import feign.codec.Encoder;
+import io.instacount.client.encoders.InstacountJacksonEncoder;
+import io.instacount.client.jackson.InstacountClientObjectMapper;
+import io.instacount.client.model.shardedcounters.inputs.CreateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.ShardedCounterStatusInput;
+import io.instacount.client.model.shardedcounters.inputs.UpdateShardedCounterInput;
+
+/**
+ * Benchmarks for encoding each Instacount input type into a request body, using the same {@link Encoder} and
+ * {@link InstacountClientObjectMapper} as the client, with the cache of increment and decrement bodies disabled
+ * ({@code maxCachedAmount=-1}) or enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncoderBenchmark
+{
+	@Param({ "-1", "1024" })
+	private int maxCachedAmount;
+
+	private Encoder encoder;
+
+	private CreateShardedCounterInput createShardedCounterInput;
+	private UpdateShardedCounterInput updateShardedCounterInput;
+	private IncrementShardedCounterInput incrementShardedCounterInput;
+	private DecrementShardedCounterInput decrementShardedCounterInput;
+
+	@Setup
+	public void setup()
+	{
+		encoder = new InstacountJacksonEncoder(new InstacountClientObjectMapper(), maxCachedAmount);
+
+		createShardedCounterInput = new CreateShardedCounterInput(Payloads.COUNTER_NAME,
+			Optional.of("Views of the landing page"), 3, ShardedCounterStatusInput.AVAILABLE);
+		updateShardedCounterInput = new UpdateShardedCounterInput(Payloads.COUNTER_NAME,
+			Optional.of("Views of the landing page"), 5, ShardedCounterStatusInput.READ_ONLY_COUNT);
+		incrementShardedCounterInput = new IncrementShardedCounterInput(BigInteger.ONE, true);
+		decrementShardedCounterInput = new DecrementShardedCounterInput(BigInteger.TEN, false);
+	}
+
+	@Benchmark
+	public RequestTemplate encodeCreateShardedCounterInput()
+	{
+		return this.encode(createShardedCounterInput);
+	}
+
+	@Benchmark
+	public RequestTemplate encodeUpdateShardedCounterInput()
+	{
+		return this.encode(updateShardedCounterInput);
+	}
+
+	@Benchmark
+	public RequestTemplate encodeIncrementShardedCounterInput()
+	{
+		return this.encode(incrementShardedCounterInput);
+	}
+
+	@Benchmark
+	public RequestTemplate encodeDecrementShardedCounterInput()
+	{
+		return this.encode(decrementShardedCounterInput);
+	}
+
+	/**
+	 * Helper to encode {@code input} into a fresh {@link RequestTemplate}, as Feign does for every call.
+	 *
+	 * @param input
+	 * @return
+	 */
+	private RequestTemplate encode(final Object input)
+	{
+		final RequestTemplate requestTemplate = new RequestTemplate();
+		encoder.encode(input, input.getClass(), requestTemplate);
+		return requestTemplate;
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+
+import feign.Client;
+import io.instacount.client.Instacount;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.http.InMemoryInstacountClient;
+import io.instacount.client.interceptors.GzipRequestInterceptor;
+import io.instacount.client.model.shardedcounters.inputs.CreateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.UpdateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.UpdateShardedCounterResponse;
+
+/**
+ * Benchmarks for the CPU and bandwidth cost of gzip compression, running the complete client from a single thread
+ * against an {@link InMemoryInstacountClient}, with and without a {@link GzipRequestInterceptor}. The counter's
+ * description is padded to {@code descriptionLength} characters to vary the payload size.
+ * <p>
+ * Besides throughput, each benchmark reports the request and response body bytes sent over the wire as the
+ * {@code requestBytes} and {@code responseBytes} counters; divide them by the throughput for bytes per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GzipBenchmark
+{
+	@Param({ "false", "true" })
+	private boolean gzip;
+
+	@Param({ "32", "4096" })
+	private int descriptionLength;
+
+	private InMemoryInstacountClient inMemoryClient;
+	private Instacount client;
+	private UpdateShardedCounterInput updateShardedCounterInput;
+
+	/**
+	 * The number of body bytes sent over the wire by the benchmarking thread.
+	 */
+	@AuxCounters
+	@State(Scope.Thread)
+	public static class WireBytes
+	{
+		public long requestBytes;
+		public long responseBytes;
+	}
+
+	@Setup
+	public void setup()
+	{
+		inMemoryClient = new InMemoryInstacountClient(Long.MAX_VALUE, Long.MAX_VALUE);
+		client = Instacount.Builder.build(new AbstractInstacountClientParams(false)
+		{
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "benchmark-application-id";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "benchmark-read-only-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return "benchmark-read-write-key";
+			}
+
+			@Override
+			public Client getClient()
+			{
+				return inMemoryClient;
+			}
+
+			@Override
+			public Optional<GzipRequestInterceptor> getGzipRequestInterceptor()
+			{
+				// Compress every request body, so that small payloads show the cost of compression too.
+				return gzip ? Optional.of(new GzipRequestInterceptor(0)) : Optional.<GzipRequestInterceptor> absent();
+			}
+		});
+
+		final String description = Strings.padEnd("Views of the landing page.", descriptionLength, ' ');
+		client.createShardedCounter(new CreateShardedCounterInput(Payloads.COUNTER_NAME, description));
+		updateShardedCounterInput = new UpdateShardedCounterInput(Payloads.COUNTER_NAME, description);
+	}
+
+	@Benchmark
+	public GetShardedCounterResponse getShardedCounter(final WireBytes wireBytes)
+	{
+		final long requestBytes = inMemoryClient.getRequestBytes();
+		final long responseBytes = inMemoryClient.getResponseBytes();
+		final GetShardedCounterResponse response = client.getShardedCounter(Payloads.COUNTER_NAME);
+		wireBytes.requestBytes += inMemoryClient.getRequestBytes() - requestBytes;
+		wireBytes.responseBytes += inMemoryClient.getResponseBytes() - responseBytes;
+		return response;
+	}
+
+	@Benchmark
+	public UpdateShardedCounterResponse updateShardedCounter(final WireBytes wireBytes)
+	{
+		final long requestBytes = inMemoryClient.getRequestBytes();
+		final long responseBytes = inMemoryClient.getResponseBytes();
+		final UpdateShardedCounterResponse response = client.updateShardedCounter(Payloads.COUNTER_NAME,
+			updateShardedCounterInput);
+		wireBytes.requestBytes += inMemoryClient.getRequestBytes() - requestBytes;
+		wireBytes.responseBytes += inMemoryClient.getResponseBytes() - responseBytes;
+		return response;
+	}
+}
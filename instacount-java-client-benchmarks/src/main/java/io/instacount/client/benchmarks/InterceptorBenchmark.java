@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.interceptors.CompiledRequestInterceptor;
+import io.instacount.client.interceptors.InstacountVersionRequestInterceptor;
+import io.instacount.client.jackson.WireFormat;
+
+/**
+ * Benchmarks for running the client's request interceptor chain (API version and credentials) over read and mutation
+ * requests, either resolving every header on each request or applying headers precompiled by a
+ * {@link CompiledRequestInterceptor} (the {@code compiled} parameter).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterceptorBenchmark
+{
+	private List<RequestInterceptor> requestInterceptors;
+
+	private RequestTemplate getTemplate;
+	private RequestTemplate postTemplate;
+
+	@Param({ "false", "true" })
+	private boolean compiled;
+
+	@Setup
+	public void setup()
+	{
+		final AbstractInstacountClientParams params = new AbstractInstacountClientParams(false)
+		{
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "benchmark-application-id";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "benchmark-read-only-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return "benchmark-read-write-key";
+			}
+		};
+		requestInterceptors = compiled ? ImmutableList.<RequestInterceptor> of(CompiledRequestInterceptor.compile(
+			WireFormat.JSON, params)) : ImmutableList.of(new InstacountVersionRequestInterceptor.Impl(), params);
+
+		getTemplate = new RequestTemplate().method("GET").append("/sharded_counters/" + Payloads.COUNTER_NAME);
+		postTemplate = new RequestTemplate().method("POST")
+			.append("/sharded_counters/" + Payloads.COUNTER_NAME + "/increments")
+			.body("{\"amount\":1,\"async\":true}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public RequestTemplate interceptGetRequest()
+	{
+		return this.intercept(getTemplate);
+	}
+
+	@Benchmark
+	public RequestTemplate interceptPostRequest()
+	{
+		return this.intercept(postTemplate);
+	}
+
+	/**
+	 * Helper to apply every interceptor to a copy of {@code prototype}, as Feign does for every call.
+	 *
+	 * @param prototype
+	 * @return
+	 */
+	private RequestTemplate intercept(final RequestTemplate prototype)
+	{
+		final RequestTemplate requestTemplate = new RequestTemplate(prototype);
+		for (final RequestInterceptor requestInterceptor : requestInterceptors)
+		{
+			requestInterceptor.apply(requestTemplate);
+		}
+		return requestTemplate;
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+import feign.Response;
+import io.instacount.client.Constants;
+import io.instacount.client.model.headers.Quota;
+
+/**
+ * Canned Instacount API payloads and headers, shaped like real responses, for use by the benchmarks.
+ */
+public final class Payloads
+{
+	public static final String COUNTER_NAME = "page-views";
+
+	public static final String OPERATION_ID = "a4b5c6d7e8f90123";
+
+	public static final String SHARDED_COUNTER_JSON = "{" //
+		+ "\"meta\":{" //
+		+ "\"@self\":{\"href\":\"https://api.instacount.io/sharded_counters/page-views\"}," //
+		+ "\"@increments\":{\"href\":\"https://api.instacount.io/sharded_counters/page-views/increments\"}," //
+		+ "\"@decrements\":{\"href\":\"https://api.instacount.io/sharded_counters/page-views/decrements\"}" //
+		+ "}," //
+		+ "\"name\":\"page-views\"," //
+		+ "\"description\":\"Views of the landing page\"," //
+		+ "\"numShards\":3," //
+		+ "\"status\":\"AVAILABLE\"," //
+		+ "\"created\":\"2016-01-15T10:20:30.456Z\"," //
+		+ "\"count\":123456789" //
+		+ "}";
+
+	public static final String SHARDED_COUNTER_OPERATION_JSON = "{" //
+		+ "\"meta\":{" //
+		+ "\"@self\":{\"href\":\"https://api.instacount.io/sharded_counters/page-views/shards/1/operations/a4b5c6d7e8f90123\"}," //
+		+ "\"@counter\":{\"href\":\"https://api.instacount.io/sharded_counters/page-views\"}" //
+		+ "}," //
+		+ "\"id\":\"a4b5c6d7e8f90123\"," //
+		+ "\"shardIndex\":1," //
+		+ "\"type\":\"INCREMENT\"," //
+		+ "\"amount\":1," //
+		+ "\"created\":\"2016-01-15T10:20:30.456Z\"" //
+		+ "}";
+
+	public static final String ERRORS_JSON = "{" //
+		+ "\"errors\":[{" //
+		+ "\"message\":\"The requested counter could not be found!\"," //
+		+ "\"developerMessage\":\"No counter exists with the name 'page-views'.\"," //
+		+ "\"moreInfo\":\"https://instacount.readme.io/docs/errors\"" //
+		+ "}]" //
+		+ "}";
+
+	/**
+	 * The quota headers that accompany every Instacount API response.
+	 */
+	public static final Map<String, Collection<String>> QUOTA_HEADERS = ImmutableMap
+		.<String, Collection<String>> builder()
+		.put(Quota.X_RATELIMIT_ACCESS_COUNTERS_LIMIT, Collections.singletonList("1000000"))
+		.put(Quota.X_RATELIMIT_ACCESS_COUNTERS_REMAINING, Collections.singletonList("987654"))
+		.put(Quota.X_RATELIMIT_MUTATE_COUNTERS_LIMIT, Collections.singletonList("500000"))
+		.put(Quota.X_RATELIMIT_MUTATE_COUNTERS_REMAINING, Collections.singletonList("432100"))
+		.put("Content-Type", Collections.singletonList(Constants.ApiVersions.API_VERSION_1)).build();
+
+	private Payloads()
+	{
+	}
+
+	/**
+	 * Helper to construct a repeatable {@link Response} with the quota headers plus {@code additionalHeaders}.
+	 *
+	 * @param status
+	 * @param additionalHeaders
+	 * @param json The response body, or {@code null} for no body.
+	 * @return
+	 */
+	public static Response response(final int status, final Map<String, Collection<String>> additionalHeaders,
+			final String json)
+	{
+		final Map<String, Collection<String>> headers = ImmutableMap.<String, Collection<String>> builder()
+			.putAll(QUOTA_HEADERS).putAll(additionalHeaders).build();
+		return Response.create(status, "", headers, json == null ? null : json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Helper to construct a repeatable {@link Response} with only the quota headers.
+	 *
+	 * @param status
+	 * @param json The response body, or {@code null} for no body.
+	 * @return
+	 */
+	public static Response response(final int status, final String json)
+	{
+		return response(status, Collections.<String, Collection<String>> emptyMap(), json);
+	}
+}
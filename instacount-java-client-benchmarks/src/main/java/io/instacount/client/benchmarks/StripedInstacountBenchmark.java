@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import feign.Client;
+import io.instacount.client.Instacount;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.http.InMemoryInstacountClient;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+import io.instacount.client.wrappers.CoalescingInstacount;
+import io.instacount.client.wrappers.StripedInstacount;
+
+/**
+ * Benchmarks async increments of a single hot counter sent directly through the complete client, accumulated by a
+ * {@link CoalescingInstacount}, and accumulated by a {@link StripedInstacount}, from 1, 8 and 64 threads. Every client
+ * sends its requests to an {@link InMemoryInstacountClient}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class StripedInstacountBenchmark
+{
+	private Instacount client;
+	private CoalescingInstacount coalescingClient;
+	private StripedInstacount stripedClient;
+	private IncrementShardedCounterInput incrementShardedCounterInput;
+
+	@Setup
+	public void setup()
+	{
+		final InMemoryInstacountClient inMemoryClient = new InMemoryInstacountClient(Long.MAX_VALUE, Long.MAX_VALUE);
+		client = Instacount.Builder.build(new AbstractInstacountClientParams(false)
+		{
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "benchmark-application-id";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "benchmark-read-only-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return "benchmark-read-write-key";
+			}
+
+			@Override
+			public Client getClient()
+			{
+				return inMemoryClient;
+			}
+		});
+
+		// Flushing often enough that the coalescer never triggers an early flush.
+		coalescingClient = new CoalescingInstacount(client, 100, TimeUnit.MILLISECONDS, Integer.MAX_VALUE);
+		stripedClient = new StripedInstacount(client, 100, TimeUnit.MILLISECONDS);
+		incrementShardedCounterInput = new IncrementShardedCounterInput(BigInteger.ONE, true);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		coalescingClient.close();
+		stripedClient.close();
+	}
+
+	@Benchmark
+	public IncrementShardedCounterResponse direct()
+	{
+		return client.incrementShardedCounter(Payloads.COUNTER_NAME, incrementShardedCounterInput);
+	}
+
+	@Benchmark
+	public IncrementShardedCounterResponse coalescing()
+	{
+		return coalescingClient.incrementShardedCounter(Payloads.COUNTER_NAME, incrementShardedCounterInput);
+	}
+
+	@Benchmark
+	public IncrementShardedCounterResponse striped()
+	{
+		return stripedClient.incrementShardedCounter(Payloads.COUNTER_NAME, incrementShardedCounterInput);
+	}
+
+	@Threads(1)
+	public static class OneThread extends StripedInstacountBenchmark
+	{
+	}
+
+	@Threads(8)
+	public static class EightThreads extends StripedInstacountBenchmark
+	{
+	}
+
+	@Threads(64)
+	public static class SixtyFourThreads extends StripedInstacountBenchmark
+	{
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ISO8601DateFormat;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.sappenin.utils.json.jackson.mappers.modules.HttpUrlModule;
+
+import io.instacount.client.jackson.InstacountClientObjectMapper;
+import io.instacount.client.jackson.Iso8601DateTimeDeserializer;
+import io.instacount.client.model.shardedcounters.ShardedCounterOperation;
+
+/**
+ * Benchmarks for decoding {@code created} timestamps, either with the Joda module alone ({@code parser=joda}) or with
+ * the {@link Iso8601DateTimeDeserializer} of {@link InstacountClientObjectMapper} ({@code parser=iso8601}): a bare
+ * timestamp, and a complete counter operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampBenchmark
+{
+	@Param({ "joda", "iso8601" })
+	private String parser;
+
+	private ObjectMapper objectMapper;
+	private byte[] timestampBytes;
+	private byte[] counterOperationBytes;
+
+	@Setup
+	public void setup()
+	{
+		if ("joda".equals(parser))
+		{
+			// Configured like InstacountClientObjectMapper, but without the Iso8601DateTimeDeserializer.
+			objectMapper = new ObjectMapper().registerModule(new HttpUrlModule()).registerModule(new JodaModule())
+				.registerModule(new GuavaModule()).configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+				.setDateFormat(new ISO8601DateFormat());
+		}
+		else
+		{
+			objectMapper = new InstacountClientObjectMapper();
+		}
+
+		timestampBytes = "\"2016-01-15T10:20:30.456Z\"".getBytes(StandardCharsets.UTF_8);
+		counterOperationBytes = Payloads.SHARDED_COUNTER_OPERATION_JSON.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public DateTime decodeTimestamp() throws IOException
+	{
+		return objectMapper.readValue(timestampBytes, DateTime.class);
+	}
+
+	@Benchmark
+	public ShardedCounterOperation decodeShardedCounterOperation() throws IOException
+	{
+		return objectMapper.readValue(counterOperationBytes, ShardedCounterOperation.class);
+	}
+}
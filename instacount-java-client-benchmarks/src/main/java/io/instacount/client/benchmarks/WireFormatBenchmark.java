@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.benchmarks;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import feign.RequestTemplate;
+import feign.Response;
+import feign.codec.Decoder;
+import feign.codec.Encoder;
+import io.instacount.client.decoders.InstacountJacksonDecoder;
+import io.instacount.client.encoders.InstacountJacksonEncoder;
+import io.instacount.client.http.ByteArrayBody;
+import io.instacount.client.jackson.InstacountClientObjectMapper;
+import io.instacount.client.jackson.WireFormat;
+import io.instacount.client.model.shardedcounters.inputs.UpdateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+
+/**
+ * Benchmarks for encoding a request body and decoding a response body in each {@link WireFormat}, from canned
+ * payloads. Besides throughput, each benchmark reports the size of the body it handled as the {@code bodyBytes}
+ * counter; divide it by the throughput for bytes per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark
+{
+	@Param({ "JSON", "SMILE" })
+	private WireFormat wireFormat;
+
+	private Encoder encoder;
+	private Decoder decoder;
+
+	private UpdateShardedCounterInput updateShardedCounterInput;
+	private Response shardedCounterResponse;
+	private int shardedCounterBytes;
+
+	/**
+	 * The number of body bytes handled by the benchmarking thread.
+	 */
+	@AuxCounters
+	@State(Scope.Thread)
+	public static class BodyBytes
+	{
+		public long bodyBytes;
+	}
+
+	@Setup
+	public void setup() throws IOException
+	{
+		encoder = new InstacountJacksonEncoder(new InstacountClientObjectMapper(wireFormat));
+		decoder = new InstacountJacksonDecoder(new InstacountClientObjectMapper());
+
+		updateShardedCounterInput = new UpdateShardedCounterInput(Payloads.COUNTER_NAME, "Views of the landing page");
+
+		// Transcode the canned JSON payload, so that both formats carry exactly the same data.
+		final JsonNode shardedCounter = new ObjectMapper().readTree(Payloads.SHARDED_COUNTER_JSON);
+		final byte[] body = new ObjectMapper(wireFormat.newJsonFactory()).writeValueAsBytes(shardedCounter);
+		shardedCounterBytes = body.length;
+		final Map<String, Collection<String>> headers = new HashMap<>(Payloads.QUOTA_HEADERS);
+		headers.put("Content-Type", Collections.singletonList(wireFormat.getContentType()));
+		shardedCounterResponse = Response.create(200, "", headers, new ByteArrayBody(body));
+	}
+
+	@Benchmark
+	public RequestTemplate encodeUpdateShardedCounterInput(final BodyBytes bodyBytes)
+	{
+		final RequestTemplate template = new RequestTemplate();
+		encoder.encode(updateShardedCounterInput, UpdateShardedCounterInput.class, template);
+		bodyBytes.bodyBytes += template.body().length;
+		return template;
+	}
+
+	@Benchmark
+	public Object decodeGetShardedCounterResponse(final BodyBytes bodyBytes) throws IOException
+	{
+		bodyBytes.bodyBytes += shardedCounterBytes;
+		return decoder.decode(shardedCounterResponse, GetShardedCounterResponse.class);
+	}
+}
@@ -46,5 +46,7 @@ public final class Constants
 	public static final class ApiVersions
 	{
 		public static final String API_VERSION_1 = "application/vnd.instacount.v1+json";
+
+		public static final String API_VERSION_1_SMILE = "application/vnd.instacount.v1+smile";
 	}
 }
@@ -12,20 +12,18 @@
  */
 package io.instacount.client;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 
 import feign.Feign;
 import feign.Param;
 import feign.RequestInterceptor;
 import feign.RequestLine;
-import feign.jackson.JacksonEncoder;
-import io.instacount.client.decoders.InstacountErrorDecoder;
-import io.instacount.client.decoders.InstacountJacksonDecoder;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.circuitbreaker.InstacountCircuitBreaker;
 import io.instacount.client.exceptions.InstacountClientException;
-import io.instacount.client.interceptors.InstacountVersionRequestInterceptor;
-import io.instacount.client.jackson.InstacountClientObjectMapper;
+import io.instacount.client.metrics.InstacountInstrumentation;
+import io.instacount.client.metrics.InstacountMetrics;
 import io.instacount.client.model.shardedcounters.ShardedCounterOperation;
 import io.instacount.client.model.shardedcounters.inputs.CreateShardedCounterInput;
 import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
@@ -38,6 +36,9 @@ import io.instacount.client.model.shardedcounters.responses.GetShardedCounterOpe
 import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
 import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
 import io.instacount.client.model.shardedcounters.responses.UpdateShardedCounterResponse;
+import io.instacount.client.retry.RetryPolicy;
+import io.instacount.client.wrappers.CircuitBreakingInstacount;
+import io.instacount.client.wrappers.RetryingInstacount;
 
 /**
  * A feign client for interacting with the Instacount API.
@@ -203,21 +204,46 @@ public interface Instacount
 		public static Instacount build(final InstacountClientParams instacountClientParams,
 				final RequestInterceptor... additionalRequestInterceptors)
 		{
-			final ObjectMapper objectMapper = new InstacountClientObjectMapper();
+			final InstacountClientComponents components = new InstacountClientComponents(instacountClientParams, true,
+				additionalRequestInterceptors);
+			final AbstractInstacountClientParams params = components.getParams();
+			final Optional<InstacountMetrics> optInstacountMetrics = components.getOptInstacountMetrics();
 
-			final ImmutableList.Builder<RequestInterceptor> requestInterceptorsBuilder = ImmutableList.builder();
-			requestInterceptorsBuilder.add(new InstacountVersionRequestInterceptor.Impl());
-			requestInterceptorsBuilder.add(instacountClientParams);
-			requestInterceptorsBuilder.add(additionalRequestInterceptors);
-
-			return new InstacountWrapper(Feign.builder()
-				.client(instacountClientParams.getClient())
+			final Feign.Builder feignBuilder = Feign.builder()
+				.options(params.getTransportOptions().toRequestOptions())
 				//.logLevel(Level.FULL).logger(new JavaLogger().appendToFile("/tmp/httpLog.txt"))
-				.errorDecoder(new InstacountErrorDecoder(objectMapper))
-				.encoder(new JacksonEncoder(objectMapper))
-				.decoder(new InstacountJacksonDecoder(objectMapper))
-				.requestInterceptors(requestInterceptorsBuilder.build())
-				.target(InstacountFeign.class, instacountClientParams.getInstacountRootUrl()));
+				.errorDecoder(components.getErrorDecoder())
+				.encoder(components.getEncoder())
+				// Feign would retry every request after an I/O error, including non-idempotent increments, so retries
+				// are left to the RetryPolicy instead.
+				.retryer(new RetryPolicy.NeverRetryer())
+				.requestInterceptors(components.getRequestInterceptors());
+
+			// Only instrument the client when metrics are wanted, so that there is no overhead otherwise.
+			if (optInstacountMetrics.isPresent())
+			{
+				feignBuilder
+					.client(InstacountInstrumentation.instrument(params.getClient(), optInstacountMetrics.get()))
+					.decoder(InstacountInstrumentation.instrument(components.getDecoder(), optInstacountMetrics.get()))
+					.invocationHandlerFactory(InstacountInstrumentation.invocationHandlerFactory());
+			}
+			else
+			{
+				feignBuilder.client(params.getClient()).decoder(components.getDecoder());
+			}
+
+			Instacount instacount = new InstacountWrapper(feignBuilder.target(InstacountFeign.class,
+				params.getInstacountRootUrl()));
+
+			// Every retry attempt passes through the circuit breaker, which stops retries once it opens.
+			final Optional<InstacountCircuitBreaker> optCircuitBreaker = params.getCircuitBreaker();
+			if (optCircuitBreaker.isPresent())
+			{
+				instacount = new CircuitBreakingInstacount(instacount, optCircuitBreaker.get());
+			}
+
+			final RetryPolicy retryPolicy = params.getRetryPolicy();
+			return retryPolicy.getMaxAttempts() > 1 ? new RetryingInstacount(instacount, retryPolicy) : instacount;
 		}
 
 		/**
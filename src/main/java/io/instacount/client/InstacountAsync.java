@@ -0,0 +1,799 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import feign.Contract;
+import feign.Feign;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Request.Options;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Target;
+import feign.Target.HardCodedTarget;
+import feign.Util;
+import feign.codec.DecodeException;
+import feign.codec.Decoder;
+import feign.codec.Encoder;
+import feign.codec.ErrorDecoder;
+import io.instacount.client.Instacount.InstacountFeign;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.decoders.InstacountJacksonDecoder;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.http.AsyncClient;
+import io.instacount.client.http.TransportOptions;
+import io.instacount.client.metrics.InstacountInstrumentation;
+import io.instacount.client.metrics.InstacountMetrics;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.Errors.Error;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.ShardedCounterOperation;
+import io.instacount.client.model.shardedcounters.inputs.CreateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.UpdateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.CreateShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.DeleteShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterOperationResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCountersResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.UpdateShardedCounterResponse;
+
+/**
+ * A non-blocking client for interacting with the Instacount API. Every operation mirrors an operation on
+ * {@link Instacount}, but returns immediately with a {@link ListenableFuture} that is completed once the response has
+ * been received and decoded. Failures are reported through the future, typically as an
+ * {@link InstacountClientException}.
+ *
+ * @see "https://www.instacount.io"
+ * @see "https://instacount.readme.io/docs/api-clients"
+ */
+public interface InstacountAsync
+{
+	/**
+	 * Creates a new counter with a count of zero (0) and a unique "name" provided by Instacount.
+	 */
+	ListenableFuture<CreateShardedCounterResponse> createShardedCounter();
+
+	/**
+	 * Creates a new counter using data from the specified {@code createCounterInput}.
+	 *
+	 * @param createCounterInput An instance of {@link CreateShardedCounterInput}.
+	 */
+	ListenableFuture<CreateShardedCounterResponse> createShardedCounter(CreateShardedCounterInput createCounterInput);
+
+	/**
+	 * Gets the counter with the specified {@code counterName} from the Instacount API.
+	 *
+	 * @param counterName A {@link String} representing the name of the ShardedCounter resource.
+	 */
+	ListenableFuture<GetShardedCounterResponse> getShardedCounter(String counterName);
+
+	/**
+	 * Gets every counter in {@code counterNames} from the Instacount API, sending the requests in parallel (up to
+	 * {@link TransportOptions#getMaxRequestsPerHost()} at a time). The returned future never fails: the failure to
+	 * read a counter is reported for that counter in {@link GetShardedCountersResponse#getFailures()}. Once a response
+	 * reports that the access quota is exhausted, the counters that have not yet been requested fail with an HTTP 429
+	 * {@link InstacountClientException} instead of being sent.
+	 *
+	 * @param counterNames The names of the ShardedCounter resources. Duplicates are requested once.
+	 */
+	ListenableFuture<GetShardedCountersResponse> getShardedCounters(Collection<String> counterNames);
+
+	/**
+	 * Updates the counter named {@code counterName} using data from the specified {@code updateCounterInput}.
+	 *
+	 * @param counterName A {@link String} representing the name of the ShardedCounter resource.
+	 * @param updateCounterInput An instance of {@link UpdateShardedCounterInput}.
+	 */
+	ListenableFuture<UpdateShardedCounterResponse> updateShardedCounter(String counterName,
+			UpdateShardedCounterInput updateCounterInput);
+
+	/**
+	 * Deletes the counter named {@code counterName}.
+	 *
+	 * @param counterName A {@link String} representing the name of the ShardedCounter resource.
+	 */
+	ListenableFuture<DeleteShardedCounterResponse> deleteShardedCounter(String counterName);
+
+	/**
+	 * Increments the counter named {@code counterName} by 1.
+	 *
+	 * @param counterName
+	 */
+	ListenableFuture<IncrementShardedCounterResponse> incrementShardedCounter(String counterName);
+
+	/**
+	 * Decrements the counter named {@code counterName} by 1.
+	 *
+	 * @param counterName
+	 */
+	ListenableFuture<DecrementShardedCounterResponse> decrementShardedCounter(String counterName);
+
+	/**
+	 * Increments the counter named {@code counterName} by the amount specified in {@code amount}, using the specified
+	 * async characteristics.
+	 *
+	 * @param counterName A {@link String} representing the name of the counter to incrementShardedCounter.
+	 * @param incrementCounterInput An instance of {@link IncrementShardedCounterInput} for shaping the operation.
+	 */
+	ListenableFuture<IncrementShardedCounterResponse> incrementShardedCounter(String counterName,
+			IncrementShardedCounterInput incrementCounterInput);
+
+	/**
+	 * Decrements the counter named {@code counterName} by the amount specified in {@code amount}, using the specified
+	 * async characteristics.
+	 *
+	 * @param counterName A {@link String} representing the name of the counter to decrementShardedCounter.
+	 * @param decrementCounterInput An instance of {@link DecrementShardedCounterInput} for shaping the operation.
+	 */
+	ListenableFuture<DecrementShardedCounterResponse> decrementShardedCounter(String counterName,
+			DecrementShardedCounterInput decrementCounterInput);
+
+	/**
+	 * Get the {@link ShardedCounterOperation} for the specified inputs.
+	 *
+	 * @param counterName A {@link String} representing the name of the counter resource.
+	 * @param shardIndex The 0-based index of the shard this operation was performed against.
+	 * @param operationId A {@link String} representing the unique identifier of the operation being requested.
+	 */
+	ListenableFuture<GetShardedCounterOperationResponse> getShardedCounterOperation(String counterName,
+			Integer shardIndex, String operationId);
+
+	/**
+	 * A class for building instances of {@link InstacountAsync}.
+	 */
+	class Builder
+	{
+		/**
+		 * A default builder for creating an asynchronous instacount client that will interact with the Instacount API
+		 * using supplied credentials. Requests are executed by
+		 * {@link AbstractInstacountClientParams#getAsyncClient()}.
+		 *
+		 * @param instacountClientParams An instance of {@link InstacountClientParams} for providing custom
+		 *            authentication credentials and other information unique to each requestor.
+		 * @return An instance of {@link InstacountAsync} that can be used to make calls to the Instacount API.
+		 */
+		public static InstacountAsync build(final InstacountClientParams instacountClientParams,
+				final RequestInterceptor... additionalRequestInterceptors)
+		{
+			// Requests are built on the caller's thread (or a transport thread, for bulk reads), so they fail rather
+			// than wait for a quota permit.
+			final InstacountClientComponents components = new InstacountClientComponents(instacountClientParams,
+				false, additionalRequestInterceptors);
+			final AbstractInstacountClientParams params = components.getParams();
+
+			final TransportOptions transportOptions = params.getTransportOptions();
+			return new InstacountAsyncImpl(params.getAsyncClient(), transportOptions.toRequestOptions(),
+				transportOptions.getMaxRequestsPerHost(), components.getEncoder(), components.getDecoder(),
+				components.getErrorDecoder(), components.getRequestInterceptors(),
+				new HardCodedTarget<>(InstacountFeign.class, params.getInstacountRootUrl()),
+				components.getOptInstacountMetrics());
+		}
+
+		/**
+		 * The default implementation of {@link InstacountAsync}. Requests are built from the same annotated
+		 * {@link InstacountFeign} interface used by the synchronous client, so both clients always agree on the shape
+		 * of the Instacount API.
+		 */
+		private static class InstacountAsyncImpl implements InstacountAsync
+		{
+			private final AsyncClient asyncClient;
+			private final Options options;
+			private final int maxConcurrentReads;
+			private final Encoder encoder;
+			private final ErrorDecoder errorDecoder;
+			private final List<RequestInterceptor> requestInterceptors;
+			private final Target<InstacountFeign> target;
+			private final Map<String, MethodMetadata> methodMetadata;
+			private final Map<String, Decoder> methodDecoders;
+			private final Optional<InstacountMetrics> optInstacountMetrics;
+
+			/**
+			 * Required-args Constructor.
+			 */
+			private InstacountAsyncImpl(final AsyncClient asyncClient, final Options options,
+					final int maxConcurrentReads, final Encoder encoder, final InstacountJacksonDecoder decoder,
+					final ErrorDecoder errorDecoder, final List<RequestInterceptor> requestInterceptors,
+					final Target<InstacountFeign> target, final Optional<InstacountMetrics> optInstacountMetrics)
+			{
+				Preconditions.checkArgument(maxConcurrentReads > 0, "maxConcurrentReads must be positive!");
+
+				this.asyncClient = Preconditions.checkNotNull(asyncClient);
+				this.options = Preconditions.checkNotNull(options);
+				this.maxConcurrentReads = maxConcurrentReads;
+				this.encoder = Preconditions.checkNotNull(encoder);
+				Preconditions.checkNotNull(decoder);
+				this.errorDecoder = Preconditions.checkNotNull(errorDecoder);
+				this.requestInterceptors = Preconditions.checkNotNull(requestInterceptors);
+				this.target = Preconditions.checkNotNull(target);
+				this.optInstacountMetrics = Preconditions.checkNotNull(optInstacountMetrics);
+
+				// Parse the request templates, and resolve the decoder of each response type, once up front.
+				final Map<String, MethodMetadata> metadataByConfigKey = Maps.newHashMap();
+				for (final MethodMetadata metadata : new Contract.Default().parseAndValidatateMetadata(target.type()))
+				{
+					metadataByConfigKey.put(metadata.configKey(), metadata);
+				}
+				final ImmutableMap.Builder<String, MethodMetadata> methodMetadataBuilder = ImmutableMap.builder();
+				final ImmutableMap.Builder<String, Decoder> methodDecodersBuilder = ImmutableMap.builder();
+				for (final Method method : target.type().getMethods())
+				{
+					final String methodKey = methodKey(method.getName(), method.getParameterTypes());
+					final MethodMetadata metadata = metadataByConfigKey.get(Feign.configKey(target.type(), method));
+					methodMetadataBuilder.put(methodKey, metadata);
+					methodDecodersBuilder.put(methodKey, decoder.decoderFor(metadata.returnType()));
+				}
+				this.methodMetadata = methodMetadataBuilder.build();
+				this.methodDecoders = methodDecodersBuilder.build();
+			}
+
+			@Override
+			public ListenableFuture<CreateShardedCounterResponse> createShardedCounter()
+			{
+				return this.invoke("createShardedCounter", new Class<?>[] {});
+			}
+
+			@Override
+			public ListenableFuture<CreateShardedCounterResponse> createShardedCounter(
+					final CreateShardedCounterInput createCounterInput)
+			{
+				Preconditions.checkNotNull(createCounterInput);
+				return this.invoke("createShardedCounter", new Class<?>[] {CreateShardedCounterInput.class },
+					createCounterInput);
+			}
+
+			@Override
+			public ListenableFuture<GetShardedCounterResponse> getShardedCounter(final String counterName)
+			{
+				this.validateCounterName(counterName);
+				return this.invoke("getShardedCounter", new Class<?>[] {String.class }, counterName);
+			}
+
+			@Override
+			public ListenableFuture<GetShardedCountersResponse> getShardedCounters(
+					final Collection<String> counterNames)
+			{
+				Preconditions.checkNotNull(counterNames);
+				final Set<String> distinctCounterNames = ImmutableSet.copyOf(counterNames);
+				for (final String counterName : distinctCounterNames)
+				{
+					this.validateCounterName(counterName);
+				}
+				return new BulkReadFuture(this, distinctCounterNames, maxConcurrentReads);
+			}
+
+			@Override
+			public ListenableFuture<UpdateShardedCounterResponse> updateShardedCounter(final String counterName,
+					final UpdateShardedCounterInput updateCounterInput)
+			{
+				this.validateCounterName(counterName);
+				Preconditions.checkNotNull(updateCounterInput);
+				return this.invoke("updateShardedCounter",
+					new Class<?>[] {String.class, UpdateShardedCounterInput.class }, counterName, updateCounterInput);
+			}
+
+			@Override
+			public ListenableFuture<DeleteShardedCounterResponse> deleteShardedCounter(final String counterName)
+			{
+				this.validateCounterName(counterName);
+				return this.invoke("deleteShardedCounter", new Class<?>[] {String.class }, counterName);
+			}
+
+			@Override
+			public ListenableFuture<IncrementShardedCounterResponse> incrementShardedCounter(final String counterName)
+			{
+				this.validateCounterName(counterName);
+				return this.invoke("incrementShardedCounter", new Class<?>[] {String.class }, counterName);
+			}
+
+			@Override
+			public ListenableFuture<DecrementShardedCounterResponse> decrementShardedCounter(final String counterName)
+			{
+				this.validateCounterName(counterName);
+				return this.invoke("decrementShardedCounter", new Class<?>[] {String.class }, counterName);
+			}
+
+			@Override
+			public ListenableFuture<IncrementShardedCounterResponse> incrementShardedCounter(final String counterName,
+					final IncrementShardedCounterInput incrementCounterInput)
+			{
+				this.validateCounterName(counterName);
+				Preconditions.checkNotNull(incrementCounterInput);
+				return this.invoke("incrementShardedCounter",
+					new Class<?>[] {String.class, IncrementShardedCounterInput.class }, counterName,
+					incrementCounterInput);
+			}
+
+			@Override
+			public ListenableFuture<DecrementShardedCounterResponse> decrementShardedCounter(final String counterName,
+					final DecrementShardedCounterInput decrementCounterInput)
+			{
+				this.validateCounterName(counterName);
+				Preconditions.checkNotNull(decrementCounterInput);
+				return this.invoke("decrementShardedCounter",
+					new Class<?>[] {String.class, DecrementShardedCounterInput.class }, counterName,
+					decrementCounterInput);
+			}
+
+			@Override
+			public ListenableFuture<GetShardedCounterOperationResponse> getShardedCounterOperation(
+					final String counterName, final Integer shardIndex, final String operationId)
+			{
+				this.validateCounterName(counterName);
+				Preconditions.checkNotNull(shardIndex);
+				Preconditions.checkNotNull(operationId);
+				this.validateCounterName(operationId);
+				return this.invoke("getShardedCounterOperation",
+					new Class<?>[] {String.class, Integer.class, String.class }, counterName, shardIndex,
+					operationId);
+			}
+
+			//////////////////
+			// Private Helpers
+			//////////////////
+
+			/**
+			 * Build the request for the {@link InstacountFeign} method identified by {@code methodName} and
+			 * {@code parameterTypes}, hand it to the {@link AsyncClient}, and decode the eventual response.
+			 *
+			 * @param methodName
+			 * @param parameterTypes
+			 * @param args
+			 * @return
+			 */
+			private <T> ListenableFuture<T> invoke(final String methodName, final Class<?>[] parameterTypes,
+					final Object... args)
+			{
+				final String methodKey = methodKey(methodName, parameterTypes);
+				final MethodMetadata metadata = methodMetadata.get(methodKey);
+				Preconditions.checkState(metadata != null, "No Feign method found for %s", methodName);
+
+				final Request request;
+				try
+				{
+					request = this.toRequest(metadata, args);
+				}
+				catch (RuntimeException e)
+				{
+					return Futures.immediateFailedFuture(e);
+				}
+
+				if (optInstacountMetrics.isPresent())
+				{
+					final InstacountMetrics instacountMetrics = optInstacountMetrics.get();
+					return new DecodingFuture<>(InstacountInstrumentation.execute(asyncClient, request, options,
+						metadata.configKey(), instacountMetrics), metadata, InstacountInstrumentation.instrument(
+						methodDecoders.get(methodKey), metadata.configKey(), instacountMetrics), errorDecoder);
+				}
+				return new DecodingFuture<>(asyncClient.execute(request, options), metadata,
+					methodDecoders.get(methodKey), errorDecoder);
+			}
+
+			/**
+			 * Helper to construct a {@link Request} by resolving the request template of {@code metadata} against
+			 * {@code args}, encoding any body, and applying every {@link RequestInterceptor}.
+			 *
+			 * @param metadata
+			 * @param args
+			 * @return
+			 */
+			private Request toRequest(final MethodMetadata metadata, final Object[] args)
+			{
+				final RequestTemplate requestTemplate = new RequestTemplate(metadata.template());
+
+				final Map<String, Object> variables = Maps.newLinkedHashMap();
+				for (final Map.Entry<Integer, Collection<String>> entry : metadata.indexToName().entrySet())
+				{
+					for (final String name : entry.getValue())
+					{
+						variables.put(name, args[entry.getKey()]);
+					}
+				}
+				requestTemplate.resolve(variables);
+
+				if (metadata.bodyIndex() != null)
+				{
+					encoder.encode(args[metadata.bodyIndex()], metadata.bodyType(), requestTemplate);
+				}
+
+				for (final RequestInterceptor requestInterceptor : requestInterceptors)
+				{
+					requestInterceptor.apply(requestTemplate);
+				}
+
+				return target.apply(new RequestTemplate(requestTemplate));
+			}
+
+			/**
+			 * Helper method to validate the name of the counter being operated upon.
+			 *
+			 * @param counterName
+			 */
+			private void validateCounterName(final String counterName)
+			{
+				Preconditions.checkNotNull(counterName);
+				Preconditions.checkArgument(counterName.length() > 0);
+			}
+
+			/**
+			 * Helper to construct a lookup key for a method.
+			 *
+			 * @param methodName
+			 * @param parameterTypes
+			 * @return
+			 */
+			private static String methodKey(final String methodName, final Class<?>[] parameterTypes)
+			{
+				final StringBuilder methodKey = new StringBuilder(methodName);
+				for (final Class<?> parameterType : parameterTypes)
+				{
+					methodKey.append(',').append(parameterType.getName());
+				}
+				return methodKey.toString();
+			}
+		}
+
+		/**
+		 * An implementation of {@link ListenableFuture} that reads several counters, keeping at most
+		 * {@code maxConcurrentReads} requests in flight, and completes once every counter has either been read or
+		 * has failed.
+		 */
+		private static class BulkReadFuture extends AbstractFuture<GetShardedCountersResponse>
+		{
+			private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+			private final InstacountAsync instacountAsync;
+			private final Iterator<String> unsentCounterNames;
+			private final AtomicInteger numIncomplete;
+			private final Map<String, GetShardedCounterResponse> responses;
+			private final Map<String, Throwable> failures;
+			private final Set<ListenableFuture<GetShardedCounterResponse>> inFlight;
+			// The number of sends requested but not yet made. Only the caller that raises it from zero makes sends, so
+			// that completions on the sending thread queue up another send instead of recursing into it.
+			private final AtomicInteger numSendsRequested;
+
+			private volatile boolean quotaExhausted;
+
+			/**
+			 * Required-args Constructor. Sends the first {@code maxConcurrentReads} requests.
+			 */
+			private BulkReadFuture(final InstacountAsync instacountAsync, final Set<String> counterNames,
+					final int maxConcurrentReads)
+			{
+				this.instacountAsync = instacountAsync;
+				this.unsentCounterNames = counterNames.iterator();
+				this.numIncomplete = new AtomicInteger(counterNames.size());
+				this.responses = new ConcurrentHashMap<>();
+				this.failures = new ConcurrentHashMap<>();
+				this.inFlight = Collections
+					.newSetFromMap(new ConcurrentHashMap<ListenableFuture<GetShardedCounterResponse>, Boolean>());
+				this.numSendsRequested = new AtomicInteger();
+
+				if (counterNames.isEmpty())
+				{
+					this.set(new GetShardedCountersResponse(responses, failures));
+				}
+				for (int i = 0; i < maxConcurrentReads; i++)
+				{
+					this.sendNext();
+				}
+			}
+
+			@Override
+			public GetShardedCountersResponse get() throws InterruptedException, ExecutionException
+			{
+				// Wait on each in-flight request in turn, for transports that only make progress while waited upon.
+				while (!this.isDone())
+				{
+					final ListenableFuture<GetShardedCounterResponse> future = Iterables.getFirst(inFlight, null);
+					if (future == null)
+					{
+						break;
+					}
+					try
+					{
+						future.get();
+					}
+					catch (ExecutionException e)
+					{
+						// Reported through this future by the callback.
+					}
+				}
+				return super.get();
+			}
+
+			/**
+			 * Cancel this future, and every request in flight. No further requests are sent.
+			 */
+			@Override
+			public boolean cancel(final boolean mayInterruptIfRunning)
+			{
+				if (!super.cancel(mayInterruptIfRunning))
+				{
+					return false;
+				}
+				for (final ListenableFuture<GetShardedCounterResponse> future : inFlight)
+				{
+					future.cancel(mayInterruptIfRunning);
+				}
+				return true;
+			}
+
+			/**
+			 * Send the request for the next unsent counter, if any. Once the access quota is exhausted, unsent
+			 * counters fail immediately instead. If another send is already under way, on this thread or another, it
+			 * makes this send too once it is done.
+			 */
+			private void sendNext()
+			{
+				if (numSendsRequested.getAndIncrement() != 0)
+				{
+					return;
+				}
+				do
+				{
+					this.send();
+				}
+				while (numSendsRequested.decrementAndGet() != 0);
+			}
+
+			/**
+			 * Send the request for the next unsent counter, if any, or fail it immediately if the access quota is
+			 * exhausted. Nothing is sent once this future is cancelled.
+			 */
+			private void send()
+			{
+				if (this.isCancelled())
+				{
+					return;
+				}
+
+				final String counterName;
+				synchronized (unsentCounterNames)
+				{
+					if (!unsentCounterNames.hasNext())
+					{
+						return;
+					}
+					counterName = unsentCounterNames.next();
+				}
+
+				if (quotaExhausted)
+				{
+					this.onFailure(counterName, new InstacountClientException(new Errors(HTTP_TOO_MANY_REQUESTS,
+						ImmutableList.of(new Error("Too many requests.",
+							"The access quota was exhausted before this counter could be requested.", "")))));
+					return;
+				}
+
+				final ListenableFuture<GetShardedCounterResponse> future = instacountAsync
+					.getShardedCounter(counterName);
+				inFlight.add(future);
+				if (this.isCancelled())
+				{
+					// Cancelled while sending, so cancel() may have missed this request...
+					future.cancel(false);
+				}
+				Futures.addCallback(future, new FutureCallback<GetShardedCounterResponse>()
+				{
+					@Override
+					public void onSuccess(final GetShardedCounterResponse response)
+					{
+						inFlight.remove(future);
+						final Quota quota = response.getQuota();
+						if (quota.getNumAccessRequestsLimit() > 0 && quota.getNumAccessRequestsRemaining() <= 0)
+						{
+							quotaExhausted = true;
+						}
+						responses.put(counterName, response);
+						complete();
+					}
+
+					@Override
+					public void onFailure(final Throwable t)
+					{
+						inFlight.remove(future);
+						BulkReadFuture.this.onFailure(counterName, t);
+					}
+				}, MoreExecutors.directExecutor());
+			}
+
+			/**
+			 * Record the failure to read {@code counterName}.
+			 *
+			 * @param counterName
+			 * @param t
+			 */
+			private void onFailure(final String counterName, final Throwable t)
+			{
+				if (t instanceof InstacountClientException
+					&& ((InstacountClientException) t).getErrors().getHttpResponseCode() == HTTP_TOO_MANY_REQUESTS)
+				{
+					quotaExhausted = true;
+				}
+				failures.put(counterName, t);
+				this.complete();
+			}
+
+			/**
+			 * Count one more counter as complete, and either send the next request or, if every counter is complete,
+			 * complete this future.
+			 */
+			private void complete()
+			{
+				if (numIncomplete.decrementAndGet() == 0)
+				{
+					this.set(new GetShardedCountersResponse(responses, failures));
+				}
+				else
+				{
+					this.sendNext();
+				}
+			}
+		}
+
+		/**
+		 * An implementation of {@link ListenableFuture} that decodes the {@link Response} of an underlying future
+		 * once it completes. Decoding happens on the thread that completes the underlying future, or on the thread
+		 * calling {@link #get()} if the underlying future only completes when it is waited upon.
+		 */
+		private static class DecodingFuture<T> extends AbstractFuture<T>
+		{
+			private final ListenableFuture<Response> responseFuture;
+			private final MethodMetadata metadata;
+			private final Decoder decoder;
+			private final ErrorDecoder errorDecoder;
+
+			/**
+			 * Required-args Constructor.
+			 */
+			private DecodingFuture(final ListenableFuture<Response> responseFuture, final MethodMetadata metadata,
+					final Decoder decoder, final ErrorDecoder errorDecoder)
+			{
+				this.responseFuture = Preconditions.checkNotNull(responseFuture);
+				this.metadata = Preconditions.checkNotNull(metadata);
+				this.decoder = Preconditions.checkNotNull(decoder);
+				this.errorDecoder = Preconditions.checkNotNull(errorDecoder);
+
+				Futures.addCallback(responseFuture, new FutureCallback<Response>()
+				{
+					@Override
+					public void onSuccess(final Response response)
+					{
+						decode(response);
+					}
+
+					@Override
+					public void onFailure(final Throwable t)
+					{
+						setException(t);
+					}
+				}, MoreExecutors.directExecutor());
+			}
+
+			@Override
+			public T get() throws InterruptedException, ExecutionException
+			{
+				this.awaitResponse();
+				return super.get();
+			}
+
+			@Override
+			public T get(final long timeout, final TimeUnit unit)
+					throws InterruptedException, TimeoutException, ExecutionException
+			{
+				// Both waits share one deadline, so that the caller never waits longer than requested.
+				final long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+				try
+				{
+					responseFuture.get(timeout, unit);
+				}
+				catch (ExecutionException e)
+				{
+					// Reported through this future by the callback.
+				}
+				return super.get(Math.max(0L, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+			}
+
+			@Override
+			public boolean cancel(final boolean mayInterruptIfRunning)
+			{
+				responseFuture.cancel(mayInterruptIfRunning);
+				return super.cancel(mayInterruptIfRunning);
+			}
+
+			/**
+			 * Wait for the underlying future, which gives transports that only make progress while being waited upon
+			 * the chance to complete it.
+			 */
+			private void awaitResponse() throws InterruptedException
+			{
+				try
+				{
+					responseFuture.get();
+				}
+				catch (ExecutionException e)
+				{
+					// Reported through this future by the callback.
+				}
+			}
+
+			/**
+			 * Decode {@code response} according to its HTTP status, mirroring Feign's synchronous method handler.
+			 *
+			 * @param response
+			 */
+			@SuppressWarnings("unchecked")
+			private void decode(final Response response)
+			{
+				try
+				{
+					if (response.status() >= 200 && response.status() < 300)
+					{
+						this.set((T) decoder.decode(response, metadata.returnType()));
+					}
+					else
+					{
+						this.setException(errorDecoder.decode(metadata.configKey(), response));
+					}
+				}
+				catch (IOException e)
+				{
+					this.setException(new DecodeException(e.getMessage(), e));
+				}
+				catch (RuntimeException e)
+				{
+					this.setException(e);
+				}
+				finally
+				{
+					if (response.body() != null)
+					{
+						Util.ensureClosed(response.body());
+					}
+				}
+			}
+		}
+	}
+}
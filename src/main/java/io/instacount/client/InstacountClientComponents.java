@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import feign.RequestInterceptor;
+import io.instacount.client.Instacount.InstacountFeign;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.decoders.InstacountErrorDecoder;
+import io.instacount.client.decoders.InstacountJacksonDecoder;
+import io.instacount.client.encoders.InstacountJacksonEncoder;
+import io.instacount.client.interceptors.CompiledRequestInterceptor;
+import io.instacount.client.interceptors.GzipRequestInterceptor;
+import io.instacount.client.interceptors.InstacountVersionRequestInterceptor;
+import io.instacount.client.jackson.InstacountClientObjectMapper;
+import io.instacount.client.jackson.WireFormat;
+import io.instacount.client.metrics.InstacountMetrics;
+import io.instacount.client.quota.QuotaListener;
+import io.instacount.client.quota.QuotaThrottle;
+
+/**
+ * The codecs and request interceptors shared by {@link Instacount.Builder} and {@link InstacountAsync.Builder}, so that
+ * the synchronous and asynchronous clients are always configured alike.
+ */
+final class InstacountClientComponents
+{
+	private final AbstractInstacountClientParams params;
+	private final InstacountJacksonEncoder encoder;
+	private final InstacountJacksonDecoder decoder;
+	private final InstacountErrorDecoder errorDecoder;
+	private final List<RequestInterceptor> requestInterceptors;
+	private final Optional<InstacountMetrics> optInstacountMetrics;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param instacountClientParams An instance of {@link InstacountClientParams} for providing custom authentication
+	 *            credentials and other information unique to each requestor.
+	 * @param blockingQuotaThrottle Set to {@code true} for requests to wait for a permit of the {@link QuotaThrottle}
+	 *            (if any). Set to {@code false} for them to fail instead.
+	 * @param additionalRequestInterceptors Applied after the credentials, and before compression and quota pacing.
+	 */
+	InstacountClientComponents(final InstacountClientParams instacountClientParams,
+			final boolean blockingQuotaThrottle, final RequestInterceptor... additionalRequestInterceptors)
+	{
+		// Settings other than credentials are only configurable by extending AbstractInstacountClientParams.
+		this.params = AbstractInstacountClientParams.withDefaults(instacountClientParams);
+
+		final ObjectMapper objectMapper = new InstacountClientObjectMapper();
+		// Request bodies are written in the configured format; responses are read in whatever format they arrive.
+		final WireFormat wireFormat = params.getWireFormat();
+		this.encoder = new InstacountJacksonEncoder(wireFormat == WireFormat.JSON ? objectMapper
+			: new InstacountClientObjectMapper(wireFormat));
+		this.errorDecoder = new InstacountErrorDecoder(objectMapper);
+
+		final ImmutableList.Builder<RequestInterceptor> requestInterceptorsBuilder = ImmutableList.builder();
+		if (params.isDynamicCredentials())
+		{
+			requestInterceptorsBuilder.add(new InstacountVersionRequestInterceptor.Impl(wireFormat));
+			requestInterceptorsBuilder.add(params);
+		}
+		else
+		{
+			requestInterceptorsBuilder.add(CompiledRequestInterceptor.compile(wireFormat, params));
+		}
+		requestInterceptorsBuilder.add(Preconditions.checkNotNull(additionalRequestInterceptors));
+		// Compress last, once every other interceptor has had the chance to change the body.
+		final Optional<GzipRequestInterceptor> optGzipRequestInterceptor = params.getGzipRequestInterceptor();
+		if (optGzipRequestInterceptor.isPresent())
+		{
+			requestInterceptorsBuilder.add(optGzipRequestInterceptor.get());
+		}
+
+		// Pace requests against the remaining quota, as reported by every decoded response.
+		final Optional<QuotaThrottle> optQuotaThrottle = params.getQuotaThrottle();
+		this.optInstacountMetrics = params.getInstacountMetrics();
+		final ImmutableList.Builder<QuotaListener> quotaListenersBuilder = ImmutableList.builder();
+		if (optQuotaThrottle.isPresent())
+		{
+			requestInterceptorsBuilder.add(blockingQuotaThrottle ? optQuotaThrottle.get() : optQuotaThrottle.get()
+				.nonBlocking());
+			quotaListenersBuilder.add(optQuotaThrottle.get());
+		}
+		if (optInstacountMetrics.isPresent())
+		{
+			quotaListenersBuilder.add(optInstacountMetrics.get());
+		}
+		this.requestInterceptors = requestInterceptorsBuilder.build();
+
+		// Resolve the decoder of every response type now, which also fails fast if any of them cannot be decoded.
+		this.decoder = new InstacountJacksonDecoder(objectMapper, new QuotaListener.Composite(
+			quotaListenersBuilder.build()), params.getResponseDecoderRegistry(), InstacountFeign.class);
+	}
+
+	/**
+	 * Return the {@link AbstractInstacountClientParams} the components were assembled from.
+	 *
+	 * @return
+	 */
+	AbstractInstacountClientParams getParams()
+	{
+		return params;
+	}
+
+	/**
+	 * Return the encoder of request bodies, in the configured {@link WireFormat}.
+	 *
+	 * @return
+	 */
+	InstacountJacksonEncoder getEncoder()
+	{
+		return encoder;
+	}
+
+	/**
+	 * Return the decoder of successful responses, which also notifies the {@link QuotaThrottle} and
+	 * {@link InstacountMetrics} (if any) of the quota of each response.
+	 *
+	 * @return
+	 */
+	InstacountJacksonDecoder getDecoder()
+	{
+		return decoder;
+	}
+
+	/**
+	 * Return the decoder of error responses.
+	 *
+	 * @return
+	 */
+	InstacountErrorDecoder getErrorDecoder()
+	{
+		return errorDecoder;
+	}
+
+	/**
+	 * Return the request interceptors, in the order they should be applied.
+	 *
+	 * @return
+	 */
+	List<RequestInterceptor> getRequestInterceptors()
+	{
+		return requestInterceptors;
+	}
+
+	/**
+	 * Return the {@link InstacountMetrics} that should be notified of every call, if any.
+	 *
+	 * @return
+	 */
+	Optional<InstacountMetrics> getOptInstacountMetrics()
+	{
+		return optInstacountMetrics;
+	}
+}
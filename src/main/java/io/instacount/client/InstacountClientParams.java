@@ -12,16 +12,32 @@
  */
 package io.instacount.client;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 
 import feign.Client;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
-import feign.okhttp.OkHttpClient;
 import io.instacount.client.Constants.Links;
+import io.instacount.client.circuitbreaker.InstacountCircuitBreaker;
+import io.instacount.client.decoders.ResponseDecoderRegistry;
+import io.instacount.client.http.AsyncClient;
+import io.instacount.client.http.OkHttpTransport;
+import io.instacount.client.http.TransportOptions;
+import io.instacount.client.interceptors.CompiledRequestInterceptor;
+import io.instacount.client.interceptors.GzipRequestInterceptor;
+import io.instacount.client.jackson.WireFormat;
+import io.instacount.client.metrics.InstacountMetrics;
+import io.instacount.client.quota.QuotaThrottle;
+import io.instacount.client.retry.RetryPolicy;
 
 /**
  * An implementation of {@link RequestInterceptor} for supplying proper Instacount Authentication headers.
+ * <p>
+ * Extend {@link AbstractInstacountClientParams} to configure the transport, quota, metrics, retries and other settings
+ * of a client. Clients built from any other implementation use the defaults of {@link AbstractInstacountClientParams}.
  */
 public interface InstacountClientParams extends RequestInterceptor
 {
@@ -81,6 +97,9 @@ public interface InstacountClientParams extends RequestInterceptor
 	{
 		private final boolean readOnly;
 
+		// Created on first use, so that subclasses may override getTransportOptions().
+		private final Supplier<OkHttpTransport> transportSupplier;
+
 		/**
 		 * Required-args constructor.
 		 * 
@@ -90,6 +109,33 @@ public interface InstacountClientParams extends RequestInterceptor
 		protected AbstractInstacountClientParams(final boolean readOnly)
 		{
 			this.readOnly = readOnly;
+			this.transportSupplier = Suppliers.memoize(new Supplier<OkHttpTransport>()
+			{
+				@Override
+				public OkHttpTransport get()
+				{
+					return new OkHttpTransport(getTransportOptions());
+				}
+			});
+		}
+
+		/**
+		 * Return {@code instacountClientParams} itself if it extends {@link AbstractInstacountClientParams}. Otherwise,
+		 * return an {@link AbstractInstacountClientParams} that takes its headers, client identifier, root URL and
+		 * {@link Client} from {@code instacountClientParams}, and the default of every other setting. Since the headers
+		 * of such an implementation are not known to be fixed, they are applied again to every request.
+		 *
+		 * @param instacountClientParams
+		 * @return
+		 */
+		static AbstractInstacountClientParams withDefaults(final InstacountClientParams instacountClientParams)
+		{
+			Preconditions.checkNotNull(instacountClientParams);
+			if (instacountClientParams instanceof AbstractInstacountClientParams)
+			{
+				return (AbstractInstacountClientParams) instacountClientParams;
+			}
+			return new DefaultInstacountClientParams(instacountClientParams);
 		}
 
 		@Override
@@ -142,10 +188,220 @@ public interface InstacountClientParams extends RequestInterceptor
 			return Links.API_URL;
 		}
 
+		/**
+		 * Returns a {@link Client} backed by the connection pool of {@link #getTransport()}, which is shared by every
+		 * client built from this instance.
+		 *
+		 * @return
+		 */
 		@Override
 		public Client getClient()
 		{
-			return new OkHttpClient();
+			return this.getTransport().getClient();
+		}
+
+		/**
+		 * The {@link AsyncClient} that the non-blocking Instacount API client should use. By default, an
+		 * {@link AsyncClient} backed by the connection pool of {@link #getTransport()}, which is shared by every client
+		 * built from this instance.
+		 *
+		 * @return
+		 *
+		 * @see InstacountAsync
+		 */
+		public AsyncClient getAsyncClient()
+		{
+			return this.getTransport().getAsyncClient();
+		}
+
+		/**
+		 * The {@link TransportOptions} that configure connection pooling, request concurrency, and timeouts for the
+		 * Instacount API client.
+		 *
+		 * @return
+		 */
+		public TransportOptions getTransportOptions()
+		{
+			return new TransportOptions();
+		}
+
+		/**
+		 * Return the {@link OkHttpTransport} shared by the clients of this instance, for example to inspect its
+		 * connection pool statistics.
+		 *
+		 * @return
+		 */
+		public OkHttpTransport getTransport()
+		{
+			return transportSupplier.get();
+		}
+
+		/**
+		 * The {@link QuotaThrottle} used to pace requests so that the remaining Instacount quota lasts until the end of
+		 * the quota window, if any. Return the same instance from every call, and share it between every client of the
+		 * same Instacount application.
+		 *
+		 * @return
+		 */
+		public Optional<QuotaThrottle> getQuotaThrottle()
+		{
+			return Optional.absent();
+		}
+
+		/**
+		 * The {@link ResponseDecoderRegistry} used to decode every response type of the Instacount API client. Override
+		 * to replace a built-in response decoder.
+		 *
+		 * @return
+		 */
+		public ResponseDecoderRegistry getResponseDecoderRegistry()
+		{
+			return ResponseDecoderRegistry.defaults();
+		}
+
+		/**
+		 * The {@link InstacountMetrics} that should be notified of the latency, status and size of every call made by
+		 * the Instacount API client, if any. When absent, clients are built without any instrumentation.
+		 *
+		 * @return
+		 */
+		public Optional<InstacountMetrics> getInstacountMetrics()
+		{
+			return Optional.absent();
+		}
+
+		/**
+		 * The {@link RetryPolicy} used to retry idempotent calls of the Instacount API client that fail with an I/O
+		 * error or a transient server error. Increments, decrements, creates and deletes are never retried. Return
+		 * {@link RetryPolicy#NEVER} to disable retries.
+		 * <p>
+		 * Only applies to the synchronous {@link Instacount} client. Calls of an {@link InstacountAsync} client are
+		 * never retried.
+		 *
+		 * @return
+		 */
+		public RetryPolicy getRetryPolicy()
+		{
+			return new RetryPolicy();
+		}
+
+		/**
+		 * The {@link InstacountCircuitBreaker} used to fail fast while the Instacount API is failing or slow, if any.
+		 * Return the same instance from every call, and share it between every client of the same Instacount
+		 * application.
+		 * <p>
+		 * Only applies to the synchronous {@link Instacount} client. Calls of an {@link InstacountAsync} client are
+		 * never guarded by a circuit breaker.
+		 *
+		 * @return
+		 */
+		public Optional<InstacountCircuitBreaker> getCircuitBreaker()
+		{
+			return Optional.absent();
+		}
+
+		/**
+		 * The {@link GzipRequestInterceptor} used to negotiate gzip-encoded responses and to compress large request
+		 * bodies, if any. When absent, requests and responses are sent as-is (although the underlying transport may
+		 * still negotiate compression on its own).
+		 *
+		 * @return
+		 */
+		public Optional<GzipRequestInterceptor> getGzipRequestInterceptor()
+		{
+			return Optional.absent();
+		}
+
+		/**
+		 * The {@link WireFormat} in which request bodies are sent, and in which response bodies are preferred.
+		 * Responses are always accepted in JSON too, and each one is read according to its {@code Content-Type}.
+		 *
+		 * @return
+		 */
+		public WireFormat getWireFormat()
+		{
+			return WireFormat.JSON;
+		}
+
+		/**
+		 * Return {@code true} if the headers set by {@link #apply(RequestTemplate)} may change while a client built
+		 * from this instance is in use (for example, because API keys are rotated at runtime). Every request then calls
+		 * {@link #apply(RequestTemplate)} again. Otherwise, the headers are resolved once, when the client is built, by
+		 * a {@link CompiledRequestInterceptor}.
+		 *
+		 * @return
+		 */
+		public boolean isDynamicCredentials()
+		{
+			return false;
+		}
+
+		/**
+		 * An {@link AbstractInstacountClientParams} that delegates the methods of {@link InstacountClientParams} to an
+		 * implementation that does not extend {@link AbstractInstacountClientParams}.
+		 */
+		private static class DefaultInstacountClientParams extends AbstractInstacountClientParams
+		{
+			private final InstacountClientParams delegate;
+
+			/**
+			 * Required-args Constructor.
+			 *
+			 * @param delegate The {@link InstacountClientParams} to delegate to.
+			 */
+			private DefaultInstacountClientParams(final InstacountClientParams delegate)
+			{
+				super(false);
+				this.delegate = Preconditions.checkNotNull(delegate);
+			}
+
+			@Override
+			public void apply(final RequestTemplate requestTemplate)
+			{
+				delegate.apply(requestTemplate);
+			}
+
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return delegate.getInstacountApplicationId();
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return delegate.getInstacountReadOnlyApplicationKey();
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return delegate.getInstacountReadWriteApplicationKey();
+			}
+
+			@Override
+			public String getClientIdentifier()
+			{
+				return delegate.getClientIdentifier();
+			}
+
+			@Override
+			public String getInstacountRootUrl()
+			{
+				return delegate.getInstacountRootUrl();
+			}
+
+			@Override
+			public Client getClient()
+			{
+				return delegate.getClient();
+			}
+
+			@Override
+			public boolean isDynamicCredentials()
+			{
+				return true;
+			}
 		}
 	}
 }
@@ -0,0 +1,316 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+
+/**
+ * A circuit breaker that stops sending calls to the Instacount API while it is failing or slow, so that callers fail
+ * fast instead of waiting out the full connect and read timeouts.
+ * <p>
+ * While {@link State#CLOSED}, the outcome of the last {@code windowSize} calls is kept. Once the window is full, the
+ * breaker opens if the fraction of failed calls reaches the failure rate threshold, or if the fraction of calls that
+ * took longer than the slow call duration reaches the slow call rate threshold. While {@link State#OPEN}, every call
+ * is rejected. After the open duration, the breaker becomes {@link State#HALF_OPEN} and lets {@code numProbeRequests}
+ * calls through: if they all succeed in time it closes again, and otherwise it re-opens.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class CircuitBreaker
+{
+	private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+
+	/**
+	 * The state of a {@link CircuitBreaker}.
+	 */
+	public enum State
+	{
+		/**
+		 * Calls are permitted, and their outcomes recorded.
+		 */
+		CLOSED,
+
+		/**
+		 * Calls are rejected.
+		 */
+		OPEN,
+
+		/**
+		 * A limited number of probe calls are permitted, to determine whether the breaker can close again.
+		 */
+		HALF_OPEN
+	}
+
+	// The outcomes recorded in the window.
+	private static final byte SUCCESS = 0;
+	private static final byte SLOW = 1;
+	private static final byte FAILURE = 2;
+
+	private final String name;
+	private final double failureRateThreshold;
+	private final long slowCallDurationNanos;
+	private final double slowCallRateThreshold;
+	private final long openDurationNanos;
+	private final int numProbeRequests;
+	private final Ticker ticker;
+
+	private final byte[] window;
+	private final AtomicLong numRejectedCalls;
+
+	// Guarded by this.
+	private State state;
+	private int numCalls;
+	private int nextIndex;
+	private int numFailures;
+	private int numSlowCalls;
+	private long openedAtNanos;
+	private int numProbesRemaining;
+	private int numProbesSucceeded;
+
+	/**
+	 * Required-args Constructor, using the defaults: a window of 20 calls, opening when half of them failed or when
+	 * 80% of them took longer than 5 seconds, staying open for 30 seconds, and closing after 3 successful probes.
+	 *
+	 * @param name The name of this breaker, used in logs and in {@code CircuitBreakerOpenException}.
+	 */
+	public CircuitBreaker(final String name)
+	{
+		this(name, 20, 0.5, TimeUnit.SECONDS.toMillis(5), 0.8, TimeUnit.SECONDS.toMillis(30), 3);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param name The name of this breaker, used in logs and in {@code CircuitBreakerOpenException}.
+	 * @param windowSize The number of most recent calls whose outcome is considered.
+	 * @param failureRateThreshold The fraction of failed calls, between 0 and 1, at which the breaker opens.
+	 * @param slowCallDurationMillis The duration, in milliseconds, above which a call is considered slow.
+	 * @param slowCallRateThreshold The fraction of slow calls, between 0 and 1, at which the breaker opens.
+	 * @param openDurationMillis The amount of time, in milliseconds, the breaker stays open before probing.
+	 * @param numProbeRequests The number of calls permitted while half-open.
+	 */
+	public CircuitBreaker(final String name, final int windowSize, final double failureRateThreshold,
+			final long slowCallDurationMillis, final double slowCallRateThreshold, final long openDurationMillis,
+			final int numProbeRequests)
+	{
+		this(name, windowSize, failureRateThreshold, slowCallDurationMillis, slowCallRateThreshold,
+			openDurationMillis, numProbeRequests, Ticker.systemTicker());
+	}
+
+	/**
+	 * Required-args Constructor, visible for testing.
+	 */
+	CircuitBreaker(final String name, final int windowSize, final double failureRateThreshold,
+			final long slowCallDurationMillis, final double slowCallRateThreshold, final long openDurationMillis,
+			final int numProbeRequests, final Ticker ticker)
+	{
+		Preconditions.checkNotNull(name);
+		Preconditions.checkArgument(windowSize > 0, "windowSize must be positive!");
+		Preconditions.checkArgument(failureRateThreshold > 0.0 && failureRateThreshold <= 1.0,
+			"failureRateThreshold must be greater than 0 and at most 1!");
+		Preconditions.checkArgument(slowCallDurationMillis > 0, "slowCallDurationMillis must be positive!");
+		Preconditions.checkArgument(slowCallRateThreshold > 0.0 && slowCallRateThreshold <= 1.0,
+			"slowCallRateThreshold must be greater than 0 and at most 1!");
+		Preconditions.checkArgument(openDurationMillis >= 0, "openDurationMillis must not be negative!");
+		Preconditions.checkArgument(numProbeRequests > 0, "numProbeRequests must be positive!");
+
+		this.name = name;
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowCallDurationNanos = TimeUnit.MILLISECONDS.toNanos(slowCallDurationMillis);
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+		this.numProbeRequests = numProbeRequests;
+		this.ticker = Preconditions.checkNotNull(ticker);
+
+		this.window = new byte[windowSize];
+		this.numRejectedCalls = new AtomicLong();
+		this.state = State.CLOSED;
+	}
+
+	/**
+	 * Determine if a call may be sent. Every call that is permitted must be followed by a call to
+	 * {@link #onSuccess(long)} or {@link #onFailure()}.
+	 *
+	 * @return
+	 */
+	public synchronized boolean tryAcquirePermission()
+	{
+		if (state == State.OPEN && ticker.read() - openedAtNanos >= openDurationNanos)
+		{
+			this.transitionTo(State.HALF_OPEN);
+		}
+
+		switch (state)
+		{
+			case CLOSED:
+				return true;
+			case HALF_OPEN:
+				if (numProbesRemaining > 0)
+				{
+					numProbesRemaining--;
+					return true;
+				}
+				break;
+			default:
+				break;
+		}
+
+		numRejectedCalls.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Record a call that completed successfully.
+	 *
+	 * @param durationNanos The duration of the call, in nanoseconds.
+	 */
+	public synchronized void onSuccess(final long durationNanos)
+	{
+		this.record(durationNanos >= slowCallDurationNanos ? SLOW : SUCCESS);
+	}
+
+	/**
+	 * Record a call that failed.
+	 */
+	public synchronized void onFailure()
+	{
+		this.record(FAILURE);
+	}
+
+	/**
+	 * Return the name of this breaker.
+	 *
+	 * @return
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Return the current state of this breaker.
+	 *
+	 * @return
+	 */
+	public synchronized State getState()
+	{
+		return state;
+	}
+
+	/**
+	 * Return the number of calls rejected so far.
+	 *
+	 * @return
+	 */
+	public long getNumRejectedCalls()
+	{
+		return numRejectedCalls.get();
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to record the {@code outcome} of a call, and change state if necessary.
+	 *
+	 * @param outcome
+	 */
+	private void record(final byte outcome)
+	{
+		switch (state)
+		{
+			case CLOSED:
+				if (numCalls == window.length)
+				{
+					this.count(window[nextIndex], -1);
+				}
+				else
+				{
+					numCalls++;
+				}
+				window[nextIndex] = outcome;
+				nextIndex = (nextIndex + 1) % window.length;
+				this.count(outcome, 1);
+
+				if (numCalls == window.length
+					&& (numFailures >= failureRateThreshold * numCalls || numSlowCalls >= slowCallRateThreshold
+						* numCalls))
+				{
+					this.transitionTo(State.OPEN);
+				}
+				break;
+			case HALF_OPEN:
+				if (outcome != SUCCESS)
+				{
+					this.transitionTo(State.OPEN);
+				}
+				else if (++numProbesSucceeded == numProbeRequests)
+				{
+					this.transitionTo(State.CLOSED);
+				}
+				break;
+			default:
+				// Calls that were permitted before the breaker opened are ignored.
+				break;
+		}
+	}
+
+	/**
+	 * Helper to add {@code increment} to the number of calls in the window with the same {@code outcome}.
+	 *
+	 * @param outcome
+	 * @param increment
+	 */
+	private void count(final byte outcome, final int increment)
+	{
+		if (outcome == FAILURE)
+		{
+			numFailures += increment;
+		}
+		else if (outcome == SLOW)
+		{
+			numSlowCalls += increment;
+		}
+	}
+
+	/**
+	 * Helper to move to {@code newState}, resetting the window and probes.
+	 *
+	 * @param newState
+	 */
+	private void transitionTo(final State newState)
+	{
+		logger.warning(String.format("Circuit breaker \"%s\" is now %s", name, newState));
+
+		state = newState;
+		numCalls = 0;
+		nextIndex = 0;
+		numFailures = 0;
+		numSlowCalls = 0;
+		if (newState == State.OPEN)
+		{
+			openedAtNanos = ticker.read();
+		}
+		else if (newState == State.HALF_OPEN)
+		{
+			numProbesRemaining = numProbeRequests;
+			numProbesSucceeded = 0;
+		}
+	}
+}
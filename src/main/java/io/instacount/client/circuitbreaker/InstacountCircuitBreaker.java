@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.circuitbreaker;
+
+import lombok.Getter;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A pair of {@link CircuitBreaker}s guarding calls to the Instacount API: one for reads (getting a counter or a counter
+ * operation) and one for mutations (every other call), so that a degraded write path does not stop reads, and vice
+ * versa.
+ * <p>
+ * A single instance should be shared by every client of the same Instacount application, so that they all observe the
+ * same failures.
+ */
+@Getter
+public class InstacountCircuitBreaker
+{
+	/**
+	 * The {@link CircuitBreaker} guarding reads.
+	 */
+	private final CircuitBreaker readCircuitBreaker;
+
+	/**
+	 * The {@link CircuitBreaker} guarding mutations.
+	 */
+	private final CircuitBreaker mutationCircuitBreaker;
+
+	/**
+	 * If {@code true}, increments and decrements that would be rejected while the mutation breaker is open are
+	 * accumulated locally instead, and sent once it has closed.
+	 */
+	private final boolean localFallback;
+
+	/**
+	 * No-args Constructor, using the default {@link CircuitBreaker}s and no local fallback.
+	 */
+	public InstacountCircuitBreaker()
+	{
+		this(false);
+	}
+
+	/**
+	 * Required-args Constructor, using the default {@link CircuitBreaker}s.
+	 *
+	 * @param localFallback Set to {@code true} to accumulate increments and decrements locally while the mutation
+	 *            breaker is open.
+	 */
+	public InstacountCircuitBreaker(final boolean localFallback)
+	{
+		this(new CircuitBreaker("reads"), new CircuitBreaker("mutations"), localFallback);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param readCircuitBreaker The {@link CircuitBreaker} guarding reads.
+	 * @param mutationCircuitBreaker The {@link CircuitBreaker} guarding mutations.
+	 * @param localFallback Set to {@code true} to accumulate increments and decrements locally while the mutation
+	 *            breaker is open.
+	 */
+	public InstacountCircuitBreaker(final CircuitBreaker readCircuitBreaker,
+			final CircuitBreaker mutationCircuitBreaker, final boolean localFallback)
+	{
+		this.readCircuitBreaker = Preconditions.checkNotNull(readCircuitBreaker);
+		this.mutationCircuitBreaker = Preconditions.checkNotNull(mutationCircuitBreaker);
+		this.localFallback = localFallback;
+	}
+}
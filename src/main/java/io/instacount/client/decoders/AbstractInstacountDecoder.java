@@ -12,19 +12,29 @@
  */
 package io.instacount.client.decoders;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPInputStream;
 
-import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteStreams;
 
 import feign.Response;
 import feign.codec.ErrorDecoder;
 import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.http.ByteArrayBody;
+import io.instacount.client.jackson.WireFormat;
 import io.instacount.client.model.Errors;
 
 /**
@@ -33,8 +43,18 @@ import io.instacount.client.model.Errors;
  */
 public abstract class AbstractInstacountDecoder
 {
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String GZIP = "gzip";
+
 	protected final ObjectMapper objectMapper;
 
+	// Reads Smile bodies, using the same ObjectReaders as JSON bodies.
+	private final JsonFactory smileFactory;
+
+	// ObjectReaders are immutable and thread-safe, so one per type is shared by every response.
+	private final ConcurrentMap<Class<?>, ObjectReader> objectReaders;
+
 	/**
 	 * Required-args Constructor.
 	 *
@@ -43,46 +63,82 @@ public abstract class AbstractInstacountDecoder
 	public AbstractInstacountDecoder(final ObjectMapper objectMapper)
 	{
 		this.objectMapper = Preconditions.checkNotNull(objectMapper);
+		this.smileFactory = WireFormat.SMILE.newJsonFactory();
+		this.objectReaders = new ConcurrentHashMap<>();
 	}
 
 	/**
-	 * Helper method to construct an instance of {@link Reader} for reading the JSON response from Instacount.
+	 * Helper method to read the JSON body of a response from Instacount into an instance of {@code type}. The raw body
+	 * bytes are handed straight to a Jackson {@link JsonParser}, without first being decoded into characters, and a
+	 * {@link ByteArrayBody} is parsed from its byte array without an intermediate {@link InputStream}. A gzip-encoded
+	 * body is decompressed while it is parsed, and a Smile body (see {@link WireFormat}) is parsed as Smile.
 	 *
 	 * @param response
-	 * @return
+	 * @param type
+	 * @return An {@link Optional} holding the value read, or {@link Optional#absent()} if the body is empty.
 	 * @throws IOException
 	 */
-	protected Optional<Reader> constructReader(final Response response) throws IOException
+	protected <T> Optional<T> readBody(final Response response, final Class<T> type) throws IOException
 	{
 		Preconditions.checkNotNull(response);
-		Preconditions.checkNotNull(response.body());
+		Preconditions.checkNotNull(type);
 
-		Reader reader = response.body().asReader();
-		if (!reader.markSupported())
+		final Response.Body body = response.body();
+		if (body == null || (body.length() != null && body.length() == 0))
 		{
-			reader = new BufferedReader(reader, 1);
+			return Optional.absent();
+		}
+
+		// Bodies are parsed according to their Content-Type, so that JSON is read even when Smile was preferred.
+		final WireFormat wireFormat = WireFormat.forContentType(firstHeaderValue(response, CONTENT_TYPE));
+		final JsonFactory jsonFactory = wireFormat == WireFormat.SMILE ? smileFactory : objectMapper.getFactory();
+		final JsonParser jsonParser;
+		if (isGzipEncoded(response))
+		{
+			jsonParser = jsonFactory.createParser(gunzip(body.asInputStream()));
+		}
+		else if (body instanceof ByteArrayBody)
+		{
+			jsonParser = jsonFactory.createParser(((ByteArrayBody) body).getBytes());
+		}
+		else
+		{
+			jsonParser = jsonFactory.createParser(body.asInputStream());
 		}
 		try
 		{
-			// Read the first byte to see if we have any data
-			reader.mark(1);
-			if (reader.read() == -1)
+			// A body without a first token is empty. Eagerly returning avoids "No content to map due to end-of-input"
+			if (jsonParser.nextToken() == null)
 			{
-				// Eagerly returning null avoids "No content to map due to end-of-input"
 				return Optional.absent();
 			}
-			reader.reset();
+			return Optional.of(this.readerFor(type).<T> readValue(jsonParser));
 		}
-		catch (RuntimeJsonMappingException e)
+		finally
 		{
-			if (e.getCause() != null && e.getCause() instanceof IOException)
+			jsonParser.close();
+		}
+	}
+
+	/**
+	 * Helper to return the cached {@link ObjectReader} for {@code type}, creating it on first use.
+	 *
+	 * @param type
+	 * @return
+	 */
+	protected ObjectReader readerFor(final Class<?> type)
+	{
+		ObjectReader objectReader = objectReaders.get(type);
+		if (objectReader == null)
+		{
+			objectReader = objectMapper.readerFor(type);
+			final ObjectReader existingObjectReader = objectReaders.putIfAbsent(type, objectReader);
+			if (existingObjectReader != null)
 			{
-				throw IOException.class.cast(e.getCause());
+				objectReader = existingObjectReader;
 			}
-			throw e;
 		}
-
-		return Optional.fromNullable(reader);
+		return objectReader;
 	}
 
 	/**
@@ -95,8 +151,15 @@ public abstract class AbstractInstacountDecoder
 	{
 		try
 		{
-			final Errors errorsWithoutHttpCode = objectMapper.readValue(response.body().asInputStream(), Errors.class);
-			return new Errors(response.status(), errorsWithoutHttpCode.getErrors());
+			final Optional<Errors> optErrorsWithoutHttpCode = this.readBody(response, Errors.class);
+			if (optErrorsWithoutHttpCode.isPresent())
+			{
+				return new Errors(response.status(), optErrorsWithoutHttpCode.get().getErrors());
+			}
+			else
+			{
+				return Errors.empty(response.status());
+			}
 		}
 		catch (Exception e)
 		{
@@ -104,4 +167,69 @@ public abstract class AbstractInstacountDecoder
 		}
 	}
 
+	/**
+	 * Find the first value of the header {@code name} of {@code response}, ignoring the case of its name, since some
+	 * transports (such as HTTP/2) lowercase every header name.
+	 *
+	 * @param response
+	 * @param name
+	 * @return The first value of the header, or {@code null} if {@code response} does not have it.
+	 */
+	static String firstHeaderValue(final Response response, final String name)
+	{
+		// Most transports preserve the case of header names, so try an exact match first.
+		final Collection<String> values = response.headers().get(name);
+		if (values != null)
+		{
+			return Iterables.getFirst(values, null);
+		}
+		for (final Map.Entry<String, Collection<String>> header : response.headers().entrySet())
+		{
+			if (name.equalsIgnoreCase(header.getKey()))
+			{
+				return Iterables.getFirst(header.getValue(), null);
+			}
+		}
+		return null;
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to determine if the body of {@code response} is gzip-encoded. Content codings are case-insensitive, and
+	 * the value may be padded with whitespace.
+	 *
+	 * @param response
+	 * @return
+	 */
+	private static boolean isGzipEncoded(final Response response)
+	{
+		final String contentEncoding = firstHeaderValue(response, CONTENT_ENCODING);
+		return contentEncoding != null && GZIP.equalsIgnoreCase(contentEncoding.trim());
+	}
+
+	/**
+	 * Helper to decompress a gzip-encoded body while it is read. A body that does not start with the gzip magic
+	 * number is returned as-is, because some transports decompress bodies without removing the
+	 * {@code Content-Encoding} header.
+	 *
+	 * @param inputStream
+	 * @return
+	 * @throws IOException
+	 */
+	private static InputStream gunzip(final InputStream inputStream) throws IOException
+	{
+		final PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, 2);
+		final byte[] magic = new byte[2];
+		final int numRead = ByteStreams.read(pushbackInputStream, magic, 0, magic.length);
+		pushbackInputStream.unread(magic, 0, numRead);
+
+		if (numRead == 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B)
+		{
+			return new GZIPInputStream(pushbackInputStream);
+		}
+		return pushbackInputStream;
+	}
 }
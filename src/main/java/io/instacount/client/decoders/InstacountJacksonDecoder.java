@@ -16,10 +16,9 @@
 package io.instacount.client.decoders;
 
 import java.io.IOException;
-import java.io.Reader;
 import java.lang.reflect.Type;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -28,29 +27,33 @@ import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
-import com.squareup.okhttp.HttpUrl;
 
+import feign.Contract;
+import feign.MethodMetadata;
 import feign.Response;
+import feign.codec.DecodeException;
 import feign.codec.Decoder;
 import feign.jackson.JacksonDecoder;
 import io.instacount.client.model.headers.Quota;
-import io.instacount.client.model.shardedcounters.ShardedCounterOperation;
-import io.instacount.client.model.shardedcounters.ShardedCounter;
-import io.instacount.client.model.shardedcounters.responses.CounterLocationInfo;
-import io.instacount.client.model.shardedcounters.responses.CreateShardedCounterResponse;
-import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
-import io.instacount.client.model.shardedcounters.responses.GetShardedCounterOperationResponse;
-import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
-import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
-import io.instacount.client.model.shardedcounters.responses.UpdateShardedCounterResponse;
+import io.instacount.client.quota.QuotaListener;
 
 /**
  * An extension of {@link JacksonDecoder} that captures other information not normally propogated from the super-class.
+ * Each response is decoded by the {@link ResponseDecoder} registered for its type in a {@link ResponseDecoderRegistry}.
+ * When constructed for a Feign interface, the {@link ResponseDecoder} of every method's return type is resolved once,
+ * up front, rather than once per response.
  */
 public class InstacountJacksonDecoder extends AbstractInstacountDecoder implements Decoder
 {
 	private final Logger logger = Logger.getLogger(this.getClass().getName());
 
+	private final QuotaListener quotaListener;
+	private final ResponseDecoderRegistry responseDecoderRegistry;
+	// Keyed by identity, since Feign passes the very Type instances that were resolved up front. Never modified once
+	// constructed.
+	private final Map<Type, ResponseDecoder<?>> boundResponseDecoders;
+	private final ResponseDecoder.Context context;
+
 	/**
 	 * No-args Constructor.
 	 */
@@ -77,320 +80,207 @@ public class InstacountJacksonDecoder extends AbstractInstacountDecoder implemen
 	 */
 	public InstacountJacksonDecoder(final ObjectMapper objectMapper)
 	{
-		super(objectMapper);
+		this(objectMapper, new QuotaListener.NoOp());
 	}
 
-	@Override
-	public Object decode(final Response response, final Type type) throws IOException
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param objectMapper
+	 * @param quotaListener A {@link QuotaListener} to notify of the {@link Quota} of every decoded response.
+	 */
+	public InstacountJacksonDecoder(final ObjectMapper objectMapper, final QuotaListener quotaListener)
 	{
-		Preconditions.checkNotNull(response);
-		Preconditions.checkNotNull(type);
-
-		//////////////////
-		// Decode the response...
-		//////////////////
-
-		if (CreateShardedCounterResponse.class.equals(type))
-		{
-			return this.constructCreateShardedCounterResponse(response);
-		}
-		else if (GetShardedCounterResponse.class.equals(type))
-		{
-			return this.constructGetShardedCounterResponse(response);
-		}
-		else if (UpdateShardedCounterResponse.class.equals(type))
-		{
-			return this.constructUpdateShardedCounterResponse(response);
-		}
-		// else if (DeleteCounterResponse.class.equalsIgnoreCase(type))
-		// {
-		// return this.constructDeleteCounterResponse(response);
-		// }
-		else if (IncrementShardedCounterResponse.class.equals(type))
-		{
-			return this.constructIncrementCounterResponse(response);
-		}
-		else if (DecrementShardedCounterResponse.class.equals(type))
-		{
-			return this.constructDecrementCounterResponse(response);
-		}
-		else if (GetShardedCounterOperationResponse.class.equals(type))
-		{
-			return this.constructGetCounterOperationResponse(response);
-		}
-		else
-		{
-			throw new RuntimeException(String.format("Unable to decode response with type '%s'", type));
-		}
-
-		// // Any 201 Created or 204 No Content response...just need to grab the Headers...
-		// else if (response.status() == 201 || response.status() == 202 || response.status() == 204)
-		// {
-		// if (IncrementCounterResponse.class.getName().equalsIgnoreCase(type.toString()))
-		// {
-		// return this.constructIncrementCounterResponse(response);
-		// }
-		// if (DecrementCounterResponse.class.getName().equalsIgnoreCase(type.toString()))
-		// {
-		// return this.constructDecrementCounterResponse(response);
-		// }
-		//
-		//
-		// else
-		// {
-		// return this.constructNoContentResponse(response);
-		// }
-		// }
-		// // Any 3xx response...just need to grab the Headers...
-		// else if (response.status() > 299 && response.status() < 400)
-		// {
-		// return this.constructNoContentResponse(response);
-		// }
-		// Handle any other responses as an Errors object.
-		// else
-		// {
-		// throw new InstacountClientException(this.constructErrorsResponse(response));
-		// }
+		this(objectMapper, quotaListener, ResponseDecoderRegistry.defaults());
 	}
 
-	//////////////////
-	// Private Helpers
-	//////////////////
-
 	/**
-	 * Helper to construct an instance of {@link Quota} from the Feign {@link Response}.
-	 * 
-	 * @param response
-	 * @return
+	 * Required-args Constructor.
+	 *
+	 * @param objectMapper
+	 * @param quotaListener A {@link QuotaListener} to notify of the {@link Quota} of every decoded response.
+	 * @param responseDecoderRegistry The {@link ResponseDecoderRegistry} holding a {@link ResponseDecoder} for every
+	 *            response type this decoder should support.
 	 */
-	private Quota constructQuota(final Response response)
+	public InstacountJacksonDecoder(final ObjectMapper objectMapper, final QuotaListener quotaListener,
+			final ResponseDecoderRegistry responseDecoderRegistry)
 	{
-		final Map<String, Collection<String>> headers = response.headers();
-		final Long numAccessRequestsLimit = toLong(
-			Optional.fromNullable(headers.get(Quota.X_RATELIMIT_ACCESS_COUNTERS_LIMIT)));
-		final Long numAccessRequestsRemaining = toLong(
-			Optional.fromNullable(headers.get(Quota.X_RATELIMIT_ACCESS_COUNTERS_REMAINING)));
-		final Long numMutationRequestsLimit = toLong(
-			Optional.fromNullable(headers.get(Quota.X_RATELIMIT_MUTATE_COUNTERS_LIMIT)));
-		final Long numMutationRequestsRemaining = toLong(
-			Optional.fromNullable(headers.get(Quota.X_RATELIMIT_MUTATE_COUNTERS_REMAINING)));
-
-		return new Quota(numAccessRequestsLimit, numAccessRequestsRemaining, numMutationRequestsLimit,
-			numMutationRequestsRemaining);
+		this(objectMapper, quotaListener, responseDecoderRegistry, Optional.<Class<?>> absent());
 	}
 
 	/**
-	 * Safely convert a String-based collection of header values into a {@link Long} by attempting to convert the first
-	 * header value.
+	 * Required-args Constructor. The {@link ResponseDecoder} of every return type of {@code apiType} is resolved
+	 * immediately.
 	 *
-	 * @param optHeaderValues
-	 *
-	 * @return
+	 * @param objectMapper
+	 * @param quotaListener A {@link QuotaListener} to notify of the {@link Quota} of every decoded response.
+	 * @param responseDecoderRegistry The {@link ResponseDecoderRegistry} holding a {@link ResponseDecoder} for every
+	 *            response type this decoder should support.
+	 * @param apiType The Feign interface, annotated for use with {@link Contract.Default}, whose responses this
+	 *            decoder will decode.
+	 * @throws IllegalStateException if any return type of {@code apiType} has no registered {@link ResponseDecoder}.
 	 */
-	private Long toLong(final Optional<Collection<String>> optHeaderValues)
+	public InstacountJacksonDecoder(final ObjectMapper objectMapper, final QuotaListener quotaListener,
+			final ResponseDecoderRegistry responseDecoderRegistry, final Class<?> apiType)
 	{
-		Preconditions.checkNotNull(optHeaderValues);
+		this(objectMapper, quotaListener, responseDecoderRegistry, Optional.<Class<?>> of(apiType));
+	}
 
-		if (optHeaderValues.isPresent())
+	/**
+	 * Required-args Constructor.
+	 */
+	private InstacountJacksonDecoder(final ObjectMapper objectMapper, final QuotaListener quotaListener,
+			final ResponseDecoderRegistry responseDecoderRegistry, final Optional<Class<?>> optApiType)
+	{
+		super(objectMapper);
+		this.quotaListener = Preconditions.checkNotNull(quotaListener);
+		this.responseDecoderRegistry = Preconditions.checkNotNull(responseDecoderRegistry);
+		this.boundResponseDecoders = new IdentityHashMap<>();
+		if (optApiType.isPresent())
 		{
-			final Collection<String> headerValues = optHeaderValues.get();
-			if (headerValues.isEmpty())
+			responseDecoderRegistry.validate(optApiType.get());
+			for (final MethodMetadata metadata : new Contract.Default().parseAndValidatateMetadata(optApiType.get()))
 			{
-				return 0L;
+				if (metadata.returnType() != void.class)
+				{
+					boundResponseDecoders.put(metadata.returnType(), this.resolve(metadata.returnType()));
+				}
 			}
-
-			final String firstHeaderValueAsString = headerValues.iterator().next();
-			try
+		}
+		this.context = new ResponseDecoder.Context()
+		{
+			@Override
+			public <T> Optional<T> readBody(final Response response, final Class<T> type) throws IOException
 			{
-				return Long.parseLong(firstHeaderValueAsString);
+				return InstacountJacksonDecoder.this.readBody(response, type);
 			}
-			catch (NumberFormatException nfe)
+
+			@Override
+			public Quota constructQuota(final Response response)
 			{
-				logger.severe(
-					String.format("Invalid Header value \"%s\" should have been a Long!", firstHeaderValueAsString));
-				return 0L;
+				return InstacountJacksonDecoder.this.constructQuota(response);
 			}
-		}
-		else
-		{
-			return 0L;
-		}
+		};
 	}
 
-	/**
-	 * Helper to construct an instance of {@link GetShardedCounterResponse} from the Feign {@link Response}.
-	 * 
-	 * @param response
-	 * @return
-	 * @throws IOException
-	 */
-	private GetShardedCounterResponse constructGetShardedCounterResponse(final Response response) throws IOException
+	@Override
+	public Object decode(final Response response, final Type type) throws IOException
 	{
-		final Optional<Reader> optReader = this.constructReader(response);
-		if (optReader.isPresent())
-		{
-			final ShardedCounter shardedCounter = objectMapper.readValue(optReader.get(), ShardedCounter.class);
-			return new GetShardedCounterResponse(response, constructQuota(response), shardedCounter);
-		}
-		else
-		{
-			throw new RuntimeException(
-				String.format("Unable to construct ShardedCounter from Response Body: %s", response.body()));
-		}
+		Preconditions.checkNotNull(response);
+		Preconditions.checkNotNull(type);
+
+		final ResponseDecoder<?> boundResponseDecoder = boundResponseDecoders.get(type);
+		return (boundResponseDecoder != null ? boundResponseDecoder : this.resolve(type)).decode(response, context);
 	}
 
 	/**
-	 * Helper to construct an instance of {@link IncrementShardedCounterResponse} from the Feign {@link Response}.
-	 * 
-	 * @param response
+	 * Return a {@link Decoder} bound to the {@link ResponseDecoder} for {@code type}, so that the lookup happens once
+	 * (for example, once per Feign method when a client is built) rather than once per response.
+	 *
+	 * @param type The response type to decode.
 	 * @return
-	 * @throws IOException
+	 * @throws DecodeException if no {@link ResponseDecoder} is registered for {@code type}.
 	 */
-	private IncrementShardedCounterResponse constructIncrementCounterResponse(final Response response)
-			throws IOException
+	public Decoder decoderFor(final Type type)
 	{
-		if (response.status() == 201)
+		Preconditions.checkNotNull(type);
+
+		final ResponseDecoder<?> responseDecoder = this.resolve(type);
+		return new Decoder()
 		{
-			final Optional<Reader> optReader = this.constructReader(response);
-			if (optReader.isPresent())
+			@Override
+			public Object decode(final Response response, final Type ignored) throws IOException
 			{
-				final ShardedCounterOperation counterOperation = objectMapper.readValue(optReader.get(),
-					ShardedCounterOperation.class);
-				return new IncrementShardedCounterResponse(response, constructQuota(response),
-					Optional.of(counterOperation));
+				Preconditions.checkNotNull(response);
+				return responseDecoder.decode(response, context);
 			}
-			else
-			{
-				throw new RuntimeException(
-					String.format("Unable to construct CounterOperation from Response Body: %s", response.body()));
-			}
-
-		}
-		else
-		{
-			return new IncrementShardedCounterResponse(response, constructQuota(response),
-				Optional.<ShardedCounterOperation> absent());
-		}
+		};
 	}
 
 	/**
-	 * Helper to construct an instance of {@link GetShardedCounterOperationResponse} from the Feign {@link Response}.
-	 * 
-	 * @param response
+	 * Return the {@link ResponseDecoderRegistry} used by this decoder.
+	 *
 	 * @return
-	 * @throws IOException
 	 */
-	private GetShardedCounterOperationResponse constructGetCounterOperationResponse(final Response response)
-			throws IOException
+	public ResponseDecoderRegistry getResponseDecoderRegistry()
 	{
-		final Optional<Reader> optReader = this.constructReader(response);
-		if (optReader.isPresent())
-		{
-			final ShardedCounterOperation counterOperation = objectMapper.readValue(optReader.get(), ShardedCounterOperation.class);
-			return new GetShardedCounterOperationResponse(response, constructQuota(response), counterOperation);
-		}
-		else
-		{
-			throw new RuntimeException(
-				String.format("Unable to construct CounterOperation from Response Body: %s", response.body()));
-		}
+		return responseDecoderRegistry;
 	}
 
+	//////////////////
+	// Private Helpers
+	//////////////////
+
 	/**
-	 * Helper to construct an instance of {@link DecrementShardedCounterResponse} from the Feign {@link Response}.
-	 * 
-	 * @param response
+	 * Helper to find the {@link ResponseDecoder} registered for {@code type}.
+	 *
+	 * @param type
 	 * @return
-	 * @throws IOException
 	 */
-	private DecrementShardedCounterResponse constructDecrementCounterResponse(final Response response)
-			throws IOException
+	private ResponseDecoder<?> resolve(final Type type)
 	{
-		if (response.status() == 201)
+		final Optional<ResponseDecoder<?>> optResponseDecoder = responseDecoderRegistry.getResponseDecoder(type);
+		if (optResponseDecoder.isPresent())
 		{
-			final Optional<Reader> optReader = this.constructReader(response);
-			if (optReader.isPresent())
-			{
-				final ShardedCounterOperation counterOperation = objectMapper.readValue(optReader.get(),
-					ShardedCounterOperation.class);
-				return new DecrementShardedCounterResponse(response, constructQuota(response),
-					Optional.of(counterOperation));
-			}
-			else
-			{
-				throw new RuntimeException(
-					String.format("Unable to construct CounterOperation from Response Body: %s", response.body()));
-			}
+			return optResponseDecoder.get();
 		}
 		else
 		{
-			return new DecrementShardedCounterResponse(response, constructQuota(response),
-				Optional.<ShardedCounterOperation> absent());
+			throw new DecodeException(String.format("No ResponseDecoder is registered for type '%s'", type));
 		}
 	}
 
 	/**
-	 * Helper to construct an instance of {@link CreateShardedCounterResponse} from the Feign {@link Response}.
+	 * Helper to construct an instance of {@link Quota} from the Feign {@link Response}.
 	 * 
 	 * @param response
 	 * @return
-	 * @throws IOException
 	 */
-	private CreateShardedCounterResponse constructCreateShardedCounterResponse(final Response response)
-			throws IOException
+	private Quota constructQuota(final Response response)
 	{
-		return new CreateShardedCounterResponse(response, constructQuota(response),
-			constructCounterLocationInfo(response));
-	}
+		final Long numAccessRequestsLimit = toLong(
+			Optional.fromNullable(firstHeaderValue(response, Quota.X_RATELIMIT_ACCESS_COUNTERS_LIMIT)));
+		final Long numAccessRequestsRemaining = toLong(
+			Optional.fromNullable(firstHeaderValue(response, Quota.X_RATELIMIT_ACCESS_COUNTERS_REMAINING)));
+		final Long numMutationRequestsLimit = toLong(
+			Optional.fromNullable(firstHeaderValue(response, Quota.X_RATELIMIT_MUTATE_COUNTERS_LIMIT)));
+		final Long numMutationRequestsRemaining = toLong(
+			Optional.fromNullable(firstHeaderValue(response, Quota.X_RATELIMIT_MUTATE_COUNTERS_REMAINING)));
 
-	/**
-	 * Helper to construct an optionally present instance of {@link CounterLocationInfo} from the Feign {@link Response}
-	 * .
-	 * 
-	 * @param response
-	 * @return
-	 */
-	private Optional<CounterLocationInfo> constructCounterLocationInfo(final Response response)
-	{
-		final Optional<CounterLocationInfo> optCounterInfo;
-		final Collection<String> locationHeaders = response.headers().get("Location");
-		if (!locationHeaders.isEmpty())
-		{
-			final String location = locationHeaders.iterator().next();
-			final HttpUrl httpUrl = HttpUrl.parse(location);
-			Preconditions.checkNotNull(httpUrl);
-			final String counterName = httpUrl.pathSegments().get(1);
-			final CounterLocationInfo counterLocationHeaderInfo = new CounterLocationInfo(location, counterName);
-			optCounterInfo = Optional.fromNullable(counterLocationHeaderInfo);
-		}
-		else
-		{
-			optCounterInfo = Optional.absent();
-		}
-		return optCounterInfo;
+		final Quota quota = new Quota(numAccessRequestsLimit, numAccessRequestsRemaining, numMutationRequestsLimit,
+			numMutationRequestsRemaining);
+		quotaListener.onQuota(quota);
+		return quota;
 	}
 
 	/**
-	 * Helper to construct an instance of {@link UpdateShardedCounterResponse} from the Feign {@link Response}.
-	 * 
-	 * @param response
+	 * Safely convert the first value of a String-based header into a {@link Long}.
+	 *
+	 * @param optHeaderValue
+	 *
 	 * @return
-	 * @throws IOException
 	 */
-	private UpdateShardedCounterResponse constructUpdateShardedCounterResponse(final Response response)
-			throws IOException
+	private Long toLong(final Optional<String> optHeaderValue)
 	{
-		final Optional<Reader> optReader = this.constructReader(response);
-		if (optReader.isPresent())
+		Preconditions.checkNotNull(optHeaderValue);
+
+		if (optHeaderValue.isPresent())
 		{
-			final ShardedCounter shardedCounter = objectMapper.readValue(optReader.get(), ShardedCounter.class);
-			return new UpdateShardedCounterResponse(response, constructQuota(response), shardedCounter);
+			final String firstHeaderValueAsString = optHeaderValue.get();
+			try
+			{
+				return Long.parseLong(firstHeaderValueAsString);
+			}
+			catch (NumberFormatException nfe)
+			{
+				logger.severe(
+					String.format("Invalid Header value \"%s\" should have been a Long!", firstHeaderValueAsString));
+				return 0L;
+			}
 		}
 		else
 		{
-			throw new RuntimeException(
-				String.format("Unable to construct ShardedCounter from Response Body: %s", response.body()));
+			return 0L;
 		}
 	}
-
 }
@@ -0,0 +1,368 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.instacount.client.decoders;
+
+import java.io.IOException;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.squareup.okhttp.HttpUrl;
+
+import feign.Response;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.ShardedCounter;
+import io.instacount.client.model.shardedcounters.ShardedCounterOperation;
+import io.instacount.client.model.shardedcounters.responses.CounterLocationInfo;
+import io.instacount.client.model.shardedcounters.responses.CreateShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.DeleteShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterOperationResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.UpdateShardedCounterResponse;
+
+/**
+ * The built-in {@link ResponseDecoder}s for every response type of the Instacount API.
+ * <p>
+ * Each decoder comes in two flavours: the default one, whose responses keep the raw Feign {@link Response}, and a
+ * compact one (registered in {@link ResponseDecoderRegistry#compact()}), whose responses keep only the HTTP status
+ * code, the {@link Quota} and the decoded content.
+ */
+public final class InstacountResponseDecoders
+{
+	/**
+	 * Decodes a {@link CreateShardedCounterResponse} from the Location header of the response.
+	 */
+	public static final ResponseDecoder<CreateShardedCounterResponse> CREATE_SHARDED_COUNTER =
+		createShardedCounter(false);
+
+	/**
+	 * Decodes a {@link GetShardedCounterResponse} from a {@link ShardedCounter} body.
+	 */
+	public static final ResponseDecoder<GetShardedCounterResponse> GET_SHARDED_COUNTER = getShardedCounter(false);
+
+	/**
+	 * Decodes an {@link UpdateShardedCounterResponse} from a {@link ShardedCounter} body.
+	 */
+	public static final ResponseDecoder<UpdateShardedCounterResponse> UPDATE_SHARDED_COUNTER =
+		updateShardedCounter(false);
+
+	/**
+	 * Decodes a {@link DeleteShardedCounterResponse}, which carries no body.
+	 */
+	public static final ResponseDecoder<DeleteShardedCounterResponse> DELETE_SHARDED_COUNTER =
+		deleteShardedCounter(false);
+
+	/**
+	 * Decodes an {@link IncrementShardedCounterResponse}, which carries a {@link ShardedCounterOperation} body only
+	 * for synchronous (HTTP 201) increments.
+	 */
+	public static final ResponseDecoder<IncrementShardedCounterResponse> INCREMENT_SHARDED_COUNTER =
+		incrementShardedCounter(false);
+
+	/**
+	 * Decodes a {@link DecrementShardedCounterResponse}, which carries a {@link ShardedCounterOperation} body only
+	 * for synchronous (HTTP 201) decrements.
+	 */
+	public static final ResponseDecoder<DecrementShardedCounterResponse> DECREMENT_SHARDED_COUNTER =
+		decrementShardedCounter(false);
+
+	/**
+	 * Decodes a {@link GetShardedCounterOperationResponse} from a {@link ShardedCounterOperation} body.
+	 */
+	public static final ResponseDecoder<GetShardedCounterOperationResponse> GET_SHARDED_COUNTER_OPERATION =
+		getShardedCounterOperation(false);
+
+	/**
+	 * A {@link ResponseDecoderRegistry} holding every built-in {@link ResponseDecoder}.
+	 */
+	static final ResponseDecoderRegistry DEFAULTS = ResponseDecoderRegistry.empty()
+		.withResponseDecoder(CreateShardedCounterResponse.class, CREATE_SHARDED_COUNTER)
+		.withResponseDecoder(GetShardedCounterResponse.class, GET_SHARDED_COUNTER)
+		.withResponseDecoder(UpdateShardedCounterResponse.class, UPDATE_SHARDED_COUNTER)
+		.withResponseDecoder(DeleteShardedCounterResponse.class, DELETE_SHARDED_COUNTER)
+		.withResponseDecoder(IncrementShardedCounterResponse.class, INCREMENT_SHARDED_COUNTER)
+		.withResponseDecoder(DecrementShardedCounterResponse.class, DECREMENT_SHARDED_COUNTER)
+		.withResponseDecoder(GetShardedCounterOperationResponse.class, GET_SHARDED_COUNTER_OPERATION);
+
+	/**
+	 * A {@link ResponseDecoderRegistry} holding the compact flavour of every built-in {@link ResponseDecoder}.
+	 */
+	static final ResponseDecoderRegistry COMPACT = ResponseDecoderRegistry.empty()
+		.withResponseDecoder(CreateShardedCounterResponse.class, createShardedCounter(true))
+		.withResponseDecoder(GetShardedCounterResponse.class, getShardedCounter(true))
+		.withResponseDecoder(UpdateShardedCounterResponse.class, updateShardedCounter(true))
+		.withResponseDecoder(DeleteShardedCounterResponse.class, deleteShardedCounter(true))
+		.withResponseDecoder(IncrementShardedCounterResponse.class, incrementShardedCounter(true))
+		.withResponseDecoder(DecrementShardedCounterResponse.class, decrementShardedCounter(true))
+		.withResponseDecoder(GetShardedCounterOperationResponse.class, getShardedCounterOperation(true));
+
+	private InstacountResponseDecoders()
+	{
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to construct a {@link ResponseDecoder} for {@link CreateShardedCounterResponse}.
+	 *
+	 * @param compact {@code true} if decoded responses should not retain the raw {@link Response}.
+	 * @return
+	 */
+	private static ResponseDecoder<CreateShardedCounterResponse> createShardedCounter(final boolean compact)
+	{
+		return new ResponseDecoder<CreateShardedCounterResponse>()
+		{
+			@Override
+			public CreateShardedCounterResponse decode(final Response response, final Context context)
+			{
+				final Quota quota = context.constructQuota(response);
+				final Optional<CounterLocationInfo> optCounterInfo = constructCounterLocationInfo(response);
+				return compact ? new CreateShardedCounterResponse(response.status(), quota, optCounterInfo)
+					: new CreateShardedCounterResponse(response, quota, optCounterInfo);
+			}
+		};
+	}
+
+	/**
+	 * Helper to construct a {@link ResponseDecoder} for {@link GetShardedCounterResponse}.
+	 *
+	 * @param compact {@code true} if decoded responses should not retain the raw {@link Response}.
+	 * @return
+	 */
+	private static ResponseDecoder<GetShardedCounterResponse> getShardedCounter(final boolean compact)
+	{
+		return new ResponseDecoder<GetShardedCounterResponse>()
+		{
+			@Override
+			public GetShardedCounterResponse decode(final Response response, final Context context) throws IOException
+			{
+				final Quota quota = context.constructQuota(response);
+				final ShardedCounter shardedCounter = readShardedCounter(response, context);
+				return compact ? new GetShardedCounterResponse(response.status(), quota, shardedCounter)
+					: new GetShardedCounterResponse(response, quota, shardedCounter);
+			}
+		};
+	}
+
+	/**
+	 * Helper to construct a {@link ResponseDecoder} for {@link UpdateShardedCounterResponse}.
+	 *
+	 * @param compact {@code true} if decoded responses should not retain the raw {@link Response}.
+	 * @return
+	 */
+	private static ResponseDecoder<UpdateShardedCounterResponse> updateShardedCounter(final boolean compact)
+	{
+		return new ResponseDecoder<UpdateShardedCounterResponse>()
+		{
+			@Override
+			public UpdateShardedCounterResponse decode(final Response response, final Context context)
+					throws IOException
+			{
+				final Quota quota = context.constructQuota(response);
+				final ShardedCounter shardedCounter = readShardedCounter(response, context);
+				return compact ? new UpdateShardedCounterResponse(response.status(), quota, shardedCounter)
+					: new UpdateShardedCounterResponse(response, quota, shardedCounter);
+			}
+		};
+	}
+
+	/**
+	 * Helper to construct a {@link ResponseDecoder} for {@link DeleteShardedCounterResponse}.
+	 *
+	 * @param compact {@code true} if decoded responses should not retain the raw {@link Response}.
+	 * @return
+	 */
+	private static ResponseDecoder<DeleteShardedCounterResponse> deleteShardedCounter(final boolean compact)
+	{
+		return new ResponseDecoder<DeleteShardedCounterResponse>()
+		{
+			@Override
+			public DeleteShardedCounterResponse decode(final Response response, final Context context)
+			{
+				final Quota quota = context.constructQuota(response);
+				return compact ? new DeleteShardedCounterResponse(response.status(), quota)
+					: new DeleteShardedCounterResponse(response, quota);
+			}
+		};
+	}
+
+	/**
+	 * Helper to construct a {@link ResponseDecoder} for {@link IncrementShardedCounterResponse}.
+	 *
+	 * @param compact {@code true} if decoded responses should not retain the raw {@link Response}.
+	 * @return
+	 */
+	private static ResponseDecoder<IncrementShardedCounterResponse> incrementShardedCounter(final boolean compact)
+	{
+		return new ResponseDecoder<IncrementShardedCounterResponse>()
+		{
+			@Override
+			public IncrementShardedCounterResponse decode(final Response response, final Context context)
+					throws IOException
+			{
+				final Quota quota = context.constructQuota(response);
+				final Optional<ShardedCounterOperation> optCounterOperation = readOptCounterOperation(response,
+					context);
+				return compact ? new IncrementShardedCounterResponse(response.status(), quota, optCounterOperation)
+					: new IncrementShardedCounterResponse(response, quota, optCounterOperation);
+			}
+		};
+	}
+
+	/**
+	 * Helper to construct a {@link ResponseDecoder} for {@link DecrementShardedCounterResponse}.
+	 *
+	 * @param compact {@code true} if decoded responses should not retain the raw {@link Response}.
+	 * @return
+	 */
+	private static ResponseDecoder<DecrementShardedCounterResponse> decrementShardedCounter(final boolean compact)
+	{
+		return new ResponseDecoder<DecrementShardedCounterResponse>()
+		{
+			@Override
+			public DecrementShardedCounterResponse decode(final Response response, final Context context)
+					throws IOException
+			{
+				final Quota quota = context.constructQuota(response);
+				final Optional<ShardedCounterOperation> optCounterOperation = readOptCounterOperation(response,
+					context);
+				return compact ? new DecrementShardedCounterResponse(response.status(), quota, optCounterOperation)
+					: new DecrementShardedCounterResponse(response, quota, optCounterOperation);
+			}
+		};
+	}
+
+	/**
+	 * Helper to construct a {@link ResponseDecoder} for {@link GetShardedCounterOperationResponse}.
+	 *
+	 * @param compact {@code true} if decoded responses should not retain the raw {@link Response}.
+	 * @return
+	 */
+	private static ResponseDecoder<GetShardedCounterOperationResponse> getShardedCounterOperation(
+			final boolean compact)
+	{
+		return new ResponseDecoder<GetShardedCounterOperationResponse>()
+		{
+			@Override
+			public GetShardedCounterOperationResponse decode(final Response response, final Context context)
+					throws IOException
+			{
+				final Quota quota = context.constructQuota(response);
+				final ShardedCounterOperation counterOperation = readCounterOperation(response, context);
+				return compact ? new GetShardedCounterOperationResponse(response.status(), quota, counterOperation)
+					: new GetShardedCounterOperationResponse(response, quota, counterOperation);
+			}
+		};
+	}
+
+	/**
+	 * Helper to read the required {@link ShardedCounter} body of {@code response}.
+	 *
+	 * @param response
+	 * @param context
+	 * @return
+	 * @throws IOException
+	 */
+	private static ShardedCounter readShardedCounter(final Response response, final ResponseDecoder.Context context)
+			throws IOException
+	{
+		final Optional<ShardedCounter> optShardedCounter = context.readBody(response, ShardedCounter.class);
+		if (optShardedCounter.isPresent())
+		{
+			return optShardedCounter.get();
+		}
+		else
+		{
+			throw new RuntimeException(
+				String.format("Unable to construct ShardedCounter from Response Body: %s", response.body()));
+		}
+	}
+
+	/**
+	 * Helper to read the required {@link ShardedCounterOperation} body of {@code response}.
+	 *
+	 * @param response
+	 * @param context
+	 * @return
+	 * @throws IOException
+	 */
+	private static ShardedCounterOperation readCounterOperation(final Response response,
+			final ResponseDecoder.Context context) throws IOException
+	{
+		final Optional<ShardedCounterOperation> optCounterOperation = context.readBody(response,
+			ShardedCounterOperation.class);
+		if (optCounterOperation.isPresent())
+		{
+			return optCounterOperation.get();
+		}
+		else
+		{
+			throw new RuntimeException(
+				String.format("Unable to construct CounterOperation from Response Body: %s", response.body()));
+		}
+	}
+
+	/**
+	 * Helper to read the {@link ShardedCounterOperation} body of an increment or decrement {@code response}, which is
+	 * only present for an HTTP 201 response.
+	 *
+	 * @param response
+	 * @param context
+	 * @return
+	 * @throws IOException
+	 */
+	private static Optional<ShardedCounterOperation> readOptCounterOperation(final Response response,
+			final ResponseDecoder.Context context) throws IOException
+	{
+		if (response.status() == 201)
+		{
+			return Optional.of(readCounterOperation(response, context));
+		}
+		else
+		{
+			return Optional.absent();
+		}
+	}
+
+	/**
+	 * Helper to construct an optionally present instance of {@link CounterLocationInfo} from the Feign {@link Response}
+	 * .
+	 * 
+	 * @param response
+	 * @return
+	 */
+	private static Optional<CounterLocationInfo> constructCounterLocationInfo(final Response response)
+	{
+		final Optional<CounterLocationInfo> optCounterInfo;
+		final String location = AbstractInstacountDecoder.firstHeaderValue(response, "Location");
+		if (location != null)
+		{
+			final HttpUrl httpUrl = HttpUrl.parse(location);
+			Preconditions.checkNotNull(httpUrl);
+			final String counterName = httpUrl.pathSegments().get(1);
+			final CounterLocationInfo counterLocationHeaderInfo = new CounterLocationInfo(location, counterName);
+			optCounterInfo = Optional.fromNullable(counterLocationHeaderInfo);
+		}
+		else
+		{
+			optCounterInfo = Optional.absent();
+		}
+		return optCounterInfo;
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.instacount.client.decoders;
+
+import java.io.IOException;
+
+import com.google.common.base.Optional;
+
+import feign.Response;
+import io.instacount.client.model.headers.Quota;
+
+/**
+ * A strategy for decoding a successful Instacount API {@link Response} into an instance of a single response type.
+ * Strategies are looked up by response type in a {@link ResponseDecoderRegistry}.
+ *
+ * @param <T> The type of response produced by this strategy.
+ */
+public interface ResponseDecoder<T>
+{
+	/**
+	 * Decode {@code response}.
+	 *
+	 * @param response The {@link Response} to decode.
+	 * @param context A {@link Context} providing helpers for reading the body and headers of {@code response}.
+	 * @return
+	 * @throws IOException
+	 */
+	T decode(Response response, Context context) throws IOException;
+
+	/**
+	 * Helpers made available to every {@link ResponseDecoder} by the decoder invoking it.
+	 */
+	interface Context
+	{
+		/**
+		 * Read the JSON body of {@code response} into an instance of {@code type}.
+		 *
+		 * @param response
+		 * @param type
+		 * @return An {@link Optional} holding the value read, or {@link Optional#absent()} if the body is empty.
+		 * @throws IOException
+		 */
+		<T> Optional<T> readBody(Response response, Class<T> type) throws IOException;
+
+		/**
+		 * Construct the {@link Quota} carried by the headers of {@code response}.
+		 *
+		 * @param response
+		 * @return
+		 */
+		Quota constructQuota(Response response);
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.instacount.client.decoders;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import feign.Contract;
+import feign.MethodMetadata;
+
+/**
+ * An immutable mapping from response {@link Type} to the {@link ResponseDecoder} that produces it.
+ * <p>
+ * The {@link #defaults()} registry decodes every response type of the Instacount API. Additional response types (or
+ * replacements for the built-in strategies) are registered with {@link #withResponseDecoder(Class, ResponseDecoder)},
+ * which returns a new registry and leaves the original untouched.
+ */
+public class ResponseDecoderRegistry
+{
+	private final Map<Type, ResponseDecoder<?>> responseDecoders;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param responseDecoders
+	 */
+	private ResponseDecoderRegistry(final Map<Type, ResponseDecoder<?>> responseDecoders)
+	{
+		this.responseDecoders = ImmutableMap.copyOf(responseDecoders);
+	}
+
+	/**
+	 * Return a registry without any {@link ResponseDecoder}s.
+	 *
+	 * @return
+	 */
+	public static ResponseDecoderRegistry empty()
+	{
+		return new ResponseDecoderRegistry(ImmutableMap.<Type, ResponseDecoder<?>> of());
+	}
+
+	/**
+	 * Return a registry holding a {@link ResponseDecoder} for every response type of the Instacount API.
+	 *
+	 * @return
+	 *
+	 * @see InstacountResponseDecoders
+	 */
+	public static ResponseDecoderRegistry defaults()
+	{
+		return InstacountResponseDecoders.DEFAULTS;
+	}
+
+	/**
+	 * Return a registry holding a {@link ResponseDecoder} for every response type of the Instacount API, whose
+	 * responses do not retain the raw Feign {@link feign.Response}. Use it when many responses are cached or queued,
+	 * so that each one holds only its status code, {@link io.instacount.client.model.headers.Quota} and content.
+	 *
+	 * @return
+	 *
+	 * @see io.instacount.client.model.InstacountResponse
+	 */
+	public static ResponseDecoderRegistry compact()
+	{
+		return InstacountResponseDecoders.COMPACT;
+	}
+
+	/**
+	 * Return a copy of this registry in which responses of {@code type} are decoded by {@code responseDecoder},
+	 * replacing any strategy already registered for {@code type}.
+	 *
+	 * @param type The response type produced by {@code responseDecoder}.
+	 * @param responseDecoder The {@link ResponseDecoder} for {@code type}.
+	 * @return
+	 */
+	public <T> ResponseDecoderRegistry withResponseDecoder(final Class<T> type,
+			final ResponseDecoder<? extends T> responseDecoder)
+	{
+		Preconditions.checkNotNull(type);
+		Preconditions.checkNotNull(responseDecoder);
+
+		final Map<Type, ResponseDecoder<?>> updatedResponseDecoders = Maps.newLinkedHashMap(responseDecoders);
+		updatedResponseDecoders.put(type, responseDecoder);
+		return new ResponseDecoderRegistry(updatedResponseDecoders);
+	}
+
+	/**
+	 * Return the {@link ResponseDecoder} registered for {@code type}, if any.
+	 *
+	 * @param type
+	 * @return
+	 */
+	public Optional<ResponseDecoder<?>> getResponseDecoder(final Type type)
+	{
+		Preconditions.checkNotNull(type);
+		return Optional.<ResponseDecoder<?>> fromNullable(responseDecoders.get(type));
+	}
+
+	/**
+	 * Ensure that every method of the Feign interface {@code apiType} returns a type with a registered
+	 * {@link ResponseDecoder}, so that a missing strategy is reported when a client is built rather than when a
+	 * response arrives.
+	 *
+	 * @param apiType A Feign interface annotated for use with {@link Contract.Default}.
+	 * @throws IllegalStateException if any return type has no registered {@link ResponseDecoder}.
+	 */
+	public void validate(final Class<?> apiType)
+	{
+		Preconditions.checkNotNull(apiType);
+
+		final List<String> undecodableMethods = Lists.newArrayList();
+		for (final MethodMetadata metadata : new Contract.Default().parseAndValidatateMetadata(apiType))
+		{
+			if (metadata.returnType() != void.class && !responseDecoders.containsKey(metadata.returnType()))
+			{
+				undecodableMethods.add(metadata.configKey());
+			}
+		}
+
+		Preconditions.checkState(undecodableMethods.isEmpty(),
+			"No ResponseDecoder is registered for the return type of %s", undecodableMethods);
+	}
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.encoders;
+
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+
+/**
+ * An implementation of {@link Encoder} that writes request bodies as bytes using an {@link ObjectMapper}, so that
+ * binary formats such as Smile (see {@link io.instacount.client.jackson.WireFormat}) can be encoded as well as JSON.
+ * The {@code Content-Type} of the request is set by
+ * {@link io.instacount.client.interceptors.InstacountVersionRequestInterceptor}.
+ * <p>
+ * Increment and decrement inputs with an amount of at most {@code maxCachedAmount} are encoded once, and their bytes
+ * are reused by every later request with an equal input, so that the common {@code amount=1} increment costs no
+ * serialization at all. Cached bodies are shared between requests, and must never be modified.
+ */
+public class InstacountJacksonEncoder implements Encoder
+{
+	/**
+	 * The default largest increment or decrement amount whose encoded body is cached.
+	 */
+	public static final int DEFAULT_MAX_CACHED_AMOUNT = 1024;
+
+	private final ObjectMapper objectMapper;
+	private final Charset charset;
+
+	private final long maxCachedAmount;
+	// Holds at most (maxCachedAmount + 1) bodies per input type and async flag.
+	private final ConcurrentMap<Object, byte[]> cachedBodies;
+
+	/**
+	 * Required-args Constructor, caching the bodies of amounts of at most {@link #DEFAULT_MAX_CACHED_AMOUNT}.
+	 *
+	 * @param objectMapper The {@link ObjectMapper} used to write request bodies.
+	 */
+	public InstacountJacksonEncoder(final ObjectMapper objectMapper)
+	{
+		this(objectMapper, DEFAULT_MAX_CACHED_AMOUNT);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param objectMapper The {@link ObjectMapper} used to write request bodies.
+	 * @param maxCachedAmount The largest increment or decrement amount whose encoded body is cached. Set to a negative
+	 *            number to disable caching.
+	 */
+	public InstacountJacksonEncoder(final ObjectMapper objectMapper, final int maxCachedAmount)
+	{
+		this.objectMapper = Preconditions.checkNotNull(objectMapper);
+		// Feign only uses the charset to log bodies, which is meaningless for binary formats.
+		this.charset = objectMapper.getFactory().canHandleBinaryNatively() ? null : StandardCharsets.UTF_8;
+		this.maxCachedAmount = maxCachedAmount;
+		this.cachedBodies = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public void encode(final Object object, final Type bodyType, final RequestTemplate template)
+	{
+		if (this.isCacheable(object))
+		{
+			byte[] body = cachedBodies.get(object);
+			if (body == null)
+			{
+				body = this.writeValueAsBytes(object);
+				cachedBodies.putIfAbsent(object, body);
+			}
+			template.body(body, charset);
+		}
+		else
+		{
+			template.body(this.writeValueAsBytes(object), charset);
+		}
+	}
+
+	/**
+	 * Return the number of encoded bodies currently cached.
+	 *
+	 * @return
+	 */
+	public int getCachedBodyCount()
+	{
+		return cachedBodies.size();
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to determine if the encoded body of {@code object} should be cached. Only immutable inputs with a small
+	 * amount are cached, so that the cache stays small no matter which amounts are used.
+	 *
+	 * @param object
+	 * @return
+	 */
+	private boolean isCacheable(final Object object)
+	{
+		if (object instanceof IncrementShardedCounterInput)
+		{
+			final IncrementShardedCounterInput input = (IncrementShardedCounterInput) object;
+			return input.hasLongAmount() && this.isCacheable(input.getAmountAsLong());
+		}
+		else if (object instanceof DecrementShardedCounterInput)
+		{
+			final DecrementShardedCounterInput input = (DecrementShardedCounterInput) object;
+			return input.hasLongAmount() && this.isCacheable(input.getAmountAsLong());
+		}
+		return false;
+	}
+
+	/**
+	 * Helper to determine if {@code amount} lies between zero and {@code maxCachedAmount}.
+	 *
+	 * @param amount
+	 * @return
+	 */
+	private boolean isCacheable(final long amount)
+	{
+		return amount >= 0L && amount <= maxCachedAmount;
+	}
+
+	/**
+	 * Helper to encode {@code object} with the {@link ObjectMapper} of this encoder.
+	 *
+	 * @param object
+	 * @return
+	 */
+	private byte[] writeValueAsBytes(final Object object)
+	{
+		try
+		{
+			return objectMapper.writeValueAsBytes(object);
+		}
+		catch (JsonProcessingException e)
+		{
+			throw new EncodeException(e.getMessage(), e);
+		}
+	}
+}
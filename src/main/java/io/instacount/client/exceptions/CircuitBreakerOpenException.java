@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.exceptions;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import com.google.common.collect.ImmutableList;
+
+import io.instacount.client.circuitbreaker.CircuitBreaker;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.Errors.Error;
+
+/**
+ * An extension of {@link InstacountClientException} thrown, without contacting the Instacount API, when a call is
+ * rejected by an open {@link CircuitBreaker}. It carries an HTTP 503 status so that callers that only handle
+ * {@link InstacountClientException} treat it like any other unavailability of the Instacount API.
+ */
+@Getter
+@ToString(callSuper = true)
+public class CircuitBreakerOpenException extends InstacountClientException
+{
+	private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+	private final String circuitBreakerName;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param circuitBreakerName The name of the {@link CircuitBreaker} that rejected the call.
+	 */
+	public CircuitBreakerOpenException(final String circuitBreakerName)
+	{
+		super(new Errors(HTTP_SERVICE_UNAVAILABLE, ImmutableList.of(new Error("Circuit breaker open.", String.format(
+			"The \"%s\" circuit breaker is open because the Instacount API is failing or slow; the call was not sent.",
+			circuitBreakerName), ""))));
+		this.circuitBreakerName = circuitBreakerName;
+	}
+}
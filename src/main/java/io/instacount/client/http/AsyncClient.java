@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+
+/**
+ * The non-blocking counterpart of {@link Client}. Implementations must return immediately after the request has been
+ * handed to the underlying transport, without tying up the calling thread for the duration of the network call.
+ */
+public interface AsyncClient
+{
+	/**
+	 * Execute {@code request} asynchronously.
+	 *
+	 * @param request The {@link Request} to execute.
+	 * @param options The {@link Options} (e.g., timeouts) to apply to the request.
+	 * @return A {@link ListenableFuture} that is completed with the {@link Response}, or failed with an
+	 *         {@link java.io.IOException} if the request could not be executed.
+	 */
+	ListenableFuture<Response> execute(Request request, Options options);
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.base.Preconditions;
+
+import feign.Response;
+
+/**
+ * A repeatable implementation of {@link Response.Body} backed by a byte array that has already been read in full, for
+ * use by transports that receive the whole response body at once. The Instacount decoders read the bytes of this body
+ * directly, without going through an {@link InputStream}.
+ */
+public class ByteArrayBody implements Response.Body
+{
+	private final byte[] bytes;
+
+	/**
+	 * Required-args Constructor. {@code bytes} is not copied, and must not be modified afterwards.
+	 *
+	 * @param bytes
+	 */
+	public ByteArrayBody(final byte[] bytes)
+	{
+		this.bytes = Preconditions.checkNotNull(bytes);
+	}
+
+	/**
+	 * Return the bytes of this body. The returned array is not a copy, and must not be modified.
+	 *
+	 * @return
+	 */
+	public byte[] getBytes()
+	{
+		return bytes;
+	}
+
+	@Override
+	public Integer length()
+	{
+		return bytes.length;
+	}
+
+	@Override
+	public boolean isRepeatable()
+	{
+		return true;
+	}
+
+	@Override
+	public InputStream asInputStream()
+	{
+		return new ByteArrayInputStream(bytes);
+	}
+
+	@Override
+	public Reader asReader()
+	{
+		return new InputStreamReader(this.asInputStream(), StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close()
+	{
+		// Nothing to release.
+	}
+
+	@Override
+	public String toString()
+	{
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.squareup.okhttp.Callback;
+import com.squareup.okhttp.Headers;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.RequestBody;
+
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+
+/**
+ * An implementation of {@link AsyncClient} that uses the asynchronous call support of Square's OkHttp client. Calls
+ * are queued on the client's {@link com.squareup.okhttp.Dispatcher}, which bounds the number of requests in flight, so
+ * callers never block while a request is outstanding.
+ *
+ * @see "https://github.com/square/okhttp"
+ */
+public class OkHttpAsyncClient implements AsyncClient
+{
+	private final OkHttpClient okHttpClient;
+
+	/**
+	 * No-args Constructor.
+	 */
+	public OkHttpAsyncClient()
+	{
+		this(new OkHttpClient());
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param okHttpClient The {@link OkHttpClient} to execute calls with.
+	 */
+	public OkHttpAsyncClient(final OkHttpClient okHttpClient)
+	{
+		this.okHttpClient = Preconditions.checkNotNull(okHttpClient);
+	}
+
+	@Override
+	public ListenableFuture<Response> execute(final Request request, final Options options)
+	{
+		Preconditions.checkNotNull(request);
+		Preconditions.checkNotNull(options);
+
+		final SettableFuture<Response> responseFuture = SettableFuture.create();
+		this.clientFor(options).newCall(this.toOkHttpRequest(request)).enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(final com.squareup.okhttp.Request okHttpRequest, final IOException e)
+			{
+				responseFuture.setException(e);
+			}
+
+			@Override
+			public void onResponse(final com.squareup.okhttp.Response okHttpResponse) throws IOException
+			{
+				try
+				{
+					responseFuture.set(toFeignResponse(okHttpResponse));
+				}
+				catch (IOException | RuntimeException e)
+				{
+					responseFuture.setException(e);
+				}
+			}
+		});
+		return responseFuture;
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to return an {@link OkHttpClient} that honors the timeouts in {@code options}. The configured client is
+	 * used as-is when its timeouts already match, which is the common case.
+	 *
+	 * @param options
+	 * @return
+	 */
+	private OkHttpClient clientFor(final Options options)
+	{
+		if (okHttpClient.getConnectTimeout() == options.connectTimeoutMillis()
+			&& okHttpClient.getReadTimeout() == options.readTimeoutMillis())
+		{
+			return okHttpClient;
+		}
+
+		// A clone shares the connection pool and dispatcher of the original.
+		final OkHttpClient requestScoped = okHttpClient.clone();
+		requestScoped.setConnectTimeout(options.connectTimeoutMillis(), TimeUnit.MILLISECONDS);
+		requestScoped.setReadTimeout(options.readTimeoutMillis(), TimeUnit.MILLISECONDS);
+		return requestScoped;
+	}
+
+	/**
+	 * Convert a Feign {@link Request} into an OkHttp {@link com.squareup.okhttp.Request}.
+	 *
+	 * @param request
+	 * @return
+	 */
+	private com.squareup.okhttp.Request toOkHttpRequest(final Request request)
+	{
+		final com.squareup.okhttp.Request.Builder requestBuilder = new com.squareup.okhttp.Request.Builder()
+			.url(request.url());
+
+		MediaType mediaType = null;
+		boolean hasAcceptHeader = false;
+		for (final Map.Entry<String, Collection<String>> header : request.headers().entrySet())
+		{
+			if ("Accept".equalsIgnoreCase(header.getKey()))
+			{
+				hasAcceptHeader = true;
+			}
+			for (final String headerValue : header.getValue())
+			{
+				if ("Content-Type".equalsIgnoreCase(header.getKey()))
+				{
+					mediaType = MediaType.parse(headerValue);
+				}
+				requestBuilder.addHeader(header.getKey(), headerValue);
+			}
+		}
+		// Some servers choke on the default accept string.
+		if (!hasAcceptHeader)
+		{
+			requestBuilder.addHeader("Accept", "*/*");
+		}
+
+		byte[] body = request.body();
+		final boolean isMethodWithBody = "POST".equals(request.method()) || "PUT".equals(request.method());
+		if (isMethodWithBody && body == null)
+		{
+			body = new byte[0];
+		}
+		requestBuilder.method(request.method(), body == null ? null : RequestBody.create(mediaType, body));
+
+		return requestBuilder.build();
+	}
+
+	/**
+	 * Convert an OkHttp {@link com.squareup.okhttp.Response} into a Feign {@link Response}. The body is read fully on
+	 * the dispatcher thread so that it can be decoded on any thread, and reread if necessary.
+	 *
+	 * @param okHttpResponse
+	 * @return
+	 * @throws IOException
+	 */
+	private static Response toFeignResponse(final com.squareup.okhttp.Response okHttpResponse) throws IOException
+	{
+		final Headers okHttpHeaders = okHttpResponse.headers();
+		final Map<String, Collection<String>> headers = new LinkedHashMap<>(okHttpHeaders.size());
+		for (final String headerName : okHttpHeaders.names())
+		{
+			headers.put(headerName, okHttpHeaders.values(headerName));
+		}
+
+		final byte[] body = okHttpResponse.body() == null ? null : okHttpResponse.body().bytes();
+		return Response.create(okHttpResponse.code(), okHttpResponse.message(), headers, body);
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.Dispatcher;
+import com.squareup.okhttp.OkHttpClient;
+
+import feign.Client;
+
+/**
+ * A single, configured OkHttp client whose connection pool and dispatcher are shared by the blocking {@link Client}
+ * and the {@link AsyncClient} it hands out, so that every Instacount call reuses the same pooled connections.
+ */
+public class OkHttpTransport
+{
+	private final TransportOptions transportOptions;
+	private final ConnectionPool connectionPool;
+	private final Dispatcher dispatcher;
+	private final OkHttpClient okHttpClient;
+	private final Client client;
+	private final AsyncClient asyncClient;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param transportOptions The {@link TransportOptions} to configure the connection pool, dispatcher and timeouts
+	 *            with.
+	 */
+	public OkHttpTransport(final TransportOptions transportOptions)
+	{
+		this.transportOptions = Preconditions.checkNotNull(transportOptions);
+
+		this.connectionPool = new ConnectionPool(transportOptions.getMaxIdleConnections(),
+			transportOptions.getKeepAliveDurationMillis());
+		this.dispatcher = new Dispatcher();
+		this.dispatcher.setMaxRequests(transportOptions.getMaxRequests());
+		this.dispatcher.setMaxRequestsPerHost(transportOptions.getMaxRequestsPerHost());
+
+		this.okHttpClient = new OkHttpClient();
+		this.okHttpClient.setConnectionPool(connectionPool);
+		this.okHttpClient.setDispatcher(dispatcher);
+		this.okHttpClient.setConnectTimeout(transportOptions.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS);
+		this.okHttpClient.setReadTimeout(transportOptions.getReadTimeoutMillis(), TimeUnit.MILLISECONDS);
+
+		this.client = new feign.okhttp.OkHttpClient(okHttpClient);
+		this.asyncClient = new OkHttpAsyncClient(okHttpClient);
+	}
+
+	/**
+	 * Return the blocking Feign {@link Client} backed by this transport.
+	 *
+	 * @return
+	 */
+	public Client getClient()
+	{
+		return client;
+	}
+
+	/**
+	 * Return the {@link AsyncClient} backed by this transport.
+	 *
+	 * @return
+	 */
+	public AsyncClient getAsyncClient()
+	{
+		return asyncClient;
+	}
+
+	/**
+	 * Return the {@link TransportOptions} this transport was configured with.
+	 *
+	 * @return
+	 */
+	public TransportOptions getTransportOptions()
+	{
+		return transportOptions;
+	}
+
+	/**
+	 * Return a snapshot of the connection pool and dispatcher of this transport.
+	 *
+	 * @return
+	 */
+	public TransportStats getStats()
+	{
+		return new TransportStats(connectionPool.getConnectionCount(), connectionPool.getHttpConnectionCount(),
+			connectionPool.getMultiplexedConnectionCount(), dispatcher.getRunningCallCount(),
+			dispatcher.getQueuedCallCount());
+	}
+
+	/**
+	 * Close every idle connection in the pool.
+	 */
+	public void evictAll()
+	{
+		connectionPool.evictAll();
+	}
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import java.util.concurrent.TimeUnit;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import com.google.common.base.Preconditions;
+
+import feign.Request.Options;
+
+/**
+ * A class for configuring the HTTP transport used to reach the Instacount API: connection pooling, request
+ * concurrency, and timeouts.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class TransportOptions
+{
+	/**
+	 * The maximum number of idle connections kept in the pool.
+	 */
+	private final int maxIdleConnections;
+
+	/**
+	 * The amount of time, in milliseconds, an idle connection is kept in the pool before being closed.
+	 */
+	private final long keepAliveDurationMillis;
+
+	/**
+	 * The maximum number of asynchronous requests executed concurrently. Further requests are queued.
+	 */
+	private final int maxRequests;
+
+	/**
+	 * The maximum number of asynchronous requests executed concurrently against a single host. Every request goes to
+	 * the same Instacount host, so this is typically the effective limit.
+	 */
+	private final int maxRequestsPerHost;
+
+	/**
+	 * The connect timeout, in milliseconds.
+	 */
+	private final int connectTimeoutMillis;
+
+	/**
+	 * The read timeout, in milliseconds.
+	 */
+	private final int readTimeoutMillis;
+
+	/**
+	 * No-args Constructor, using the defaults: 5 idle connections kept alive for 5 minutes, 64 concurrent requests
+	 * (all of which may target the Instacount host), a 10 second connect timeout, and a 60 second read timeout.
+	 */
+	public TransportOptions()
+	{
+		this(5, TimeUnit.MINUTES.toMillis(5), 64, 64, (int) TimeUnit.SECONDS.toMillis(10),
+			(int) TimeUnit.SECONDS.toMillis(60));
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param maxIdleConnections The maximum number of idle connections kept in the pool.
+	 * @param keepAliveDurationMillis The amount of time, in milliseconds, an idle connection is kept in the pool.
+	 * @param maxRequests The maximum number of asynchronous requests executed concurrently.
+	 * @param maxRequestsPerHost The maximum number of asynchronous requests executed concurrently against one host.
+	 * @param connectTimeoutMillis The connect timeout, in milliseconds.
+	 * @param readTimeoutMillis The read timeout, in milliseconds.
+	 */
+	public TransportOptions(final int maxIdleConnections, final long keepAliveDurationMillis, final int maxRequests,
+			final int maxRequestsPerHost, final int connectTimeoutMillis, final int readTimeoutMillis)
+	{
+		Preconditions.checkArgument(maxIdleConnections >= 0, "maxIdleConnections must not be negative!");
+		Preconditions.checkArgument(keepAliveDurationMillis > 0, "keepAliveDurationMillis must be positive!");
+		Preconditions.checkArgument(maxRequests > 0, "maxRequests must be positive!");
+		Preconditions.checkArgument(maxRequestsPerHost > 0, "maxRequestsPerHost must be positive!");
+		Preconditions.checkArgument(connectTimeoutMillis >= 0, "connectTimeoutMillis must not be negative!");
+		Preconditions.checkArgument(readTimeoutMillis >= 0, "readTimeoutMillis must not be negative!");
+
+		this.maxIdleConnections = maxIdleConnections;
+		this.keepAliveDurationMillis = keepAliveDurationMillis;
+		this.maxRequests = maxRequests;
+		this.maxRequestsPerHost = maxRequestsPerHost;
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
+
+	/**
+	 * Return the Feign {@link Options} matching these timeouts, so that Feign never needs to reconfigure the
+	 * underlying client per request.
+	 *
+	 * @return
+	 */
+	public Options toRequestOptions()
+	{
+		return new Options(connectTimeoutMillis, readTimeoutMillis);
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * A point-in-time snapshot of the connection pool and dispatcher of an {@link OkHttpTransport}.
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class TransportStats
+{
+	/**
+	 * The total number of connections in the pool, both idle and in use.
+	 */
+	private final int connectionCount;
+
+	/**
+	 * The number of HTTP/1.x connections in the pool.
+	 */
+	private final int httpConnectionCount;
+
+	/**
+	 * The number of multiplexed (HTTP/2 or SPDY) connections in the pool.
+	 */
+	private final int multiplexedConnectionCount;
+
+	/**
+	 * The number of asynchronous requests currently executing.
+	 */
+	private final int runningCallCount;
+
+	/**
+	 * The number of asynchronous requests waiting to execute.
+	 */
+	private final int queuedCallCount;
+}
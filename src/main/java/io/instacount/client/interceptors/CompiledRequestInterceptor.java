@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.interceptors;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import io.instacount.client.jackson.WireFormat;
+
+/**
+ * An implementation of {@link RequestInterceptor} that applies the same headers as an
+ * {@link InstacountVersionRequestInterceptor.Impl} followed by a credentials interceptor (usually an
+ * {@link io.instacount.client.InstacountClientParams}), but resolves every header once, when it is compiled.
+ * <p>
+ * Each request then receives a precomputed set of headers, without calling any credential getters or building any
+ * header values. Headers that other interceptors set are kept. Only use this interceptor when the credentials
+ * interceptor always sets the same headers; see
+ * {@link io.instacount.client.InstacountClientParams.AbstractInstacountClientParams#isDynamicCredentials()}.
+ */
+public class CompiledRequestInterceptor implements RequestInterceptor
+{
+	private static final String CONTENT_LENGTH = "Content-Length";
+
+	// Shared by every request without a body, since it can never be modified.
+	private static final byte[] EMPTY_BODY = new byte[0];
+
+	// The headers of requests without a body, and of POST and PUT requests respectively.
+	private final Map<String, Collection<String>> headers;
+	private final Map<String, Collection<String>> bodyHeaders;
+
+	/**
+	 * Compile the headers that {@code credentialsRequestInterceptor} sets, together with the {@code Accept} and
+	 * {@code Content-Type} headers of {@code wireFormat}, into a {@link CompiledRequestInterceptor}.
+	 *
+	 * @param wireFormat The {@link WireFormat} of request bodies, and the preferred format of response bodies.
+	 * @param credentialsRequestInterceptor A {@link RequestInterceptor} that sets the same headers on every request.
+	 *            It is applied once, to an empty request.
+	 * @return
+	 */
+	public static CompiledRequestInterceptor compile(final WireFormat wireFormat,
+			final RequestInterceptor credentialsRequestInterceptor)
+	{
+		Preconditions.checkNotNull(wireFormat);
+		Preconditions.checkNotNull(credentialsRequestInterceptor);
+
+		final RequestTemplate probe = new RequestTemplate().method("GET");
+		credentialsRequestInterceptor.apply(probe);
+
+		final Map<String, Collection<String>> headers = new LinkedHashMap<>();
+		headers.put("Accept", Collections.singletonList(wireFormat.getAcceptHeader()));
+		for (final Map.Entry<String, Collection<String>> header : probe.headers().entrySet())
+		{
+			// The compiled values are shared by every request, so they must never change.
+			headers.put(header.getKey(), ImmutableList.copyOf(header.getValue()));
+		}
+
+		final Map<String, Collection<String>> bodyHeaders = new LinkedHashMap<>(headers);
+		bodyHeaders.put("Content-Type", Collections.singletonList(wireFormat.getContentType()));
+
+		return new CompiledRequestInterceptor(headers, bodyHeaders);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param headers The headers of requests without a body.
+	 * @param bodyHeaders The headers of POST and PUT requests.
+	 */
+	private CompiledRequestInterceptor(final Map<String, Collection<String>> headers,
+			final Map<String, Collection<String>> bodyHeaders)
+	{
+		this.headers = ImmutableMap.copyOf(headers);
+		this.bodyHeaders = ImmutableMap.copyOf(bodyHeaders);
+	}
+
+	@Override
+	public void apply(final RequestTemplate requestTemplate)
+	{
+		// The methods of a Feign contract are always upper-case.
+		final String method = requestTemplate.method();
+		if ("POST".equals(method) || "PUT".equals(method))
+		{
+			if (requestTemplate.body() == null)
+			{
+				requestTemplate.body(EMPTY_BODY, StandardCharsets.UTF_8);
+			}
+			else
+			{
+				// Remove the Content-Length Header because it will be sourced from the actual body, internally.
+				removeContentLength(requestTemplate);
+			}
+			applyHeaders(requestTemplate, bodyHeaders);
+		}
+		else
+		{
+			applyHeaders(requestTemplate, headers);
+		}
+	}
+
+	/**
+	 * Return the headers applied to requests without a body.
+	 *
+	 * @return
+	 */
+	public Map<String, Collection<String>> getHeaders()
+	{
+		return headers;
+	}
+
+	/**
+	 * Return the headers applied to POST and PUT requests.
+	 *
+	 * @return
+	 */
+	public Map<String, Collection<String>> getBodyHeaders()
+	{
+		return bodyHeaders;
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to remove the {@code Content-Length} header of {@code requestTemplate}, whatever the case of its name.
+	 * The headers are only copied if such a header is present.
+	 *
+	 * @param requestTemplate
+	 */
+	private static void removeContentLength(final RequestTemplate requestTemplate)
+	{
+		List<String> contentLengthNames = null;
+		for (final String headerName : requestTemplate.headers().keySet())
+		{
+			if (CONTENT_LENGTH.equalsIgnoreCase(headerName))
+			{
+				if (contentLengthNames == null)
+				{
+					contentLengthNames = new ArrayList<>(1);
+				}
+				contentLengthNames.add(headerName);
+			}
+		}
+		if (contentLengthNames != null)
+		{
+			for (final String headerName : contentLengthNames)
+			{
+				requestTemplate.header(headerName, (String) null);
+			}
+		}
+	}
+
+	/**
+	 * Helper to set each of {@code headersToApply} on {@code requestTemplate}, replacing any existing values of the
+	 * same header but leaving every other header of {@code requestTemplate} as it is.
+	 *
+	 * @param requestTemplate
+	 * @param headersToApply
+	 */
+	private static void applyHeaders(final RequestTemplate requestTemplate,
+			final Map<String, Collection<String>> headersToApply)
+	{
+		for (final Map.Entry<String, Collection<String>> header : headersToApply.entrySet())
+		{
+			requestTemplate.header(header.getKey(), header.getValue());
+		}
+	}
+}
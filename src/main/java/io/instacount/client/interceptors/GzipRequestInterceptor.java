@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.interceptors;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.base.Preconditions;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+
+/**
+ * An implementation of {@link RequestInterceptor} that negotiates gzip compression with the Instacount API. Every
+ * request advertises {@code Accept-Encoding: gzip} (gzip-encoded responses are decompressed by the Instacount
+ * decoders while they are parsed), and request bodies of at least {@code minRequestBodyBytes} are sent gzipped.
+ * <p>
+ * Counter payloads are small, so compressing them usually costs more CPU than it saves in bandwidth; the threshold
+ * keeps small bodies uncompressed. Run {@code GzipBenchmark} to measure the tradeoff for a given payload size.
+ */
+public class GzipRequestInterceptor implements RequestInterceptor
+{
+	/**
+	 * The default size, in bytes, from which request bodies are compressed.
+	 */
+	public static final int DEFAULT_MIN_REQUEST_BODY_BYTES = 1024;
+
+	private final int minRequestBodyBytes;
+
+	/**
+	 * No-args Constructor, compressing request bodies of at least {@link #DEFAULT_MIN_REQUEST_BODY_BYTES}.
+	 */
+	public GzipRequestInterceptor()
+	{
+		this(DEFAULT_MIN_REQUEST_BODY_BYTES);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param minRequestBodyBytes The size, in bytes, from which request bodies are compressed. Use
+	 *            {@link Integer#MAX_VALUE} to only compress responses.
+	 */
+	public GzipRequestInterceptor(final int minRequestBodyBytes)
+	{
+		Preconditions.checkArgument(minRequestBodyBytes >= 0, "minRequestBodyBytes must not be negative!");
+		this.minRequestBodyBytes = minRequestBodyBytes;
+	}
+
+	@Override
+	public void apply(final RequestTemplate requestTemplate)
+	{
+		requestTemplate.header("Accept-Encoding", "gzip");
+
+		final byte[] body = requestTemplate.body();
+		if (body != null && body.length > 0 && body.length >= minRequestBodyBytes)
+		{
+			requestTemplate.body(gzip(body), requestTemplate.charset());
+			requestTemplate.header("Content-Encoding", "gzip");
+			// Remove the Content-Length Header because it will be sourced from the actual body, internally.
+			requestTemplate.header("Content-Length", (String) null);
+		}
+	}
+
+	/**
+	 * Return the size, in bytes, from which request bodies are compressed.
+	 *
+	 * @return
+	 */
+	public int getMinRequestBodyBytes()
+	{
+		return minRequestBodyBytes;
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to gzip {@code bytes}.
+	 *
+	 * @param bytes
+	 * @return
+	 */
+	private static byte[] gzip(final byte[] bytes)
+	{
+		final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(bytes.length / 2 + 32);
+		try (final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream))
+		{
+			gzipOutputStream.write(bytes);
+		}
+		catch (IOException e)
+		{
+			// Unreachable, because the bytes are written to memory.
+			throw new IllegalStateException(e);
+		}
+		return byteArrayOutputStream.toByteArray();
+	}
+}
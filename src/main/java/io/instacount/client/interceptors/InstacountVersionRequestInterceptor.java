@@ -17,13 +17,14 @@ import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
-import io.instacount.client.Constants;
+import io.instacount.client.jackson.WireFormat;
 
 /**
  * An implementation of {@link RequestInterceptor} for supplying proper Accept headers for Instacount API requests.
@@ -35,10 +36,30 @@ public interface InstacountVersionRequestInterceptor extends RequestInterceptor
 	 */
 	class Impl implements InstacountVersionRequestInterceptor
 	{
+		private final WireFormat wireFormat;
+
+		/**
+		 * No-args Constructor, for requests and responses in {@link WireFormat#JSON}.
+		 */
+		public Impl()
+		{
+			this(WireFormat.JSON);
+		}
+
+		/**
+		 * Required-args Constructor.
+		 *
+		 * @param wireFormat The {@link WireFormat} of request bodies, and the preferred format of response bodies.
+		 */
+		public Impl(final WireFormat wireFormat)
+		{
+			this.wireFormat = Preconditions.checkNotNull(wireFormat);
+		}
+
 		@Override
 		public void apply(final RequestTemplate requestTemplate)
 		{
-			requestTemplate.header("Accept", Constants.ApiVersions.API_VERSION_1);
+			requestTemplate.header("Accept", wireFormat.getAcceptHeader());
 
 			if (StringUtils.equalsIgnoreCase("POST", requestTemplate.method())
 				|| StringUtils.equalsIgnoreCase("PUT", requestTemplate.method()))
@@ -67,7 +88,7 @@ public interface InstacountVersionRequestInterceptor extends RequestInterceptor
 				}
 
 				// Last but not least, always set the Content-Type to be the Instacount version.
-				requestTemplate.header("Content-Type", Constants.ApiVersions.API_VERSION_1);
+				requestTemplate.header("Content-Type", wireFormat.getContentType());
 			}
 		}
 	}
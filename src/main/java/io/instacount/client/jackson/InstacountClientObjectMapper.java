@@ -12,9 +12,12 @@
  */
 package io.instacount.client.jackson;
 
+import org.joda.time.DateTime;
+
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.util.ISO8601DateFormat;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
@@ -26,14 +29,29 @@ import com.sappenin.utils.json.jackson.mappers.modules.HttpUrlModule;
 public class InstacountClientObjectMapper extends ObjectMapper
 {
 	/**
-	 * No-args Constructor.
+	 * No-args Constructor, for reading and writing JSON.
 	 * 
 	 * @see "https://github.com/FasterXML/jackson-datatype-joda"
 	 */
 	public InstacountClientObjectMapper()
 	{
+		this(WireFormat.JSON);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param wireFormat The {@link WireFormat} read and written by this mapper.
+	 * @see "https://github.com/FasterXML/jackson-datatype-joda"
+	 */
+	public InstacountClientObjectMapper(final WireFormat wireFormat)
+	{
+		super(wireFormat.newJsonFactory());
 		registerModule(new HttpUrlModule());
 		registerModule(new JodaModule());
+		// Registered after the Joda module, so that it takes precedence for DateTime values.
+		registerModule(new SimpleModule(Iso8601DateTimeDeserializer.class.getSimpleName()).addDeserializer(
+			DateTime.class, new Iso8601DateTimeDeserializer()));
 		registerModule(new GuavaModule());
 		configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
 		configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.jackson;
+
+import java.io.IOException;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.datatype.joda.deser.DateTimeDeserializer;
+
+/**
+ * A Jackson deserializer for Joda {@link DateTime} values that parses the fixed timestamp format returned by the
+ * Instacount API ({@code yyyy-MM-ddTHH:mm:ss[.SSS]Z}, in UTC) directly from the parser's character buffer, without
+ * creating a {@link String} or going through Joda's formatter. Any other value (a timestamp with an offset, more than
+ * millisecond precision, or a number) is handed to the {@link DateTimeDeserializer} of the Joda module, so the result
+ * is always the same as that of the Joda module alone.
+ */
+public class Iso8601DateTimeDeserializer extends StdScalarDeserializer<DateTime>
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Returned by {@link #parseEpochMillis(char[], int, int)} for timestamps that are not in the fixed format.
+	 */
+	public static final long UNPARSEABLE = Long.MIN_VALUE;
+
+	private static final long MILLIS_PER_SECOND = 1000L;
+	private static final long MILLIS_PER_DAY = 24L * 60L * 60L * MILLIS_PER_SECOND;
+
+	private final JsonDeserializer<DateTime> fallbackDeserializer;
+
+	/**
+	 * No-args Constructor.
+	 */
+	public Iso8601DateTimeDeserializer()
+	{
+		super(DateTime.class);
+		this.fallbackDeserializer = DateTimeDeserializer.forType(DateTime.class);
+	}
+
+	@Override
+	public DateTime deserialize(final JsonParser jsonParser, final DeserializationContext context) throws IOException
+	{
+		if (jsonParser.getCurrentToken() == JsonToken.VALUE_STRING)
+		{
+			final long epochMillis = parseEpochMillis(jsonParser.getTextCharacters(), jsonParser.getTextOffset(),
+				jsonParser.getTextLength());
+			if (epochMillis != UNPARSEABLE)
+			{
+				// Like the Joda module, express the instant in the time zone of the ObjectMapper (UTC by default).
+				return new DateTime(epochMillis, DateTimeZone.forTimeZone(context.getTimeZone()));
+			}
+		}
+		return fallbackDeserializer.deserialize(jsonParser, context);
+	}
+
+	/**
+	 * Parse a timestamp of the form {@code yyyy-MM-ddTHH:mm:ss[.S[S[S]]]Z} into milliseconds since the epoch.
+	 *
+	 * @param chars
+	 * @param offset The index of the first character of the timestamp in {@code chars}.
+	 * @param length The number of characters of the timestamp.
+	 * @return The number of milliseconds since the epoch, or {@link #UNPARSEABLE} if the timestamp is not in the fixed
+	 *         format, or is not a valid date and time.
+	 */
+	public static long parseEpochMillis(final char[] chars, final int offset, final int length)
+	{
+		// The shortest form is "yyyy-MM-ddTHH:mm:ssZ", and the longest "yyyy-MM-ddTHH:mm:ss.SSSZ".
+		if (length < 20 || length > 24 || length == 21 || chars[offset + length - 1] != 'Z'
+			|| chars[offset + 4] != '-' || chars[offset + 7] != '-' || chars[offset + 10] != 'T'
+			|| chars[offset + 13] != ':' || chars[offset + 16] != ':' || (length > 20 && chars[offset + 19] != '.'))
+		{
+			return UNPARSEABLE;
+		}
+
+		final int year = digits(chars, offset, 4);
+		final int month = digits(chars, offset + 5, 2);
+		final int day = digits(chars, offset + 8, 2);
+		final int hour = digits(chars, offset + 11, 2);
+		final int minute = digits(chars, offset + 14, 2);
+		final int second = digits(chars, offset + 17, 2);
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour < 0 || hour > 23
+			|| minute < 0 || minute > 59 || second < 0 || second > 59)
+		{
+			return UNPARSEABLE;
+		}
+
+		// A fraction of one to three digits, e.g. ".4" is 400 milliseconds.
+		int millis = 0;
+		if (length > 20)
+		{
+			final int fractionDigits = length - 21;
+			millis = digits(chars, offset + 20, fractionDigits);
+			if (millis < 0)
+			{
+				return UNPARSEABLE;
+			}
+			for (int i = fractionDigits; i < 3; i++)
+			{
+				millis *= 10;
+			}
+		}
+
+		return daysSinceEpoch(year, month, day) * MILLIS_PER_DAY + ((hour * 60L + minute) * 60L + second)
+			* MILLIS_PER_SECOND + millis;
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to parse {@code count} decimal digits starting at {@code start}.
+	 *
+	 * @param chars
+	 * @param start
+	 * @param count
+	 * @return The value of the digits, or {@code -1} if any character is not a digit.
+	 */
+	private static int digits(final char[] chars, final int start, final int count)
+	{
+		int value = 0;
+		for (int i = start; i < start + count; i++)
+		{
+			final char c = chars[i];
+			if (c < '0' || c > '9')
+			{
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Helper to compute the number of days in {@code month} of {@code year}, in the proleptic Gregorian calendar.
+	 *
+	 * @param year
+	 * @param month
+	 * @return
+	 */
+	private static int daysInMonth(final int year, final int month)
+	{
+		switch (month)
+		{
+			case 2:
+				return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+
+	/**
+	 * Helper to compute the number of days between 1970-01-01 and the given date, in the proleptic Gregorian calendar.
+	 * Years are shifted to start in March, so that the leap day is the last day of the year.
+	 *
+	 * @param year A year between 0 and 9999.
+	 * @param month
+	 * @param day
+	 * @return
+	 *
+	 * @see "http://howardhinnant.github.io/date_algorithms.html#days_from_civil"
+	 */
+	private static long daysSinceEpoch(final int year, final int month, final int day)
+	{
+		final int shiftedYear = month <= 2 ? year - 1 : year;
+		final int era = (shiftedYear >= 0 ? shiftedYear : shiftedYear - 399) / 400;
+		final int yearOfEra = shiftedYear - era * 400;
+		final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468L;
+	}
+}
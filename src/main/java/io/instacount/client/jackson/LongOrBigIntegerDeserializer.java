@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.jackson;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonParser.NumberType;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.NumberDeserializers.BigIntegerDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import io.instacount.client.model.LongOrBigInteger;
+
+/**
+ * A Jackson deserializer for counts and amounts that reads integers that fit in a {@code long} without creating a
+ * {@link BigInteger}, and falls back to a {@link BigInteger} only for larger values. See {@link LongOrBigInteger}.
+ */
+public class LongOrBigIntegerDeserializer extends StdScalarDeserializer<Number>
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * No-args Constructor.
+	 */
+	public LongOrBigIntegerDeserializer()
+	{
+		super(Number.class);
+	}
+
+	@Override
+	public Number deserialize(final JsonParser jsonParser, final DeserializationContext context) throws IOException
+	{
+		if (jsonParser.getCurrentToken() == JsonToken.VALUE_NUMBER_INT
+			&& jsonParser.getNumberType() != NumberType.BIG_INTEGER)
+		{
+			return Long.valueOf(jsonParser.getLongValue());
+		}
+
+		// Strings, floats and very large integers are rare, so they are handled like any other BigInteger.
+		final BigInteger value = BigIntegerDeserializer.instance.deserialize(jsonParser, context);
+		return value == null ? null : LongOrBigInteger.valueOf(value);
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.jackson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import io.instacount.client.Constants.ApiVersions;
+
+/**
+ * The formats in which request and response bodies can be exchanged with the Instacount API. Both formats carry the
+ * same data model: Smile is a binary encoding of JSON that is smaller and faster to parse.
+ *
+ * @see "https://github.com/FasterXML/smile-format-specification"
+ */
+public enum WireFormat
+{
+	/**
+	 * JSON text, as {@link ApiVersions#API_VERSION_1}. Supported by every Instacount API server.
+	 */
+	JSON(ApiVersions.API_VERSION_1)
+	{
+		@Override
+		public JsonFactory newJsonFactory()
+		{
+			return new MappingJsonFactory();
+		}
+	},
+
+	/**
+	 * Jackson Smile, as {@link ApiVersions#API_VERSION_1_SMILE}. Clients that prefer Smile still accept JSON
+	 * responses, from servers that do not support Smile.
+	 */
+	SMILE(ApiVersions.API_VERSION_1_SMILE)
+	{
+		@Override
+		public JsonFactory newJsonFactory()
+		{
+			return new SmileFactory();
+		}
+	};
+
+	private final String contentType;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param contentType
+	 */
+	WireFormat(final String contentType)
+	{
+		this.contentType = contentType;
+	}
+
+	/**
+	 * Return the media type of bodies in this format.
+	 *
+	 * @return
+	 */
+	public String getContentType()
+	{
+		return contentType;
+	}
+
+	/**
+	 * Return the value of the {@code Accept} header for clients that prefer this format. Every format falls back to
+	 * JSON.
+	 *
+	 * @return
+	 */
+	public String getAcceptHeader()
+	{
+		return this == JSON ? contentType : contentType + ", " + JSON.contentType + ";q=0.5";
+	}
+
+	/**
+	 * Return a new {@link JsonFactory} that reads and writes this format.
+	 *
+	 * @return
+	 */
+	public abstract JsonFactory newJsonFactory();
+
+	/**
+	 * Return the {@link WireFormat} of a body with the media type {@code contentType}. Anything that is not Smile is
+	 * read as JSON.
+	 *
+	 * @param contentType The value of a {@code Content-Type} header, or {@code null} if there is none.
+	 * @return
+	 */
+	public static WireFormat forContentType(final String contentType)
+	{
+		return contentType != null && contentType.startsWith(SMILE.contentType) ? SMILE : JSON;
+	}
+}
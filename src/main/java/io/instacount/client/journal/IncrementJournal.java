@@ -0,0 +1,459 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A durable, append-only journal of pending increment and decrement deltas, backed by a memory-mapped file.
+ * <p>
+ * Every call to {@link #append(String, long)} writes a small checksummed record into the mapped file, and adds the
+ * delta to an in-memory sum per counter. Once the delta has been sent to the Instacount API, the sender appends the
+ * negated delta so that the sum for the counter returns to zero. When the journal is re-opened (e.g. after a restart),
+ * its records are replayed to rebuild the sum for each counter, stopping at the first torn or corrupt record.
+ * <p>
+ * Writes to the mapped file survive a crash of the JVM. Call {@link #force()} to also make them survive a crash of
+ * the operating system. When the file fills up, {@link #compact()} rewrites it with a single record per counter that
+ * still has a pending delta, growing the file if necessary.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class IncrementJournal implements Closeable
+{
+	/**
+	 * The default capacity, in bytes, of a newly created journal file.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+	// "ICJ1"
+	private static final int MAGIC = 0x49434A31;
+
+	// The size of the record length, the delta and the checksum.
+	private static final int RECORD_OVERHEAD = 4 + 8 + 4;
+
+	private final File file;
+	private final Map<String, Long> pendingDeltas;
+
+	private MappedByteBuffer buffer;
+	private boolean closed;
+
+	/**
+	 * Open the journal stored in {@code file}, creating it with a capacity of {@link #DEFAULT_CAPACITY} if it does not
+	 * exist.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static IncrementJournal open(final File file) throws IOException
+	{
+		return open(file, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Open the journal stored in {@code file}, creating it if it does not exist, and replay its records.
+	 *
+	 * @param file
+	 * @param capacity The minimum size, in bytes, of the journal file.
+	 * @return
+	 * @throws IOException If {@code file} cannot be mapped, or is not an increment journal.
+	 */
+	public static IncrementJournal open(final File file, final int capacity) throws IOException
+	{
+		Preconditions.checkNotNull(file);
+		Preconditions.checkArgument(capacity > 4 + RECORD_OVERHEAD, "capacity is too small!");
+
+		final boolean existing = file.exists() && file.length() > 0;
+		final MappedByteBuffer buffer = map(file, (int) Math.max(capacity, file.length()));
+		if (existing)
+		{
+			if (buffer.getInt(0) != MAGIC)
+			{
+				throw new IOException(String.format("File \"%s\" is not an increment journal!", file));
+			}
+		}
+		else
+		{
+			buffer.putInt(0, MAGIC);
+		}
+
+		final IncrementJournal journal = new IncrementJournal(file, buffer);
+		journal.replay();
+		return journal;
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param file
+	 * @param buffer
+	 */
+	private IncrementJournal(final File file, final MappedByteBuffer buffer)
+	{
+		this.file = file;
+		this.buffer = buffer;
+		this.pendingDeltas = new HashMap<>();
+	}
+
+	/**
+	 * Durably record {@code delta} against {@code counterName}, compacting the journal first if it is full.
+	 *
+	 * @param counterName
+	 * @param delta A positive delta for increments, or a negative delta for decrements.
+	 * @throws IOException If the journal is closed, or could not be compacted.
+	 */
+	public synchronized void append(final String counterName, final long delta) throws IOException
+	{
+		Preconditions.checkNotNull(counterName);
+		this.checkOpen();
+		if (delta == 0L)
+		{
+			return;
+		}
+
+		final byte[] name = counterName.getBytes(StandardCharsets.UTF_8);
+		if (buffer.remaining() < name.length + RECORD_OVERHEAD)
+		{
+			this.compact(name.length + RECORD_OVERHEAD);
+		}
+
+		writeRecord(buffer, name, delta);
+		this.accumulate(counterName, delta);
+	}
+
+	/**
+	 * Return the delta that is currently pending for {@code counterName}.
+	 *
+	 * @param counterName
+	 * @return
+	 */
+	public synchronized long getPendingDelta(final String counterName)
+	{
+		final Long delta = pendingDeltas.get(counterName);
+		return delta == null ? 0L : delta;
+	}
+
+	/**
+	 * Return a snapshot of every counter that has a non-zero pending delta.
+	 *
+	 * @return
+	 */
+	public synchronized Map<String, Long> getPendingDeltas()
+	{
+		return ImmutableMap.copyOf(pendingDeltas);
+	}
+
+	/**
+	 * Return the number of bytes of the journal file that are currently in use.
+	 *
+	 * @return
+	 */
+	public synchronized int getUsedBytes()
+	{
+		return buffer.position();
+	}
+
+	/**
+	 * Return the size, in bytes, of the journal file.
+	 *
+	 * @return
+	 */
+	public synchronized int getCapacity()
+	{
+		return buffer.capacity();
+	}
+
+	/**
+	 * Flush every record written so far to the storage device.
+	 */
+	public synchronized void force()
+	{
+		if (!closed)
+		{
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Rewrite the journal file so that it holds a single record per counter that still has a pending delta.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void compact() throws IOException
+	{
+		this.checkOpen();
+		this.compact(0);
+	}
+
+	/**
+	 * Flush every record to the storage device, and release the journal. Further appends will fail.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		if (!closed)
+		{
+			buffer.force();
+			closed = true;
+		}
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to rebuild the pending delta of each counter from the records in the journal file, leaving the buffer
+	 * positioned after the last intact record.
+	 */
+	private void replay()
+	{
+		buffer.position(4);
+		while (true)
+		{
+			final int start = buffer.position();
+			try
+			{
+				final int length = buffer.getInt();
+				if (length <= 0 || length > buffer.remaining() - 12)
+				{
+					buffer.position(start);
+					break;
+				}
+
+				final byte[] name = new byte[length];
+				buffer.get(name);
+				final long delta = buffer.getLong();
+				if (buffer.getInt() != checksum(name, delta))
+				{
+					buffer.position(start);
+					break;
+				}
+
+				this.accumulate(new String(name, StandardCharsets.UTF_8), delta);
+			}
+			catch (BufferUnderflowException e)
+			{
+				buffer.position(start);
+				break;
+			}
+		}
+
+		// Clear anything after the last intact record, so that a torn record is never mistaken for a valid one.
+		for (int i = buffer.position(); i < buffer.capacity(); i++)
+		{
+			buffer.put(i, (byte) 0);
+		}
+	}
+
+	/**
+	 * Helper to rewrite the journal into a new file with room for at least {@code extraBytes} more, then atomically
+	 * replace the current journal file with it.
+	 *
+	 * @param extraBytes
+	 * @throws IOException
+	 */
+	private void compact(final int extraBytes) throws IOException
+	{
+		final Map<String, byte[]> names = new HashMap<>();
+		int requiredBytes = 4 + extraBytes;
+		for (final String counterName : pendingDeltas.keySet())
+		{
+			final byte[] name = counterName.getBytes(StandardCharsets.UTF_8);
+			names.put(counterName, name);
+			requiredBytes += name.length + RECORD_OVERHEAD;
+		}
+
+		int capacity = buffer.capacity();
+		while (capacity - requiredBytes < capacity / 4)
+		{
+			capacity *= 2;
+		}
+
+		final File compactFile = new File(file.getPath() + ".compact");
+		Files.deleteIfExists(compactFile.toPath());
+
+		final MappedByteBuffer compactBuffer = map(compactFile, capacity);
+		compactBuffer.putInt(MAGIC);
+		for (final Map.Entry<String, byte[]> entry : names.entrySet())
+		{
+			writeRecord(compactBuffer, entry.getValue(), pendingDeltas.get(entry.getKey()));
+		}
+		compactBuffer.force();
+
+		// Release the old mapping before replacing its file, since some platforms (such as Windows) refuse to replace a
+		// mapped file, and the mapping would otherwise linger until the buffer is garbage collected.
+		final int position = buffer.position();
+		final int oldCapacity = buffer.capacity();
+		buffer.force();
+		unmap(buffer);
+		buffer = compactBuffer;
+		try
+		{
+			Files.move(compactFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e)
+		{
+			// Keep appending to the old journal file, which still holds every record.
+			buffer = map(file, oldCapacity);
+			buffer.position(position);
+			unmap(compactBuffer);
+			throw e;
+		}
+	}
+
+	/**
+	 * Helper to add {@code delta} to the in-memory sum of {@code counterName}, removing counters whose sum reaches
+	 * zero.
+	 *
+	 * @param counterName
+	 * @param delta
+	 */
+	private void accumulate(final String counterName, final long delta)
+	{
+		final long sum = this.getPendingDelta(counterName) + delta;
+		if (sum == 0L)
+		{
+			pendingDeltas.remove(counterName);
+		}
+		else
+		{
+			pendingDeltas.put(counterName, sum);
+		}
+	}
+
+	/**
+	 * Helper to fail with an {@link IOException} once the journal has been closed.
+	 *
+	 * @throws IOException
+	 */
+	private void checkOpen() throws IOException
+	{
+		if (closed)
+		{
+			throw new IOException(String.format("Increment journal \"%s\" is closed!", file));
+		}
+	}
+
+	/**
+	 * Helper to write a single record at the current position of {@code buffer}.
+	 *
+	 * @param buffer
+	 * @param name The UTF-8 encoded name of the counter.
+	 * @param delta
+	 */
+	private static void writeRecord(final MappedByteBuffer buffer, final byte[] name, final long delta)
+	{
+		buffer.putInt(name.length);
+		buffer.put(name);
+		buffer.putLong(delta);
+		buffer.putInt(checksum(name, delta));
+	}
+
+	/**
+	 * Helper to compute the checksum of a record, used to detect records that were only partially written.
+	 *
+	 * @param name
+	 * @param delta
+	 * @return
+	 */
+	private static int checksum(final byte[] name, final long delta)
+	{
+		final CRC32 crc32 = new CRC32();
+		crc32.update(name);
+		for (int shift = 56; shift >= 0; shift -= 8)
+		{
+			crc32.update((int) (delta >>> shift));
+		}
+		return (int) crc32.getValue();
+	}
+
+	/**
+	 * Helper to release the mapping of {@code buffer} immediately, rather than when it is garbage collected. If the
+	 * running JVM does not allow this, the mapping is left to the garbage collector. {@code buffer} must not be used
+	 * afterwards.
+	 *
+	 * @param buffer
+	 */
+	private static void unmap(final MappedByteBuffer buffer)
+	{
+		try
+		{
+			// Java 9 and later.
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+			return;
+		}
+		catch (ReflectiveOperationException | RuntimeException e)
+		{
+			// Fall through to the Java 8 (and earlier) cleaner.
+		}
+		try
+		{
+			final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			final Object cleaner = cleanerMethod.invoke(buffer);
+			if (cleaner != null)
+			{
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+		}
+		catch (ReflectiveOperationException | RuntimeException e)
+		{
+			// Left to the garbage collector.
+		}
+	}
+
+	/**
+	 * Helper to map {@code file} into memory, growing it to {@code capacity} bytes if necessary. The mapping remains
+	 * valid after the underlying channel has been closed.
+	 *
+	 * @param file
+	 * @param capacity
+	 * @return
+	 * @throws IOException
+	 */
+	private static MappedByteBuffer map(final File file, final int capacity) throws IOException
+	{
+		try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"))
+		{
+			if (randomAccessFile.length() < capacity)
+			{
+				randomAccessFile.setLength(capacity);
+			}
+			return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		}
+	}
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.AtomicLongMap;
+
+import io.instacount.client.model.headers.Quota;
+
+/**
+ * An implementation of {@link InstacountMetrics} that keeps, for every Instacount method, HdrHistogram latency
+ * histograms of network and decode time, counts of each HTTP status, and totals of bytes sent and received. The most
+ * recent {@link Quota} is kept as a set of gauges.
+ * <p>
+ * Recording is lock-free. Call {@link #getMethodMetrics()} to take a snapshot, e.g. for export to a metrics system.
+ */
+public class HdrHistogramMetrics implements InstacountMetrics
+{
+	private final int numberOfSignificantValueDigits;
+	private final ConcurrentMap<String, MethodRecorder> methodRecorders;
+	private final AtomicReference<Quota> latestQuota;
+
+	/**
+	 * No-args Constructor. Latencies are recorded with 3 significant digits.
+	 */
+	public HdrHistogramMetrics()
+	{
+		this(3);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param numberOfSignificantValueDigits The precision of the latency histograms, between 0 and 5.
+	 */
+	public HdrHistogramMetrics(final int numberOfSignificantValueDigits)
+	{
+		Preconditions.checkArgument(numberOfSignificantValueDigits >= 0 && numberOfSignificantValueDigits <= 5,
+			"numberOfSignificantValueDigits must be between 0 and 5!");
+		this.numberOfSignificantValueDigits = numberOfSignificantValueDigits;
+		this.methodRecorders = new ConcurrentHashMap<>();
+		this.latestQuota = new AtomicReference<>();
+	}
+
+	@Override
+	public void onResponse(final String configKey, final int httpResponseCode, final long networkNanos,
+			final long requestBytes, final long responseBytes)
+	{
+		final MethodRecorder methodRecorder = this.methodRecorder(configKey);
+		methodRecorder.networkLatency.recordValue(Math.max(networkNanos, 0L));
+		methodRecorder.httpResponseCodeCounts.incrementAndGet(httpResponseCode);
+		methodRecorder.requestBytes.addAndGet(requestBytes);
+		methodRecorder.responseBytes.addAndGet(responseBytes);
+	}
+
+	@Override
+	public void onFailure(final String configKey, final long networkNanos, final Throwable cause)
+	{
+		final MethodRecorder methodRecorder = this.methodRecorder(configKey);
+		methodRecorder.networkLatency.recordValue(Math.max(networkNanos, 0L));
+		methodRecorder.failureCount.incrementAndGet();
+	}
+
+	@Override
+	public void onDecode(final String configKey, final long decodeNanos)
+	{
+		this.methodRecorder(configKey).decodeLatency.recordValue(Math.max(decodeNanos, 0L));
+	}
+
+	@Override
+	public void onQuota(final Quota quota)
+	{
+		latestQuota.set(quota);
+	}
+
+	/**
+	 * Return a snapshot of the metrics of every method that has been called, keyed by config key.
+	 *
+	 * @return
+	 */
+	public Map<String, MethodMetrics> getMethodMetrics()
+	{
+		final ImmutableMap.Builder<String, MethodMetrics> methodMetrics = ImmutableMap.builder();
+		for (final Map.Entry<String, MethodRecorder> entry : methodRecorders.entrySet())
+		{
+			methodMetrics.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+		}
+		return methodMetrics.build();
+	}
+
+	/**
+	 * Return a snapshot of the metrics of the method identified by {@code configKey}, if it has been called.
+	 *
+	 * @param configKey
+	 * @return
+	 */
+	public Optional<MethodMetrics> getMethodMetrics(final String configKey)
+	{
+		final MethodRecorder methodRecorder = methodRecorders.get(configKey);
+		return methodRecorder == null ? Optional.<MethodMetrics> absent() : Optional.of(methodRecorder
+			.snapshot(configKey));
+	}
+
+	/**
+	 * Return the most recently observed {@link Quota}, if any.
+	 *
+	 * @return
+	 */
+	public Optional<Quota> getLatestQuota()
+	{
+		return Optional.fromNullable(latestQuota.get());
+	}
+
+	/**
+	 * Gauge of the number of access requests remaining in the quota, or -1 if no quota has been observed.
+	 *
+	 * @return
+	 */
+	public long getNumAccessRequestsRemaining()
+	{
+		final Quota quota = latestQuota.get();
+		return quota == null ? -1L : quota.getNumAccessRequestsRemaining();
+	}
+
+	/**
+	 * Gauge of the number of mutation requests remaining in the quota, or -1 if no quota has been observed.
+	 *
+	 * @return
+	 */
+	public long getNumMutationRequestsRemaining()
+	{
+		final Quota quota = latestQuota.get();
+		return quota == null ? -1L : quota.getNumMutationRequestsRemaining();
+	}
+
+	/**
+	 * Discard everything recorded so far.
+	 */
+	public void reset()
+	{
+		methodRecorders.clear();
+		latestQuota.set(null);
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to get (or create) the {@link MethodRecorder} for {@code configKey}.
+	 *
+	 * @param configKey
+	 * @return
+	 */
+	private MethodRecorder methodRecorder(final String configKey)
+	{
+		MethodRecorder methodRecorder = methodRecorders.get(configKey);
+		if (methodRecorder == null)
+		{
+			final MethodRecorder newMethodRecorder = new MethodRecorder(numberOfSignificantValueDigits);
+			methodRecorder = methodRecorders.putIfAbsent(configKey, newMethodRecorder);
+			if (methodRecorder == null)
+			{
+				methodRecorder = newMethodRecorder;
+			}
+		}
+		return methodRecorder;
+	}
+
+	/**
+	 * The mutable metrics of a single method.
+	 */
+	private static class MethodRecorder
+	{
+		private final Histogram networkLatency;
+		private final Histogram decodeLatency;
+		private final AtomicLongMap<Integer> httpResponseCodeCounts;
+		private final AtomicLong failureCount;
+		private final AtomicLong requestBytes;
+		private final AtomicLong responseBytes;
+
+		private MethodRecorder(final int numberOfSignificantValueDigits)
+		{
+			// Auto-resizing, so that there is no upper bound on the latencies that can be recorded.
+			this.networkLatency = new ConcurrentHistogram(numberOfSignificantValueDigits);
+			this.decodeLatency = new ConcurrentHistogram(numberOfSignificantValueDigits);
+			this.httpResponseCodeCounts = AtomicLongMap.create();
+			this.failureCount = new AtomicLong();
+			this.requestBytes = new AtomicLong();
+			this.responseBytes = new AtomicLong();
+		}
+
+		private MethodMetrics snapshot(final String configKey)
+		{
+			return new MethodMetrics(configKey, ImmutableMap.copyOf(httpResponseCodeCounts.asMap()),
+				failureCount.get(), requestBytes.get(), responseBytes.get(), networkLatency.copy(),
+				decodeLatency.copy());
+		}
+	}
+}
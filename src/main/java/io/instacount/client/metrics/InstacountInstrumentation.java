@@ -0,0 +1,267 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import feign.Client;
+import feign.Feign;
+import feign.InvocationHandlerFactory;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import feign.Target;
+import feign.codec.Decoder;
+import io.instacount.client.http.AsyncClient;
+
+/**
+ * Wiring that reports the calls of an Instacount client to an {@link InstacountMetrics}.
+ * <p>
+ * For the synchronous client, every method handler records the config key of the method being invoked in a
+ * thread-local, which the instrumented {@link Client} and {@link Decoder} use to attribute network and decode time to
+ * that method. Feign invokes both on the calling thread. The non-blocking client knows the config key of every call,
+ * and passes it explicitly.
+ */
+public final class InstacountInstrumentation
+{
+	private static final ThreadLocal<String> currentConfigKey = new ThreadLocal<>();
+
+	private InstacountInstrumentation()
+	{
+	}
+
+	/**
+	 * Return an {@link InvocationHandlerFactory} that tracks the config key of the method being invoked.
+	 *
+	 * @return
+	 */
+	public static InvocationHandlerFactory invocationHandlerFactory()
+	{
+		return new InvocationHandlerFactory()
+		{
+			private final InvocationHandlerFactory delegate = new InvocationHandlerFactory.Default();
+
+			@Override
+			public InvocationHandler create(final Target target, final Map<Method, MethodHandler> dispatch)
+			{
+				final Map<Method, MethodHandler> instrumentedDispatch = Maps.newLinkedHashMap();
+				for (final Map.Entry<Method, MethodHandler> entry : dispatch.entrySet())
+				{
+					instrumentedDispatch.put(entry.getKey(), new ConfigKeyMethodHandler(Feign.configKey(
+						target.type(), entry.getKey()), entry.getValue()));
+				}
+				return delegate.create(target, instrumentedDispatch);
+			}
+		};
+	}
+
+	/**
+	 * Return a {@link Client} that reports the network time, status and size of every call to {@code metrics}.
+	 *
+	 * @param client
+	 * @param metrics
+	 * @return
+	 */
+	public static Client instrument(final Client client, final InstacountMetrics metrics)
+	{
+		Preconditions.checkNotNull(client);
+		Preconditions.checkNotNull(metrics);
+
+		return new Client()
+		{
+			@Override
+			public Response execute(final Request request, final Options options) throws IOException
+			{
+				final String configKey = configKey();
+				final long requestBytes = request.body() == null ? 0L : request.body().length;
+				final long start = System.nanoTime();
+				try
+				{
+					final Response response = client.execute(request, options);
+					final Integer responseBytes = response.body() == null ? null : response.body().length();
+					metrics.onResponse(configKey, response.status(), System.nanoTime() - start, requestBytes,
+						responseBytes == null ? 0L : responseBytes);
+					return response;
+				}
+				catch (IOException | RuntimeException e)
+				{
+					metrics.onFailure(configKey, System.nanoTime() - start, e);
+					throw e;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Return a {@link Decoder} that reports the time spent decoding every successful response to {@code metrics}.
+	 *
+	 * @param decoder
+	 * @param metrics
+	 * @return
+	 */
+	public static Decoder instrument(final Decoder decoder, final InstacountMetrics metrics)
+	{
+		Preconditions.checkNotNull(decoder);
+		Preconditions.checkNotNull(metrics);
+
+		return new Decoder()
+		{
+			@Override
+			public Object decode(final Response response, final Type type) throws IOException
+			{
+				final long start = System.nanoTime();
+				try
+				{
+					return decoder.decode(response, type);
+				}
+				finally
+				{
+					metrics.onDecode(configKey(), System.nanoTime() - start);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Execute {@code request} with {@code asyncClient}, reporting the network time, status and size of the call to
+	 * {@code metrics} once it completes.
+	 *
+	 * @param asyncClient
+	 * @param request
+	 * @param options
+	 * @param configKey The config key of the method being called.
+	 * @param metrics
+	 * @return
+	 */
+	public static ListenableFuture<Response> execute(final AsyncClient asyncClient, final Request request,
+			final Options options, final String configKey, final InstacountMetrics metrics)
+	{
+		final long requestBytes = request.body() == null ? 0L : request.body().length;
+		final long start = System.nanoTime();
+		final ListenableFuture<Response> responseFuture = asyncClient.execute(request, options);
+		Futures.addCallback(responseFuture, new FutureCallback<Response>()
+		{
+			@Override
+			public void onSuccess(final Response response)
+			{
+				final Integer responseBytes = response.body() == null ? null : response.body().length();
+				metrics.onResponse(configKey, response.status(), System.nanoTime() - start, requestBytes,
+					responseBytes == null ? 0L : responseBytes);
+			}
+
+			@Override
+			public void onFailure(final Throwable t)
+			{
+				metrics.onFailure(configKey, System.nanoTime() - start, t);
+			}
+		}, MoreExecutors.directExecutor());
+		return responseFuture;
+	}
+
+	/**
+	 * Return a {@link Decoder} that reports the time spent decoding every response of the method identified by
+	 * {@code configKey} to {@code metrics}.
+	 *
+	 * @param decoder
+	 * @param configKey
+	 * @param metrics
+	 * @return
+	 */
+	public static Decoder instrument(final Decoder decoder, final String configKey, final InstacountMetrics metrics)
+	{
+		Preconditions.checkNotNull(decoder);
+		Preconditions.checkNotNull(configKey);
+		Preconditions.checkNotNull(metrics);
+
+		return new Decoder()
+		{
+			@Override
+			public Object decode(final Response response, final Type type) throws IOException
+			{
+				final long start = System.nanoTime();
+				try
+				{
+					return decoder.decode(response, type);
+				}
+				finally
+				{
+					metrics.onDecode(configKey, System.nanoTime() - start);
+				}
+			}
+		};
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to return the config key of the method being invoked on this thread.
+	 *
+	 * @return
+	 */
+	private static String configKey()
+	{
+		final String configKey = currentConfigKey.get();
+		return configKey == null ? "unknown" : configKey;
+	}
+
+	/**
+	 * A {@link MethodHandler} that exposes the config key of its method while it is being invoked.
+	 */
+	private static class ConfigKeyMethodHandler implements MethodHandler
+	{
+		private final String configKey;
+		private final MethodHandler delegate;
+
+		private ConfigKeyMethodHandler(final String configKey, final MethodHandler delegate)
+		{
+			this.configKey = configKey;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Object invoke(final Object[] argv) throws Throwable
+		{
+			final String previousConfigKey = currentConfigKey.get();
+			currentConfigKey.set(configKey);
+			try
+			{
+				return delegate.invoke(argv);
+			}
+			finally
+			{
+				if (previousConfigKey == null)
+				{
+					currentConfigKey.remove();
+				}
+				else
+				{
+					currentConfigKey.set(previousConfigKey);
+				}
+			}
+		}
+	}
+}
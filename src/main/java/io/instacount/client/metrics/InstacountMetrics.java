@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.metrics;
+
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.quota.QuotaListener;
+
+/**
+ * A hook that is notified of the outcome of every call made by an Instacount client. Each call is identified by the
+ * Feign config key of its {@link io.instacount.client.Instacount.InstacountFeign} method, e.g.
+ * {@code InstacountFeign#getShardedCounter(String)}.
+ * <p>
+ * Network time runs from handing the request to the HTTP client until the response headers have been received. Decode
+ * time covers reading and decoding the response body, and is only reported for successful responses. The
+ * {@link Quota} carried by each successful response is reported through {@link #onQuota(Quota)}.
+ * <p>
+ * Implementations must be thread-safe and must not block.
+ */
+public interface InstacountMetrics extends QuotaListener
+{
+	/**
+	 * Called once a response has been received.
+	 *
+	 * @param configKey The config key of the method that was called.
+	 * @param httpResponseCode The HTTP status of the response.
+	 * @param networkNanos The network time of the call, in nanoseconds.
+	 * @param requestBytes The size of the request body, in bytes.
+	 * @param responseBytes The size of the response body, in bytes, or 0 if it is not known.
+	 */
+	void onResponse(String configKey, int httpResponseCode, long networkNanos, long requestBytes, long responseBytes);
+
+	/**
+	 * Called when no response could be received, e.g. because of a connection failure or a timeout.
+	 *
+	 * @param configKey The config key of the method that was called.
+	 * @param networkNanos The time spent before the call failed, in nanoseconds.
+	 * @param cause
+	 */
+	void onFailure(String configKey, long networkNanos, Throwable cause);
+
+	/**
+	 * Called once a successful response has been decoded.
+	 *
+	 * @param configKey The config key of the method that was called.
+	 * @param decodeNanos The time spent decoding the response, in nanoseconds.
+	 */
+	void onDecode(String configKey, long decodeNanos);
+
+	/**
+	 * An implementation of {@link InstacountMetrics} that ignores everything.
+	 */
+	class NoOp implements InstacountMetrics
+	{
+		@Override
+		public void onResponse(final String configKey, final int httpResponseCode, final long networkNanos,
+				final long requestBytes, final long responseBytes)
+		{
+			// Nothing to do.
+		}
+
+		@Override
+		public void onFailure(final String configKey, final long networkNanos, final Throwable cause)
+		{
+			// Nothing to do.
+		}
+
+		@Override
+		public void onDecode(final String configKey, final long decodeNanos)
+		{
+			// Nothing to do.
+		}
+
+		@Override
+		public void onQuota(final Quota quota)
+		{
+			// Nothing to do.
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.metrics;
+
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * A point-in-time snapshot of the metrics recorded by {@link HdrHistogramMetrics} for a single Instacount method.
+ * Latencies are recorded in nanoseconds.
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString
+public class MethodMetrics
+{
+	private final String configKey;
+
+	// The number of responses received for each HTTP status.
+	private final Map<Integer, Long> httpResponseCodeCounts;
+
+	// The number of calls that failed without a response.
+	private final long failureCount;
+
+	private final long requestBytes;
+
+	private final long responseBytes;
+
+	private final Histogram networkLatency;
+
+	private final Histogram decodeLatency;
+
+	/**
+	 * Return the number of responses received, of any HTTP status.
+	 *
+	 * @return
+	 */
+	public long getResponseCount()
+	{
+		return networkLatency.getTotalCount() - failureCount;
+	}
+
+	/**
+	 * Return the network latency, in nanoseconds, at {@code percentile} (e.g. 50.0, 99.0 or 99.9).
+	 *
+	 * @param percentile
+	 * @return
+	 */
+	public long getNetworkNanosAtPercentile(final double percentile)
+	{
+		return networkLatency.getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Return the decode latency, in nanoseconds, at {@code percentile} (e.g. 50.0, 99.0 or 99.9).
+	 *
+	 * @param percentile
+	 * @return
+	 */
+	public long getDecodeNanosAtPercentile(final double percentile)
+	{
+		return decodeLatency.getValueAtPercentile(percentile);
+	}
+}
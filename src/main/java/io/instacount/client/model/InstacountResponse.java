@@ -15,28 +15,58 @@ package io.instacount.client.model;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.ToString;
+
+import com.google.common.base.Preconditions;
+
 import feign.Response;
 import io.instacount.client.model.headers.Quota;
 
 /**
  * A class for modeling HTTP responses that have no content, such as an HTTP 201, 204, and the like.
+ * <p>
+ * A compact response (see {@link io.instacount.client.decoders.ResponseDecoderRegistry#compact()}) keeps only the
+ * HTTP status code, the {@link Quota} and the decoded content, and does not retain the raw Feign {@link Response}.
+ * The raw response never takes part in {@link #equals(Object)}, {@link #hashCode()} or {@link #toString()}.
  */
 @Getter
-@RequiredArgsConstructor
-@ToString
-@EqualsAndHashCode
+@ToString(exclude = "response")
+@EqualsAndHashCode(exclude = "response")
 public abstract class InstacountResponse
 {
-	@NonNull
-	private final Response response;
+	private final int httpResponseCode;
 
 	@NonNull
 	private final Quota quota;
 
-	public int getHttpResponseCode()
+	/**
+	 * The raw Feign {@link Response}, or {@code null} for a compact response.
+	 */
+	private final Response response;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param response
+	 * @param quota
+	 */
+	public InstacountResponse(final Response response, final Quota quota)
+	{
+		this.response = Preconditions.checkNotNull(response);
+		this.httpResponseCode = response.status();
+		this.quota = Preconditions.checkNotNull(quota);
+	}
+
+	/**
+	 * Compact Constructor, for a response that does not retain the raw Feign {@link Response}.
+	 *
+	 * @param httpResponseCode
+	 * @param quota
+	 */
+	public InstacountResponse(final int httpResponseCode, final Quota quota)
 	{
-		return response.status();
+		this.response = null;
+		this.httpResponseCode = httpResponseCode;
+		this.quota = Preconditions.checkNotNull(quota);
 	}
 }
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.model;
+
+import java.math.BigInteger;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Helpers for integral values that are stored as a {@link Long} whenever they fit in a {@code long}, and as a
+ * {@link BigInteger} only when they do not. Counts and amounts are almost always small, so this avoids creating a
+ * {@link BigInteger} for every value that is decoded or computed, while still supporting the full range of the
+ * Instacount API.
+ * <p>
+ * Every value produced by these helpers is normalized, so that two equal values are always of the same type and can
+ * be compared with {@link Object#equals(Object)}.
+ */
+public final class LongOrBigInteger
+{
+	private LongOrBigInteger()
+	{
+	}
+
+	/**
+	 * Return {@code value} as a {@link Long} if it fits in a {@code long}, or as itself otherwise.
+	 *
+	 * @param value
+	 * @return
+	 */
+	public static Number valueOf(final BigInteger value)
+	{
+		Preconditions.checkNotNull(value);
+		return value.bitLength() < Long.SIZE ? Long.valueOf(value.longValue()) : value;
+	}
+
+	/**
+	 * Return {@code value}, which must have been produced by these helpers, as a {@link BigInteger}.
+	 *
+	 * @param value
+	 * @return
+	 */
+	public static BigInteger toBigInteger(final Number value)
+	{
+		return value instanceof BigInteger ? (BigInteger) value : BigInteger.valueOf(value.longValue());
+	}
+
+	/**
+	 * Return {@code true} if {@code value}, which must have been produced by these helpers, fits in a {@code long}.
+	 *
+	 * @param value
+	 * @return
+	 */
+	public static boolean isLong(final Number value)
+	{
+		return !(value instanceof BigInteger);
+	}
+
+	/**
+	 * Return {@code value}, which must have been produced by these helpers, as a {@code long}.
+	 *
+	 * @param value
+	 * @return
+	 * @throws ArithmeticException If {@code value} does not fit in a {@code long}.
+	 */
+	public static long longValueExact(final Number value)
+	{
+		if (!isLong(value))
+		{
+			throw new ArithmeticException(String.format("%s does not fit in a long!", value));
+		}
+		return value.longValue();
+	}
+}
@@ -30,7 +30,7 @@ public class Quota
 	public static final String X_RATELIMIT_ACCESS_COUNTERS_LIMIT = "X-Ratelimit-Access-Counters-Limit";
 	public static final String X_RATELIMIT_ACCESS_COUNTERS_REMAINING = "X-Ratelimit-Access-Counters-Remaining";
 	public static final String X_RATELIMIT_MUTATE_COUNTERS_LIMIT = "X-Ratelimit-Mutate-Counters-Limit";
-	public static final String X_RATELIMIT_MUTATE_COUNTERS_REMAINING = "X-Ratelimit-Mutate-Counters-Limit";
+	public static final String X_RATELIMIT_MUTATE_COUNTERS_REMAINING = "X-Ratelimit-Mutate-Counters-Remaining";
 
 	/**
 	 * The number of resource access requests allowed for the current subscription. Access requests types include GET,
@@ -14,6 +14,7 @@ package io.instacount.client.model.shardedcounters;
 
 import java.math.BigInteger;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
@@ -22,8 +23,12 @@ import lombok.ToString;
 
 import org.joda.time.DateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.common.base.Optional;
+import io.instacount.client.jackson.LongOrBigIntegerDeserializer;
+import io.instacount.client.model.LongOrBigInteger;
 import io.instacount.client.model.shardedcounters.meta.ShardedCounterMeta;
 
 /**
@@ -32,7 +37,7 @@ import io.instacount.client.model.shardedcounters.meta.ShardedCounterMeta;
  * @see "https://instacount.readme.io/docs/shardedcountersname"
  */
 @Getter
-@RequiredArgsConstructor
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 @ToString
 @EqualsAndHashCode
 public class ShardedCounter
@@ -61,9 +66,12 @@ public class ShardedCounter
 	@NonNull
 	private final DateTime createdDateTime;
 
+	// A Long when the count fits in a long, or a BigInteger otherwise. See LongOrBigInteger.
 	@JsonProperty("count")
+	@JsonDeserialize(using = LongOrBigIntegerDeserializer.class)
+	@Getter(AccessLevel.NONE)
 	@NonNull
-	private final BigInteger count;
+	private final Number count;
 
 	/**
 	 * No-args Constructor, for use only for Jackson.
@@ -79,6 +87,74 @@ public class ShardedCounter
 		this.count = null;
 	}
 
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param meta
+	 * @param name
+	 * @param optDescription
+	 * @param numShards
+	 * @param counterStatus
+	 * @param createdDateTime
+	 * @param count
+	 */
+	public ShardedCounter(final ShardedCounterMeta meta, final String name, final Optional<String> optDescription,
+			final Integer numShards, final CounterStatus counterStatus, final DateTime createdDateTime,
+			final BigInteger count)
+	{
+		this(meta, name, optDescription, numShards, counterStatus, createdDateTime, LongOrBigInteger.valueOf(count));
+	}
+
+	/**
+	 * Required-args Constructor, for a count that fits in a {@code long}.
+	 *
+	 * @param meta
+	 * @param name
+	 * @param optDescription
+	 * @param numShards
+	 * @param counterStatus
+	 * @param createdDateTime
+	 * @param count
+	 */
+	public ShardedCounter(final ShardedCounterMeta meta, final String name, final Optional<String> optDescription,
+			final Integer numShards, final CounterStatus counterStatus, final DateTime createdDateTime,
+			final long count)
+	{
+		this(meta, name, optDescription, numShards, counterStatus, createdDateTime, Long.valueOf(count));
+	}
+
+	/**
+	 * Return the count as a {@link BigInteger}.
+	 *
+	 * @return
+	 */
+	public BigInteger getCount()
+	{
+		return LongOrBigInteger.toBigInteger(count);
+	}
+
+	/**
+	 * Return {@code true} if the count fits in a {@code long}, so that {@link #getCountAsLong()} can be used.
+	 *
+	 * @return
+	 */
+	public boolean hasLongCount()
+	{
+		return LongOrBigInteger.isLong(count);
+	}
+
+	/**
+	 * Return the count as a {@code long}, without creating a {@link BigInteger}.
+	 *
+	 * @return
+	 * @throws ArithmeticException If the count does not fit in a {@code long}.
+	 */
+	@JsonIgnore
+	public long getCountAsLong()
+	{
+		return LongOrBigInteger.longValueExact(count);
+	}
+
 	/**
 	 * An enumeration of potential counter statuses that a newly created or updated counter might be put into. This
 	 * differs from {@link CounterStatus} in that the API can set a counter into various statuses that a client is not
@@ -14,6 +14,7 @@ package io.instacount.client.model.shardedcounters;
 
 import java.math.BigInteger;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
@@ -22,7 +23,11 @@ import lombok.ToString;
 
 import org.joda.time.DateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.instacount.client.jackson.LongOrBigIntegerDeserializer;
+import io.instacount.client.model.LongOrBigInteger;
 import io.instacount.client.model.shardedcounters.meta.ShardedCounterOperationMeta;
 
 /**
@@ -31,7 +36,7 @@ import io.instacount.client.model.shardedcounters.meta.ShardedCounterOperationMe
  * @see "https://instacount.readme.io/docs/shardedcountersname"
  */
 @Getter
-@RequiredArgsConstructor
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 @ToString
 @EqualsAndHashCode
 public class ShardedCounterOperation
@@ -52,9 +57,12 @@ public class ShardedCounterOperation
 	@NonNull
 	private final CounterOperationType counterOperationType;
 
+	// A Long when the amount fits in a long, or a BigInteger otherwise. See LongOrBigInteger.
 	@JsonProperty("amount")
+	@JsonDeserialize(using = LongOrBigIntegerDeserializer.class)
+	@Getter(AccessLevel.NONE)
 	@NonNull
-	private final BigInteger amount;
+	private final Number amount;
 
 	@JsonProperty("created")
 	@NonNull
@@ -73,6 +81,70 @@ public class ShardedCounterOperation
 		this.createdDateTime = null;
 	}
 
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param meta
+	 * @param id
+	 * @param shardIndex
+	 * @param counterOperationType
+	 * @param amount
+	 * @param createdDateTime
+	 */
+	public ShardedCounterOperation(final ShardedCounterOperationMeta meta, final String id, final Integer shardIndex,
+			final CounterOperationType counterOperationType, final BigInteger amount, final DateTime createdDateTime)
+	{
+		this(meta, id, shardIndex, counterOperationType, LongOrBigInteger.valueOf(amount), createdDateTime);
+	}
+
+	/**
+	 * Required-args Constructor, for an amount that fits in a {@code long}.
+	 *
+	 * @param meta
+	 * @param id
+	 * @param shardIndex
+	 * @param counterOperationType
+	 * @param amount
+	 * @param createdDateTime
+	 */
+	public ShardedCounterOperation(final ShardedCounterOperationMeta meta, final String id, final Integer shardIndex,
+			final CounterOperationType counterOperationType, final long amount, final DateTime createdDateTime)
+	{
+		this(meta, id, shardIndex, counterOperationType, Long.valueOf(amount), createdDateTime);
+	}
+
+	/**
+	 * Return the amount as a {@link BigInteger}.
+	 *
+	 * @return
+	 */
+	public BigInteger getAmount()
+	{
+		return LongOrBigInteger.toBigInteger(amount);
+	}
+
+	/**
+	 * Return {@code true} if the amount fits in a {@code long}, so that {@link #getAmountAsLong()} can be used.
+	 *
+	 * @return
+	 */
+	public boolean hasLongAmount()
+	{
+		return LongOrBigInteger.isLong(amount);
+	}
+
+	/**
+	 * Return the amount as a {@code long}, without creating a {@link BigInteger}.
+	 *
+	 * @return
+	 * @throws ArithmeticException If the amount does not fit in a {@code long}.
+	 */
+	@JsonIgnore
+	public long getAmountAsLong()
+	{
+		return LongOrBigInteger.longValueExact(amount);
+	}
+
 	/**
 	 * The type of operation that was performed on a Counter resource.
 	 */
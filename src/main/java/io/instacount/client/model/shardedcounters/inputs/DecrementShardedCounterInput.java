@@ -14,28 +14,90 @@ package io.instacount.client.model.shardedcounters.inputs;
 
 import java.math.BigInteger;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import io.instacount.client.model.LongOrBigInteger;
+
 /**
  * A class for creating a new Counter resource in the Instacount API.
  */
 @Getter
-@RequiredArgsConstructor
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 @ToString
 @EqualsAndHashCode
 public class DecrementShardedCounterInput
 {
+	// A Long when the amount fits in a long, or a BigInteger otherwise. See LongOrBigInteger.
 	@JsonProperty("amount")
+	@Getter(AccessLevel.NONE)
 	@NonNull
-	private final BigInteger amount;
+	private final Number amount;
 
 	@JsonProperty("async")
 	@NonNull
 	private final Boolean async;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param amount
+	 * @param async
+	 */
+	public DecrementShardedCounterInput(final BigInteger amount, final Boolean async)
+	{
+		this(LongOrBigInteger.valueOf(amount), async);
+	}
+
+	/**
+	 * Required-args Constructor, for an amount that fits in a {@code long}.
+	 *
+	 * @param amount
+	 * @param async
+	 */
+	public DecrementShardedCounterInput(final long amount, final Boolean async)
+	{
+		this(Long.valueOf(amount), async);
+	}
+
+	/**
+	 * Return the amount as a {@link BigInteger}. Ignored by Jackson, which writes the {@code amount} field as-is so
+	 * that no {@link BigInteger} is created for an amount that fits in a {@code long}.
+	 *
+	 * @return
+	 */
+	@JsonIgnore
+	public BigInteger getAmount()
+	{
+		return LongOrBigInteger.toBigInteger(amount);
+	}
+
+	/**
+	 * Return {@code true} if the amount fits in a {@code long}, so that {@link #getAmountAsLong()} can be used.
+	 *
+	 * @return
+	 */
+	public boolean hasLongAmount()
+	{
+		return LongOrBigInteger.isLong(amount);
+	}
+
+	/**
+	 * Return the amount as a {@code long}, without creating a {@link BigInteger}.
+	 *
+	 * @return
+	 * @throws ArithmeticException If the amount does not fit in a {@code long}.
+	 */
+	@JsonIgnore
+	public long getAmountAsLong()
+	{
+		return LongOrBigInteger.longValueExact(amount);
+	}
 }
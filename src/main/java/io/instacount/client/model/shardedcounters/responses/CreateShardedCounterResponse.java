@@ -42,8 +42,17 @@ public class CreateShardedCounterResponse extends InstacountResponse
 		this.optCounterInfo = Preconditions.checkNotNull(optCounterInfo);
 	}
 
-	public int getHttpResponseCode()
+	/**
+	 * Compact Constructor, for a response that does not retain the raw Feign {@link Response}.
+	 *
+	 * @param httpResponseCode
+	 * @param quota
+	 * @param optCounterInfo
+	 */
+	public CreateShardedCounterResponse(final int httpResponseCode, final Quota quota,
+			final Optional<CounterLocationInfo> optCounterInfo)
 	{
-		return getResponse().status();
+		super(httpResponseCode, quota);
+		this.optCounterInfo = Preconditions.checkNotNull(optCounterInfo);
 	}
 }
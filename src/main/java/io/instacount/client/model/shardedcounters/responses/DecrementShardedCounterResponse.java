@@ -49,4 +49,18 @@ public class DecrementShardedCounterResponse extends InstacountResponse
 		super(response, quota);
 		this.optCounterOperation = optCounterOperation;
 	}
+
+	/**
+	 * Compact Constructor, for a response that does not retain the raw Feign {@link Response}.
+	 *
+	 * @param httpResponseCode
+	 * @param quota
+	 * @param optCounterOperation
+	 */
+	public DecrementShardedCounterResponse(final int httpResponseCode, final Quota quota,
+			final Optional<ShardedCounterOperation> optCounterOperation)
+	{
+		super(httpResponseCode, quota);
+		this.optCounterOperation = optCounterOperation;
+	}
 }
@@ -31,4 +31,15 @@ public class DeleteShardedCounterResponse extends InstacountResponse
 	{
 		super(response, quota);
 	}
+
+	/**
+	 * Compact Constructor, for a response that does not retain the raw Feign {@link Response}.
+	 *
+	 * @param httpResponseCode
+	 * @param quota
+	 */
+	public DeleteShardedCounterResponse(final int httpResponseCode, final Quota quota)
+	{
+		super(httpResponseCode, quota);
+	}
 }
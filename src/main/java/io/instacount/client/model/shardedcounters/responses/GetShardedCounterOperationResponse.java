@@ -45,4 +45,18 @@ public class GetShardedCounterOperationResponse extends InstacountResponse
 		super(response, quota);
 		this.counterOperation = counterOperation;
 	}
+
+	/**
+	 * Compact Constructor, for a response that does not retain the raw Feign {@link Response}.
+	 *
+	 * @param httpResponseCode
+	 * @param quota
+	 * @param counterOperation
+	 */
+	public GetShardedCounterOperationResponse(final int httpResponseCode, final Quota quota,
+			final ShardedCounterOperation counterOperation)
+	{
+		super(httpResponseCode, quota);
+		this.counterOperation = counterOperation;
+	}
 }
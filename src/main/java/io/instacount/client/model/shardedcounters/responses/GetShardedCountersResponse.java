@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.model.shardedcounters.responses;
+
+import java.util.Map;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A class for modeling the outcome of reading several counters at once: the response for each counter that was read,
+ * and the failure for each counter that could not be.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class GetShardedCountersResponse
+{
+	/**
+	 * The {@link GetShardedCounterResponse} of each counter that was read, by counter name.
+	 */
+	private final Map<String, GetShardedCounterResponse> responses;
+
+	/**
+	 * The failure of each counter that could not be read, by counter name. Typically an
+	 * {@code InstacountClientException}, such as an HTTP 404 for a counter that does not exist.
+	 */
+	private final Map<String, Throwable> failures;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param responses
+	 * @param failures
+	 */
+	public GetShardedCountersResponse(final Map<String, GetShardedCounterResponse> responses,
+			final Map<String, Throwable> failures)
+	{
+		this.responses = ImmutableMap.copyOf(responses);
+		this.failures = ImmutableMap.copyOf(failures);
+	}
+}
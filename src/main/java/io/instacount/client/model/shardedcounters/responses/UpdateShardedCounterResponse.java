@@ -48,4 +48,18 @@ public class UpdateShardedCounterResponse extends InstacountResponse
 		this.shardedCounter = Preconditions.checkNotNull(shardedCounter);
 	}
 
+	/**
+	 * Compact Constructor, for a response that does not retain the raw Feign {@link Response}.
+	 *
+	 * @param httpResponseCode
+	 * @param quota
+	 * @param shardedCounter
+	 */
+	public UpdateShardedCounterResponse(final int httpResponseCode, final Quota quota,
+			final ShardedCounter shardedCounter)
+	{
+		super(httpResponseCode, quota);
+		this.shardedCounter = Preconditions.checkNotNull(shardedCounter);
+	}
+
 }
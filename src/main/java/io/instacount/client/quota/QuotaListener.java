@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.quota;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import io.instacount.client.model.headers.Quota;
+
+/**
+ * A listener that is notified of the {@link Quota} carried by every response from the Instacount API.
+ */
+public interface QuotaListener
+{
+	/**
+	 * Called with the {@link Quota} of each decoded response. Implementations must be thread-safe and must not block.
+	 *
+	 * @param quota
+	 */
+	void onQuota(Quota quota);
+
+	/**
+	 * An implementation of {@link QuotaListener} that ignores every {@link Quota}.
+	 */
+	class NoOp implements QuotaListener
+	{
+		@Override
+		public void onQuota(final Quota quota)
+		{
+			// Nothing to do.
+		}
+	}
+
+	/**
+	 * An implementation of {@link QuotaListener} that notifies several other listeners, in order.
+	 */
+	class Composite implements QuotaListener
+	{
+		private final List<QuotaListener> quotaListeners;
+
+		/**
+		 * Required-args Constructor.
+		 *
+		 * @param quotaListeners
+		 */
+		public Composite(final List<? extends QuotaListener> quotaListeners)
+		{
+			this.quotaListeners = ImmutableList.copyOf(quotaListeners);
+		}
+
+		@Override
+		public void onQuota(final Quota quota)
+		{
+			for (final QuotaListener quotaListener : quotaListeners)
+			{
+				quotaListener.onQuota(quota);
+			}
+		}
+	}
+}
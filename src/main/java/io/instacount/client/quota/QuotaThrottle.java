@@ -0,0 +1,381 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.quota;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang3.StringUtils;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.Errors.Error;
+import io.instacount.client.model.headers.Quota;
+
+/**
+ * A client-wide throttle that paces requests so that the remaining Instacount quota lasts until the end of the
+ * current quota window.
+ * <p>
+ * As a {@link QuotaListener}, this class tracks the most recent {@link Quota} reported by the Instacount API. As a
+ * {@link RequestInterceptor}, it holds each request until it fits within the permitted rate, which is computed
+ * separately for access requests (GET, HEAD, OPTIONS and TRACE) and mutation requests (POST, PUT and DELETE) as the
+ * remaining quota divided by the time left in the window. Unused permits are stored, up to a fraction of the remaining
+ * quota, so that bursts of requests well within the budget are not held at all. Requests are not throttled until a
+ * quota with a non-zero limit has been observed. A request that would have to wait longer than the maximum wait fails
+ * fast with an {@link InstacountClientException} carrying an HTTP 429 status.
+ * <p>
+ * Non-blocking clients should use {@link #nonBlocking()} instead, which never holds a request.
+ * <p>
+ * A single instance should be shared by every client that draws on the same Instacount application's quota.
+ */
+public class QuotaThrottle implements RequestInterceptor, QuotaListener
+{
+	private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+	/**
+	 * The default fraction of the remaining quota that may be spent in a single burst.
+	 */
+	public static final double DEFAULT_MAX_BURST_FRACTION = 0.01;
+
+	private final AtomicReference<Quota> latestQuota;
+	private final TokenBucket accessTokenBucket;
+	private final TokenBucket mutationTokenBucket;
+	private final long maxWaitNanos;
+	private final double maxBurstFraction;
+	private final RequestInterceptor nonBlocking;
+
+	private volatile boolean throttleAccessRequests;
+	private volatile boolean throttleMutationRequests;
+
+	/**
+	 * No-args Constructor. Requests wait at most ten seconds for a permit, and up to 1% of the remaining quota may be
+	 * spent in a single burst.
+	 */
+	public QuotaThrottle()
+	{
+		this(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Required-args Constructor. Up to 1% of the remaining quota may be spent in a single burst.
+	 *
+	 * @param maxWait The maximum amount of time a request will be held before failing.
+	 * @param maxWaitUnit The {@link TimeUnit} of {@code maxWait}.
+	 */
+	public QuotaThrottle(final long maxWait, final TimeUnit maxWaitUnit)
+	{
+		this(maxWait, maxWaitUnit, DEFAULT_MAX_BURST_FRACTION);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param maxWait The maximum amount of time a request will be held before failing.
+	 * @param maxWaitUnit The {@link TimeUnit} of {@code maxWait}.
+	 * @param maxBurstFraction The fraction, between 0 and 1, of the remaining quota that may be spent in a single burst
+	 *            without being paced. At least one request may always be sent without waiting.
+	 */
+	public QuotaThrottle(final long maxWait, final TimeUnit maxWaitUnit, final double maxBurstFraction)
+	{
+		this(maxWait, maxWaitUnit, maxBurstFraction, Ticker.systemTicker());
+	}
+
+	/**
+	 * Required-args Constructor, visible for testing.
+	 */
+	QuotaThrottle(final long maxWait, final TimeUnit maxWaitUnit, final double maxBurstFraction,
+			final Ticker ticker)
+	{
+		Preconditions.checkArgument(maxWait >= 0, "maxWait must not be negative!");
+		Preconditions.checkNotNull(maxWaitUnit);
+		Preconditions.checkArgument(maxBurstFraction >= 0.0 && maxBurstFraction <= 1.0,
+			"maxBurstFraction must be between 0 and 1!");
+		Preconditions.checkNotNull(ticker);
+
+		this.latestQuota = new AtomicReference<>();
+		this.accessTokenBucket = new TokenBucket(ticker);
+		this.mutationTokenBucket = new TokenBucket(ticker);
+		this.maxWaitNanos = maxWaitUnit.toNanos(maxWait);
+		this.maxBurstFraction = maxBurstFraction;
+		this.nonBlocking = new RequestInterceptor()
+		{
+			@Override
+			public void apply(final RequestTemplate requestTemplate)
+			{
+				QuotaThrottle.this.apply(requestTemplate, 0L);
+			}
+		};
+	}
+
+	@Override
+	public void onQuota(final Quota quota)
+	{
+		Preconditions.checkNotNull(quota);
+		latestQuota.set(quota);
+
+		final DateTime now = DateTime.now(DateTimeZone.UTC);
+		throttleAccessRequests = this.updateRate(accessTokenBucket, quota.getNumAccessRequestsLimit(),
+			quota.getNumAccessRequestsRemaining(), now);
+		throttleMutationRequests = this.updateRate(mutationTokenBucket, quota.getNumMutationRequestsLimit(),
+			quota.getNumMutationRequestsRemaining(), now);
+	}
+
+	@Override
+	public void apply(final RequestTemplate requestTemplate)
+	{
+		this.apply(requestTemplate, maxWaitNanos);
+	}
+
+	/**
+	 * Return a view of this throttle, drawing on the same permits, that never holds a request: a request that would
+	 * have to wait for a permit fails immediately with an {@link InstacountClientException} carrying an HTTP 429
+	 * status. Use this view with clients, such as {@code InstacountAsync}, whose callers must never block.
+	 *
+	 * @return
+	 */
+	public RequestInterceptor nonBlocking()
+	{
+		return nonBlocking;
+	}
+
+	/**
+	 * Return the most recent {@link Quota} reported by the Instacount API, if any.
+	 *
+	 * @return
+	 */
+	public Optional<Quota> getLatestQuota()
+	{
+		return Optional.fromNullable(latestQuota.get());
+	}
+
+	/**
+	 * Return the number of access requests per second currently permitted, or {@link Double#POSITIVE_INFINITY} if
+	 * access requests are not being throttled.
+	 *
+	 * @return
+	 */
+	public double getAccessRequestsPerSecond()
+	{
+		return throttleAccessRequests ? accessTokenBucket.getPermitsPerSecond() : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Return the number of mutation requests per second currently permitted, or {@link Double#POSITIVE_INFINITY} if
+	 * mutation requests are not being throttled.
+	 *
+	 * @return
+	 */
+	public double getMutationRequestsPerSecond()
+	{
+		return throttleMutationRequests ? mutationTokenBucket.getPermitsPerSecond() : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Return the instant at which the quota window containing {@code now} ends, and the quota is replenished. By
+	 * default, quotas are tracked per calendar month in UTC. Override this method to match a different billing period.
+	 *
+	 * @param now The current instant, in UTC.
+	 * @return
+	 */
+	protected DateTime getWindowEnd(final DateTime now)
+	{
+		return now.withDayOfMonth(1).withTimeAtStartOfDay().plusMonths(1);
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to acquire a permit for {@code requestTemplate}, waiting at most {@code maxWaitNanos}.
+	 *
+	 * @param requestTemplate
+	 * @param maxWaitNanos
+	 */
+	private void apply(final RequestTemplate requestTemplate, final long maxWaitNanos)
+	{
+		if (isAccessRequest(requestTemplate.method()))
+		{
+			if (throttleAccessRequests)
+			{
+				this.acquire(accessTokenBucket, maxWaitNanos, "access");
+			}
+		}
+		else if (throttleMutationRequests)
+		{
+			this.acquire(mutationTokenBucket, maxWaitNanos, "mutation");
+		}
+	}
+
+	/**
+	 * Helper to spread {@code remaining} requests evenly over the rest of the quota window, storing at most
+	 * {@code maxBurstFraction} of them for bursts.
+	 *
+	 * @param tokenBucket
+	 * @param limit
+	 * @param remaining
+	 * @param now
+	 * @return {@code true} if requests should be throttled by {@code tokenBucket}; {@code false} if the quota did not
+	 *         include a limit for this class of request.
+	 */
+	private boolean updateRate(final TokenBucket tokenBucket, final Long limit, final Long remaining,
+			final DateTime now)
+	{
+		if (limit == null || limit <= 0L || remaining == null)
+		{
+			return false;
+		}
+
+		final double secondsUntilWindowEnd = Math.max(1.0,
+			(this.getWindowEnd(now).getMillis() - now.getMillis()) / 1000.0);
+		// Never drop to a rate of zero; once the quota is exhausted the API will reject requests regardless.
+		final long permits = Math.max(1L, remaining);
+		tokenBucket.update(permits / secondsUntilWindowEnd, Math.max(1.0, Math.floor(permits * maxBurstFraction)));
+		return true;
+	}
+
+	/**
+	 * Helper to acquire a permit from {@code tokenBucket}, failing fast if none can be had within
+	 * {@code maxWaitNanos}.
+	 *
+	 * @param tokenBucket
+	 * @param maxWaitNanos
+	 * @param requestType
+	 */
+	private void acquire(final TokenBucket tokenBucket, final long maxWaitNanos, final String requestType)
+	{
+		final long waitNanos = tokenBucket.reserve(maxWaitNanos);
+		if (waitNanos < 0L)
+		{
+			final String message = String.format("The remaining %s quota does not permit another request yet!",
+				requestType);
+			throw new InstacountClientException(new Errors(HTTP_TOO_MANY_REQUESTS, ImmutableList.of(new Error(
+				message, message + " Requests are being paced to last until the end of the quota window.", ""))));
+		}
+		if (waitNanos > 0L)
+		{
+			Uninterruptibles.sleepUninterruptibly(waitNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Helper to determine if {@code httpMethod} consumes access quota, as opposed to mutation quota.
+	 *
+	 * @param httpMethod
+	 * @return
+	 */
+	private static boolean isAccessRequest(final String httpMethod)
+	{
+		return StringUtils.equalsIgnoreCase("GET", httpMethod) || StringUtils.equalsIgnoreCase("HEAD", httpMethod)
+			|| StringUtils.equalsIgnoreCase("OPTIONS", httpMethod) || StringUtils.equalsIgnoreCase("TRACE", httpMethod);
+	}
+
+	/**
+	 * A token bucket that refills at a steady rate, and stores up to a fixed number of unused permits. Unlike Guava's
+	 * {@code RateLimiter}, whose bursts are limited to about one second's worth of permits, the capacity of this bucket
+	 * is independent of its rate, so that a slow rate can still permit sizeable bursts.
+	 */
+	private static class TokenBucket
+	{
+		private final Ticker ticker;
+
+		private double permitsPerSecond;
+		private double capacity;
+		private double storedPermits;
+		private long lastRefillNanos;
+		private boolean initialized;
+
+		/**
+		 * Required-args Constructor.
+		 */
+		private TokenBucket(final Ticker ticker)
+		{
+			this.ticker = ticker;
+		}
+
+		/**
+		 * Change the rate and capacity of this bucket. The bucket starts full the first time it is updated.
+		 *
+		 * @param permitsPerSecond
+		 * @param capacity
+		 */
+		private synchronized void update(final double permitsPerSecond, final double capacity)
+		{
+			if (initialized)
+			{
+				this.refill();
+				this.storedPermits = Math.min(storedPermits, capacity);
+			}
+			else
+			{
+				this.lastRefillNanos = ticker.read();
+				this.storedPermits = capacity;
+				this.initialized = true;
+			}
+			this.permitsPerSecond = permitsPerSecond;
+			this.capacity = capacity;
+		}
+
+		/**
+		 * Reserve a permit if one is available within {@code maxWaitNanos}.
+		 *
+		 * @param maxWaitNanos
+		 * @return The number of nanoseconds the caller must wait before using the reserved permit, or {@code -1} if no
+		 *         permit could be reserved.
+		 */
+		private synchronized long reserve(final long maxWaitNanos)
+		{
+			this.refill();
+			final long waitNanos = storedPermits >= 1.0 ? 0L
+				: (long) Math.ceil((1.0 - storedPermits) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+			if (waitNanos > maxWaitNanos)
+			{
+				return -1L;
+			}
+			// Permits may go negative, so that later callers queue up behind the ones already waiting.
+			storedPermits -= 1.0;
+			return waitNanos;
+		}
+
+		/**
+		 * Return the rate at which this bucket refills.
+		 *
+		 * @return
+		 */
+		private synchronized double getPermitsPerSecond()
+		{
+			return permitsPerSecond;
+		}
+
+		/**
+		 * Add the permits accrued since the last refill, up to the capacity of this bucket.
+		 */
+		private void refill()
+		{
+			final long nowNanos = ticker.read();
+			final double elapsedSeconds = (nowNanos - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+			storedPermits = Math.min(capacity, storedPermits + elapsedSeconds * permitsPerSecond);
+			lastRefillNanos = nowNanos;
+		}
+	}
+}
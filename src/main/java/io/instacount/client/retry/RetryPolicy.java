@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.retry;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+import feign.RetryableException;
+import feign.Retryer;
+import io.instacount.client.exceptions.CircuitBreakerOpenException;
+import io.instacount.client.exceptions.InstacountClientException;
+
+/**
+ * A class for configuring how idempotent calls to the Instacount API are retried: the maximum number of attempts, the
+ * jittered exponential backoff between attempts, and the HTTP status codes that are worth retrying.
+ * <p>
+ * A call is retried if it failed with a {@link RetryableException} (i.e., an I/O error before any response was
+ * received), or with an {@link InstacountClientException} whose HTTP status code is one of the retryable codes, unless
+ * it is a {@link CircuitBreakerOpenException}: a call rejected by an open circuit breaker should fail fast. The
+ * delay before the n-th retry is drawn uniformly between zero and {@code min(maxBackoff, initialBackoff *
+ * multiplier^(n-1))} ("full jitter"), so that clients that failed together do not retry together.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class RetryPolicy
+{
+	/**
+	 * A policy that never retries.
+	 */
+	public static final RetryPolicy NEVER = new RetryPolicy(1, 0, 0, 1.0, ImmutableSet.<Integer> of());
+
+	/**
+	 * The maximum number of attempts, including the first one.
+	 */
+	private final int maxAttempts;
+
+	/**
+	 * The upper bound, in milliseconds, of the delay before the first retry.
+	 */
+	private final long initialBackoffMillis;
+
+	/**
+	 * The upper bound, in milliseconds, of the delay before any retry.
+	 */
+	private final long maxBackoffMillis;
+
+	/**
+	 * The factor by which the upper bound of the delay grows after each retry.
+	 */
+	private final double backoffMultiplier;
+
+	/**
+	 * The HTTP status codes of the Instacount API responses that are retried.
+	 */
+	private final Set<Integer> retryableHttpResponseCodes;
+
+	/**
+	 * No-args Constructor, using the defaults: 3 attempts, with a backoff starting at 50 milliseconds and doubling up
+	 * to one second, retrying HTTP 500, 502, 503 and 504 responses.
+	 */
+	public RetryPolicy()
+	{
+		this(3, 50, TimeUnit.SECONDS.toMillis(1), 2.0, ImmutableSet.of(500, 502, 503, 504));
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param maxAttempts The maximum number of attempts, including the first one.
+	 * @param initialBackoffMillis The upper bound, in milliseconds, of the delay before the first retry.
+	 * @param maxBackoffMillis The upper bound, in milliseconds, of the delay before any retry.
+	 * @param backoffMultiplier The factor by which the upper bound of the delay grows after each retry.
+	 * @param retryableHttpResponseCodes The HTTP status codes of the Instacount API responses that are retried.
+	 */
+	public RetryPolicy(final int maxAttempts, final long initialBackoffMillis, final long maxBackoffMillis,
+			final double backoffMultiplier, final Set<Integer> retryableHttpResponseCodes)
+	{
+		Preconditions.checkArgument(maxAttempts > 0, "maxAttempts must be positive!");
+		Preconditions.checkArgument(initialBackoffMillis >= 0, "initialBackoffMillis must not be negative!");
+		Preconditions.checkArgument(maxBackoffMillis >= initialBackoffMillis,
+			"maxBackoffMillis must not be less than initialBackoffMillis!");
+		Preconditions.checkArgument(backoffMultiplier >= 1.0, "backoffMultiplier must be at least 1!");
+
+		this.maxAttempts = maxAttempts;
+		this.initialBackoffMillis = initialBackoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+		this.backoffMultiplier = backoffMultiplier;
+		this.retryableHttpResponseCodes = ImmutableSet.copyOf(retryableHttpResponseCodes);
+	}
+
+	/**
+	 * Determine if a call that failed with {@code throwable} is worth retrying.
+	 *
+	 * @param throwable
+	 * @return
+	 */
+	public boolean isRetryable(final Throwable throwable)
+	{
+		if (throwable instanceof RetryableException)
+		{
+			return true;
+		}
+		if (throwable instanceof CircuitBreakerOpenException)
+		{
+			return false;
+		}
+		if (throwable instanceof InstacountClientException)
+		{
+			final InstacountClientException exception = (InstacountClientException) throwable;
+			return exception.getErrors() != null
+				&& retryableHttpResponseCodes.contains(exception.getErrors().getHttpResponseCode());
+		}
+		return false;
+	}
+
+	/**
+	 * Compute a random delay, in milliseconds, to wait before the retry that follows attempt number {@code attempt}.
+	 *
+	 * @param attempt The number of the attempt that just failed, starting at 1.
+	 * @return
+	 */
+	public long getBackoffMillis(final int attempt)
+	{
+		Preconditions.checkArgument(attempt > 0, "attempt must be positive!");
+
+		final double ceiling = Math.min(maxBackoffMillis,
+			initialBackoffMillis * Math.pow(backoffMultiplier, attempt - 1));
+		return ceiling < 1.0 ? 0L : ThreadLocalRandom.current().nextLong((long) ceiling + 1);
+	}
+
+	/**
+	 * An implementation of {@link Retryer} that never retries. Feign cannot tell idempotent requests from
+	 * non-idempotent ones, so its retries are disabled in favor of {@link RetryPolicy}.
+	 */
+	public static class NeverRetryer implements Retryer
+	{
+		@Override
+		public void continueOrPropagate(final RetryableException e)
+		{
+			throw e;
+		}
+
+		@Override
+		public Retryer clone()
+		{
+			return this;
+		}
+	}
+}
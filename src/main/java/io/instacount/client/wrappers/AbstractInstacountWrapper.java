@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
+import feign.Response;
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.ShardedCounterOperation;
+import io.instacount.client.model.shardedcounters.inputs.CreateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.UpdateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.CreateShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.DeleteShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterOperationResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.UpdateShardedCounterResponse;
+
+/**
+ * An abstract implementation of {@link Instacount} that forwards every call to a delegate instance. Subclasses
+ * override only the operations they need to decorate.
+ */
+public abstract class AbstractInstacountWrapper implements Instacount
+{
+	/**
+	 * The HTTP status code used for responses to operations that were accepted locally but not yet sent to the
+	 * Instacount API (the same code the API returns for async increments and decrements).
+	 */
+	protected static final int HTTP_ACCEPTED = 202;
+
+	protected final Instacount delegate;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param delegate The instance of {@link Instacount} that calls should be forwarded to.
+	 */
+	protected AbstractInstacountWrapper(final Instacount delegate)
+	{
+		this.delegate = Preconditions.checkNotNull(delegate);
+	}
+
+	@Override
+	public CreateShardedCounterResponse createShardedCounter() throws InstacountClientException
+	{
+		return this.delegate.createShardedCounter();
+	}
+
+	@Override
+	public CreateShardedCounterResponse createShardedCounter(final CreateShardedCounterInput createCounterInput)
+			throws InstacountClientException
+	{
+		return this.delegate.createShardedCounter(createCounterInput);
+	}
+
+	@Override
+	public GetShardedCounterResponse getShardedCounter(final String counterName) throws InstacountClientException
+	{
+		return this.delegate.getShardedCounter(counterName);
+	}
+
+	@Override
+	public UpdateShardedCounterResponse updateShardedCounter(final String counterName,
+			final UpdateShardedCounterInput updateCounterInput) throws InstacountClientException
+	{
+		return this.delegate.updateShardedCounter(counterName, updateCounterInput);
+	}
+
+	@Override
+	public DeleteShardedCounterResponse deleteShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		return this.delegate.deleteShardedCounter(counterName);
+	}
+
+	@Override
+	public IncrementShardedCounterResponse incrementShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		return this.delegate.incrementShardedCounter(counterName);
+	}
+
+	@Override
+	public DecrementShardedCounterResponse decrementShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		return this.delegate.decrementShardedCounter(counterName);
+	}
+
+	@Override
+	public IncrementShardedCounterResponse incrementShardedCounter(final String counterName,
+			final IncrementShardedCounterInput incrementCounterInput) throws InstacountClientException
+	{
+		return this.delegate.incrementShardedCounter(counterName, incrementCounterInput);
+	}
+
+	@Override
+	public DecrementShardedCounterResponse decrementShardedCounter(final String counterName,
+			final DecrementShardedCounterInput decrementCounterInput) throws InstacountClientException
+	{
+		return this.delegate.decrementShardedCounter(counterName, decrementCounterInput);
+	}
+
+	@Override
+	public GetShardedCounterOperationResponse getShardedCounterOperation(final String counterName,
+			final Integer shardIndex, final String operationId) throws InstacountClientException
+	{
+		return this.delegate.getShardedCounterOperation(counterName, shardIndex, operationId);
+	}
+
+	//////////////////
+	// Protected Helpers
+	//////////////////
+
+	/**
+	 * Helper to construct an instance of {@link IncrementShardedCounterResponse} for an increment that was accepted
+	 * locally, and will be sent to the Instacount API at a later time.
+	 *
+	 * @param quota The most recently observed {@link Quota}.
+	 * @return
+	 */
+	protected IncrementShardedCounterResponse acceptedIncrementResponse(final Quota quota)
+	{
+		return new IncrementShardedCounterResponse(acceptedResponse(), quota,
+			Optional.<ShardedCounterOperation> absent());
+	}
+
+	/**
+	 * Helper to construct an instance of {@link DecrementShardedCounterResponse} for a decrement that was accepted
+	 * locally, and will be sent to the Instacount API at a later time.
+	 *
+	 * @param quota The most recently observed {@link Quota}.
+	 * @return
+	 */
+	protected DecrementShardedCounterResponse acceptedDecrementResponse(final Quota quota)
+	{
+		return new DecrementShardedCounterResponse(acceptedResponse(), quota,
+			Optional.<ShardedCounterOperation> absent());
+	}
+
+	/**
+	 * Helper to validate the name of the counter being operated upon.
+	 *
+	 * @param counterName
+	 */
+	protected void validateCounterName(final String counterName)
+	{
+		Preconditions.checkNotNull(counterName);
+		Preconditions.checkArgument(counterName.length() > 0);
+	}
+
+	/**
+	 * Helper to construct an empty HTTP 202 {@link Response}.
+	 *
+	 * @return
+	 */
+	private static Response acceptedResponse()
+	{
+		return Response.create(HTTP_ACCEPTED, "Accepted", Collections.<String, Collection<String>> emptyMap(),
+			(byte[]) null);
+	}
+
+	/**
+	 * An empty instance of {@link Quota}, for use before any response has been received from the Instacount API.
+	 *
+	 * @return
+	 */
+	protected static Quota emptyQuota()
+	{
+		return new Quota(0L, 0L, 0L, 0L);
+	}
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.shardedcounters.inputs.UpdateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.DeleteShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.UpdateShardedCounterResponse;
+
+/**
+ * An extension of {@link AbstractInstacountWrapper} that caches the responses of
+ * {@link #getShardedCounter(String)} in memory.
+ * <p>
+ * Cached responses are discarded once they are older than the expiry. When a refresh interval shorter than the expiry
+ * is configured, the first read of a response older than the refresh interval triggers a reload in the background
+ * and, in the meantime, is served the stale response, so reads of hot counters never wait on the network. The cache
+ * holds at most {@code maximumSize} counters, evicting the least recently used counters first.
+ * <p>
+ * Updating or deleting a counter through this instance invalidates its cached response. Increments and decrements do
+ * not, so a cached count may lag the Instacount API by up to the expiry.
+ */
+public class CachingInstacount extends AbstractInstacountWrapper
+{
+	private final LoadingCache<String, GetShardedCounterResponse> cache;
+
+	/**
+	 * Required-args Constructor. Background refreshes are run on daemon threads owned by this instance.
+	 *
+	 * @param delegate The instance of {@link Instacount} that counters should be loaded from.
+	 * @param expireAfterWrite The amount of time after which a cached counter is no longer served.
+	 * @param refreshAfterWrite The amount of time after which a cached counter is reloaded in the background. Set to
+	 *            zero to disable background refreshes.
+	 * @param unit The {@link TimeUnit} of {@code expireAfterWrite} and {@code refreshAfterWrite}.
+	 * @param maximumSize The maximum number of counters to cache.
+	 */
+	public CachingInstacount(final Instacount delegate, final long expireAfterWrite, final long refreshAfterWrite,
+			final TimeUnit unit, final long maximumSize)
+	{
+		this(delegate, expireAfterWrite, refreshAfterWrite, unit, maximumSize, Executors
+			.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("instacount-cache-%d")
+				.build()));
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param delegate The instance of {@link Instacount} that counters should be loaded from.
+	 * @param expireAfterWrite The amount of time after which a cached counter is no longer served.
+	 * @param refreshAfterWrite The amount of time after which a cached counter is reloaded in the background. Set to
+	 *            zero to disable background refreshes.
+	 * @param unit The {@link TimeUnit} of {@code expireAfterWrite} and {@code refreshAfterWrite}.
+	 * @param maximumSize The maximum number of counters to cache.
+	 * @param refreshExecutor The {@link Executor} used to run background refreshes.
+	 */
+	public CachingInstacount(final Instacount delegate, final long expireAfterWrite, final long refreshAfterWrite,
+			final TimeUnit unit, final long maximumSize, final Executor refreshExecutor)
+	{
+		this(delegate, expireAfterWrite, refreshAfterWrite, unit, maximumSize, refreshExecutor, Ticker
+			.systemTicker());
+	}
+
+	/**
+	 * Required-args Constructor, visible for testing.
+	 */
+	CachingInstacount(final Instacount delegate, final long expireAfterWrite, final long refreshAfterWrite,
+			final TimeUnit unit, final long maximumSize, final Executor refreshExecutor, final Ticker ticker)
+	{
+		super(delegate);
+		Preconditions.checkArgument(expireAfterWrite > 0, "expireAfterWrite must be positive!");
+		Preconditions.checkArgument(refreshAfterWrite >= 0, "refreshAfterWrite must not be negative!");
+		Preconditions.checkNotNull(unit);
+		Preconditions.checkArgument(maximumSize > 0, "maximumSize must be positive!");
+		Preconditions.checkNotNull(refreshExecutor);
+		Preconditions.checkNotNull(ticker);
+
+		final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+			.expireAfterWrite(expireAfterWrite, unit).maximumSize(maximumSize).ticker(ticker).recordStats();
+		if (refreshAfterWrite > 0 && refreshAfterWrite < expireAfterWrite)
+		{
+			cacheBuilder.refreshAfterWrite(refreshAfterWrite, unit);
+		}
+
+		this.cache = cacheBuilder.build(CacheLoader.asyncReloading(
+			new CacheLoader<String, GetShardedCounterResponse>()
+			{
+				@Override
+				public GetShardedCounterResponse load(final String counterName)
+				{
+					return CachingInstacount.this.delegate.getShardedCounter(counterName);
+				}
+			}, refreshExecutor));
+	}
+
+	@Override
+	public GetShardedCounterResponse getShardedCounter(final String counterName) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+
+		try
+		{
+			return cache.getUnchecked(counterName);
+		}
+		catch (UncheckedExecutionException e)
+		{
+			// Surface the original exception (typically an InstacountClientException) to the caller.
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+
+	@Override
+	public UpdateShardedCounterResponse updateShardedCounter(final String counterName,
+			final UpdateShardedCounterInput updateCounterInput) throws InstacountClientException
+	{
+		try
+		{
+			return this.delegate.updateShardedCounter(counterName, updateCounterInput);
+		}
+		finally
+		{
+			this.invalidate(counterName);
+		}
+	}
+
+	@Override
+	public DeleteShardedCounterResponse deleteShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		try
+		{
+			return this.delegate.deleteShardedCounter(counterName);
+		}
+		finally
+		{
+			this.invalidate(counterName);
+		}
+	}
+
+	/**
+	 * Discard the cached response for {@code counterName}, if any, so that the next read goes to the Instacount API.
+	 *
+	 * @param counterName
+	 */
+	public void invalidate(final String counterName)
+	{
+		if (counterName != null)
+		{
+			cache.invalidate(counterName);
+		}
+	}
+
+	/**
+	 * Discard every cached response.
+	 */
+	public void invalidateAll()
+	{
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Return the hit, miss and load statistics of the underlying cache.
+	 *
+	 * @return
+	 */
+	public CacheStats getStats()
+	{
+		return cache.stats();
+	}
+}
@@ -0,0 +1,521 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import java.math.BigInteger;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.AtomicLongMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.circuitbreaker.CircuitBreaker;
+import io.instacount.client.circuitbreaker.CircuitBreaker.State;
+import io.instacount.client.circuitbreaker.InstacountCircuitBreaker;
+import io.instacount.client.exceptions.CircuitBreakerOpenException;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.InstacountResponse;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.inputs.CreateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.UpdateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.CreateShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.DeleteShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterOperationResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.UpdateShardedCounterResponse;
+
+/**
+ * An extension of {@link AbstractInstacountWrapper} that guards every call with an {@link InstacountCircuitBreaker}.
+ * <p>
+ * Reads go through the read breaker, and every other call through the mutation breaker. A call fails if it throws
+ * anything other than an {@link InstacountClientException} with a status below 500: client errors such as a missing
+ * counter say nothing about the health of the Instacount API. While a breaker is open, its calls fail immediately
+ * with a {@link CircuitBreakerOpenException}.
+ * <p>
+ * If local fallback is enabled, calls to {@link #incrementShardedCounter(String)} and
+ * {@link #decrementShardedCounter(String)}, as well as calls whose input has {@code async} set to {@code true}, are
+ * instead accumulated in memory while the mutation breaker is open, and answered with an HTTP 202 response. The
+ * accumulated deltas are sent, one summed operation per counter, in the background once a mutation succeeds with the
+ * breaker closed, or by {@link #flushFallback()}. They are lost if the process exits before then.
+ */
+public class CircuitBreakingInstacount extends AbstractInstacountWrapper
+{
+	private static final Logger logger = Logger.getLogger(CircuitBreakingInstacount.class.getName());
+
+	private final CircuitBreaker readCircuitBreaker;
+	private final CircuitBreaker mutationCircuitBreaker;
+	private final boolean localFallback;
+
+	private final AtomicLongMap<String> fallbackDeltas;
+	private final Executor flushExecutor;
+	private final Runnable flushTask;
+	private final AtomicBoolean flushScheduled;
+	private final AtomicBoolean flushing;
+	private final AtomicReference<Quota> latestQuota;
+
+	/**
+	 * Required-args Constructor. Accumulated deltas are flushed by a daemon thread owned by this instance, which only
+	 * exists while a flush is in progress.
+	 *
+	 * @param delegate The instance of {@link Instacount} that permitted calls should be forwarded to.
+	 * @param instacountCircuitBreaker The {@link InstacountCircuitBreaker} that guards calls.
+	 */
+	public CircuitBreakingInstacount(final Instacount delegate, final InstacountCircuitBreaker instacountCircuitBreaker)
+	{
+		this(delegate, instacountCircuitBreaker, new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<Runnable>(), new ThreadFactoryBuilder().setDaemon(true)
+				.setNameFormat("instacount-fallback-flusher-%d").build()));
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param delegate The instance of {@link Instacount} that permitted calls should be forwarded to.
+	 * @param instacountCircuitBreaker The {@link InstacountCircuitBreaker} that guards calls.
+	 * @param flushExecutor The {@link Executor} used to flush accumulated deltas once the mutation breaker closes, so
+	 *            that the call that finds it closed does not wait on the flush.
+	 */
+	public CircuitBreakingInstacount(final Instacount delegate, final InstacountCircuitBreaker instacountCircuitBreaker,
+			final Executor flushExecutor)
+	{
+		super(delegate);
+		Preconditions.checkNotNull(instacountCircuitBreaker);
+
+		this.readCircuitBreaker = instacountCircuitBreaker.getReadCircuitBreaker();
+		this.mutationCircuitBreaker = instacountCircuitBreaker.getMutationCircuitBreaker();
+		this.localFallback = instacountCircuitBreaker.isLocalFallback();
+		this.fallbackDeltas = AtomicLongMap.create();
+		this.flushExecutor = Preconditions.checkNotNull(flushExecutor);
+		this.flushTask = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				flushScheduled.set(false);
+				flushFallback();
+			}
+		};
+		this.flushScheduled = new AtomicBoolean();
+		this.flushing = new AtomicBoolean();
+		this.latestQuota = new AtomicReference<>(emptyQuota());
+	}
+
+	@Override
+	public CreateShardedCounterResponse createShardedCounter() throws InstacountClientException
+	{
+		return this.mutate(new Supplier<CreateShardedCounterResponse>()
+		{
+			@Override
+			public CreateShardedCounterResponse get()
+			{
+				return delegate.createShardedCounter();
+			}
+		});
+	}
+
+	@Override
+	public CreateShardedCounterResponse createShardedCounter(final CreateShardedCounterInput createCounterInput)
+			throws InstacountClientException
+	{
+		return this.mutate(new Supplier<CreateShardedCounterResponse>()
+		{
+			@Override
+			public CreateShardedCounterResponse get()
+			{
+				return delegate.createShardedCounter(createCounterInput);
+			}
+		});
+	}
+
+	@Override
+	public GetShardedCounterResponse getShardedCounter(final String counterName) throws InstacountClientException
+	{
+		return this.read(new Supplier<GetShardedCounterResponse>()
+		{
+			@Override
+			public GetShardedCounterResponse get()
+			{
+				return delegate.getShardedCounter(counterName);
+			}
+		});
+	}
+
+	@Override
+	public UpdateShardedCounterResponse updateShardedCounter(final String counterName,
+			final UpdateShardedCounterInput updateCounterInput) throws InstacountClientException
+	{
+		return this.mutate(new Supplier<UpdateShardedCounterResponse>()
+		{
+			@Override
+			public UpdateShardedCounterResponse get()
+			{
+				return delegate.updateShardedCounter(counterName, updateCounterInput);
+			}
+		});
+	}
+
+	@Override
+	public DeleteShardedCounterResponse deleteShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		return this.mutate(new Supplier<DeleteShardedCounterResponse>()
+		{
+			@Override
+			public DeleteShardedCounterResponse get()
+			{
+				return delegate.deleteShardedCounter(counterName);
+			}
+		});
+	}
+
+	@Override
+	public IncrementShardedCounterResponse incrementShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		if (!this.acquireMutationPermission(counterName, 1L))
+		{
+			return this.acceptedIncrementResponse(latestQuota.get());
+		}
+		return this.execute(mutationCircuitBreaker, new Supplier<IncrementShardedCounterResponse>()
+		{
+			@Override
+			public IncrementShardedCounterResponse get()
+			{
+				return delegate.incrementShardedCounter(counterName);
+			}
+		});
+	}
+
+	@Override
+	public DecrementShardedCounterResponse decrementShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		if (!this.acquireMutationPermission(counterName, -1L))
+		{
+			return this.acceptedDecrementResponse(latestQuota.get());
+		}
+		return this.execute(mutationCircuitBreaker, new Supplier<DecrementShardedCounterResponse>()
+		{
+			@Override
+			public DecrementShardedCounterResponse get()
+			{
+				return delegate.decrementShardedCounter(counterName);
+			}
+		});
+	}
+
+	@Override
+	public IncrementShardedCounterResponse incrementShardedCounter(final String counterName,
+			final IncrementShardedCounterInput incrementCounterInput) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		Preconditions.checkNotNull(incrementCounterInput);
+
+		final boolean fallbackAllowed = incrementCounterInput.getAsync() && incrementCounterInput.hasLongAmount();
+		if (!this.acquireMutationPermission(counterName, fallbackAllowed ? incrementCounterInput.getAmountAsLong()
+			: 0L))
+		{
+			return this.acceptedIncrementResponse(latestQuota.get());
+		}
+		return this.execute(mutationCircuitBreaker, new Supplier<IncrementShardedCounterResponse>()
+		{
+			@Override
+			public IncrementShardedCounterResponse get()
+			{
+				return delegate.incrementShardedCounter(counterName, incrementCounterInput);
+			}
+		});
+	}
+
+	@Override
+	public DecrementShardedCounterResponse decrementShardedCounter(final String counterName,
+			final DecrementShardedCounterInput decrementCounterInput) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		Preconditions.checkNotNull(decrementCounterInput);
+
+		final boolean fallbackAllowed = decrementCounterInput.getAsync() && decrementCounterInput.hasLongAmount();
+		if (!this.acquireMutationPermission(counterName, fallbackAllowed ? -decrementCounterInput.getAmountAsLong()
+			: 0L))
+		{
+			return this.acceptedDecrementResponse(latestQuota.get());
+		}
+		return this.execute(mutationCircuitBreaker, new Supplier<DecrementShardedCounterResponse>()
+		{
+			@Override
+			public DecrementShardedCounterResponse get()
+			{
+				return delegate.decrementShardedCounter(counterName, decrementCounterInput);
+			}
+		});
+	}
+
+	@Override
+	public GetShardedCounterOperationResponse getShardedCounterOperation(final String counterName,
+			final Integer shardIndex, final String operationId) throws InstacountClientException
+	{
+		return this.read(new Supplier<GetShardedCounterOperationResponse>()
+		{
+			@Override
+			public GetShardedCounterOperationResponse get()
+			{
+				return delegate.getShardedCounterOperation(counterName, shardIndex, operationId);
+			}
+		});
+	}
+
+	/**
+	 * Send the accumulated delta of every counter to the Instacount API, as a single async increment (or decrement)
+	 * per counter, through the mutation breaker. A delta that fails with a client error (such as a missing counter) is
+	 * dropped, since it would never be accepted. Otherwise, stops at the first delta that cannot be sent, keeping it
+	 * and the remaining deltas for the next flush.
+	 */
+	public void flushFallback()
+	{
+		if (!flushing.compareAndSet(false, true))
+		{
+			return;
+		}
+
+		try
+		{
+			for (final String counterName : ImmutableMap.copyOf(fallbackDeltas.asMap()).keySet())
+			{
+				final long delta = fallbackDeltas.get(counterName);
+				if (delta != 0L && !this.flushFallback(counterName, delta))
+				{
+					return;
+				}
+			}
+		}
+		finally
+		{
+			fallbackDeltas.removeAllZeros();
+			flushing.set(false);
+		}
+	}
+
+	/**
+	 * Return the delta that is currently accumulated locally for {@code counterName}, waiting for the mutation
+	 * breaker to close.
+	 *
+	 * @param counterName
+	 * @return
+	 */
+	public long getFallbackDelta(final String counterName)
+	{
+		return fallbackDeltas.get(counterName);
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to send a read through the read breaker.
+	 *
+	 * @param call
+	 * @return
+	 */
+	private <T> T read(final Supplier<T> call)
+	{
+		if (!readCircuitBreaker.tryAcquirePermission())
+		{
+			throw new CircuitBreakerOpenException(readCircuitBreaker.getName());
+		}
+		return this.execute(readCircuitBreaker, call);
+	}
+
+	/**
+	 * Helper to send a mutation that cannot fall back to the local accumulator through the mutation breaker.
+	 *
+	 * @param call
+	 * @return
+	 */
+	private <T> T mutate(final Supplier<T> call)
+	{
+		this.acquireMutationPermission(null, 0L);
+		return this.execute(mutationCircuitBreaker, call);
+	}
+
+	/**
+	 * Helper to acquire permission from the mutation breaker, falling back to the local accumulator if it is open.
+	 *
+	 * @param counterName
+	 * @param delta The delta to accumulate locally if the breaker is open, or zero if the call cannot fall back.
+	 * @return {@code true} if the call should be sent, or {@code false} if its delta was accumulated locally.
+	 * @throws CircuitBreakerOpenException If the breaker is open, and the call cannot fall back.
+	 */
+	private boolean acquireMutationPermission(final String counterName, final long delta)
+	{
+		if (mutationCircuitBreaker.tryAcquirePermission())
+		{
+			return true;
+		}
+		if (localFallback && delta != 0L)
+		{
+			fallbackDeltas.addAndGet(counterName, delta);
+			return false;
+		}
+		throw new CircuitBreakerOpenException(mutationCircuitBreaker.getName());
+	}
+
+	/**
+	 * Helper to invoke a permitted {@code call}, record its outcome in {@code circuitBreaker}, and schedule a flush of
+	 * the local accumulator once a mutation succeeds with the mutation breaker closed.
+	 *
+	 * @param circuitBreaker
+	 * @param call
+	 * @return
+	 */
+	private <T> T execute(final CircuitBreaker circuitBreaker, final Supplier<T> call)
+	{
+		final T result = this.record(circuitBreaker, call);
+		if (circuitBreaker == mutationCircuitBreaker)
+		{
+			if (result instanceof InstacountResponse && ((InstacountResponse) result).getQuota() != null)
+			{
+				latestQuota.set(((InstacountResponse) result).getQuota());
+			}
+			if (!fallbackDeltas.isEmpty() && mutationCircuitBreaker.getState() == State.CLOSED
+				&& flushScheduled.compareAndSet(false, true))
+			{
+				flushExecutor.execute(flushTask);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Helper to invoke a permitted {@code call}, and record its outcome in {@code circuitBreaker}. The outcome is
+	 * recorded however the call completes, so that a half-open breaker never waits forever on a probe.
+	 *
+	 * @param circuitBreaker
+	 * @param call
+	 * @return
+	 */
+	private <T> T record(final CircuitBreaker circuitBreaker, final Supplier<T> call)
+	{
+		final long startNanos = System.nanoTime();
+		boolean succeeded = false;
+		try
+		{
+			final T result = call.get();
+			succeeded = true;
+			return result;
+		}
+		catch (InstacountClientException e)
+		{
+			succeeded = isClientError(e);
+			throw e;
+		}
+		finally
+		{
+			if (succeeded)
+			{
+				circuitBreaker.onSuccess(System.nanoTime() - startNanos);
+			}
+			else
+			{
+				circuitBreaker.onFailure();
+			}
+		}
+	}
+
+	/**
+	 * Helper to send the accumulated {@code delta} of {@code counterName}, removing it from the accumulator once it
+	 * has been accepted.
+	 *
+	 * @param counterName
+	 * @param delta
+	 * @return {@code true} if the delta was sent, or dropped because of a client error.
+	 */
+	private boolean flushFallback(final String counterName, final long delta)
+	{
+		if (!mutationCircuitBreaker.tryAcquirePermission())
+		{
+			return false;
+		}
+
+		try
+		{
+			final InstacountResponse response = this.record(mutationCircuitBreaker, new Supplier<InstacountResponse>()
+			{
+				@Override
+				public InstacountResponse get()
+				{
+					if (delta > 0L)
+					{
+						return delegate.incrementShardedCounter(counterName, new IncrementShardedCounterInput(
+							BigInteger.valueOf(delta), true));
+					}
+					return delegate.decrementShardedCounter(counterName, new DecrementShardedCounterInput(BigInteger
+						.valueOf(delta).negate(), true));
+				}
+			});
+			if (response != null && response.getQuota() != null)
+			{
+				latestQuota.set(response.getQuota());
+			}
+		}
+		catch (InstacountClientException e)
+		{
+			if (!isClientError(e))
+			{
+				logger.log(Level.WARNING,
+					String.format("Unable to flush fallback delta of %s for counter \"%s\"", delta, counterName), e);
+				return false;
+			}
+			// A client error (such as a deleted or read-only counter) would fail every retry, so the delta is dropped.
+			logger.log(Level.WARNING,
+				String.format("Dropping fallback delta of %s for counter \"%s\"", delta, counterName), e);
+		}
+		catch (RuntimeException e)
+		{
+			logger.log(Level.WARNING,
+				String.format("Unable to flush fallback delta of %s for counter \"%s\"", delta, counterName), e);
+			return false;
+		}
+
+		fallbackDeltas.addAndGet(counterName, -delta);
+		return true;
+	}
+
+	/**
+	 * Helper to determine if {@code e} reports a client error, which says nothing about the health of the Instacount
+	 * API.
+	 *
+	 * @param e
+	 * @return
+	 */
+	private static boolean isClientError(final InstacountClientException e)
+	{
+		return e.getErrors() != null && e.getErrors().getHttpResponseCode() < 500;
+	}
+}
@@ -0,0 +1,333 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AtomicLongMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.CircuitBreakerOpenException;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.InstacountResponse;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+
+/**
+ * An extension of {@link AbstractInstacountWrapper} that coalesces increments and decrements in memory, and
+ * periodically flushes a single summed operation per counter to the Instacount API.
+ * <p>
+ * Calls to {@link #incrementShardedCounter(String)} and {@link #decrementShardedCounter(String)}, as well as calls
+ * whose input has {@code async} set to {@code true}, are accepted locally and answered with an HTTP 202 response that
+ * carries the most recently observed {@link Quota}. Calls whose input has {@code async} set to {@code false} are
+ * forwarded immediately, because the caller expects the resulting counter operation in the response.
+ * <p>
+ * Pending deltas are flushed every flush interval, or as soon as the number of counters with a pending delta reaches
+ * {@code maxPendingCounters}. Call {@link #close()} to flush any remaining deltas before shutting down; once closed,
+ * every call is forwarded to the delegate.
+ */
+public class CoalescingInstacount extends AbstractInstacountWrapper implements Closeable
+{
+	private static final Logger logger = Logger.getLogger(CoalescingInstacount.class.getName());
+
+	private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+	private final AtomicLongMap<String> pendingDeltas;
+	private final AtomicReference<Quota> latestQuota;
+	private final AtomicBoolean flushRequested;
+
+	private final int maxPendingCounters;
+	private final boolean asyncFlush;
+	private final ScheduledExecutorService scheduledExecutorService;
+	private final boolean ownsExecutorService;
+
+	private volatile boolean closed;
+
+	/**
+	 * Required-args Constructor. Flushed operations are sent with {@code async} set to {@code true}, using a single
+	 * daemon thread owned by this instance.
+	 *
+	 * @param delegate The instance of {@link Instacount} that flushed operations should be sent through.
+	 * @param flushInterval The maximum amount of time a delta will be held before being flushed.
+	 * @param flushIntervalUnit The {@link TimeUnit} of {@code flushInterval}.
+	 * @param maxPendingCounters The number of counters with a pending delta that will trigger an early flush.
+	 */
+	public CoalescingInstacount(final Instacount delegate, final long flushInterval, final TimeUnit flushIntervalUnit,
+			final int maxPendingCounters)
+	{
+		this(delegate, flushInterval, flushIntervalUnit, maxPendingCounters, true, Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true)
+				.setNameFormat("instacount-coalescer-%d").build()), true);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param delegate The instance of {@link Instacount} that flushed operations should be sent through.
+	 * @param flushInterval The maximum amount of time a delta will be held before being flushed.
+	 * @param flushIntervalUnit The {@link TimeUnit} of {@code flushInterval}.
+	 * @param maxPendingCounters The number of counters with a pending delta that will trigger an early flush.
+	 * @param asyncFlush The value of {@code async} to use for each flushed operation.
+	 * @param scheduledExecutorService The {@link ScheduledExecutorService} used to run flushes. This instance will not
+	 *            be shut down by {@link #close()}.
+	 */
+	public CoalescingInstacount(final Instacount delegate, final long flushInterval, final TimeUnit flushIntervalUnit,
+			final int maxPendingCounters, final boolean asyncFlush,
+			final ScheduledExecutorService scheduledExecutorService)
+	{
+		this(delegate, flushInterval, flushIntervalUnit, maxPendingCounters, asyncFlush, scheduledExecutorService,
+			false);
+	}
+
+	private CoalescingInstacount(final Instacount delegate, final long flushInterval,
+			final TimeUnit flushIntervalUnit, final int maxPendingCounters, final boolean asyncFlush,
+			final ScheduledExecutorService scheduledExecutorService, final boolean ownsExecutorService)
+	{
+		super(delegate);
+		Preconditions.checkArgument(flushInterval > 0, "flushInterval must be positive!");
+		Preconditions.checkNotNull(flushIntervalUnit);
+		Preconditions.checkArgument(maxPendingCounters > 0, "maxPendingCounters must be positive!");
+
+		this.pendingDeltas = AtomicLongMap.create();
+		this.latestQuota = new AtomicReference<>(emptyQuota());
+		this.flushRequested = new AtomicBoolean();
+		this.maxPendingCounters = maxPendingCounters;
+		this.asyncFlush = asyncFlush;
+		this.scheduledExecutorService = Preconditions.checkNotNull(scheduledExecutorService);
+		this.ownsExecutorService = ownsExecutorService;
+
+		this.scheduledExecutorService.scheduleWithFixedDelay(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				flush();
+			}
+		}, flushInterval, flushInterval, flushIntervalUnit);
+	}
+
+	@Override
+	public IncrementShardedCounterResponse incrementShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		if (this.accumulate(counterName, 1L))
+		{
+			return this.acceptedIncrementResponse(latestQuota.get());
+		}
+		return this.delegate.incrementShardedCounter(counterName);
+	}
+
+	@Override
+	public DecrementShardedCounterResponse decrementShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		if (this.accumulate(counterName, -1L))
+		{
+			return this.acceptedDecrementResponse(latestQuota.get());
+		}
+		return this.delegate.decrementShardedCounter(counterName);
+	}
+
+	@Override
+	public IncrementShardedCounterResponse incrementShardedCounter(final String counterName,
+			final IncrementShardedCounterInput incrementCounterInput) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		Preconditions.checkNotNull(incrementCounterInput);
+
+		if (incrementCounterInput.getAsync() && incrementCounterInput.hasLongAmount()
+			&& this.accumulate(counterName, incrementCounterInput.getAmountAsLong()))
+		{
+			return this.acceptedIncrementResponse(latestQuota.get());
+		}
+		else
+		{
+			return this.delegate.incrementShardedCounter(counterName, incrementCounterInput);
+		}
+	}
+
+	@Override
+	public DecrementShardedCounterResponse decrementShardedCounter(final String counterName,
+			final DecrementShardedCounterInput decrementCounterInput) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		Preconditions.checkNotNull(decrementCounterInput);
+
+		if (decrementCounterInput.getAsync() && decrementCounterInput.hasLongAmount()
+			&& this.accumulate(counterName, -decrementCounterInput.getAmountAsLong()))
+		{
+			return this.acceptedDecrementResponse(latestQuota.get());
+		}
+		else
+		{
+			return this.delegate.decrementShardedCounter(counterName, decrementCounterInput);
+		}
+	}
+
+	/**
+	 * Send the pending delta of every counter to the Instacount API, as a single increment (or decrement) per counter.
+	 * Deltas that fail with a client error (such as a missing or read-only counter) are dropped, since they would never
+	 * be accepted. Other deltas that fail to send are kept, and will be retried on the next flush.
+	 */
+	public synchronized void flush()
+	{
+		flushRequested.set(false);
+
+		for (final String counterName : ImmutableList.copyOf(pendingDeltas.asMap().keySet()))
+		{
+			final long delta = pendingDeltas.remove(counterName);
+			if (delta == 0L)
+			{
+				continue;
+			}
+
+			try
+			{
+				final InstacountResponse response;
+				if (delta > 0L)
+				{
+					response = this.delegate.incrementShardedCounter(counterName,
+						new IncrementShardedCounterInput(BigInteger.valueOf(delta), asyncFlush));
+				}
+				else
+				{
+					response = this.delegate.decrementShardedCounter(counterName,
+						new DecrementShardedCounterInput(BigInteger.valueOf(delta).negate(), asyncFlush));
+				}
+				latestQuota.set(response.getQuota());
+			}
+			catch (RuntimeException e)
+			{
+				if (isPermanentFailure(e))
+				{
+					logger.log(Level.WARNING,
+						String.format("Dropping delta of %s for counter \"%s\"", delta, counterName), e);
+					continue;
+				}
+				// Put the delta back so that it is not lost...
+				pendingDeltas.addAndGet(counterName, delta);
+				logger.log(Level.WARNING,
+					String.format("Unable to flush delta of %s for counter \"%s\"", delta, counterName), e);
+			}
+		}
+	}
+
+	/**
+	 * Flush all pending deltas, and stop the flush schedule if the underlying executor is owned by this instance. Every
+	 * later call is forwarded to the delegate.
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		if (ownsExecutorService)
+		{
+			scheduledExecutorService.shutdown();
+		}
+		this.flush();
+	}
+
+	/**
+	 * Return the delta that is currently pending for {@code counterName}.
+	 *
+	 * @param counterName
+	 * @return
+	 */
+	public long getPendingDelta(final String counterName)
+	{
+		return pendingDeltas.get(counterName);
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to add {@code delta} to the pending delta of {@code counterName}, unless this instance is closed, and to
+	 * request an early flush if too many counters have a pending delta.
+	 *
+	 * @param counterName
+	 * @param delta
+	 * @return {@code true} if the delta was accepted, or {@code false} if the call should be forwarded to the delegate.
+	 */
+	private boolean accumulate(final String counterName, final long delta)
+	{
+		if (closed)
+		{
+			return false;
+		}
+
+		pendingDeltas.addAndGet(counterName, delta);
+		if (closed)
+		{
+			// Closed while adding, so the final flush may have missed this delta...
+			this.flush();
+		}
+		else if (pendingDeltas.size() >= maxPendingCounters && flushRequested.compareAndSet(false, true))
+		{
+			try
+			{
+				scheduledExecutorService.execute(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						flush();
+					}
+				});
+			}
+			catch (RejectedExecutionException e)
+			{
+				// The executor was shut down (e.g. by a concurrent close()), so flush on the caller's thread instead.
+				this.flush();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Helper to determine if a flush that failed with {@code e} would fail again, because the Instacount API rejected
+	 * it with a client error other than an exhausted quota.
+	 *
+	 * @param e
+	 * @return
+	 */
+	private static boolean isPermanentFailure(final RuntimeException e)
+	{
+		if (!(e instanceof InstacountClientException) || e instanceof CircuitBreakerOpenException)
+		{
+			return false;
+		}
+		final Errors errors = ((InstacountClientException) e).getErrors();
+		return errors != null && errors.getHttpResponseCode() >= 400 && errors.getHttpResponseCode() < 500
+			&& errors.getHttpResponseCode() != HTTP_TOO_MANY_REQUESTS;
+	}
+}
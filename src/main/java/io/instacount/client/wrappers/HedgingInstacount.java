@@ -0,0 +1,287 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterOperationResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+
+/**
+ * An extension of {@link AbstractInstacountWrapper} that hedges reads: if {@link #getShardedCounter(String)} or
+ * {@link #getShardedCounterOperation(String, Integer, String)} has not completed after the hedge delay, a duplicate
+ * request is sent, and whichever response arrives first is returned. The other request is then cancelled.
+ * <p>
+ * The hedge delay starts at the configured initial delay. Once {@link #SAMPLE_WINDOW} reads have completed, it is
+ * replaced by the 95th percentile latency of those reads, and recomputed for every subsequent window, so that only
+ * about one read in twenty is duplicated. Every request runs on the hedge executor, with the calling thread waiting
+ * for the first response.
+ * <p>
+ * Only reads are hedged: sending any other call twice could apply it twice.
+ */
+public class HedgingInstacount extends AbstractInstacountWrapper
+{
+	/**
+	 * The number of completed reads after which the hedge delay is recomputed.
+	 */
+	public static final int SAMPLE_WINDOW = 1000;
+
+	private static final double HEDGE_PERCENTILE = 95.0;
+
+	private final ExecutorService hedgeExecutorService;
+	private final Recorder latencyRecorder;
+	private final AtomicLong numSamples;
+	private final AtomicLong numHedgedRequests;
+	private final AtomicLong numHedgesWon;
+
+	private Histogram intervalHistogram;
+	private volatile long hedgeDelayNanos;
+
+	/**
+	 * Required-args Constructor. Requests are run on daemon threads owned by this instance.
+	 *
+	 * @param delegate The instance of {@link Instacount} that reads should be sent through.
+	 * @param initialHedgeDelay The amount of time to wait before hedging a read, until enough reads have completed to
+	 *            measure their 95th percentile latency.
+	 * @param unit The {@link TimeUnit} of {@code initialHedgeDelay}.
+	 */
+	public HedgingInstacount(final Instacount delegate, final long initialHedgeDelay, final TimeUnit unit)
+	{
+		this(delegate, initialHedgeDelay, unit, Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+			.setDaemon(true).setNameFormat("instacount-hedge-%d").build()));
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param delegate The instance of {@link Instacount} that reads should be sent through.
+	 * @param initialHedgeDelay The amount of time to wait before hedging a read, until enough reads have completed to
+	 *            measure their 95th percentile latency.
+	 * @param unit The {@link TimeUnit} of {@code initialHedgeDelay}.
+	 * @param hedgeExecutorService The {@link ExecutorService} used to send reads. It must be able to run two requests
+	 *            per concurrent read.
+	 */
+	public HedgingInstacount(final Instacount delegate, final long initialHedgeDelay, final TimeUnit unit,
+			final ExecutorService hedgeExecutorService)
+	{
+		super(delegate);
+		Preconditions.checkArgument(initialHedgeDelay >= 0, "initialHedgeDelay must not be negative!");
+		Preconditions.checkNotNull(unit);
+
+		this.hedgeExecutorService = Preconditions.checkNotNull(hedgeExecutorService);
+		this.latencyRecorder = new Recorder(2);
+		this.numSamples = new AtomicLong();
+		this.numHedgedRequests = new AtomicLong();
+		this.numHedgesWon = new AtomicLong();
+		this.hedgeDelayNanos = unit.toNanos(initialHedgeDelay);
+	}
+
+	@Override
+	public GetShardedCounterResponse getShardedCounter(final String counterName) throws InstacountClientException
+	{
+		return this.hedge(new Callable<GetShardedCounterResponse>()
+		{
+			@Override
+			public GetShardedCounterResponse call()
+			{
+				return delegate.getShardedCounter(counterName);
+			}
+		});
+	}
+
+	@Override
+	public GetShardedCounterOperationResponse getShardedCounterOperation(final String counterName,
+			final Integer shardIndex, final String operationId) throws InstacountClientException
+	{
+		return this.hedge(new Callable<GetShardedCounterOperationResponse>()
+		{
+			@Override
+			public GetShardedCounterOperationResponse call()
+			{
+				return delegate.getShardedCounterOperation(counterName, shardIndex, operationId);
+			}
+		});
+	}
+
+	/**
+	 * Return the amount of time, in nanoseconds, after which a read is currently hedged.
+	 *
+	 * @return
+	 */
+	public long getHedgeDelayNanos()
+	{
+		return hedgeDelayNanos;
+	}
+
+	/**
+	 * Return the number of duplicate requests sent so far.
+	 *
+	 * @return
+	 */
+	public long getNumHedgedRequests()
+	{
+		return numHedgedRequests.get();
+	}
+
+	/**
+	 * Return the number of reads that were answered by their duplicate request rather than by the original one.
+	 *
+	 * @return
+	 */
+	public long getNumHedgesWon()
+	{
+		return numHedgesWon.get();
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to run {@code read} on the hedge executor, run it a second time if it has not completed after the hedge
+	 * delay, and return the first successful result. If every attempt fails, the failure of the last one is thrown.
+	 *
+	 * @param read
+	 * @return
+	 */
+	private <T> T hedge(final Callable<T> read)
+	{
+		final CompletionService<T> completionService = new ExecutorCompletionService<>(hedgeExecutorService);
+		final Callable<T> timedRead = this.timed(read);
+
+		final Future<T> original = completionService.submit(timedRead);
+		Future<T> duplicate = null;
+		try
+		{
+			Future<T> completed = completionService.poll(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+			if (completed == null)
+			{
+				duplicate = completionService.submit(timedRead);
+				numHedgedRequests.incrementAndGet();
+				completed = completionService.take();
+			}
+
+			try
+			{
+				return this.result(completed, duplicate);
+			}
+			catch (ExecutionException e)
+			{
+				if (duplicate == null)
+				{
+					throw Throwables.propagate(e.getCause());
+				}
+
+				// The first request to complete failed, but the other one may still succeed.
+				try
+				{
+					return this.result(completionService.take(), duplicate);
+				}
+				catch (ExecutionException e2)
+				{
+					throw Throwables.propagate(e2.getCause());
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw Throwables.propagate(e);
+		}
+		finally
+		{
+			original.cancel(true);
+			if (duplicate != null)
+			{
+				duplicate.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Helper to return the result of a {@code completed} request, counting it as a win for hedging if it is the
+	 * {@code duplicate}.
+	 *
+	 * @param completed
+	 * @param duplicate The duplicate request, or {@code null} if none was sent.
+	 * @return
+	 * @throws ExecutionException If the request failed.
+	 * @throws InterruptedException
+	 */
+	private <T> T result(final Future<T> completed, final Future<T> duplicate) throws ExecutionException,
+			InterruptedException
+	{
+		final T result = completed.get();
+		if (completed == duplicate)
+		{
+			numHedgesWon.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Helper to wrap {@code read} so that the latency of each successful request is recorded.
+	 *
+	 * @param read
+	 * @return
+	 */
+	private <T> Callable<T> timed(final Callable<T> read)
+	{
+		return new Callable<T>()
+		{
+			@Override
+			public T call() throws Exception
+			{
+				final long startNanos = System.nanoTime();
+				final T result = read.call();
+				recordLatency(System.nanoTime() - startNanos);
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Helper to record the latency of a successful request, recomputing the hedge delay at the end of each window.
+	 *
+	 * @param latencyNanos
+	 */
+	private void recordLatency(final long latencyNanos)
+	{
+		latencyRecorder.recordValue(latencyNanos);
+		if (numSamples.incrementAndGet() % SAMPLE_WINDOW == 0)
+		{
+			synchronized (latencyRecorder)
+			{
+				intervalHistogram = latencyRecorder.getIntervalHistogram(intervalHistogram);
+				hedgeDelayNanos = intervalHistogram.getValueAtPercentile(HEDGE_PERCENTILE);
+			}
+		}
+	}
+}
@@ -0,0 +1,381 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.journal.IncrementJournal;
+import io.instacount.client.model.InstacountResponse;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+
+/**
+ * An extension of {@link AbstractInstacountWrapper} that records increments and decrements in a durable
+ * {@link IncrementJournal}, and drains them to the Instacount API in the background.
+ * <p>
+ * Calls to {@link #incrementShardedCounter(String)} and {@link #decrementShardedCounter(String)}, as well as calls
+ * whose input has {@code async} set to {@code true}, are appended to the journal and answered with an HTTP 202 response
+ * that carries the most recently observed {@link Quota}, so the caller never waits on the network. Calls whose input
+ * has {@code async} set to {@code false} are forwarded immediately. If the journal cannot be written, the call is
+ * forwarded as well.
+ * <p>
+ * Every drain interval, the summed delta of each counter in the journal is sent as a single operation, using at most
+ * {@code maxConcurrentDrains} requests at a time. Deltas that fail to send stay in the journal and are retried on the
+ * next drain, including after a restart. A delta that was sent but could not be removed from the journal is
+ * remembered, and is not sent again by this instance; its removal is retried on every drain. Call {@link #close()} to
+ * attempt a final drain before shutting down.
+ */
+public class JournalingInstacount extends AbstractInstacountWrapper implements Closeable
+{
+	private static final Logger logger = Logger.getLogger(JournalingInstacount.class.getName());
+
+	private final IncrementJournal journal;
+	// Deltas that were sent to the Instacount API, but whose removal could not yet be recorded in the journal.
+	private final ConcurrentMap<String, Long> unjournaledDeltas;
+	private final AtomicReference<Quota> latestQuota;
+
+	private final ScheduledExecutorService scheduledExecutorService;
+	private final ExecutorService drainExecutorService;
+	private final boolean ownsExecutorServices;
+
+	/**
+	 * Required-args Constructor. Drains use a daemon scheduling thread and a pool of {@code maxConcurrentDrains} daemon
+	 * threads, all owned by this instance.
+	 *
+	 * @param delegate The instance of {@link Instacount} that drained operations should be sent through.
+	 * @param journal The {@link IncrementJournal} that holds pending deltas. It will not be closed by {@link #close()}.
+	 * @param drainInterval The amount of time between two drains of the journal.
+	 * @param drainIntervalUnit The {@link TimeUnit} of {@code drainInterval}.
+	 * @param maxConcurrentDrains The maximum number of operations that will be sent to the Instacount API at once.
+	 */
+	public JournalingInstacount(final Instacount delegate, final IncrementJournal journal, final long drainInterval,
+			final TimeUnit drainIntervalUnit, final int maxConcurrentDrains)
+	{
+		this(delegate, journal, drainInterval, drainIntervalUnit, Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true)
+				.setNameFormat("instacount-journal-scheduler-%d").build()), Executors.newFixedThreadPool(
+			maxConcurrentDrains, new ThreadFactoryBuilder().setDaemon(true)
+				.setNameFormat("instacount-journal-drainer-%d").build()), true);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param delegate The instance of {@link Instacount} that drained operations should be sent through.
+	 * @param journal The {@link IncrementJournal} that holds pending deltas. It will not be closed by {@link #close()}.
+	 * @param drainInterval The amount of time between two drains of the journal.
+	 * @param drainIntervalUnit The {@link TimeUnit} of {@code drainInterval}.
+	 * @param scheduledExecutorService The {@link ScheduledExecutorService} used to schedule drains.
+	 * @param drainExecutorService The {@link ExecutorService} used to send drained operations. Its number of threads
+	 *            bounds the number of concurrent requests. Neither executor will be shut down by {@link #close()}.
+	 */
+	public JournalingInstacount(final Instacount delegate, final IncrementJournal journal, final long drainInterval,
+			final TimeUnit drainIntervalUnit, final ScheduledExecutorService scheduledExecutorService,
+			final ExecutorService drainExecutorService)
+	{
+		this(delegate, journal, drainInterval, drainIntervalUnit, scheduledExecutorService, drainExecutorService,
+			false);
+	}
+
+	private JournalingInstacount(final Instacount delegate, final IncrementJournal journal,
+			final long drainInterval, final TimeUnit drainIntervalUnit,
+			final ScheduledExecutorService scheduledExecutorService, final ExecutorService drainExecutorService,
+			final boolean ownsExecutorServices)
+	{
+		super(delegate);
+		Preconditions.checkArgument(drainInterval > 0, "drainInterval must be positive!");
+		Preconditions.checkNotNull(drainIntervalUnit);
+
+		this.journal = Preconditions.checkNotNull(journal);
+		this.unjournaledDeltas = new ConcurrentHashMap<>();
+		this.latestQuota = new AtomicReference<>(emptyQuota());
+		this.scheduledExecutorService = Preconditions.checkNotNull(scheduledExecutorService);
+		this.drainExecutorService = Preconditions.checkNotNull(drainExecutorService);
+		this.ownsExecutorServices = ownsExecutorServices;
+
+		// The first drain runs immediately, to send anything left over from a previous run.
+		this.scheduledExecutorService.scheduleWithFixedDelay(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				drain();
+			}
+		}, 0, drainInterval, drainIntervalUnit);
+	}
+
+	@Override
+	public IncrementShardedCounterResponse incrementShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		if (this.journal(counterName, 1L))
+		{
+			return this.acceptedIncrementResponse(latestQuota.get());
+		}
+		return this.delegate.incrementShardedCounter(counterName);
+	}
+
+	@Override
+	public DecrementShardedCounterResponse decrementShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		if (this.journal(counterName, -1L))
+		{
+			return this.acceptedDecrementResponse(latestQuota.get());
+		}
+		return this.delegate.decrementShardedCounter(counterName);
+	}
+
+	@Override
+	public IncrementShardedCounterResponse incrementShardedCounter(final String counterName,
+			final IncrementShardedCounterInput incrementCounterInput) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		Preconditions.checkNotNull(incrementCounterInput);
+
+		if (incrementCounterInput.getAsync() && incrementCounterInput.hasLongAmount()
+			&& this.journal(counterName, incrementCounterInput.getAmountAsLong()))
+		{
+			return this.acceptedIncrementResponse(latestQuota.get());
+		}
+		return this.delegate.incrementShardedCounter(counterName, incrementCounterInput);
+	}
+
+	@Override
+	public DecrementShardedCounterResponse decrementShardedCounter(final String counterName,
+			final DecrementShardedCounterInput decrementCounterInput) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		Preconditions.checkNotNull(decrementCounterInput);
+
+		if (decrementCounterInput.getAsync() && decrementCounterInput.hasLongAmount()
+			&& this.journal(counterName, -decrementCounterInput.getAmountAsLong()))
+		{
+			return this.acceptedDecrementResponse(latestQuota.get());
+		}
+		return this.delegate.decrementShardedCounter(counterName, decrementCounterInput);
+	}
+
+	/**
+	 * Send the pending delta of every counter in the journal to the Instacount API, as a single increment (or
+	 * decrement) per counter, and wait for every operation to complete. Each delta that is sent successfully is
+	 * removed from the journal; the others are retried on the next drain.
+	 */
+	public synchronized void drain()
+	{
+		this.journalSentDeltas();
+
+		final List<Callable<Void>> drainTasks = Lists.newArrayList();
+		for (final Map.Entry<String, Long> entry : journal.getPendingDeltas().entrySet())
+		{
+			final String counterName = entry.getKey();
+			final long delta = entry.getValue() - this.getUnjournaledDelta(counterName);
+			if (delta == 0L)
+			{
+				continue;
+			}
+			drainTasks.add(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					drain(counterName, delta);
+					return null;
+				}
+			});
+		}
+
+		try
+		{
+			drainExecutorService.invokeAll(drainTasks);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		journal.force();
+		if (journal.getUsedBytes() > journal.getCapacity() / 2)
+		{
+			try
+			{
+				journal.compact();
+			}
+			catch (IOException e)
+			{
+				logger.log(Level.WARNING, "Unable to compact the increment journal", e);
+			}
+		}
+	}
+
+	/**
+	 * Drain the journal one last time, and stop the drain schedule if the underlying executors are owned by this
+	 * instance.
+	 */
+	@Override
+	public void close()
+	{
+		if (ownsExecutorServices)
+		{
+			scheduledExecutorService.shutdown();
+		}
+		this.drain();
+		if (ownsExecutorServices)
+		{
+			drainExecutorService.shutdown();
+		}
+	}
+
+	/**
+	 * Return the delta that is currently pending in the journal for {@code counterName}, and has not yet been sent.
+	 *
+	 * @param counterName
+	 * @return
+	 */
+	public long getPendingDelta(final String counterName)
+	{
+		return journal.getPendingDelta(counterName) - this.getUnjournaledDelta(counterName);
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to append {@code delta} to the journal.
+	 *
+	 * @param counterName
+	 * @param delta
+	 * @return {@code true} if the delta was journaled, or {@code false} if it should be forwarded to the delegate.
+	 */
+	private boolean journal(final String counterName, final long delta)
+	{
+		try
+		{
+			journal.append(counterName, delta);
+			return true;
+		}
+		catch (IOException e)
+		{
+			logger.log(Level.WARNING,
+				String.format("Unable to journal delta of %s for counter \"%s\"; sending it directly", delta,
+					counterName), e);
+			return false;
+		}
+	}
+
+	/**
+	 * Helper to send {@code delta} for {@code counterName} to the Instacount API, and remove it from the journal once
+	 * it has been accepted.
+	 *
+	 * @param counterName
+	 * @param delta
+	 */
+	private void drain(final String counterName, final long delta)
+	{
+		try
+		{
+			final InstacountResponse response;
+			if (delta > 0L)
+			{
+				response = this.delegate.incrementShardedCounter(counterName,
+					new IncrementShardedCounterInput(BigInteger.valueOf(delta), true));
+			}
+			else
+			{
+				response = this.delegate.decrementShardedCounter(counterName,
+					new DecrementShardedCounterInput(BigInteger.valueOf(delta).negate(), true));
+			}
+			latestQuota.set(response.getQuota());
+		}
+		catch (RuntimeException e)
+		{
+			logger.log(Level.WARNING,
+				String.format("Unable to drain delta of %s for counter \"%s\"", delta, counterName), e);
+			return;
+		}
+
+		try
+		{
+			journal.append(counterName, -delta);
+		}
+		catch (IOException e)
+		{
+			// Remember the delta, so that it is not sent again by this instance. It will be sent again after a
+			// restart, unless a later drain manages to remove it from the journal first.
+			logger.log(Level.SEVERE,
+				String.format("Unable to remove drained delta of %s for counter \"%s\" from the journal", delta,
+					counterName), e);
+			// Each counter is drained by at most one task at a time, since drain() is synchronized.
+			unjournaledDeltas.put(counterName, this.getUnjournaledDelta(counterName) + delta);
+		}
+	}
+
+	/**
+	 * Helper to retry removing every delta that was sent, but could not be removed from the journal, from the journal.
+	 */
+	private void journalSentDeltas()
+	{
+		for (final Map.Entry<String, Long> entry : unjournaledDeltas.entrySet())
+		{
+			try
+			{
+				journal.append(entry.getKey(), -entry.getValue());
+				unjournaledDeltas.remove(entry.getKey());
+			}
+			catch (IOException e)
+			{
+				logger.log(Level.SEVERE, String.format(
+					"Unable to remove drained delta of %s for counter \"%s\" from the journal", entry.getValue(),
+					entry.getKey()), e);
+			}
+		}
+	}
+
+	/**
+	 * Helper to return the delta of {@code counterName} that was sent, but could not be removed from the journal.
+	 *
+	 * @param counterName
+	 * @return
+	 */
+	private long getUnjournaledDelta(final String counterName)
+	{
+		final Long unjournaledDelta = unjournaledDeltas.get(counterName);
+		return unjournaledDelta == null ? 0L : unjournaledDelta;
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.shardedcounters.inputs.UpdateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterOperationResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.UpdateShardedCounterResponse;
+import io.instacount.client.retry.RetryPolicy;
+
+/**
+ * An extension of {@link AbstractInstacountWrapper} that retries idempotent calls according to a {@link RetryPolicy}.
+ * <p>
+ * Only {@link #getShardedCounter(String)}, {@link #getShardedCounterOperation(String, Integer, String)} and
+ * {@link #updateShardedCounter(String, UpdateShardedCounterInput)} are retried, since repeating them has the same
+ * effect as sending them once. Creates, deletes, increments and decrements are never retried: the Instacount API
+ * offers no way to de-duplicate them, so a retry after a lost response could apply the operation twice.
+ */
+public class RetryingInstacount extends AbstractInstacountWrapper
+{
+	private static final Logger logger = Logger.getLogger(RetryingInstacount.class.getName());
+
+	private final RetryPolicy retryPolicy;
+	private final AtomicLong numRetries;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param delegate The instance of {@link Instacount} that calls should be forwarded to.
+	 * @param retryPolicy The {@link RetryPolicy} that decides which failures are retried, and when.
+	 */
+	public RetryingInstacount(final Instacount delegate, final RetryPolicy retryPolicy)
+	{
+		super(delegate);
+		this.retryPolicy = Preconditions.checkNotNull(retryPolicy);
+		this.numRetries = new AtomicLong();
+	}
+
+	@Override
+	public GetShardedCounterResponse getShardedCounter(final String counterName) throws InstacountClientException
+	{
+		return this.retry(new Supplier<GetShardedCounterResponse>()
+		{
+			@Override
+			public GetShardedCounterResponse get()
+			{
+				return delegate.getShardedCounter(counterName);
+			}
+		});
+	}
+
+	@Override
+	public UpdateShardedCounterResponse updateShardedCounter(final String counterName,
+			final UpdateShardedCounterInput updateCounterInput) throws InstacountClientException
+	{
+		return this.retry(new Supplier<UpdateShardedCounterResponse>()
+		{
+			@Override
+			public UpdateShardedCounterResponse get()
+			{
+				return delegate.updateShardedCounter(counterName, updateCounterInput);
+			}
+		});
+	}
+
+	@Override
+	public GetShardedCounterOperationResponse getShardedCounterOperation(final String counterName,
+			final Integer shardIndex, final String operationId) throws InstacountClientException
+	{
+		return this.retry(new Supplier<GetShardedCounterOperationResponse>()
+		{
+			@Override
+			public GetShardedCounterOperationResponse get()
+			{
+				return delegate.getShardedCounterOperation(counterName, shardIndex, operationId);
+			}
+		});
+	}
+
+	/**
+	 * Return the number of retries made so far, across every call.
+	 *
+	 * @return
+	 */
+	public long getNumRetries()
+	{
+		return numRetries.get();
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to invoke {@code call} until it succeeds, fails with an error that is not retryable, or runs out of
+	 * attempts, sleeping for the backoff of the {@link RetryPolicy} between attempts. If the calling thread is
+	 * interrupted while sleeping, the last failure is rethrown.
+	 *
+	 * @param call
+	 * @return
+	 */
+	private <T> T retry(final Supplier<T> call)
+	{
+		for (int attempt = 1;; attempt++)
+		{
+			try
+			{
+				return call.get();
+			}
+			catch (RuntimeException e)
+			{
+				if (attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(e))
+				{
+					throw e;
+				}
+
+				final long backoffMillis = retryPolicy.getBackoffMillis(attempt);
+				logger.log(Level.FINE, String.format("Attempt %s failed; retrying in %s ms", attempt, backoffMillis),
+					e);
+				try
+				{
+					TimeUnit.MILLISECONDS.sleep(backoffMillis);
+				}
+				catch (InterruptedException ie)
+				{
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+				numRetries.incrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterOperationResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+
+/**
+ * An extension of {@link AbstractInstacountWrapper} that collapses concurrent identical reads into a single request.
+ * <p>
+ * The first thread to call {@link #getShardedCounter(String)} for a counter sends the request on its own thread. Any
+ * thread that asks for the same counter before that request completes waits for it, and receives the same decoded
+ * response, or the same exception. The same applies to
+ * {@link #getShardedCounterOperation(String, Integer, String)} for the same counter, shard and operation. Nothing is
+ * cached: a read that starts after the in-flight request completed sends a new request.
+ */
+public class SingleFlightInstacount extends AbstractInstacountWrapper
+{
+	private final ConcurrentMap<String, SettableFuture<GetShardedCounterResponse>> inFlightCounters;
+	private final ConcurrentMap<List<Object>, SettableFuture<GetShardedCounterOperationResponse>> inFlightOperations;
+	private final AtomicLong numCollapsedCalls;
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param delegate The instance of {@link Instacount} that reads should be sent through.
+	 */
+	public SingleFlightInstacount(final Instacount delegate)
+	{
+		super(delegate);
+		this.inFlightCounters = new ConcurrentHashMap<>();
+		this.inFlightOperations = new ConcurrentHashMap<>();
+		this.numCollapsedCalls = new AtomicLong();
+	}
+
+	@Override
+	public GetShardedCounterResponse getShardedCounter(final String counterName) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		return this.singleFlight(inFlightCounters, counterName, new Supplier<GetShardedCounterResponse>()
+		{
+			@Override
+			public GetShardedCounterResponse get()
+			{
+				return delegate.getShardedCounter(counterName);
+			}
+		});
+	}
+
+	@Override
+	public GetShardedCounterOperationResponse getShardedCounterOperation(final String counterName,
+			final Integer shardIndex, final String operationId) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		return this.singleFlight(inFlightOperations, ImmutableList.<Object> of(counterName, shardIndex, operationId),
+			new Supplier<GetShardedCounterOperationResponse>()
+			{
+				@Override
+				public GetShardedCounterOperationResponse get()
+				{
+					return delegate.getShardedCounterOperation(counterName, shardIndex, operationId);
+				}
+			});
+	}
+
+	/**
+	 * Return the number of calls that were answered by another thread's in-flight request, rather than sending their
+	 * own.
+	 *
+	 * @return
+	 */
+	public long getNumCollapsedCalls()
+	{
+		return numCollapsedCalls.get();
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to wait for the in-flight request for {@code key}, if there is one, or else to send {@code read} on the
+	 * calling thread and share its outcome with every thread that asks for {@code key} in the meantime.
+	 *
+	 * @param inFlight
+	 * @param key
+	 * @param read
+	 * @return
+	 */
+	private <K, T> T singleFlight(final ConcurrentMap<K, SettableFuture<T>> inFlight, final K key,
+			final Supplier<T> read)
+	{
+		final SettableFuture<T> future = SettableFuture.create();
+		final SettableFuture<T> inFlightFuture = inFlight.putIfAbsent(key, future);
+		if (inFlightFuture != null)
+		{
+			numCollapsedCalls.incrementAndGet();
+			try
+			{
+				return Uninterruptibles.getUninterruptibly(inFlightFuture);
+			}
+			catch (ExecutionException e)
+			{
+				throw Throwables.propagate(e.getCause());
+			}
+		}
+
+		try
+		{
+			final T result = read.get();
+			future.set(result);
+			return result;
+		}
+		catch (RuntimeException | Error e)
+		{
+			future.setException(e);
+			throw e;
+		}
+		finally
+		{
+			inFlight.remove(key, future);
+		}
+	}
+}
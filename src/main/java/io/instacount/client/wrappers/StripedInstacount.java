@@ -0,0 +1,404 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.InstacountResponse;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+
+/**
+ * An extension of {@link AbstractInstacountWrapper} that accumulates increments and decrements of a few very hot
+ * counters in striped, per-core cells, and periodically flushes a single summed operation per counter to the
+ * Instacount API.
+ * <p>
+ * Unlike {@link CoalescingInstacount}, which funnels every thread through a single atomic value per counter, each
+ * counter here is spread over one cell per available processor (rounded up to a power of two), each on its own cache
+ * line. A thread always adds to the same cell until it sees contention on it, and then moves to another one, so that
+ * an increment costs a single uncontended compare-and-swap even when every request thread increments the same
+ * counter. Accepted calls are answered with a shared HTTP 202 response that carries the most recently observed
+ * {@link Quota}.
+ * <p>
+ * Calls are accepted under the same conditions as {@link CoalescingInstacount}: calls to
+ * {@link #incrementShardedCounter(String)} and {@link #decrementShardedCounter(String)}, and calls whose input has
+ * {@code async} set to {@code true}. Each counter holds on to its cells for the lifetime of this instance, so this
+ * class is intended for a small, fixed set of hot counters. Call {@link #close()} to flush any remaining deltas before
+ * shutting down; once closed, every call is forwarded to the delegate.
+ */
+public class StripedInstacount extends AbstractInstacountWrapper implements Closeable
+{
+	private static final Logger logger = Logger.getLogger(StripedInstacount.class.getName());
+
+	private final ConcurrentMap<String, StripedLong> pendingDeltas;
+	private final int numStripes;
+	private final boolean asyncFlush;
+	private final ScheduledExecutorService scheduledExecutorService;
+	private final boolean ownsExecutorService;
+
+	private volatile boolean closed;
+
+	// Shared by every accepted call, and replaced whenever a flush observes a new quota.
+	private volatile IncrementShardedCounterResponse acceptedIncrementResponse;
+	private volatile DecrementShardedCounterResponse acceptedDecrementResponse;
+
+	/**
+	 * Required-args Constructor. Flushed operations are sent with {@code async} set to {@code true}, using a single
+	 * daemon thread owned by this instance.
+	 *
+	 * @param delegate The instance of {@link Instacount} that flushed operations should be sent through.
+	 * @param flushInterval The maximum amount of time a delta will be held before being flushed.
+	 * @param flushIntervalUnit The {@link TimeUnit} of {@code flushInterval}.
+	 */
+	public StripedInstacount(final Instacount delegate, final long flushInterval, final TimeUnit flushIntervalUnit)
+	{
+		this(delegate, flushInterval, flushIntervalUnit, true, Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true)
+				.setNameFormat("instacount-striped-flusher-%d").build()), true);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param delegate The instance of {@link Instacount} that flushed operations should be sent through.
+	 * @param flushInterval The maximum amount of time a delta will be held before being flushed.
+	 * @param flushIntervalUnit The {@link TimeUnit} of {@code flushInterval}.
+	 * @param asyncFlush The value of {@code async} to use for each flushed operation.
+	 * @param scheduledExecutorService The {@link ScheduledExecutorService} used to run flushes. This instance will not
+	 *            be shut down by {@link #close()}.
+	 */
+	public StripedInstacount(final Instacount delegate, final long flushInterval, final TimeUnit flushIntervalUnit,
+			final boolean asyncFlush, final ScheduledExecutorService scheduledExecutorService)
+	{
+		this(delegate, flushInterval, flushIntervalUnit, asyncFlush, scheduledExecutorService, false);
+	}
+
+	private StripedInstacount(final Instacount delegate, final long flushInterval,
+			final TimeUnit flushIntervalUnit, final boolean asyncFlush,
+			final ScheduledExecutorService scheduledExecutorService, final boolean ownsExecutorService)
+	{
+		super(delegate);
+		Preconditions.checkArgument(flushInterval > 0, "flushInterval must be positive!");
+		Preconditions.checkNotNull(flushIntervalUnit);
+
+		this.pendingDeltas = new ConcurrentHashMap<>();
+		this.numStripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+		this.asyncFlush = asyncFlush;
+		this.scheduledExecutorService = Preconditions.checkNotNull(scheduledExecutorService);
+		this.ownsExecutorService = ownsExecutorService;
+		this.updateAcceptedResponses(emptyQuota());
+
+		this.scheduledExecutorService.scheduleWithFixedDelay(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				flush();
+			}
+		}, flushInterval, flushInterval, flushIntervalUnit);
+	}
+
+	@Override
+	public IncrementShardedCounterResponse incrementShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		if (this.accept(counterName, 1L))
+		{
+			return acceptedIncrementResponse;
+		}
+		return this.delegate.incrementShardedCounter(counterName);
+	}
+
+	@Override
+	public DecrementShardedCounterResponse decrementShardedCounter(final String counterName)
+			throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		if (this.accept(counterName, -1L))
+		{
+			return acceptedDecrementResponse;
+		}
+		return this.delegate.decrementShardedCounter(counterName);
+	}
+
+	@Override
+	public IncrementShardedCounterResponse incrementShardedCounter(final String counterName,
+			final IncrementShardedCounterInput incrementCounterInput) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		Preconditions.checkNotNull(incrementCounterInput);
+
+		if (incrementCounterInput.getAsync() && incrementCounterInput.hasLongAmount()
+			&& this.accept(counterName, incrementCounterInput.getAmountAsLong()))
+		{
+			return acceptedIncrementResponse;
+		}
+		else
+		{
+			return this.delegate.incrementShardedCounter(counterName, incrementCounterInput);
+		}
+	}
+
+	@Override
+	public DecrementShardedCounterResponse decrementShardedCounter(final String counterName,
+			final DecrementShardedCounterInput decrementCounterInput) throws InstacountClientException
+	{
+		this.validateCounterName(counterName);
+		Preconditions.checkNotNull(decrementCounterInput);
+
+		if (decrementCounterInput.getAsync() && decrementCounterInput.hasLongAmount()
+			&& this.accept(counterName, -decrementCounterInput.getAmountAsLong()))
+		{
+			return acceptedDecrementResponse;
+		}
+		else
+		{
+			return this.delegate.decrementShardedCounter(counterName, decrementCounterInput);
+		}
+	}
+
+	/**
+	 * Sum the cells of every counter, and send each non-zero sum to the Instacount API as a single increment (or
+	 * decrement). Sums that fail to send are added back, and will be retried on the next flush.
+	 */
+	public synchronized void flush()
+	{
+		for (final Map.Entry<String, StripedLong> entry : pendingDeltas.entrySet())
+		{
+			final long delta = entry.getValue().sumThenReset();
+			if (delta == 0L)
+			{
+				continue;
+			}
+
+			try
+			{
+				final InstacountResponse response;
+				if (delta > 0L)
+				{
+					response = this.delegate.incrementShardedCounter(entry.getKey(),
+						new IncrementShardedCounterInput(BigInteger.valueOf(delta), asyncFlush));
+				}
+				else
+				{
+					response = this.delegate.decrementShardedCounter(entry.getKey(),
+						new DecrementShardedCounterInput(BigInteger.valueOf(delta).negate(), asyncFlush));
+				}
+				if (response.getQuota() != null && !response.getQuota().equals(acceptedIncrementResponse.getQuota()))
+				{
+					this.updateAcceptedResponses(response.getQuota());
+				}
+			}
+			catch (RuntimeException e)
+			{
+				// Put the delta back so that it is not lost...
+				entry.getValue().add(delta);
+				logger.log(Level.WARNING,
+					String.format("Unable to flush delta of %s for counter \"%s\"", delta, entry.getKey()), e);
+			}
+		}
+	}
+
+	/**
+	 * Flush all pending deltas, and stop the flush schedule if the underlying executor is owned by this instance. Every
+	 * later call is forwarded to the delegate.
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		if (ownsExecutorService)
+		{
+			scheduledExecutorService.shutdown();
+		}
+		this.flush();
+	}
+
+	/**
+	 * Return the delta that is currently pending for {@code counterName}.
+	 *
+	 * @param counterName
+	 * @return
+	 */
+	public long getPendingDelta(final String counterName)
+	{
+		final StripedLong stripedLong = pendingDeltas.get(counterName);
+		return stripedLong == null ? 0L : stripedLong.sum();
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to add {@code delta} to the cells of {@code counterName}, unless this instance is closed.
+	 *
+	 * @param counterName
+	 * @param delta
+	 * @return {@code true} if the delta was accepted, or {@code false} if the call should be forwarded to the delegate.
+	 */
+	private boolean accept(final String counterName, final long delta)
+	{
+		if (closed)
+		{
+			return false;
+		}
+
+		this.stripesFor(counterName).add(delta);
+		if (closed)
+		{
+			// Closed while adding, so the final flush may have missed this delta...
+			this.flush();
+		}
+		return true;
+	}
+
+	/**
+	 * Helper to find the cells of {@code counterName}, creating them on first use.
+	 *
+	 * @param counterName
+	 * @return
+	 */
+	private StripedLong stripesFor(final String counterName)
+	{
+		final StripedLong stripedLong = pendingDeltas.get(counterName);
+		if (stripedLong != null)
+		{
+			return stripedLong;
+		}
+
+		final StripedLong newStripedLong = new StripedLong(numStripes);
+		final StripedLong existingStripedLong = pendingDeltas.putIfAbsent(counterName, newStripedLong);
+		return existingStripedLong == null ? newStripedLong : existingStripedLong;
+	}
+
+	/**
+	 * Helper to replace the shared responses to accepted calls with ones that carry {@code quota}.
+	 *
+	 * @param quota
+	 */
+	private void updateAcceptedResponses(final Quota quota)
+	{
+		this.acceptedIncrementResponse = this.acceptedIncrementResponse(quota);
+		this.acceptedDecrementResponse = this.acceptedDecrementResponse(quota);
+	}
+
+	/**
+	 * A {@code long} spread over several cells, in the manner of Java 8's {@code LongAdder}. Each cell is padded to a
+	 * cache line of its own, so that threads adding to different cells never invalidate each other's caches.
+	 */
+	private static final class StripedLong
+	{
+		// The number of longs in a 64 byte cache line.
+		private static final int PADDING = 8;
+
+		// The cell of each thread, as a mutable hash that changes when the thread sees contention.
+		private static final ThreadLocal<int[]> probes = new ThreadLocal<int[]>()
+		{
+			@Override
+			protected int[] initialValue()
+			{
+				// Spread sequential thread ids over the cells.
+				return new int[] { (int) (Thread.currentThread().getId() * 0x9E3779B9L) | 1 };
+			}
+		};
+
+		private final AtomicLongArray cells;
+		private final int mask;
+
+		/**
+		 * Required-args Constructor.
+		 *
+		 * @param numStripes The number of cells, which must be a power of two.
+		 */
+		private StripedLong(final int numStripes)
+		{
+			// One extra line, so that the first cell is not on the same cache line as the array header.
+			this.cells = new AtomicLongArray((numStripes + 1) * PADDING);
+			this.mask = numStripes - 1;
+		}
+
+		/**
+		 * Add {@code delta} to the cell of the current thread, moving the thread to another cell if this one is
+		 * contended.
+		 *
+		 * @param delta
+		 */
+		private void add(final long delta)
+		{
+			final int[] probe = probes.get();
+			final int index = ((probe[0] & mask) + 1) * PADDING;
+			final long value = cells.get(index);
+			if (!cells.compareAndSet(index, value, value + delta))
+			{
+				// Xorshift to a different cell for the next add, and complete this one regardless.
+				int hash = probe[0];
+				hash ^= hash << 13;
+				hash ^= hash >>> 17;
+				hash ^= hash << 5;
+				probe[0] = hash;
+				cells.getAndAdd(index, delta);
+			}
+		}
+
+		/**
+		 * Return the sum of every cell.
+		 *
+		 * @return
+		 */
+		private long sum()
+		{
+			long sum = 0L;
+			for (int i = 1; i <= mask + 1; i++)
+			{
+				sum += cells.get(i * PADDING);
+			}
+			return sum;
+		}
+
+		/**
+		 * Atomically take the value of every cell, leaving it at zero, and return their sum. No concurrent add is
+		 * lost: it is either included in the sum, or left in its cell for the next call.
+		 *
+		 * @return
+		 */
+		private long sumThenReset()
+		{
+			long sum = 0L;
+			for (int i = 1; i <= mask + 1; i++)
+			{
+				sum += cells.getAndSet(i * PADDING, 0L);
+			}
+			return sum;
+		}
+	}
+}
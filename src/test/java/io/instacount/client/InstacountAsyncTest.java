@@ -0,0 +1,261 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.http.AsyncClient;
+import io.instacount.client.http.InMemoryInstacountClient;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.inputs.CreateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCountersResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+
+/**
+ * Unit tests for {@link InstacountAsync}, using an {@link AsyncClient} whose responses are completed by each test.
+ */
+public class InstacountAsyncTest
+{
+	private SettableFuture<Response> responseFuture;
+	private Request lastRequest;
+	private InstacountAsync client;
+
+	@Before
+	public void before()
+	{
+		responseFuture = SettableFuture.create();
+		client = build(new AsyncClient()
+		{
+			@Override
+			public ListenableFuture<Response> execute(final Request request, final Options options)
+			{
+				lastRequest = request;
+				return responseFuture;
+			}
+		});
+	}
+
+	@Test
+	public void testIncrementIsSentWithoutBlocking() throws Exception
+	{
+		final ListenableFuture<IncrementShardedCounterResponse> future = client.incrementShardedCounter("foo");
+
+		assertThat(future.isDone(), is(false));
+		assertThat(lastRequest.method(), is("POST"));
+		assertThat(lastRequest.url(), is(Constants.Links.API_URL + "/sharded_counters/foo/increments"));
+		assertThat(lastRequest.headers().get(Constants.Auth.X_INSTACOUNT_API_KEY).iterator().next(), is("write-key"));
+
+		responseFuture.set(Response.create(202, "Accepted", ImmutableMap.<String, Collection<String>> of(
+			Quota.X_RATELIMIT_MUTATE_COUNTERS_LIMIT, Collections.singletonList("100")), (byte[]) null));
+
+		assertThat(future.isDone(), is(true));
+		assertThat(future.get().getHttpResponseCode(), is(202));
+		assertThat(future.get().getQuota().getNumMutationRequestsLimit(), is(100L));
+	}
+
+	@Test
+	public void testErrorResponseFailsFuture() throws Exception
+	{
+		final ListenableFuture<IncrementShardedCounterResponse> future = client.incrementShardedCounter("foo");
+		responseFuture.set(Response.create(404, "Not Found", Collections.<String, Collection<String>> emptyMap(),
+			(byte[]) null));
+
+		try
+		{
+			future.get();
+		}
+		catch (ExecutionException e)
+		{
+			assertThat(e.getCause(), instanceOf(InstacountClientException.class));
+			assertThat(((InstacountClientException) e.getCause()).getErrors().getHttpResponseCode(), is(404));
+			return;
+		}
+		throw new AssertionError("Expected an ExecutionException");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIncrement_EmptyCounterName()
+	{
+		client.incrementShardedCounter("");
+	}
+
+	@Test
+	public void testGetShardedCountersReportsEachCounter() throws Exception
+	{
+		final InMemoryInstacountClient inMemoryClient = new InMemoryInstacountClient();
+		final InstacountAsync inMemoryAsync = build(inMemoryClient.asAsyncClient());
+		inMemoryAsync.createShardedCounter(new CreateShardedCounterInput("foo")).get();
+		inMemoryAsync.createShardedCounter(new CreateShardedCounterInput("bar")).get();
+		inMemoryAsync.incrementShardedCounter("foo").get();
+
+		final GetShardedCountersResponse response = inMemoryAsync.getShardedCounters(
+			ImmutableList.of("foo", "bar", "baz", "foo")).get();
+
+		assertThat(response.getResponses().keySet(), is((Set<String>) ImmutableSet.of("foo", "bar")));
+		assertThat(response.getResponses().get("foo").getShardedCounter().getCount(), is(BigInteger.ONE));
+		assertThat(response.getResponses().get("bar").getShardedCounter().getCount(), is(BigInteger.ZERO));
+		assertThat(response.getFailures().keySet(), is((Set<String>) ImmutableSet.of("baz")));
+		assertThat(((InstacountClientException) response.getFailures().get("baz")).getErrors().getHttpResponseCode(),
+			is(404));
+		// Duplicate names are only requested once.
+		assertThat(inMemoryClient.getRequestCount(), is(6L));
+	}
+
+	@Test
+	public void testGetShardedCountersStopsSendingOnceQuotaIsExhausted() throws Exception
+	{
+		final InMemoryInstacountClient inMemoryClient = new InMemoryInstacountClient(2L, 100L);
+		final InstacountAsync inMemoryAsync = build(inMemoryClient.asAsyncClient());
+		for (final String counterName : ImmutableList.of("a", "b", "c", "d"))
+		{
+			inMemoryAsync.createShardedCounter(new CreateShardedCounterInput(counterName)).get();
+		}
+
+		final GetShardedCountersResponse response = inMemoryAsync.getShardedCounters(
+			ImmutableList.of("a", "b", "c", "d")).get();
+
+		assertThat(response.getResponses().size(), is(2));
+		assertThat(response.getFailures().size(), is(2));
+		for (final Throwable failure : response.getFailures().values())
+		{
+			assertThat(((InstacountClientException) failure).getErrors().getHttpResponseCode(), is(429));
+		}
+		// Four creates and two reads; the other two reads were never sent.
+		assertThat(inMemoryClient.getRequestCount(), is(6L));
+	}
+
+	@Test
+	public void testGetShardedCountersFailsManyCountersOnceQuotaIsExhausted() throws Exception
+	{
+		final InMemoryInstacountClient inMemoryClient = new InMemoryInstacountClient(2L, 100L);
+		final InstacountAsync inMemoryAsync = build(inMemoryClient.asAsyncClient());
+		final List<String> counterNames = Lists.newArrayList();
+		for (int i = 0; i < 10000; i++)
+		{
+			counterNames.add("counter-" + i);
+		}
+
+		// The in-memory client completes every request on the calling thread, and unsent counters fail immediately,
+		// so this would overflow the stack if each completion sent the next request recursively.
+		final GetShardedCountersResponse response = inMemoryAsync.getShardedCounters(counterNames).get(10,
+			TimeUnit.SECONDS);
+
+		assertThat(response.getFailures().size(), is(10000));
+		assertThat(inMemoryClient.getRequestCount() <= 3L, is(true));
+	}
+
+	@Test
+	public void testCancelledGetShardedCountersStopsSending()
+	{
+		final List<SettableFuture<Response>> responseFutures = Lists.newArrayList();
+		final InstacountAsync recordingAsync = build(new AsyncClient()
+		{
+			@Override
+			public ListenableFuture<Response> execute(final Request request, final Options options)
+			{
+				final SettableFuture<Response> future = SettableFuture.create();
+				responseFutures.add(future);
+				return future;
+			}
+		});
+		final List<String> counterNames = Lists.newArrayList();
+		for (int i = 0; i < 500; i++)
+		{
+			counterNames.add("counter-" + i);
+		}
+
+		final ListenableFuture<GetShardedCountersResponse> future = recordingAsync.getShardedCounters(counterNames);
+		final int numSent = responseFutures.size();
+		assertThat(numSent < 500, is(true));
+
+		assertThat(future.cancel(false), is(true));
+
+		// Every request in flight was cancelled, and their completions did not send any more.
+		for (final SettableFuture<Response> responseFuture : responseFutures)
+		{
+			assertThat(responseFuture.isCancelled(), is(true));
+		}
+		assertThat(responseFutures.size(), is(numSent));
+	}
+
+	@Test
+	public void testGetShardedCountersWithNoCounters() throws Exception
+	{
+		final GetShardedCountersResponse response = client.getShardedCounters(ImmutableList.<String> of()).get();
+
+		assertThat(response.getResponses().isEmpty(), is(true));
+		assertThat(response.getFailures().isEmpty(), is(true));
+		assertThat(lastRequest == null, is(true));
+	}
+
+	/**
+	 * Helper to build an instance of {@link InstacountAsync} that sends every request to {@code asyncClient}.
+	 *
+	 * @param asyncClient
+	 * @return
+	 */
+	private static InstacountAsync build(final AsyncClient asyncClient)
+	{
+		return InstacountAsync.Builder.build(new AbstractInstacountClientParams(false)
+		{
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "app";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "read-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return "write-key";
+			}
+
+			@Override
+			public AsyncClient getAsyncClient()
+			{
+				return asyncClient;
+			}
+		});
+	}
+}
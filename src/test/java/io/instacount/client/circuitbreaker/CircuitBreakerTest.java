@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.circuitbreaker;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+import io.instacount.client.circuitbreaker.CircuitBreaker.State;
+
+/**
+ * Unit tests for {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTest
+{
+	private ManualTicker ticker;
+	private CircuitBreaker circuitBreaker;
+
+	@Before
+	public void before()
+	{
+		ticker = new ManualTicker();
+		// A window of 4 calls, opening at 50% failures or 100% slow calls (over 1 second), open for 10 seconds.
+		circuitBreaker = new CircuitBreaker("test", 4, 0.5, 1000, 1.0, 10000, 2, ticker);
+	}
+
+	@Test
+	public void testOpensWhenFailureRateIsReached()
+	{
+		this.succeed(3);
+		this.fail(1);
+		assertThat(circuitBreaker.getState(), is(State.CLOSED));
+
+		// The oldest success drops out of the window, leaving 2 failures out of 4.
+		this.fail(1);
+		assertThat(circuitBreaker.getState(), is(State.OPEN));
+		assertThat(circuitBreaker.tryAcquirePermission(), is(false));
+		assertThat(circuitBreaker.getNumRejectedCalls(), is(1L));
+	}
+
+	@Test
+	public void testStaysClosedUntilWindowIsFull()
+	{
+		this.fail(3);
+		assertThat(circuitBreaker.getState(), is(State.CLOSED));
+	}
+
+	@Test
+	public void testOpensWhenSlowCallRateIsReached()
+	{
+		for (int i = 0; i < 4; i++)
+		{
+			circuitBreaker.tryAcquirePermission();
+			circuitBreaker.onSuccess(TimeUnit.SECONDS.toNanos(2));
+		}
+		assertThat(circuitBreaker.getState(), is(State.OPEN));
+	}
+
+	@Test
+	public void testClosesAfterSuccessfulProbes()
+	{
+		this.fail(4);
+		ticker.advance(10, TimeUnit.SECONDS);
+
+		assertThat(circuitBreaker.tryAcquirePermission(), is(true));
+		assertThat(circuitBreaker.getState(), is(State.HALF_OPEN));
+		assertThat(circuitBreaker.tryAcquirePermission(), is(true));
+		// Only two probes are permitted at once.
+		assertThat(circuitBreaker.tryAcquirePermission(), is(false));
+
+		circuitBreaker.onSuccess(0);
+		circuitBreaker.onSuccess(0);
+		assertThat(circuitBreaker.getState(), is(State.CLOSED));
+	}
+
+	@Test
+	public void testReopensAfterFailedProbe()
+	{
+		this.fail(4);
+		ticker.advance(10, TimeUnit.SECONDS);
+
+		assertThat(circuitBreaker.tryAcquirePermission(), is(true));
+		circuitBreaker.onFailure();
+		assertThat(circuitBreaker.getState(), is(State.OPEN));
+
+		ticker.advance(5, TimeUnit.SECONDS);
+		assertThat(circuitBreaker.tryAcquirePermission(), is(false));
+	}
+
+	/**
+	 * Helper to record {@code count} fast, successful calls.
+	 *
+	 * @param count
+	 */
+	private void succeed(final int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			assertThat(circuitBreaker.tryAcquirePermission(), is(true));
+			circuitBreaker.onSuccess(0);
+		}
+	}
+
+	/**
+	 * Helper to record {@code count} failed calls.
+	 *
+	 * @param count
+	 */
+	private void fail(final int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			assertThat(circuitBreaker.tryAcquirePermission(), is(true));
+			circuitBreaker.onFailure();
+		}
+	}
+
+	/**
+	 * An implementation of {@link Ticker} that only moves when told to.
+	 */
+	private static class ManualTicker extends Ticker
+	{
+		private long nanos;
+
+		@Override
+		public long read()
+		{
+			return nanos;
+		}
+
+		private void advance(final long duration, final TimeUnit unit)
+		{
+			nanos += unit.toNanos(duration);
+		}
+	}
+}
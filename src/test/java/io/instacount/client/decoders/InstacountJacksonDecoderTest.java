@@ -0,0 +1,326 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.decoders;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+
+import feign.Response;
+import feign.Util;
+import feign.codec.DecodeException;
+import io.instacount.client.Constants.ApiVersions;
+import io.instacount.client.Instacount.InstacountFeign;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.http.ByteArrayBody;
+import io.instacount.client.jackson.InstacountClientObjectMapper;
+import io.instacount.client.jackson.WireFormat;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.ShardedCounter;
+import io.instacount.client.model.shardedcounters.ShardedCounter.CounterStatus;
+import io.instacount.client.model.shardedcounters.ShardedCounterOperation.CounterOperationType;
+import io.instacount.client.model.shardedcounters.responses.CreateShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.DeleteShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+import io.instacount.client.quota.QuotaListener;
+
+/**
+ * Unit tests for {@link InstacountJacksonDecoder}, {@link ResponseDecoderRegistry} and {@link InstacountErrorDecoder}.
+ */
+public class InstacountJacksonDecoderTest
+{
+	private static final String SHARDED_COUNTER_JSON = "{\"name\":\"foo\",\"numShards\":3,\"status\":\"AVAILABLE\","
+		+ "\"created\":\"2016-01-15T10:20:30.456Z\",\"count\":12345678901234567890}";
+
+	private static final String COUNTER_OPERATION_JSON = "{\"id\":\"abc\",\"shardIndex\":1,\"type\":\"INCREMENT\","
+		+ "\"amount\":1,\"created\":\"2016-01-15T10:20:30.456Z\"}";
+
+	private InstacountJacksonDecoder decoder;
+	private InstacountErrorDecoder errorDecoder;
+
+	@Before
+	public void before()
+	{
+		final ObjectMapper objectMapper = new InstacountClientObjectMapper();
+		decoder = new InstacountJacksonDecoder(objectMapper);
+		errorDecoder = new InstacountErrorDecoder(objectMapper);
+	}
+
+	@Test
+	public void testDecodeGetShardedCounterResponse() throws Exception
+	{
+		final GetShardedCounterResponse response = (GetShardedCounterResponse) decoder.decode(
+			response(200, SHARDED_COUNTER_JSON), GetShardedCounterResponse.class);
+
+		assertThat(response.getShardedCounter().getName(), is("foo"));
+		assertThat(response.getShardedCounter().getCounterStatus(), is(CounterStatus.AVAILABLE));
+		assertThat(response.getShardedCounter().getCount(), is(new BigInteger("12345678901234567890")));
+	}
+
+	@Test
+	public void testDecodeGzipEncodingIgnoresCaseAndWhitespace() throws Exception
+	{
+		final ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipped))
+		{
+			gzipOutputStream.write(SHARDED_COUNTER_JSON.getBytes(StandardCharsets.UTF_8));
+		}
+
+		// Sent as an InputStream, so that only a gzip-decoding parser can read it.
+		final Response response = Response.create(200, "", ImmutableMap.<String, Collection<String>> of(
+			"Content-Encoding", Collections.singletonList(" GZIP ")), new ByteArrayInputStream(gzipped.toByteArray()),
+			gzipped.size());
+		final GetShardedCounterResponse getResponse = (GetShardedCounterResponse) decoder.decode(response,
+			GetShardedCounterResponse.class);
+
+		assertThat(getResponse.getShardedCounter().getName(), is("foo"));
+	}
+
+	@Test
+	public void testDecodeCountThatFitsInLong() throws Exception
+	{
+		final GetShardedCounterResponse response = (GetShardedCounterResponse) decoder.decode(
+			response(200, SHARDED_COUNTER_JSON.replace("12345678901234567890", "-1234567890123")),
+			GetShardedCounterResponse.class);
+
+		assertThat(response.getShardedCounter().hasLongCount(), is(true));
+		assertThat(response.getShardedCounter().getCountAsLong(), is(-1234567890123L));
+		assertThat(response.getShardedCounter().getCount(), is(BigInteger.valueOf(-1234567890123L)));
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void testDecodeCountThatOverflowsLong() throws Exception
+	{
+		final GetShardedCounterResponse response = (GetShardedCounterResponse) decoder.decode(
+			response(200, SHARDED_COUNTER_JSON), GetShardedCounterResponse.class);
+
+		assertThat(response.getShardedCounter().hasLongCount(), is(false));
+		response.getShardedCounter().getCountAsLong();
+	}
+
+	@Test
+	public void testDecodeOperationAmountAsLong() throws Exception
+	{
+		final IncrementShardedCounterResponse response = (IncrementShardedCounterResponse) decoder.decode(
+			response(201, COUNTER_OPERATION_JSON), IncrementShardedCounterResponse.class);
+
+		assertThat(response.getOptCounterOperation().get().getAmountAsLong(), is(1L));
+		assertThat(response.getOptCounterOperation().get().getAmount(), is(BigInteger.ONE));
+	}
+
+	@Test
+	public void testDecodeByteArrayBody() throws Exception
+	{
+		final Response response = Response.create(200, "", Collections.<String, Collection<String>> emptyMap(),
+			new ByteArrayBody(SHARDED_COUNTER_JSON.getBytes(StandardCharsets.UTF_8)));
+
+		final GetShardedCounterResponse getResponse = (GetShardedCounterResponse) decoder.decode(response,
+			GetShardedCounterResponse.class);
+
+		assertThat(getResponse.getShardedCounter().getCount(), is(new BigInteger("12345678901234567890")));
+		// The body can be read again, e.g. for logging.
+		assertThat(response.body().isRepeatable(), is(true));
+		assertThat(Util.toString(response.body().asReader()), is(SHARDED_COUNTER_JSON));
+	}
+
+	@Test
+	public void testDecodeSmileBody() throws Exception
+	{
+		final ObjectMapper smileObjectMapper = new InstacountClientObjectMapper(WireFormat.SMILE);
+		final byte[] smile = smileObjectMapper.writeValueAsBytes(new ObjectMapper().readTree(SHARDED_COUNTER_JSON));
+		final Response response = Response.create(200, "", ImmutableMap.<String, Collection<String>> of(
+			"Content-Type", Collections.singletonList(ApiVersions.API_VERSION_1_SMILE)), new ByteArrayBody(smile));
+
+		final GetShardedCounterResponse getResponse = (GetShardedCounterResponse) decoder.decode(response,
+			GetShardedCounterResponse.class);
+
+		assertThat(getResponse.getShardedCounter().getName(), is("foo"));
+		assertThat(getResponse.getShardedCounter().getCount(), is(new BigInteger("12345678901234567890")));
+	}
+
+	@Test
+	public void testDecodeLowercaseHeaders() throws Exception
+	{
+		// Some transports, such as HTTP/2, lowercase every header name.
+		final Response response = Response.create(201, "", ImmutableMap.<String, Collection<String>> builder()
+			.put("location", Collections.singletonList("https://api.instacount.io/sharded_counters/foo"))
+			.put("x-ratelimit-access-counters-limit", Collections.singletonList("1000"))
+			.put("x-ratelimit-access-counters-remaining", Collections.singletonList("999"))
+			.put("x-ratelimit-mutate-counters-limit", Collections.singletonList("500"))
+			.put("x-ratelimit-mutate-counters-remaining", Collections.singletonList("499")).build(), (byte[]) null);
+
+		final CreateShardedCounterResponse createResponse = (CreateShardedCounterResponse) decoder.decode(response,
+			CreateShardedCounterResponse.class);
+
+		assertThat(createResponse.getOptCounterInfo().get().getCounterName(), is("foo"));
+		assertThat(createResponse.getQuota(), is(new Quota(1000L, 999L, 500L, 499L)));
+	}
+
+	@Test
+	public void testDecodeCreatedIncrementResponse() throws Exception
+	{
+		final IncrementShardedCounterResponse response = (IncrementShardedCounterResponse) decoder.decode(
+			response(201, COUNTER_OPERATION_JSON), IncrementShardedCounterResponse.class);
+
+		assertThat(response.getOptCounterOperation().get().getCounterOperationType(),
+			is(CounterOperationType.INCREMENT));
+	}
+
+	@Test
+	public void testDecodeAcceptedIncrementResponse() throws Exception
+	{
+		final IncrementShardedCounterResponse response = (IncrementShardedCounterResponse) decoder.decode(
+			response(202, null), IncrementShardedCounterResponse.class);
+
+		assertThat(response.getOptCounterOperation().isPresent(), is(false));
+	}
+
+	@Test
+	public void testDecodeCompactGetShardedCounterResponse() throws Exception
+	{
+		final InstacountJacksonDecoder compactDecoder = new InstacountJacksonDecoder(new InstacountClientObjectMapper(),
+			new QuotaListener.NoOp(), ResponseDecoderRegistry.compact());
+
+		final GetShardedCounterResponse response = (GetShardedCounterResponse) compactDecoder.decode(
+			response(200, SHARDED_COUNTER_JSON), GetShardedCounterResponse.class);
+
+		assertThat(response.getResponse() == null, is(true));
+		assertThat(response.getHttpResponseCode(), is(200));
+		assertThat(response.getShardedCounter().getCount(), is(new BigInteger("12345678901234567890")));
+		// The raw response never takes part in equality.
+		assertThat(response, is(decoder.decode(response(200, SHARDED_COUNTER_JSON), GetShardedCounterResponse.class)));
+	}
+
+	@Test
+	public void testCompactCoversInstacountFeign()
+	{
+		ResponseDecoderRegistry.compact().validate(InstacountFeign.class);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testDecodeWhitespaceBody() throws Exception
+	{
+		decoder.decode(response(200, "  \n"), GetShardedCounterResponse.class);
+	}
+
+	@Test
+	public void testDecodeErrors()
+	{
+		final InstacountClientException exception = (InstacountClientException) errorDecoder.decode("key",
+			response(404, "{\"errors\":[{\"message\":\"m\",\"developerMessage\":\"d\",\"moreInfo\":\"i\"}]}"));
+
+		assertThat(exception.getErrors().getHttpResponseCode(), is(404));
+		assertThat(exception.getErrors().getErrors().get(0).getDeveloperMessage(), is("d"));
+	}
+
+	@Test
+	public void testDecodeEmptyErrors()
+	{
+		final InstacountClientException exception = (InstacountClientException) errorDecoder.decode("key",
+			response(500, ""));
+
+		assertThat(exception.getErrors().getHttpResponseCode(), is(500));
+		assertThat(exception.getErrors().getErrors().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testDecodeDeleteShardedCounterResponse() throws Exception
+	{
+		final DeleteShardedCounterResponse response = (DeleteShardedCounterResponse) decoder.decode(
+			response(204, null), DeleteShardedCounterResponse.class);
+
+		assertThat(response.getHttpResponseCode(), is(204));
+	}
+
+	@Test
+	public void testDecodeWithRegisteredResponseDecoder() throws Exception
+	{
+		final InstacountJacksonDecoder customDecoder = new InstacountJacksonDecoder(new InstacountClientObjectMapper(),
+			new QuotaListener.NoOp(), ResponseDecoderRegistry.defaults().withResponseDecoder(BigInteger.class,
+				new ResponseDecoder<BigInteger>()
+				{
+					@Override
+					public BigInteger decode(final Response response, final Context context) throws IOException
+					{
+						return context.readBody(response, ShardedCounter.class).get().getCount();
+					}
+				}));
+
+		assertThat(customDecoder.decoderFor(BigInteger.class).decode(response(200, SHARDED_COUNTER_JSON), null),
+			is((Object) new BigInteger("12345678901234567890")));
+	}
+
+	@Test(expected = DecodeException.class)
+	public void testDecodeUnregisteredType() throws Exception
+	{
+		decoder.decode(response(200, SHARDED_COUNTER_JSON), BigInteger.class);
+	}
+
+	@Test
+	public void testDefaultsCoverInstacountFeign()
+	{
+		ResponseDecoderRegistry.defaults().validate(InstacountFeign.class);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testValidateReportsMissingDecoders()
+	{
+		ResponseDecoderRegistry.empty().validate(InstacountFeign.class);
+	}
+
+	@Test
+	public void testDecodeWithDecoderBoundToInstacountFeign() throws Exception
+	{
+		final InstacountJacksonDecoder boundDecoder = new InstacountJacksonDecoder(new InstacountClientObjectMapper(),
+			new QuotaListener.NoOp(), ResponseDecoderRegistry.defaults(), InstacountFeign.class);
+
+		final GetShardedCounterResponse response = (GetShardedCounterResponse) boundDecoder.decode(
+			response(200, SHARDED_COUNTER_JSON), GetShardedCounterResponse.class);
+		assertThat(response.getShardedCounter().getName(), is("foo"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBindingToInstacountFeignReportsMissingDecoders()
+	{
+		new InstacountJacksonDecoder(new InstacountClientObjectMapper(), new QuotaListener.NoOp(),
+			ResponseDecoderRegistry.empty(), InstacountFeign.class);
+	}
+
+	/**
+	 * Helper to construct a {@link Response} with {@code json} as its body.
+	 *
+	 * @param status
+	 * @param json
+	 * @return
+	 */
+	private static Response response(final int status, final String json)
+	{
+		return Response.create(status, "", Collections.<String, Collection<String>> emptyMap(),
+			json == null ? null : json.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.encoders;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import feign.RequestTemplate;
+import io.instacount.client.jackson.InstacountClientObjectMapper;
+import io.instacount.client.jackson.WireFormat;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.UpdateShardedCounterInput;
+
+/**
+ * Unit tests for {@link InstacountJacksonEncoder}.
+ */
+public class InstacountJacksonEncoderTest
+{
+	private InstacountJacksonEncoder encoder;
+
+	@Before
+	public void before()
+	{
+		encoder = new InstacountJacksonEncoder(new InstacountClientObjectMapper());
+	}
+
+	@Test
+	public void testRecurringIncrementBodyIsReused()
+	{
+		final byte[] first = this.encode(encoder, new IncrementShardedCounterInput(BigInteger.ONE, true));
+		final byte[] second = this.encode(encoder, new IncrementShardedCounterInput(BigInteger.ONE, true));
+
+		assertThat(new String(first, StandardCharsets.UTF_8), is("{\"amount\":1,\"async\":true}"));
+		assertThat(second, is(sameInstance(first)));
+		assertThat(encoder.getCachedBodyCount(), is(1));
+	}
+
+	@Test
+	public void testLongAndBigIntegerAmountsAreEqual()
+	{
+		final IncrementShardedCounterInput input = new IncrementShardedCounterInput(1L, true);
+		final byte[] body = this.encode(encoder, input);
+
+		assertThat(input, is(new IncrementShardedCounterInput(BigInteger.ONE, true)));
+		assertThat(this.encode(encoder, new IncrementShardedCounterInput(BigInteger.ONE, true)),
+			is(sameInstance(body)));
+	}
+
+	@Test
+	public void testCachedBodiesAreKeyedByInput()
+	{
+		final byte[] increment = this.encode(encoder, new IncrementShardedCounterInput(BigInteger.ONE, true));
+		final byte[] syncIncrement = this.encode(encoder, new IncrementShardedCounterInput(BigInteger.ONE, false));
+		final byte[] decrement = this.encode(encoder, new DecrementShardedCounterInput(BigInteger.ONE, true));
+
+		assertThat(new String(syncIncrement, StandardCharsets.UTF_8), is("{\"amount\":1,\"async\":false}"));
+		assertThat(syncIncrement, is(not(sameInstance(increment))));
+		assertThat(decrement, is(not(sameInstance(increment))));
+		assertThat(encoder.getCachedBodyCount(), is(3));
+	}
+
+	@Test
+	public void testLargeAmountsAreNotCached()
+	{
+		final BigInteger amount = BigInteger.valueOf(InstacountJacksonEncoder.DEFAULT_MAX_CACHED_AMOUNT + 1);
+		final byte[] body = this.encode(encoder, new IncrementShardedCounterInput(amount, true));
+
+		assertThat(new String(body, StandardCharsets.UTF_8), is("{\"amount\":1025,\"async\":true}"));
+		assertThat(encoder.getCachedBodyCount(), is(0));
+	}
+
+	@Test
+	public void testUncachedAmountsAreWrittenFromField()
+	{
+		final ObjectMapper objectMapper = new InstacountClientObjectMapper();
+		for (final Class<?> inputType : new Class<?>[] { IncrementShardedCounterInput.class,
+				DecrementShardedCounterInput.class })
+		{
+			// The amount is written from its Number field, rather than from the getter that creates a BigInteger.
+			for (final BeanPropertyDefinition property : objectMapper.getSerializationConfig()
+				.introspect(objectMapper.constructType(inputType)).findProperties())
+			{
+				if ("amount".equals(property.getName()))
+				{
+					assertThat(property.getAccessor() instanceof AnnotatedField, is(true));
+				}
+			}
+		}
+
+		final byte[] syncIncrement = this.encode(encoder, new IncrementShardedCounterInput(5000L, false));
+		final byte[] largeDecrement = this.encode(encoder, new DecrementShardedCounterInput(new BigInteger(
+			"12345678901234567890"), true));
+
+		assertThat(new String(syncIncrement, StandardCharsets.UTF_8), is("{\"amount\":5000,\"async\":false}"));
+		assertThat(new String(largeDecrement, StandardCharsets.UTF_8),
+			is("{\"amount\":12345678901234567890,\"async\":true}"));
+		assertThat(encoder.getCachedBodyCount(), is(0));
+	}
+
+	@Test
+	public void testOtherInputsAreNotCached()
+	{
+		this.encode(encoder, new UpdateShardedCounterInput("foo", "A counter."));
+
+		assertThat(encoder.getCachedBodyCount(), is(0));
+	}
+
+	@Test
+	public void testCachingCanBeDisabled()
+	{
+		final InstacountJacksonEncoder uncachedEncoder = new InstacountJacksonEncoder(
+			new InstacountClientObjectMapper(), -1);
+		this.encode(uncachedEncoder, new IncrementShardedCounterInput(BigInteger.ONE, true));
+
+		assertThat(uncachedEncoder.getCachedBodyCount(), is(0));
+	}
+
+	@Test
+	public void testSmileBodyIsCached() throws Exception
+	{
+		final ObjectMapper smileObjectMapper = new InstacountClientObjectMapper(WireFormat.SMILE);
+		final InstacountJacksonEncoder smileEncoder = new InstacountJacksonEncoder(smileObjectMapper);
+
+		final IncrementShardedCounterInput input = new IncrementShardedCounterInput(BigInteger.TEN, false);
+		final byte[] body = this.encode(smileEncoder, input);
+
+		assertThat(smileObjectMapper.readTree(body).toString(), is("{\"amount\":10,\"async\":false}"));
+		assertThat(this.encode(smileEncoder, input), is(sameInstance(body)));
+	}
+
+	/**
+	 * Helper to encode {@code object} into a new {@link RequestTemplate}, and return its body.
+	 *
+	 * @param encoder
+	 * @param object
+	 * @return
+	 */
+	private byte[] encode(final InstacountJacksonEncoder encoder, final Object object)
+	{
+		final RequestTemplate template = new RequestTemplate();
+		encoder.encode(object, object.getClass(), template);
+		return template.body();
+	}
+}
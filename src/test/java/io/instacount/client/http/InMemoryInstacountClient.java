@@ -0,0 +1,734 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.BigIntegerNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import feign.Util;
+import io.instacount.client.Constants;
+import io.instacount.client.model.headers.Quota;
+
+/**
+ * An in-memory stand-in for the Instacount API, for running the client offline in tests and benchmarks.
+ * <p>
+ * This class implements every route of {@link io.instacount.client.Instacount.InstacountFeign} (create, get, update and
+ * delete counters, increments, decrements, and counter operations) against counters held in memory. Responses carry
+ * {@code Location} and {@code X-Ratelimit-*} headers like the real API, and requests fail with HTTP 429 once the
+ * access or mutation quota is exhausted. A fixed latency and a random error rate can be injected to exercise
+ * timeouts, retries and throttling. Gzipped request bodies are accepted, and responses are gzipped for requests that
+ * send {@code Accept-Encoding: gzip}. Smile request bodies are accepted too, and responses are answered in Smile for
+ * requests that prefer it.
+ * <p>
+ * Requests are executed on the calling thread, including those made through {@link #asAsyncClient()}.
+ */
+public class InMemoryInstacountClient implements Client
+{
+	private static final String SHARDED_COUNTERS = "sharded_counters";
+	private static final String MORE_INFO = "https://instacount.readme.io";
+	private static final String GZIP = "gzip";
+
+	private final ObjectMapper objectMapper;
+	private final ObjectMapper smileObjectMapper;
+	private final ConcurrentMap<String, StoredCounter> counters;
+	private final ConcurrentMap<String, ObjectNode> counterOperations;
+
+	private final long numAccessRequestsLimit;
+	private final long numMutationRequestsLimit;
+	private final AtomicLong numAccessRequestsRemaining;
+	private final AtomicLong numMutationRequestsRemaining;
+	private final AtomicLong requestCount;
+	private final AtomicLong requestBytes;
+	private final AtomicLong responseBytes;
+
+	private volatile long latencyNanos;
+	private volatile double errorRate;
+	private volatile int errorHttpResponseCode;
+
+	/**
+	 * No-args Constructor, with a quota of 1,000,000 access requests and 500,000 mutation requests.
+	 */
+	public InMemoryInstacountClient()
+	{
+		this(1000000L, 500000L);
+	}
+
+	/**
+	 * Required-args Constructor.
+	 *
+	 * @param numAccessRequestsLimit The number of read requests allowed before requests fail with HTTP 429.
+	 * @param numMutationRequestsLimit The number of mutation requests allowed before requests fail with HTTP 429.
+	 */
+	public InMemoryInstacountClient(final long numAccessRequestsLimit, final long numMutationRequestsLimit)
+	{
+		Preconditions.checkArgument(numAccessRequestsLimit >= 0, "numAccessRequestsLimit must not be negative!");
+		Preconditions.checkArgument(numMutationRequestsLimit >= 0, "numMutationRequestsLimit must not be negative!");
+
+		this.objectMapper = new ObjectMapper();
+		this.smileObjectMapper = new ObjectMapper(new SmileFactory());
+		this.counters = new ConcurrentHashMap<>();
+		this.counterOperations = new ConcurrentHashMap<>();
+		this.numAccessRequestsLimit = numAccessRequestsLimit;
+		this.numMutationRequestsLimit = numMutationRequestsLimit;
+		this.numAccessRequestsRemaining = new AtomicLong(numAccessRequestsLimit);
+		this.numMutationRequestsRemaining = new AtomicLong(numMutationRequestsLimit);
+		this.requestCount = new AtomicLong();
+		this.requestBytes = new AtomicLong();
+		this.responseBytes = new AtomicLong();
+		this.errorHttpResponseCode = 503;
+	}
+
+	/**
+	 * Delay every request by {@code latency} before it is answered.
+	 *
+	 * @param latency
+	 * @param latencyUnit
+	 */
+	public void setLatency(final long latency, final TimeUnit latencyUnit)
+	{
+		Preconditions.checkArgument(latency >= 0, "latency must not be negative!");
+		this.latencyNanos = latencyUnit.toNanos(latency);
+	}
+
+	/**
+	 * Fail a random {@code errorRate} fraction of requests with {@code httpResponseCode}, without applying them.
+	 *
+	 * @param errorRate A value between 0.0 (no failures) and 1.0 (every request fails).
+	 * @param httpResponseCode
+	 */
+	public void setErrorRate(final double errorRate, final int httpResponseCode)
+	{
+		Preconditions.checkArgument(errorRate >= 0.0 && errorRate <= 1.0, "errorRate must be between 0 and 1!");
+		Preconditions.checkArgument(httpResponseCode >= 400, "httpResponseCode must be an error code!");
+		this.errorRate = errorRate;
+		this.errorHttpResponseCode = httpResponseCode;
+	}
+
+	/**
+	 * Return the number of requests received so far, including failed ones.
+	 *
+	 * @return
+	 */
+	public long getRequestCount()
+	{
+		return requestCount.get();
+	}
+
+	/**
+	 * Return the current count of {@code counterName}, or {@code null} if it does not exist.
+	 *
+	 * @param counterName
+	 * @return
+	 */
+	public BigInteger getCount(final String counterName)
+	{
+		final StoredCounter storedCounter = counters.get(counterName);
+		return storedCounter == null ? null : storedCounter.getCount();
+	}
+
+	@Override
+	public Response execute(final Request request, final Options options) throws IOException
+	{
+		requestBytes.addAndGet(request.body() == null ? 0 : request.body().length);
+
+		// Like the real API, accept gzipped request bodies, and gzip responses for clients that accept them.
+		final Request decodedRequest;
+		if (hasHeaderValue(request.headers(), "Content-Encoding", GZIP) && request.body() != null)
+		{
+			decodedRequest = Request.create(request.method(), request.url(), request.headers(),
+				ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(request.body()))),
+				request.charset());
+		}
+		else
+		{
+			decodedRequest = request;
+		}
+
+		Response response = this.handle(decodedRequest);
+		if (response.body() != null && mapperFor(firstHeaderValue(request.headers(), "Accept")) == smileObjectMapper)
+		{
+			// The client prefers Smile, so answer in Smile.
+			final byte[] smileBody = smileObjectMapper.writeValueAsBytes(objectMapper.readTree(Util
+				.toByteArray(response.body().asInputStream())));
+			final Map<String, Collection<String>> headers = Maps.newHashMap(response.headers());
+			headers.put("Content-Type", Collections.singletonList(Constants.ApiVersions.API_VERSION_1_SMILE));
+			response = Response.create(response.status(), response.reason(), headers, smileBody);
+		}
+
+		if (response.body() == null || !hasHeaderValue(request.headers(), "Accept-Encoding", GZIP))
+		{
+			responseBytes.addAndGet(response.body() == null ? 0 : response.body().length());
+			return response;
+		}
+
+		final byte[] gzippedBody = gzip(Util.toByteArray(response.body().asInputStream()));
+		responseBytes.addAndGet(gzippedBody.length);
+		final Map<String, Collection<String>> headers = ImmutableMap.<String, Collection<String>> builder()
+			.putAll(response.headers()).put("Content-Encoding", Collections.singletonList(GZIP)).build();
+		return Response.create(response.status(), response.reason(), headers, gzippedBody);
+	}
+
+	/**
+	 * Return the number of request body bytes received so far, as sent by the client (i.e. compressed, if the client
+	 * gzipped them).
+	 *
+	 * @return
+	 */
+	public long getRequestBytes()
+	{
+		return requestBytes.get();
+	}
+
+	/**
+	 * Return the number of response body bytes returned so far, as sent to the client (i.e. compressed, if the client
+	 * accepts gzip).
+	 *
+	 * @return
+	 */
+	public long getResponseBytes()
+	{
+		return responseBytes.get();
+	}
+
+	/**
+	 * Handle {@code request}, whose body is not compressed.
+	 *
+	 * @param request
+	 * @return
+	 */
+	private Response handle(final Request request)
+	{
+		requestCount.incrementAndGet();
+
+		final long latencyNanos = this.latencyNanos;
+		if (latencyNanos > 0)
+		{
+			Uninterruptibles.sleepUninterruptibly(latencyNanos, TimeUnit.NANOSECONDS);
+		}
+
+		final boolean access = "GET".equals(request.method());
+		final AtomicLong numRequestsRemaining = access ? numAccessRequestsRemaining : numMutationRequestsRemaining;
+		if (numRequestsRemaining.decrementAndGet() < 0)
+		{
+			numRequestsRemaining.incrementAndGet();
+			return this.errors(429, "Too many requests.", "The quota for this application has been exhausted!");
+		}
+
+		final double errorRate = this.errorRate;
+		if (errorRate > 0.0 && ThreadLocalRandom.current().nextDouble() < errorRate)
+		{
+			return this.errors(errorHttpResponseCode, "Injected failure.",
+				"This failure was injected by the in-memory Instacount API.");
+		}
+
+		final URI uri = URI.create(request.url());
+		final String baseUrl = uri.getScheme() + "://" + uri.getRawAuthority();
+		final List<String> pathSegments = Splitter.on('/').omitEmptyStrings().splitToList(uri.getPath());
+		if (pathSegments.isEmpty() || !SHARDED_COUNTERS.equals(pathSegments.get(0)))
+		{
+			return this.notFound();
+		}
+
+		final JsonNode body;
+		try
+		{
+			body = request.body() == null || request.body().length == 0 ? objectMapper.createObjectNode()
+				: mapperFor(firstHeaderValue(request.headers(), "Content-Type")).readTree(request.body());
+		}
+		catch (IOException e)
+		{
+			return this.errors(400, "The request was malformed.", e.getMessage());
+		}
+
+		final String method = request.method();
+		if (pathSegments.size() == 1 && "POST".equals(method))
+		{
+			return this.createShardedCounter(baseUrl, body);
+		}
+		else if (pathSegments.size() == 2 && "GET".equals(method))
+		{
+			return this.getShardedCounter(baseUrl, pathSegments.get(1));
+		}
+		else if (pathSegments.size() == 2 && "PUT".equals(method))
+		{
+			return this.updateShardedCounter(baseUrl, pathSegments.get(1), body);
+		}
+		else if (pathSegments.size() == 2 && "DELETE".equals(method))
+		{
+			return this.deleteShardedCounter(pathSegments.get(1));
+		}
+		else if (pathSegments.size() == 3 && "POST".equals(method) && "increments".equals(pathSegments.get(2)))
+		{
+			return this.mutateShardedCounter(baseUrl, pathSegments.get(1), "INCREMENT", body);
+		}
+		else if (pathSegments.size() == 3 && "POST".equals(method) && "decrements".equals(pathSegments.get(2)))
+		{
+			return this.mutateShardedCounter(baseUrl, pathSegments.get(1), "DECREMENT", body);
+		}
+		else if (pathSegments.size() == 6 && "GET".equals(method) && "shards".equals(pathSegments.get(2))
+			&& "operations".equals(pathSegments.get(4)))
+		{
+			final ObjectNode counterOperation = counterOperations.get(operationKey(pathSegments.get(1),
+				pathSegments.get(3), pathSegments.get(5)));
+			return counterOperation == null ? this.notFound() : this.json(200, "OK", counterOperation);
+		}
+		else
+		{
+			return this.notFound();
+		}
+	}
+
+	/**
+	 * Return an {@link AsyncClient} view of this instance, for use with {@link io.instacount.client.InstacountAsync}.
+	 *
+	 * @return
+	 */
+	public AsyncClient asAsyncClient()
+	{
+		return new AsyncClient()
+		{
+			@Override
+			public ListenableFuture<Response> execute(final Request request, final Options options)
+			{
+				try
+				{
+					return Futures.immediateFuture(InMemoryInstacountClient.this.execute(request, options));
+				}
+				catch (IOException e)
+				{
+					return Futures.immediateFailedFuture(e);
+				}
+			}
+		};
+	}
+
+	//////////////////
+	// Private Helpers
+	//////////////////
+
+	/**
+	 * Helper to create the counter described by {@code body}, generating a name if it has none.
+	 *
+	 * @param baseUrl
+	 * @param body
+	 * @return
+	 */
+	private Response createShardedCounter(final String baseUrl, final JsonNode body)
+	{
+		final String counterName = body.hasNonNull("name") ? body.get("name").asText() : UUID.randomUUID()
+			.toString();
+		final StoredCounter storedCounter = new StoredCounter(counterName, body);
+		if (counters.putIfAbsent(counterName, storedCounter) != null)
+		{
+			return this.errors(409, "This counter already exists!",
+				"A sharded counter with the specified name already exists!");
+		}
+
+		return this.response(201, "Created", ImmutableMap.<String, Collection<String>> of("Location",
+			Collections.singletonList(counterUrl(baseUrl, counterName))), null);
+	}
+
+	/**
+	 * Helper to read the counter named {@code counterName}.
+	 *
+	 * @param baseUrl
+	 * @param counterName
+	 * @return
+	 */
+	private Response getShardedCounter(final String baseUrl, final String counterName)
+	{
+		final StoredCounter storedCounter = counters.get(counterName);
+		return storedCounter == null ? this.notFound() : this.json(200, "OK", storedCounter.toJson(baseUrl));
+	}
+
+	/**
+	 * Helper to update the counter named {@code counterName} with the fields present in {@code body}.
+	 *
+	 * @param baseUrl
+	 * @param counterName
+	 * @param body
+	 * @return
+	 */
+	private Response updateShardedCounter(final String baseUrl, final String counterName, final JsonNode body)
+	{
+		final StoredCounter storedCounter = counters.get(counterName);
+		if (storedCounter == null)
+		{
+			return this.notFound();
+		}
+
+		storedCounter.update(body);
+		return this.json(200, "OK", storedCounter.toJson(baseUrl));
+	}
+
+	/**
+	 * Helper to delete the counter named {@code counterName}.
+	 *
+	 * @param counterName
+	 * @return
+	 */
+	private Response deleteShardedCounter(final String counterName)
+	{
+		return counters.remove(counterName) == null ? this.notFound() : this.response(202, "Accepted",
+			Collections.<String, Collection<String>> emptyMap(), null);
+	}
+
+	/**
+	 * Helper to increment or decrement the counter named {@code counterName} by the amount in {@code body}.
+	 *
+	 * @param baseUrl
+	 * @param counterName
+	 * @param type Either "INCREMENT" or "DECREMENT".
+	 * @param body
+	 * @return
+	 */
+	private Response mutateShardedCounter(final String baseUrl, final String counterName, final String type,
+			final JsonNode body)
+	{
+		final BigInteger amount = body.hasNonNull("amount") ? body.get("amount").bigIntegerValue() : BigInteger.ONE;
+		if (amount.signum() <= 0)
+		{
+			return this.errors(400, "The amount must be positive!", "The amount must be a positive integer!");
+		}
+
+		// Like the real API, increments and decrements create the counter if it does not exist yet.
+		StoredCounter storedCounter = counters.get(counterName);
+		if (storedCounter == null)
+		{
+			final StoredCounter newCounter = new StoredCounter(counterName, objectMapper.createObjectNode());
+			storedCounter = counters.putIfAbsent(counterName, newCounter);
+			storedCounter = storedCounter == null ? newCounter : storedCounter;
+		}
+
+		final Optional<Integer> shardIndex = storedCounter.add("INCREMENT".equals(type) ? amount : amount.negate());
+		if (!shardIndex.isPresent())
+		{
+			return this.errors(409, "This counter may not be mutated!",
+				"The sharded counter is not available for increments or decrements!");
+		}
+
+		final String operationId = UUID.randomUUID().toString().replace("-", "");
+		final ObjectNode counterOperation = objectMapper.createObjectNode();
+		final ObjectNode meta = counterOperation.putObject("meta");
+		meta.putObject("@self").put("href", counterUrl(baseUrl, counterName) + "/shards/" + shardIndex.get()
+			+ "/operations/" + operationId);
+		meta.putObject("@counter").put("href", counterUrl(baseUrl, counterName));
+		counterOperation.put("id", operationId);
+		counterOperation.put("shardIndex", shardIndex.get());
+		counterOperation.put("type", type);
+		counterOperation.set("amount", BigIntegerNode.valueOf(amount));
+		counterOperation.put("created", new DateTime(DateTimeZone.UTC).toString());
+
+		if (body.hasNonNull("async") && body.get("async").asBoolean())
+		{
+			// The operation is never returned to the caller, so there is no need to keep it.
+			return this.response(202, "Accepted", Collections.<String, Collection<String>> emptyMap(), null);
+		}
+
+		counterOperations.put(operationKey(counterName, String.valueOf(shardIndex.get()), operationId),
+			counterOperation);
+		return this.json(201, "Created", counterOperation);
+	}
+
+	/**
+	 * Helper to construct an HTTP 404 error response.
+	 *
+	 * @return
+	 */
+	private Response notFound()
+	{
+		return this.errors(404, "What you requested does not exist.", "The requested resource was not found!");
+	}
+
+	/**
+	 * Helper to construct an error response with a single error, shaped like the errors of the real API.
+	 *
+	 * @param status
+	 * @param message
+	 * @param developerMessage
+	 * @return
+	 */
+	private Response errors(final int status, final String message, final String developerMessage)
+	{
+		final ObjectNode errors = objectMapper.createObjectNode();
+		errors.putArray("errors").addObject().put("message", message).put("developerMessage", developerMessage)
+			.put("moreInfo", MORE_INFO);
+		return this.json(status, "Error", errors);
+	}
+
+	/**
+	 * Helper to construct a response with {@code json} as its body.
+	 *
+	 * @param status
+	 * @param reason
+	 * @param json
+	 * @return
+	 */
+	private Response json(final int status, final String reason, final JsonNode json)
+	{
+		try
+		{
+			return this.response(status, reason, Collections.<String, Collection<String>> emptyMap(),
+				objectMapper.writeValueAsBytes(json));
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Helper to construct a response carrying the current quota headers in addition to {@code additionalHeaders}.
+	 *
+	 * @param status
+	 * @param reason
+	 * @param additionalHeaders
+	 * @param body May be {@code null}.
+	 * @return
+	 */
+	private Response response(final int status, final String reason,
+			final Map<String, Collection<String>> additionalHeaders, final byte[] body)
+	{
+		final Map<String, Collection<String>> headers = ImmutableMap.<String, Collection<String>> builder()
+			.putAll(additionalHeaders)
+			.put(Quota.X_RATELIMIT_ACCESS_COUNTERS_LIMIT,
+				Collections.singletonList(String.valueOf(numAccessRequestsLimit)))
+			.put(Quota.X_RATELIMIT_ACCESS_COUNTERS_REMAINING,
+				Collections.singletonList(String.valueOf(numAccessRequestsRemaining.get())))
+			.put(Quota.X_RATELIMIT_MUTATE_COUNTERS_LIMIT,
+				Collections.singletonList(String.valueOf(numMutationRequestsLimit)))
+			.put(Quota.X_RATELIMIT_MUTATE_COUNTERS_REMAINING,
+				Collections.singletonList(String.valueOf(numMutationRequestsRemaining.get())))
+			.put("Content-Type", Collections.singletonList(Constants.ApiVersions.API_VERSION_1)).build();
+		return Response.create(status, reason, headers, body);
+	}
+
+	/**
+	 * Helper to construct the URL of the counter named {@code counterName}.
+	 *
+	 * @param baseUrl
+	 * @param counterName
+	 * @return
+	 */
+	private static String counterUrl(final String baseUrl, final String counterName)
+	{
+		return baseUrl + "/" + SHARDED_COUNTERS + "/" + counterName;
+	}
+
+	/**
+	 * Helper to construct the key under which a counter operation is stored.
+	 *
+	 * @param counterName
+	 * @param shardIndex
+	 * @param operationId
+	 * @return
+	 */
+	private static String operationKey(final String counterName, final String shardIndex, final String operationId)
+	{
+		return counterName + "/" + shardIndex + "/" + operationId;
+	}
+
+	/**
+	 * Helper to choose the {@link ObjectMapper} that reads and writes bodies of {@code contentType}.
+	 *
+	 * @param contentType May be {@code null}.
+	 * @return
+	 */
+	private ObjectMapper mapperFor(final String contentType)
+	{
+		return contentType != null && contentType.startsWith(Constants.ApiVersions.API_VERSION_1_SMILE)
+			? smileObjectMapper : objectMapper;
+	}
+
+	/**
+	 * Helper to return the first value of the header named {@code name}, or {@code null} if there is none.
+	 *
+	 * @param headers
+	 * @param name
+	 * @return
+	 */
+	private static String firstHeaderValue(final Map<String, Collection<String>> headers, final String name)
+	{
+		final Collection<String> values = headers.get(name);
+		return values == null || values.isEmpty() ? null : values.iterator().next();
+	}
+
+	/**
+	 * Helper to determine if the header named {@code name} includes {@code value}.
+	 *
+	 * @param headers
+	 * @param name
+	 * @param value
+	 * @return
+	 */
+	private static boolean hasHeaderValue(final Map<String, Collection<String>> headers, final String name,
+			final String value)
+	{
+		final Collection<String> values = headers.get(name);
+		return values != null && values.contains(value);
+	}
+
+	/**
+	 * Helper to gzip {@code bytes}.
+	 *
+	 * @param bytes
+	 * @return
+	 * @throws IOException
+	 */
+	private static byte[] gzip(final byte[] bytes) throws IOException
+	{
+		final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		try (final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream))
+		{
+			gzipOutputStream.write(bytes);
+		}
+		return byteArrayOutputStream.toByteArray();
+	}
+
+	/**
+	 * The state of a single counter held by {@link InMemoryInstacountClient}.
+	 */
+	private static class StoredCounter
+	{
+		private final String name;
+		private final DateTime createdDateTime;
+
+		private String description;
+		private int numShards;
+		private String status;
+		private BigInteger count;
+
+		/**
+		 * Required-args Constructor.
+		 *
+		 * @param name
+		 * @param input The fields of the counter supplied by its creator.
+		 */
+		private StoredCounter(final String name, final JsonNode input)
+		{
+			this.name = name;
+			this.createdDateTime = new DateTime(DateTimeZone.UTC);
+			this.numShards = 3;
+			this.status = "AVAILABLE";
+			this.count = BigInteger.ZERO;
+			this.update(input);
+		}
+
+		/**
+		 * Replace the description, number of shards and status of this counter with any present in {@code input}.
+		 *
+		 * @param input
+		 */
+		private synchronized void update(final JsonNode input)
+		{
+			if (input.hasNonNull("description"))
+			{
+				this.description = input.get("description").asText();
+			}
+			if (input.hasNonNull("numShards") && input.get("numShards").asInt() > 0)
+			{
+				this.numShards = input.get("numShards").asInt();
+			}
+			if (input.hasNonNull("status"))
+			{
+				this.status = input.get("status").asText();
+			}
+		}
+
+		/**
+		 * Add {@code delta} to a random shard of this counter.
+		 *
+		 * @param delta
+		 * @return The index of the shard, or absent if this counter does not accept increments or decrements.
+		 */
+		private synchronized Optional<Integer> add(final BigInteger delta)
+		{
+			if (!"AVAILABLE".equals(status))
+			{
+				return Optional.absent();
+			}
+			this.count = count.add(delta);
+			return Optional.of(ThreadLocalRandom.current().nextInt(numShards));
+		}
+
+		/**
+		 * Return the sum of every shard of this counter.
+		 *
+		 * @return
+		 */
+		private synchronized BigInteger getCount()
+		{
+			return count;
+		}
+
+		/**
+		 * Render this counter as the real API would.
+		 *
+		 * @param baseUrl
+		 * @return
+		 */
+		private synchronized ObjectNode toJson(final String baseUrl)
+		{
+			final ObjectNode json = JsonNodeFactory.instance.objectNode();
+			final ObjectNode meta = json.putObject("meta");
+			meta.putObject("@self").put("href", counterUrl(baseUrl, name));
+			meta.putObject("@increments").put("href", counterUrl(baseUrl, name) + "/increments");
+			meta.putObject("@decrements").put("href", counterUrl(baseUrl, name) + "/decrements");
+			json.put("name", name);
+			json.put("description", description);
+			json.put("numShards", numShards);
+			json.put("status", status);
+			json.put("created", createdDateTime.toString());
+			json.set("count", BigIntegerNode.valueOf(count));
+			return json;
+		}
+	}
+}
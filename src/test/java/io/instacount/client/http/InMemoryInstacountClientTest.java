@@ -0,0 +1,314 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.RequestTemplate;
+import feign.Response;
+import io.instacount.client.Constants;
+import io.instacount.client.Instacount;
+import io.instacount.client.InstacountClientParams;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.interceptors.GzipRequestInterceptor;
+import io.instacount.client.jackson.WireFormat;
+import io.instacount.client.model.shardedcounters.inputs.CreateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+
+/**
+ * Unit tests for {@link InMemoryInstacountClient}.
+ */
+public class InMemoryInstacountClientTest
+{
+	private InMemoryInstacountClient inMemoryClient;
+	private Instacount client;
+
+	@Before
+	public void before()
+	{
+		inMemoryClient = new InMemoryInstacountClient(2, 3);
+		client = build(inMemoryClient);
+	}
+
+	@Test
+	public void testResponsesCarryQuota()
+	{
+		client.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, true));
+		final GetShardedCounterResponse response = client.getShardedCounter("foo");
+
+		assertThat(response.getShardedCounter().getCount(), is(BigInteger.TEN));
+		assertThat(response.getQuota().getNumAccessRequestsLimit(), is(2L));
+		assertThat(response.getQuota().getNumAccessRequestsRemaining(), is(1L));
+		assertThat(response.getQuota().getNumMutationRequestsRemaining(), is(2L));
+	}
+
+	@Test
+	public void testExhaustedQuotaFailsWith429()
+	{
+		client.incrementShardedCounter("foo");
+		client.getShardedCounter("foo");
+		client.getShardedCounter("foo");
+		try
+		{
+			client.getShardedCounter("foo");
+			throw new AssertionError("Expected an InstacountClientException!");
+		}
+		catch (InstacountClientException e)
+		{
+			assertThat(e.getErrors().getHttpResponseCode(), is(429));
+		}
+	}
+
+	@Test
+	public void testInjectedErrorsAreNotApplied()
+	{
+		inMemoryClient.setErrorRate(1.0, 503);
+		try
+		{
+			client.incrementShardedCounter("foo");
+			throw new AssertionError("Expected an InstacountClientException!");
+		}
+		catch (InstacountClientException e)
+		{
+			assertThat(e.getErrors().getHttpResponseCode(), is(503));
+		}
+
+		assertThat(inMemoryClient.getCount("foo") == null, is(true));
+		assertThat(inMemoryClient.getRequestCount(), is(1L));
+	}
+
+	@Test
+	public void testInjectedErrorsAreRetriedForReads()
+	{
+		// Use a larger quota, so that every attempt is answered with the injected error.
+		inMemoryClient = new InMemoryInstacountClient();
+		client = build(inMemoryClient);
+		client.incrementShardedCounter("foo");
+		inMemoryClient.setErrorRate(1.0, 503);
+		try
+		{
+			client.getShardedCounter("foo");
+			throw new AssertionError("Expected an InstacountClientException!");
+		}
+		catch (InstacountClientException e)
+		{
+			assertThat(e.getErrors().getHttpResponseCode(), is(503));
+		}
+
+		// One increment, then three attempts of the read.
+		assertThat(inMemoryClient.getRequestCount(), is(4L));
+	}
+
+	@Test
+	public void testGzipIsNegotiated()
+	{
+		inMemoryClient = new InMemoryInstacountClient();
+		client = build(inMemoryClient, Optional.of(new GzipRequestInterceptor(0)), WireFormat.JSON);
+		final String description = Strings.repeat("A counter with a long description. ", 100);
+
+		client.createShardedCounter(new CreateShardedCounterInput("foo", description));
+		client.incrementShardedCounter("foo");
+		final GetShardedCounterResponse response = client.getShardedCounter("foo");
+
+		assertThat(response.getShardedCounter().getCount(), is(BigInteger.ONE));
+		assertThat(response.getShardedCounter().getOptDescription().get(), is(description));
+		// The repetitive description compresses well, both on the way in and on the way out.
+		assertThat(inMemoryClient.getRequestBytes() < description.length(), is(true));
+		assertThat(inMemoryClient.getResponseBytes() < description.length(), is(true));
+
+		try
+		{
+			client.getShardedCounter("bar");
+			throw new AssertionError("Expected an InstacountClientException!");
+		}
+		catch (InstacountClientException e)
+		{
+			assertThat(e.getErrors().getHttpResponseCode(), is(404));
+			assertThat(e.getErrors().getErrors().isEmpty(), is(false));
+		}
+	}
+
+	@Test
+	public void testSmileIsNegotiated() throws Exception
+	{
+		inMemoryClient = new InMemoryInstacountClient();
+		final AtomicReference<String> lastContentType = new AtomicReference<>();
+		client = build(new Client()
+		{
+			@Override
+			public Response execute(final Request request, final Options options) throws IOException
+			{
+				final Response response = inMemoryClient.execute(request, options);
+				lastContentType.set(response.headers().get("Content-Type").iterator().next());
+				return response;
+			}
+		}, Optional.<GzipRequestInterceptor> absent(), WireFormat.SMILE);
+
+		client.createShardedCounter(new CreateShardedCounterInput("foo", "A counter read and written in Smile."));
+		client.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, false));
+		final GetShardedCounterResponse response = client.getShardedCounter("foo");
+
+		assertThat(lastContentType.get(), is(Constants.ApiVersions.API_VERSION_1_SMILE));
+		assertThat(response.getShardedCounter().getCount(), is(BigInteger.TEN));
+		assertThat(response.getShardedCounter().getOptDescription().get(), is("A counter read and written in Smile."));
+
+		try
+		{
+			client.getShardedCounter("bar");
+			throw new AssertionError("Expected an InstacountClientException!");
+		}
+		catch (InstacountClientException e)
+		{
+			assertThat(e.getErrors().getHttpResponseCode(), is(404));
+			assertThat(e.getErrors().getErrors().isEmpty(), is(false));
+		}
+	}
+
+	@Test
+	public void testClientParamsWithoutAbstractInstacountClientParams()
+	{
+		inMemoryClient = new InMemoryInstacountClient();
+		final AtomicInteger numApplied = new AtomicInteger();
+		client = Instacount.Builder.build(new InstacountClientParams()
+		{
+			@Override
+			public void apply(final RequestTemplate requestTemplate)
+			{
+				numApplied.incrementAndGet();
+				requestTemplate.header(Constants.Auth.X_INSTACOUNT_APPLICATION_ID, this.getInstacountApplicationId());
+				requestTemplate.header(Constants.Auth.X_INSTACOUNT_API_KEY,
+					this.getInstacountReadWriteApplicationKey());
+			}
+
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "application-id";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "read-only-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return "read-write-key";
+			}
+
+			@Override
+			public String getClientIdentifier()
+			{
+				return "in-memory-test";
+			}
+
+			@Override
+			public String getInstacountRootUrl()
+			{
+				return Constants.Links.API_URL;
+			}
+
+			@Override
+			public Client getClient()
+			{
+				return inMemoryClient;
+			}
+		});
+
+		client.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, false));
+		assertThat(client.getShardedCounter("foo").getShardedCounter().getCount(), is(BigInteger.TEN));
+		// The headers of an arbitrary implementation may change, so they are applied to every request.
+		assertThat(numApplied.get(), is(2));
+	}
+
+	/**
+	 * Helper to build an instance of {@link Instacount} that sends every request to {@code inMemoryClient}.
+	 *
+	 * @param inMemoryClient
+	 * @return
+	 */
+	private static Instacount build(final InMemoryInstacountClient inMemoryClient)
+	{
+		return build(inMemoryClient, Optional.<GzipRequestInterceptor> absent(), WireFormat.JSON);
+	}
+
+	/**
+	 * Helper to build an instance of {@link Instacount} that sends every request to {@code inMemoryClient}.
+	 *
+	 * @param inMemoryClient
+	 * @param optGzipRequestInterceptor
+	 * @param wireFormat
+	 * @return
+	 */
+	private static Instacount build(final Client inMemoryClient,
+			final Optional<GzipRequestInterceptor> optGzipRequestInterceptor, final WireFormat wireFormat)
+	{
+		return Instacount.Builder.build(new AbstractInstacountClientParams(false)
+		{
+			@Override
+			public WireFormat getWireFormat()
+			{
+				return wireFormat;
+			}
+
+			@Override
+			public Optional<GzipRequestInterceptor> getGzipRequestInterceptor()
+			{
+				return optGzipRequestInterceptor;
+			}
+
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "application-id";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "read-only-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return "read-write-key";
+			}
+
+			@Override
+			public Client getClient()
+			{
+				return inMemoryClient;
+			}
+		});
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.http;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+import org.junit.Test;
+
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+
+/**
+ * Unit tests for {@link OkHttpTransport}.
+ */
+public class OkHttpTransportTest
+{
+	@Test
+	public void testNewTransportHasEmptyPool()
+	{
+		final OkHttpTransport transport = new OkHttpTransport(new TransportOptions());
+
+		assertThat(transport.getStats(), is(new TransportStats(0, 0, 0, 0, 0)));
+	}
+
+	@Test
+	public void testRequestOptionsMatchTimeouts()
+	{
+		final TransportOptions transportOptions = new TransportOptions(1, 1000L, 2, 2, 1500, 2500);
+
+		assertThat(transportOptions.toRequestOptions().connectTimeoutMillis(), is(1500));
+		assertThat(transportOptions.toRequestOptions().readTimeoutMillis(), is(2500));
+	}
+
+	@Test
+	public void testParamsShareOneTransport()
+	{
+		final AbstractInstacountClientParams params = new AbstractInstacountClientParams(true)
+		{
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "app";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "read-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return "write-key";
+			}
+		};
+
+		assertThat(params.getClient(), is(sameInstance(params.getClient())));
+		assertThat(params.getAsyncClient(), is(sameInstance(params.getTransport().getAsyncClient())));
+	}
+}
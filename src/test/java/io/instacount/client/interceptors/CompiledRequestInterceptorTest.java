@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.interceptors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import io.instacount.client.Constants;
+import io.instacount.client.InstacountClientParams;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.jackson.WireFormat;
+
+/**
+ * Unit tests for {@link CompiledRequestInterceptor}.
+ */
+public class CompiledRequestInterceptorTest
+{
+	private AtomicReference<String> readWriteKey;
+	private InstacountClientParams params;
+
+	@Before
+	public void before()
+	{
+		readWriteKey = new AtomicReference<>("read-write-key");
+		params = new AbstractInstacountClientParams(false)
+		{
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "application-id";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "read-only-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return readWriteKey.get();
+			}
+		};
+	}
+
+	@Test
+	public void testGetRequestMatchesDynamicInterceptors()
+	{
+		for (final WireFormat wireFormat : WireFormat.values())
+		{
+			final RequestTemplate prototype = new RequestTemplate().method("GET").append("/sharded_counters/foo");
+
+			assertThat(compiled(wireFormat, prototype).headers(), is(dynamic(wireFormat, prototype).headers()));
+		}
+	}
+
+	@Test
+	public void testPostRequestMatchesDynamicInterceptors()
+	{
+		for (final WireFormat wireFormat : WireFormat.values())
+		{
+			final RequestTemplate prototype = new RequestTemplate().method("POST")
+				.append("/sharded_counters/foo/increments")
+				.body("{\"amount\":1}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+
+			final RequestTemplate compiled = compiled(wireFormat, prototype);
+			assertThat(compiled.headers(), is(dynamic(wireFormat, prototype).headers()));
+			assertThat(compiled.headers().containsKey("Content-Length"), is(false));
+			assertThat(compiled.headers().get("Content-Type").iterator().next(), is(wireFormat.getContentType()));
+		}
+	}
+
+	@Test
+	public void testPostRequestWithoutBody()
+	{
+		final RequestTemplate prototype = new RequestTemplate().method("POST")
+			.append("/sharded_counters/foo/increments");
+
+		final RequestTemplate compiled = compiled(WireFormat.JSON, prototype);
+		assertThat(compiled.body().length, is(0));
+		assertThat(compiled.headers(), is(dynamic(WireFormat.JSON, prototype).headers()));
+	}
+
+	@Test
+	public void testOtherHeadersAreKept()
+	{
+		final RequestTemplate prototype = new RequestTemplate().method("POST")
+			.append("/sharded_counters/foo/increments").header("X-Request-Id", "request-id")
+			.header("Content-Length", "12")
+			.body("{\"amount\":1}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+
+		final RequestTemplate compiled = compiled(WireFormat.JSON, prototype);
+		assertThat(compiled.headers().get("X-Request-Id").iterator().next(), is("request-id"));
+		assertThat(compiled.headers().containsKey("Content-Length"), is(false));
+		assertThat(compiled.headers(), is(dynamic(WireFormat.JSON, prototype).headers()));
+	}
+
+	@Test
+	public void testLowercaseContentLengthIsRemoved()
+	{
+		final RequestTemplate prototype = new RequestTemplate().method("PUT").append("/sharded_counters/foo")
+			.header("content-length", "12")
+			.body("{\"description\":\"foo\"}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+
+		final RequestTemplate compiled = compiled(WireFormat.JSON, prototype);
+		assertThat(compiled.headers().containsKey("content-length"), is(false));
+		assertThat(compiled.headers(), is(dynamic(WireFormat.JSON, prototype).headers()));
+	}
+
+	@Test
+	public void testCredentialsAreResolvedOnce()
+	{
+		final CompiledRequestInterceptor interceptor = CompiledRequestInterceptor.compile(WireFormat.JSON, params);
+		readWriteKey.set("rotated-read-write-key");
+
+		final RequestTemplate requestTemplate = new RequestTemplate().method("GET");
+		interceptor.apply(requestTemplate);
+
+		assertThat(requestTemplate.headers().get(Constants.Auth.X_INSTACOUNT_API_KEY).iterator().next(),
+			is("read-write-key"));
+	}
+
+	/**
+	 * Helper to apply a {@link CompiledRequestInterceptor} to a copy of {@code prototype}.
+	 *
+	 * @param wireFormat
+	 * @param prototype
+	 * @return
+	 */
+	private RequestTemplate compiled(final WireFormat wireFormat, final RequestTemplate prototype)
+	{
+		final RequestTemplate requestTemplate = new RequestTemplate(prototype);
+		CompiledRequestInterceptor.compile(wireFormat, params).apply(requestTemplate);
+		return requestTemplate;
+	}
+
+	/**
+	 * Helper to apply the interceptors used for dynamic credentials to a copy of {@code prototype}.
+	 *
+	 * @param wireFormat
+	 * @param prototype
+	 * @return
+	 */
+	private RequestTemplate dynamic(final WireFormat wireFormat, final RequestTemplate prototype)
+	{
+		final RequestTemplate requestTemplate = new RequestTemplate(prototype);
+		for (final RequestInterceptor requestInterceptor : new RequestInterceptor[] {
+				new InstacountVersionRequestInterceptor.Impl(wireFormat), params })
+		{
+			requestInterceptor.apply(requestTemplate);
+		}
+		return requestTemplate;
+	}
+}
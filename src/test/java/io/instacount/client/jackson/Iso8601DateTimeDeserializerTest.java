@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.jackson;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.ISODateTimeFormat;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+
+/**
+ * Unit tests for {@link Iso8601DateTimeDeserializer}.
+ */
+public class Iso8601DateTimeDeserializerTest
+{
+	private ObjectMapper objectMapper;
+	private ObjectMapper jodaObjectMapper;
+
+	@Before
+	public void before()
+	{
+		objectMapper = new InstacountClientObjectMapper();
+		jodaObjectMapper = new ObjectMapper().registerModule(new JodaModule());
+	}
+
+	@Test
+	public void testApiTimestamp() throws Exception
+	{
+		final DateTime dateTime = objectMapper.readValue("\"2016-01-15T10:20:30.456Z\"", DateTime.class);
+
+		assertThat(dateTime, is(new DateTime(2016, 1, 15, 10, 20, 30, 456, DateTimeZone.UTC)));
+		assertThat(dateTime.getMillis(), is(1452853230456L));
+	}
+
+	@Test
+	public void testMatchesJodaModule() throws Exception
+	{
+		for (final String timestamp : new String[] { "1970-01-01T00:00:00Z", "1969-12-31T23:59:59.999Z",
+				"2016-02-29T23:59:59.9Z", "2000-02-29T12:00:00.05Z", "1900-03-01T00:00:00.000Z",
+				"0001-01-01T00:00:00Z", "9999-12-31T23:59:59.999Z", "2016-01-15T10:20:30.456+01:00",
+				"2016-01-15T10:20:30.456789Z", "2016-01-15T10:20Z" })
+		{
+			this.assertMatchesJodaModule("\"" + timestamp + "\"");
+		}
+		this.assertMatchesJodaModule("1452853230456");
+	}
+
+	@Test
+	public void testMatchesJodaModuleForRandomInstants() throws Exception
+	{
+		final Random random = new Random(42L);
+		for (int i = 0; i < 10000; i++)
+		{
+			final long millis = (long) (random.nextDouble() * 253402300799999L);
+			this.assertMatchesJodaModule("\""
+				+ ISODateTimeFormat.dateTime().withZoneUTC().print(millis) + "\"");
+		}
+	}
+
+	@Test
+	public void testInvalidDatesAreLeftToJodaModule() throws Exception
+	{
+		for (final String timestamp : new String[] { "2015-02-29T00:00:00Z", "2016-13-01T00:00:00Z",
+				"2016-01-15T24:00:00Z", "2016-01-15T10:20:3xZ" })
+		{
+			assertThat(Iso8601DateTimeDeserializer.parseEpochMillis(timestamp.toCharArray(), 0,
+				timestamp.length()), is(Iso8601DateTimeDeserializer.UNPARSEABLE));
+			try
+			{
+				objectMapper.readValue("\"" + timestamp + "\"", DateTime.class);
+				throw new AssertionError("Expected an exception for " + timestamp);
+			}
+			catch (IOException | IllegalArgumentException e)
+			{
+				// Expected, as with the Joda module alone.
+			}
+		}
+	}
+
+	@Test
+	public void testSmileTimestamp() throws Exception
+	{
+		final ObjectMapper smileObjectMapper = new InstacountClientObjectMapper(WireFormat.SMILE);
+		final byte[] smile = smileObjectMapper.writeValueAsBytes("2016-01-15T10:20:30.456Z");
+
+		assertThat(smileObjectMapper.readValue(smile, DateTime.class), is(new DateTime(1452853230456L,
+			DateTimeZone.UTC)));
+	}
+
+	/**
+	 * Helper to assert that {@code json} is read as the same {@link DateTime} as by the Joda module alone.
+	 *
+	 * @param json
+	 * @throws Exception
+	 */
+	private void assertMatchesJodaModule(final String json) throws Exception
+	{
+		assertThat(json, objectMapper.readValue(json, DateTime.class), is(jodaObjectMapper.readValue(json,
+			DateTime.class)));
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.journal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link IncrementJournal}.
+ */
+public class IncrementJournalTest
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File file;
+
+	@Before
+	public void before()
+	{
+		file = new File(temporaryFolder.getRoot(), "increments.journal");
+	}
+
+	@Test
+	public void testAppendSumsDeltasPerCounter() throws IOException
+	{
+		final IncrementJournal journal = IncrementJournal.open(file);
+		journal.append("foo", 1L);
+		journal.append("foo", 10L);
+		journal.append("bar", -3L);
+
+		assertThat(journal.getPendingDelta("foo"), is(11L));
+		assertThat(journal.getPendingDelta("bar"), is(-3L));
+
+		journal.append("bar", 3L);
+		assertThat(journal.getPendingDeltas().containsKey("bar"), is(false));
+	}
+
+	@Test
+	public void testReopenReplaysPendingDeltas() throws IOException
+	{
+		final IncrementJournal journal = IncrementJournal.open(file);
+		journal.append("foo", 5L);
+		journal.append("bar", 2L);
+		journal.append("foo", -5L);
+		journal.append("foo", 7L);
+		journal.close();
+
+		final IncrementJournal reopened = IncrementJournal.open(file);
+		assertThat(reopened.getPendingDelta("foo"), is(7L));
+		assertThat(reopened.getPendingDelta("bar"), is(2L));
+		assertThat(reopened.getUsedBytes(), is(journal.getUsedBytes()));
+	}
+
+	@Test
+	public void testReplayStopsAtTornRecord() throws IOException
+	{
+		final IncrementJournal journal = IncrementJournal.open(file);
+		journal.append("foo", 5L);
+		final int intactBytes = journal.getUsedBytes();
+		journal.append("foo", 6L);
+		journal.close();
+
+		// Corrupt the checksum of the second record.
+		try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"))
+		{
+			randomAccessFile.seek(journal.getUsedBytes() - 1);
+			final int lastByte = randomAccessFile.read();
+			randomAccessFile.seek(journal.getUsedBytes() - 1);
+			randomAccessFile.write(lastByte ^ 0xFF);
+		}
+
+		final IncrementJournal reopened = IncrementJournal.open(file);
+		assertThat(reopened.getPendingDelta("foo"), is(5L));
+		assertThat(reopened.getUsedBytes(), is(intactBytes));
+	}
+
+	@Test
+	public void testFullJournalIsCompacted() throws IOException
+	{
+		final IncrementJournal journal = IncrementJournal.open(file, 64);
+		for (int i = 0; i < 100; i++)
+		{
+			journal.append("foo", 1L);
+		}
+		assertThat(journal.getPendingDelta("foo"), is(100L));
+		assertThat(journal.getCapacity(), is(64));
+		journal.close();
+
+		assertThat(IncrementJournal.open(file).getPendingDelta("foo"), is(100L));
+	}
+
+	@Test
+	public void testCompactionGrowsJournal() throws IOException
+	{
+		final IncrementJournal journal = IncrementJournal.open(file, 64);
+		for (int i = 0; i < 20; i++)
+		{
+			journal.append("counter-" + i, i + 1);
+		}
+		journal.close();
+
+		final IncrementJournal reopened = IncrementJournal.open(file, 64);
+		for (int i = 0; i < 20; i++)
+		{
+			assertThat(reopened.getPendingDelta("counter-" + i), is((long) i + 1));
+		}
+	}
+
+	@Test
+	public void testAppendAfterRepeatedCompaction() throws IOException
+	{
+		final IncrementJournal journal = IncrementJournal.open(file, 64);
+		for (int i = 0; i < 100; i++)
+		{
+			journal.append("foo", 1L);
+			journal.compact();
+		}
+		assertThat(journal.getPendingDelta("foo"), is(100L));
+		assertThat(new File(file.getPath() + ".compact").exists(), is(false));
+		journal.close();
+
+		assertThat(IncrementJournal.open(file).getPendingDelta("foo"), is(100L));
+	}
+
+	@Test(expected = IOException.class)
+	public void testAppendAfterClose() throws IOException
+	{
+		final IncrementJournal journal = IncrementJournal.open(file);
+		journal.close();
+		journal.append("foo", 1L);
+	}
+
+	@Test(expected = IOException.class)
+	public void testOpenForeignFile() throws IOException
+	{
+		try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"))
+		{
+			randomAccessFile.writeInt(42);
+		}
+		IncrementJournal.open(file);
+	}
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+
+import feign.Client;
+import io.instacount.client.Instacount;
+import io.instacount.client.InstacountAsync;
+import io.instacount.client.InstacountClientParams.AbstractInstacountClientParams;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.http.AsyncClient;
+import io.instacount.client.http.InMemoryInstacountClient;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+
+/**
+ * Unit tests for {@link HdrHistogramMetrics}, as wired into {@link Instacount} and {@link InstacountAsync}.
+ */
+public class HdrHistogramMetricsTest
+{
+	private static final String GET_SHARDED_COUNTER = "InstacountFeign#getShardedCounter(String)";
+	private static final String INCREMENT_SHARDED_COUNTER = "InstacountFeign#incrementShardedCounter(String,"
+		+ "IncrementShardedCounterInput)";
+
+	private InMemoryInstacountClient inMemoryClient;
+	private HdrHistogramMetrics metrics;
+	private AbstractInstacountClientParams params;
+
+	@Before
+	public void before()
+	{
+		inMemoryClient = new InMemoryInstacountClient();
+		metrics = new HdrHistogramMetrics();
+		params = new AbstractInstacountClientParams(false)
+		{
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "application-id";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "read-only-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return "read-write-key";
+			}
+
+			@Override
+			public Client getClient()
+			{
+				return inMemoryClient;
+			}
+
+			@Override
+			public AsyncClient getAsyncClient()
+			{
+				return inMemoryClient.asAsyncClient();
+			}
+
+			@Override
+			public Optional<InstacountMetrics> getInstacountMetrics()
+			{
+				return Optional.<InstacountMetrics> of(metrics);
+			}
+		};
+	}
+
+	@Test
+	public void testMetricsArePerMethod()
+	{
+		inMemoryClient.setLatency(2, TimeUnit.MILLISECONDS);
+		final Instacount client = Instacount.Builder.build(params);
+
+		client.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, false));
+		client.getShardedCounter("foo");
+		client.getShardedCounter("foo");
+
+		final MethodMetrics getMetrics = metrics.getMethodMetrics(GET_SHARDED_COUNTER).get();
+		assertThat(getMetrics.getResponseCount(), is(2L));
+		assertThat(getMetrics.getHttpResponseCodeCounts().get(200), is(2L));
+		assertThat(getMetrics.getDecodeLatency().getTotalCount(), is(2L));
+		assertThat(getMetrics.getNetworkNanosAtPercentile(50.0) >= TimeUnit.MILLISECONDS.toNanos(2), is(true));
+		assertThat(getMetrics.getResponseBytes() > 0, is(true));
+
+		final MethodMetrics incrementMetrics = metrics.getMethodMetrics(INCREMENT_SHARDED_COUNTER).get();
+		assertThat(incrementMetrics.getHttpResponseCodeCounts().get(201), is(1L));
+		assertThat(incrementMetrics.getRequestBytes() > 0, is(true));
+
+		assertThat(metrics.getNumAccessRequestsRemaining(), is(999998L));
+		assertThat(metrics.getNumMutationRequestsRemaining(), is(499999L));
+	}
+
+	@Test
+	public void testErrorResponsesAreCountedButNotDecoded()
+	{
+		final Instacount client = Instacount.Builder.build(params);
+		try
+		{
+			client.getShardedCounter("missing");
+			throw new AssertionError("Expected an InstacountClientException!");
+		}
+		catch (InstacountClientException e)
+		{
+			// Expected.
+		}
+
+		final MethodMetrics getMetrics = metrics.getMethodMetrics(GET_SHARDED_COUNTER).get();
+		assertThat(getMetrics.getHttpResponseCodeCounts().get(404), is(1L));
+		assertThat(getMetrics.getDecodeLatency().getTotalCount(), is(0L));
+	}
+
+	@Test
+	public void testAsyncMetrics() throws Exception
+	{
+		final InstacountAsync asyncClient = InstacountAsync.Builder.build(params);
+
+		asyncClient.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.ONE, true)).get();
+		asyncClient.getShardedCounter("foo").get();
+
+		final MethodMetrics getMetrics = metrics.getMethodMetrics(GET_SHARDED_COUNTER).get();
+		assertThat(getMetrics.getHttpResponseCodeCounts().get(200), is(1L));
+		assertThat(getMetrics.getDecodeLatency().getTotalCount(), is(1L));
+		assertThat(metrics.getMethodMetrics(INCREMENT_SHARDED_COUNTER).get().getHttpResponseCodeCounts().get(202),
+			is(1L));
+	}
+
+	@Test
+	public void testNoMetricsByDefault()
+	{
+		assertThat(new AbstractInstacountClientParams(false)
+		{
+			@Override
+			public String getInstacountApplicationId()
+			{
+				return "application-id";
+			}
+
+			@Override
+			public String getInstacountReadOnlyApplicationKey()
+			{
+				return "read-only-key";
+			}
+
+			@Override
+			public String getInstacountReadWriteApplicationKey()
+			{
+				return "read-write-key";
+			}
+		}.getInstacountMetrics().isPresent(), is(false));
+	}
+}
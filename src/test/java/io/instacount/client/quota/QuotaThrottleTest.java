@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.quota;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+import feign.RequestTemplate;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.headers.Quota;
+
+/**
+ * Unit tests for {@link QuotaThrottle}.
+ */
+public class QuotaThrottleTest
+{
+	private QuotaThrottle quotaThrottle;
+
+	@Before
+	public void before()
+	{
+		quotaThrottle = new QuotaThrottle(0, TimeUnit.SECONDS)
+		{
+			@Override
+			protected DateTime getWindowEnd(final DateTime now)
+			{
+				return now.plusSeconds(100);
+			}
+		};
+	}
+
+	@Test
+	public void testNotThrottledBeforeFirstQuota()
+	{
+		assertThat(quotaThrottle.getLatestQuota().isPresent(), is(false));
+		assertThat(quotaThrottle.getAccessRequestsPerSecond(), is(Double.POSITIVE_INFINITY));
+		assertThat(quotaThrottle.getMutationRequestsPerSecond(), is(Double.POSITIVE_INFINITY));
+
+		for (int i = 0; i < 10; i++)
+		{
+			quotaThrottle.apply(new RequestTemplate().method("POST"));
+		}
+	}
+
+	@Test
+	public void testRemainingQuotaIsSpreadOverWindow()
+	{
+		final Quota quota = new Quota(10000L, 1000L, 50000L, 20000L);
+		quotaThrottle.onQuota(quota);
+
+		assertThat(quotaThrottle.getLatestQuota().get(), is(quota));
+		assertThat(Math.abs(quotaThrottle.getAccessRequestsPerSecond() - 10.0) < 0.1, is(true));
+		assertThat(Math.abs(quotaThrottle.getMutationRequestsPerSecond() - 200.0) < 2.0, is(true));
+	}
+
+	@Test
+	public void testMissingLimitIsNotThrottled()
+	{
+		quotaThrottle.onQuota(new Quota(0L, 0L, 50000L, 20000L));
+
+		assertThat(quotaThrottle.getAccessRequestsPerSecond(), is(Double.POSITIVE_INFINITY));
+	}
+
+	@Test(expected = InstacountClientException.class)
+	public void testExhaustedQuotaFailsFast()
+	{
+		quotaThrottle.onQuota(new Quota(10000L, 0L, 50000L, 20000L));
+
+		quotaThrottle.apply(new RequestTemplate().method("GET"));
+		quotaThrottle.apply(new RequestTemplate().method("GET"));
+	}
+
+	@Test
+	public void testMutationsAreThrottledSeparately()
+	{
+		quotaThrottle.onQuota(new Quota(10000L, 0L, 50000L, 20000L));
+
+		quotaThrottle.apply(new RequestTemplate().method("GET"));
+		quotaThrottle.apply(new RequestTemplate().method("POST"));
+	}
+
+	@Test
+	public void testBurstWithinBudgetIsNotThrottled()
+	{
+		// 100,000 requests over 30 days is about 0.04 requests per second, but 1% of them may be sent at once.
+		final QuotaThrottle monthlyQuotaThrottle = new QuotaThrottle(0, TimeUnit.SECONDS)
+		{
+			@Override
+			protected DateTime getWindowEnd(final DateTime now)
+			{
+				return now.plusDays(30);
+			}
+		};
+		monthlyQuotaThrottle.onQuota(new Quota(100000L, 100000L, 50000L, 20000L));
+
+		for (int i = 0; i < 1000; i++)
+		{
+			monthlyQuotaThrottle.apply(new RequestTemplate().method("GET"));
+		}
+		try
+		{
+			monthlyQuotaThrottle.apply(new RequestTemplate().method("GET"));
+			fail("Expected the burst to be exhausted");
+		}
+		catch (InstacountClientException e)
+		{
+			assertThat(e.getErrors().getHttpResponseCode(), is(429));
+		}
+	}
+
+	@Test
+	public void testLaterQuotaDoesNotRefillBurst()
+	{
+		quotaThrottle.onQuota(new Quota(10000L, 0L, 50000L, 20000L));
+		quotaThrottle.apply(new RequestTemplate().method("GET"));
+
+		quotaThrottle.onQuota(new Quota(10000L, 0L, 50000L, 20000L));
+		try
+		{
+			quotaThrottle.apply(new RequestTemplate().method("GET"));
+			fail("Expected the burst to be exhausted");
+		}
+		catch (InstacountClientException e)
+		{
+			assertThat(e.getErrors().getHttpResponseCode(), is(429));
+		}
+	}
+
+	@Test
+	public void testPermitsRefillOverTime()
+	{
+		final ManualTicker ticker = new ManualTicker();
+		final QuotaThrottle tickingQuotaThrottle = new QuotaThrottle(0, TimeUnit.SECONDS, 0.0, ticker)
+		{
+			@Override
+			protected DateTime getWindowEnd(final DateTime now)
+			{
+				return now.plusSeconds(100);
+			}
+		};
+		// One access request per second.
+		tickingQuotaThrottle.onQuota(new Quota(10000L, 100L, 50000L, 20000L));
+		tickingQuotaThrottle.apply(new RequestTemplate().method("GET"));
+
+		ticker.advance(1, TimeUnit.SECONDS);
+		tickingQuotaThrottle.apply(new RequestTemplate().method("GET"));
+	}
+
+	@Test
+	public void testNonBlockingFailsInsteadOfWaiting()
+	{
+		final QuotaThrottle patientQuotaThrottle = new QuotaThrottle(1, TimeUnit.HOURS)
+		{
+			@Override
+			protected DateTime getWindowEnd(final DateTime now)
+			{
+				return now.plusSeconds(100);
+			}
+		};
+		patientQuotaThrottle.onQuota(new Quota(10000L, 0L, 50000L, 20000L));
+
+		patientQuotaThrottle.nonBlocking().apply(new RequestTemplate().method("GET"));
+		final long startNanos = System.nanoTime();
+		try
+		{
+			patientQuotaThrottle.nonBlocking().apply(new RequestTemplate().method("GET"));
+			fail("Expected the request to fail");
+		}
+		catch (InstacountClientException e)
+		{
+			assertThat(e.getErrors().getHttpResponseCode(), is(429));
+		}
+		assertThat(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(1), is(true));
+	}
+
+	/**
+	 * An implementation of {@link Ticker} that only moves when told to.
+	 */
+	private static class ManualTicker extends Ticker
+	{
+		private long nanos;
+
+		@Override
+		public long read()
+		{
+			return nanos;
+		}
+
+		private void advance(final long duration, final TimeUnit unit)
+		{
+			nanos += unit.toNanos(duration);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.shardedcounters.inputs.UpdateShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+
+/**
+ * Unit tests for {@link CachingInstacount}.
+ */
+public class CachingInstacountTest
+{
+	private Instacount delegate;
+	private ManualTicker ticker;
+	private CachingInstacount cachingInstacount;
+
+	private GetShardedCounterResponse firstResponse;
+	private GetShardedCounterResponse secondResponse;
+
+	@Before
+	public void before()
+	{
+		delegate = mock(Instacount.class);
+		firstResponse = mock(GetShardedCounterResponse.class);
+		secondResponse = mock(GetShardedCounterResponse.class);
+		when(delegate.getShardedCounter("foo")).thenReturn(firstResponse, secondResponse);
+
+		ticker = new ManualTicker();
+		// Refreshes run on the calling thread so that tests are deterministic.
+		cachingInstacount = new CachingInstacount(delegate, 10, 1, TimeUnit.SECONDS, 100,
+			MoreExecutors.directExecutor(), ticker);
+	}
+
+	@Test
+	public void testReadsAreServedFromCache()
+	{
+		assertThat(cachingInstacount.getShardedCounter("foo"), is(sameInstance(firstResponse)));
+		assertThat(cachingInstacount.getShardedCounter("foo"), is(sameInstance(firstResponse)));
+
+		verify(delegate, times(1)).getShardedCounter("foo");
+		assertThat(cachingInstacount.getStats().hitCount(), is(1L));
+	}
+
+	@Test
+	public void testStaleReadTriggersRefresh()
+	{
+		cachingInstacount.getShardedCounter("foo");
+		ticker.advance(2, TimeUnit.SECONDS);
+
+		// The refresh completes inline, so the refreshed value is visible on the next read.
+		cachingInstacount.getShardedCounter("foo");
+		assertThat(cachingInstacount.getShardedCounter("foo"), is(sameInstance(secondResponse)));
+		verify(delegate, times(2)).getShardedCounter("foo");
+	}
+
+	@Test
+	public void testExpiredReadReloads()
+	{
+		cachingInstacount.getShardedCounter("foo");
+		ticker.advance(11, TimeUnit.SECONDS);
+
+		assertThat(cachingInstacount.getShardedCounter("foo"), is(sameInstance(secondResponse)));
+	}
+
+	@Test
+	public void testUpdateInvalidates()
+	{
+		cachingInstacount.getShardedCounter("foo");
+		cachingInstacount.updateShardedCounter("foo", mock(UpdateShardedCounterInput.class));
+
+		assertThat(cachingInstacount.getShardedCounter("foo"), is(sameInstance(secondResponse)));
+	}
+
+	@Test(expected = InstacountClientException.class)
+	public void testLoadFailureIsRethrown()
+	{
+		when(delegate.getShardedCounter("bar")).thenThrow(new InstacountClientException(Errors.empty(404)));
+		cachingInstacount.getShardedCounter("bar");
+	}
+
+	/**
+	 * A {@link Ticker} that only advances when told to.
+	 */
+	private static class ManualTicker extends Ticker
+	{
+		private long nanos;
+
+		@Override
+		public long read()
+		{
+			return nanos;
+		}
+
+		private void advance(final long duration, final TimeUnit unit)
+		{
+			nanos += unit.toNanos(duration);
+		}
+	}
+}
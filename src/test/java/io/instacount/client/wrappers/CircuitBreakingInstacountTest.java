@@ -0,0 +1,296 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.circuitbreaker.CircuitBreaker;
+import io.instacount.client.circuitbreaker.CircuitBreaker.State;
+import io.instacount.client.circuitbreaker.InstacountCircuitBreaker;
+import io.instacount.client.exceptions.CircuitBreakerOpenException;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.DeleteShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+
+/**
+ * Unit tests for {@link CircuitBreakingInstacount}.
+ */
+public class CircuitBreakingInstacountTest
+{
+	private Instacount delegate;
+	private InstacountCircuitBreaker instacountCircuitBreaker;
+
+	@Before
+	public void before()
+	{
+		delegate = mock(Instacount.class);
+		// Windows of 2 calls that open on any failure, and probe (once) immediately.
+		instacountCircuitBreaker = new InstacountCircuitBreaker(new CircuitBreaker("reads", 2, 0.5, 1000, 1.0, 0, 1),
+			new CircuitBreaker("mutations", 2, 0.5, 1000, 1.0, 60000, 1), true);
+	}
+
+	@Test
+	public void testServerErrorsOpenTheBreaker()
+	{
+		when(delegate.getShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(500)));
+		final CircuitBreakingInstacount circuitBreakingInstacount = new CircuitBreakingInstacount(delegate,
+			instacountCircuitBreaker);
+
+		for (int i = 0; i < 2; i++)
+		{
+			try
+			{
+				circuitBreakingInstacount.getShardedCounter("foo");
+				fail();
+			}
+			catch (InstacountClientException e)
+			{
+				assertThat(e instanceof CircuitBreakerOpenException, is(false));
+			}
+		}
+		assertThat(instacountCircuitBreaker.getReadCircuitBreaker().getState(), is(State.OPEN));
+		// Mutations are guarded separately.
+		assertThat(instacountCircuitBreaker.getMutationCircuitBreaker().getState(), is(State.CLOSED));
+	}
+
+	@Test
+	public void testClientErrorsDoNotOpenTheBreaker()
+	{
+		when(delegate.getShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(404)));
+		final CircuitBreakingInstacount circuitBreakingInstacount = new CircuitBreakingInstacount(delegate,
+			instacountCircuitBreaker);
+
+		for (int i = 0; i < 4; i++)
+		{
+			try
+			{
+				circuitBreakingInstacount.getShardedCounter("foo");
+				fail();
+			}
+			catch (InstacountClientException e)
+			{
+				assertThat(e.getErrors().getHttpResponseCode(), is(404));
+			}
+		}
+		assertThat(instacountCircuitBreaker.getReadCircuitBreaker().getState(), is(State.CLOSED));
+	}
+
+	@Test
+	public void testOpenBreakerFailsFast()
+	{
+		when(delegate.deleteShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(503)));
+		final CircuitBreakingInstacount circuitBreakingInstacount = new CircuitBreakingInstacount(delegate,
+			instacountCircuitBreaker);
+		this.openMutationBreaker(circuitBreakingInstacount);
+
+		try
+		{
+			circuitBreakingInstacount.deleteShardedCounter("foo");
+			fail();
+		}
+		catch (CircuitBreakerOpenException e)
+		{
+			assertThat(e.getCircuitBreakerName(), is("mutations"));
+			assertThat(e.getErrors().getHttpResponseCode(), is(503));
+		}
+		verify(delegate, times(2)).deleteShardedCounter("foo");
+	}
+
+	@Test
+	public void testOpenBreakerFallsBackToLocalAccumulator()
+	{
+		when(delegate.deleteShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(503)));
+		final CircuitBreakingInstacount circuitBreakingInstacount = new CircuitBreakingInstacount(delegate,
+			instacountCircuitBreaker);
+		this.openMutationBreaker(circuitBreakingInstacount);
+
+		final IncrementShardedCounterResponse response = circuitBreakingInstacount.incrementShardedCounter("foo");
+		circuitBreakingInstacount.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN,
+			true));
+		circuitBreakingInstacount.decrementShardedCounter("foo");
+
+		assertThat(response.getHttpResponseCode(), is(202));
+		assertThat(circuitBreakingInstacount.getFallbackDelta("foo"), is(10L));
+		verify(delegate, never()).incrementShardedCounter(anyString());
+		verify(delegate, never()).incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class));
+	}
+
+	@Test(expected = CircuitBreakerOpenException.class)
+	public void testSyncIncrementDoesNotFallBack()
+	{
+		when(delegate.deleteShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(503)));
+		final CircuitBreakingInstacount circuitBreakingInstacount = new CircuitBreakingInstacount(delegate,
+			instacountCircuitBreaker);
+		this.openMutationBreaker(circuitBreakingInstacount);
+
+		circuitBreakingInstacount.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.ONE,
+			false));
+	}
+
+	@Test
+	public void testFallbackIsFlushedOnceClosed() throws Exception
+	{
+		instacountCircuitBreaker = new InstacountCircuitBreaker(new CircuitBreaker("reads"), new CircuitBreaker(
+			"mutations", 2, 0.5, 1000, 1.0, 100, 1), true);
+		when(delegate.deleteShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(503)))
+			.thenThrow(new InstacountClientException(Errors.empty(503)))
+			.thenReturn(mock(DeleteShardedCounterResponse.class));
+		final List<Runnable> flushes = Lists.newArrayList();
+		final CircuitBreakingInstacount circuitBreakingInstacount = new CircuitBreakingInstacount(delegate,
+			instacountCircuitBreaker, new Executor()
+			{
+				@Override
+				public void execute(final Runnable command)
+				{
+					flushes.add(command);
+				}
+			});
+		this.openMutationBreaker(circuitBreakingInstacount);
+
+		circuitBreakingInstacount.incrementShardedCounter("foo");
+		circuitBreakingInstacount.incrementShardedCounter("foo");
+		assertThat(circuitBreakingInstacount.getFallbackDelta("foo"), is(2L));
+
+		// Once the open duration has passed, a successful probe closes the breaker and schedules a flush, without
+		// waiting for it.
+		Thread.sleep(150);
+		circuitBreakingInstacount.deleteShardedCounter("foo");
+
+		assertThat(instacountCircuitBreaker.getMutationCircuitBreaker().getState(), is(State.CLOSED));
+		assertThat(flushes.size(), is(1));
+		verify(delegate, never()).incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class));
+
+		flushes.get(0).run();
+
+		assertThat(circuitBreakingInstacount.getFallbackDelta("foo"), is(0L));
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.valueOf(2), true));
+	}
+
+	@Test
+	public void testFallbackWithClientErrorIsDropped() throws Exception
+	{
+		instacountCircuitBreaker = new InstacountCircuitBreaker(new CircuitBreaker("reads"), new CircuitBreaker(
+			"mutations", 2, 0.5, 1000, 1.0, 100, 1), true);
+		when(delegate.deleteShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(503)))
+			.thenThrow(new InstacountClientException(Errors.empty(503)))
+			.thenReturn(mock(DeleteShardedCounterResponse.class));
+		when(delegate.incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class))).thenReturn(
+			mock(IncrementShardedCounterResponse.class));
+		// The counter "bar" was deleted while the breaker was open, so its delta can never be accepted.
+		when(delegate.incrementShardedCounter("bar", new IncrementShardedCounterInput(BigInteger.ONE, true)))
+			.thenThrow(new InstacountClientException(Errors.empty(404)));
+		final CircuitBreakingInstacount circuitBreakingInstacount = new CircuitBreakingInstacount(delegate,
+			instacountCircuitBreaker, new Executor()
+			{
+				@Override
+				public void execute(final Runnable command)
+				{
+					// Flushed explicitly below.
+				}
+			});
+		this.openMutationBreaker(circuitBreakingInstacount);
+
+		circuitBreakingInstacount.incrementShardedCounter("bar");
+		circuitBreakingInstacount.incrementShardedCounter("foo");
+		Thread.sleep(150);
+		circuitBreakingInstacount.deleteShardedCounter("foo");
+
+		circuitBreakingInstacount.flushFallback();
+
+		assertThat(circuitBreakingInstacount.getFallbackDelta("bar"), is(0L));
+		assertThat(circuitBreakingInstacount.getFallbackDelta("foo"), is(0L));
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.ONE, true));
+		assertThat(instacountCircuitBreaker.getMutationCircuitBreaker().getState(), is(State.CLOSED));
+	}
+
+	@Test
+	public void testProbeThatThrowsErrorIsRecorded()
+	{
+		when(delegate.getShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(500)))
+			.thenThrow(new InstacountClientException(Errors.empty(500))).thenThrow(new Error("Boom"))
+			.thenReturn(mock(GetShardedCounterResponse.class));
+		final CircuitBreakingInstacount circuitBreakingInstacount = new CircuitBreakingInstacount(delegate,
+			instacountCircuitBreaker);
+
+		for (int i = 0; i < 2; i++)
+		{
+			try
+			{
+				circuitBreakingInstacount.getShardedCounter("foo");
+				fail();
+			}
+			catch (InstacountClientException e)
+			{
+				// Expected.
+			}
+		}
+		try
+		{
+			circuitBreakingInstacount.getShardedCounter("foo");
+			fail();
+		}
+		catch (Error e)
+		{
+			assertThat(e.getMessage(), is("Boom"));
+		}
+		// The failed probe reopened the breaker, rather than leaving it half-open without probes.
+		assertThat(instacountCircuitBreaker.getReadCircuitBreaker().getState(), is(State.OPEN));
+
+		circuitBreakingInstacount.getShardedCounter("foo");
+		assertThat(instacountCircuitBreaker.getReadCircuitBreaker().getState(), is(State.CLOSED));
+	}
+
+	/**
+	 * Helper to open the mutation breaker with two failed deletes.
+	 *
+	 * @param circuitBreakingInstacount
+	 */
+	private void openMutationBreaker(final CircuitBreakingInstacount circuitBreakingInstacount)
+	{
+		for (int i = 0; i < 2; i++)
+		{
+			try
+			{
+				circuitBreakingInstacount.deleteShardedCounter("foo");
+				fail();
+			}
+			catch (InstacountClientException e)
+			{
+				// Expected.
+			}
+		}
+		assertThat(instacountCircuitBreaker.getMutationCircuitBreaker().getState(), is(State.OPEN));
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+
+import feign.Response;
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.ShardedCounterOperation;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+
+/**
+ * Unit tests for {@link CoalescingInstacount}.
+ */
+public class CoalescingInstacountTest
+{
+	private Instacount delegate;
+	private CoalescingInstacount coalescingInstacount;
+
+	@Before
+	public void before()
+	{
+		delegate = mock(Instacount.class);
+		when(delegate.incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class))).thenReturn(
+			new IncrementShardedCounterResponse(Response.create(202, "Accepted",
+				Collections.<String, Collection<String>> emptyMap(), (byte[]) null), new Quota(1L, 1L, 1L, 1L),
+				Optional.<ShardedCounterOperation> absent()));
+		when(delegate.decrementShardedCounter(anyString(), any(DecrementShardedCounterInput.class))).thenReturn(
+			new DecrementShardedCounterResponse(Response.create(202, "Accepted",
+				Collections.<String, Collection<String>> emptyMap(), (byte[]) null), new Quota(1L, 1L, 1L, 1L),
+				Optional.<ShardedCounterOperation> absent()));
+
+		// A flush interval long enough that only explicit flushes run during a test.
+		coalescingInstacount = new CoalescingInstacount(delegate, 1, TimeUnit.HOURS, 100, true,
+			mock(ScheduledExecutorService.class));
+	}
+
+	@Test
+	public void testIncrementsAreSummedPerCounter()
+	{
+		coalescingInstacount.incrementShardedCounter("foo");
+		coalescingInstacount.incrementShardedCounter("foo");
+		coalescingInstacount.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, true));
+		coalescingInstacount.incrementShardedCounter("bar");
+
+		assertThat(coalescingInstacount.getPendingDelta("foo"), is(12L));
+		verify(delegate, never()).incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class));
+
+		coalescingInstacount.flush();
+
+		verify(delegate).incrementShardedCounter("foo",
+			new IncrementShardedCounterInput(BigInteger.valueOf(12L), true));
+		verify(delegate).incrementShardedCounter("bar", new IncrementShardedCounterInput(BigInteger.ONE, true));
+		assertThat(coalescingInstacount.getPendingDelta("foo"), is(0L));
+	}
+
+	@Test
+	public void testCoalescedIncrementReturnsAccepted()
+	{
+		final IncrementShardedCounterResponse response = coalescingInstacount.incrementShardedCounter("foo");
+
+		assertThat(response.getHttpResponseCode(), is(202));
+		assertThat(response.getOptCounterOperation().isPresent(), is(false));
+	}
+
+	@Test
+	public void testSyncIncrementIsNotCoalesced()
+	{
+		final IncrementShardedCounterInput input = new IncrementShardedCounterInput(BigInteger.TEN, false);
+		coalescingInstacount.incrementShardedCounter("foo", input);
+
+		verify(delegate).incrementShardedCounter("foo", input);
+		assertThat(coalescingInstacount.getPendingDelta("foo"), is(0L));
+	}
+
+	@Test
+	public void testNetNegativeDeltaIsFlushedAsDecrement()
+	{
+		coalescingInstacount.incrementShardedCounter("foo");
+		coalescingInstacount.decrementShardedCounter("foo", new DecrementShardedCounterInput(BigInteger.TEN, true));
+
+		coalescingInstacount.flush();
+
+		verify(delegate).decrementShardedCounter("foo", new DecrementShardedCounterInput(BigInteger.valueOf(9L), true));
+	}
+
+	@Test
+	public void testFailedFlushKeepsDelta()
+	{
+		when(delegate.incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class))).thenThrow(
+			new InstacountClientException(Errors.empty(500)));
+
+		coalescingInstacount.incrementShardedCounter("foo");
+		coalescingInstacount.flush();
+
+		assertThat(coalescingInstacount.getPendingDelta("foo"), is(1L));
+	}
+
+	@Test
+	public void testFlushWithClientErrorDropsDelta()
+	{
+		when(delegate.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.ONE, true)))
+			.thenThrow(new InstacountClientException(Errors.empty(404)));
+
+		coalescingInstacount.incrementShardedCounter("foo");
+		coalescingInstacount.incrementShardedCounter("bar");
+		coalescingInstacount.flush();
+
+		assertThat(coalescingInstacount.getPendingDelta("foo"), is(0L));
+		assertThat(coalescingInstacount.getPendingDelta("bar"), is(0L));
+		verify(delegate).incrementShardedCounter("bar", new IncrementShardedCounterInput(BigInteger.ONE, true));
+
+		coalescingInstacount.flush();
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.ONE, true));
+	}
+
+	@Test
+	public void testCallsAfterCloseAreForwarded()
+	{
+		coalescingInstacount.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, true));
+		coalescingInstacount.close();
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, true));
+
+		coalescingInstacount.incrementShardedCounter("foo");
+		coalescingInstacount.decrementShardedCounter("foo", new DecrementShardedCounterInput(BigInteger.ONE, true));
+
+		verify(delegate).incrementShardedCounter("foo");
+		verify(delegate).decrementShardedCounter("foo", new DecrementShardedCounterInput(BigInteger.ONE, true));
+		assertThat(coalescingInstacount.getPendingDelta("foo"), is(0L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIncrement_EmptyCounterName()
+	{
+		coalescingInstacount.incrementShardedCounter("");
+	}
+}
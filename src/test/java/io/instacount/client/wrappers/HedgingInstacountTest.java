@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+
+/**
+ * Unit tests for {@link HedgingInstacount}.
+ */
+public class HedgingInstacountTest
+{
+	private Instacount delegate;
+	private GetShardedCounterResponse slowResponse;
+	private GetShardedCounterResponse fastResponse;
+
+	@Before
+	public void before()
+	{
+		delegate = mock(Instacount.class);
+		slowResponse = mock(GetShardedCounterResponse.class);
+		fastResponse = mock(GetShardedCounterResponse.class);
+	}
+
+	@Test
+	public void testFastReadIsNotHedged()
+	{
+		when(delegate.getShardedCounter("foo")).thenReturn(fastResponse);
+		final HedgingInstacount hedgingInstacount = new HedgingInstacount(delegate, 1, TimeUnit.SECONDS);
+
+		assertThat(hedgingInstacount.getShardedCounter("foo"), is(sameInstance(fastResponse)));
+		assertThat(hedgingInstacount.getNumHedgedRequests(), is(0L));
+	}
+
+	@Test
+	public void testSlowReadIsHedged()
+	{
+		when(delegate.getShardedCounter("foo")).thenAnswer(delayed(slowResponse, 5000)).thenReturn(fastResponse);
+		final HedgingInstacount hedgingInstacount = new HedgingInstacount(delegate, 10, TimeUnit.MILLISECONDS);
+
+		final long startMillis = System.currentTimeMillis();
+		assertThat(hedgingInstacount.getShardedCounter("foo"), is(sameInstance(fastResponse)));
+		assertThat(System.currentTimeMillis() - startMillis < 5000, is(true));
+		assertThat(hedgingInstacount.getNumHedgedRequests(), is(1L));
+		assertThat(hedgingInstacount.getNumHedgesWon(), is(1L));
+	}
+
+	@Test
+	public void testFailedReadFallsBackToHedge()
+	{
+		when(delegate.getShardedCounter("foo")).thenAnswer(new Answer<GetShardedCounterResponse>()
+		{
+			@Override
+			public GetShardedCounterResponse answer(final InvocationOnMock invocation) throws Throwable
+			{
+				Thread.sleep(50);
+				throw new InstacountClientException(Errors.empty(503));
+			}
+		}).thenAnswer(delayed(fastResponse, 100));
+		final HedgingInstacount hedgingInstacount = new HedgingInstacount(delegate, 10, TimeUnit.MILLISECONDS);
+
+		assertThat(hedgingInstacount.getShardedCounter("foo"), is(sameInstance(fastResponse)));
+		assertThat(hedgingInstacount.getNumHedgesWon(), is(1L));
+	}
+
+	@Test(expected = InstacountClientException.class)
+	public void testFailedReadIsNotHedged()
+	{
+		when(delegate.getShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(404)));
+		new HedgingInstacount(delegate, 1, TimeUnit.SECONDS).getShardedCounter("foo");
+	}
+
+	@Test
+	public void testHedgeDelayTracksLatency()
+	{
+		when(delegate.getShardedCounter("foo")).thenReturn(fastResponse);
+		final HedgingInstacount hedgingInstacount = new HedgingInstacount(delegate, 1, TimeUnit.HOURS);
+
+		for (int i = 0; i < HedgingInstacount.SAMPLE_WINDOW; i++)
+		{
+			hedgingInstacount.getShardedCounter("foo");
+		}
+		assertThat(hedgingInstacount.getHedgeDelayNanos() < TimeUnit.SECONDS.toNanos(1), is(true));
+	}
+
+	/**
+	 * Helper to construct an {@link Answer} that returns {@code response} after {@code delayMillis}.
+	 *
+	 * @param response
+	 * @param delayMillis
+	 * @return
+	 */
+	private static Answer<GetShardedCounterResponse> delayed(final GetShardedCounterResponse response,
+			final long delayMillis)
+	{
+		return new Answer<GetShardedCounterResponse>()
+		{
+			@Override
+			public GetShardedCounterResponse answer(final InvocationOnMock invocation) throws Throwable
+			{
+				Thread.sleep(delayMillis);
+				return response;
+			}
+		};
+	}
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import feign.Response;
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.journal.IncrementJournal;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.ShardedCounterOperation;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+
+/**
+ * Unit tests for {@link JournalingInstacount}.
+ */
+public class JournalingInstacountTest
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File file;
+	private Instacount delegate;
+	private IncrementJournal journal;
+	private JournalingInstacount journalingInstacount;
+
+	@Before
+	public void before() throws IOException
+	{
+		delegate = mock(Instacount.class);
+		when(delegate.incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class))).thenReturn(
+			new IncrementShardedCounterResponse(Response.create(202, "Accepted",
+				Collections.<String, Collection<String>> emptyMap(), (byte[]) null), new Quota(1L, 1L, 1L, 1L),
+				Optional.<ShardedCounterOperation> absent()));
+		when(delegate.decrementShardedCounter(anyString(), any(DecrementShardedCounterInput.class))).thenReturn(
+			new DecrementShardedCounterResponse(Response.create(202, "Accepted",
+				Collections.<String, Collection<String>> emptyMap(), (byte[]) null), new Quota(1L, 1L, 1L, 1L),
+				Optional.<ShardedCounterOperation> absent()));
+
+		file = new File(temporaryFolder.getRoot(), "increments.journal");
+		journal = IncrementJournal.open(file);
+
+		// A scheduler that never runs, so that only explicit drains run during a test.
+		journalingInstacount = new JournalingInstacount(delegate, journal, 1, TimeUnit.HOURS,
+			mock(ScheduledExecutorService.class), MoreExecutors.newDirectExecutorService());
+	}
+
+	@Test
+	public void testIncrementsAreJournaledAndDrainedAsOneDelta()
+	{
+		final IncrementShardedCounterResponse response = journalingInstacount.incrementShardedCounter("foo");
+		journalingInstacount.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, true));
+		journalingInstacount.decrementShardedCounter("foo");
+
+		assertThat(response.getHttpResponseCode(), is(202));
+		assertThat(journalingInstacount.getPendingDelta("foo"), is(10L));
+		verify(delegate, never()).incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class));
+
+		journalingInstacount.drain();
+
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, true));
+		assertThat(journalingInstacount.getPendingDelta("foo"), is(0L));
+	}
+
+	@Test
+	public void testSyncIncrementIsNotJournaled()
+	{
+		final IncrementShardedCounterInput input = new IncrementShardedCounterInput(BigInteger.TEN, false);
+		journalingInstacount.incrementShardedCounter("foo", input);
+
+		verify(delegate).incrementShardedCounter("foo", input);
+		assertThat(journalingInstacount.getPendingDelta("foo"), is(0L));
+	}
+
+	@Test
+	public void testFailedDrainKeepsDelta()
+	{
+		when(delegate.decrementShardedCounter(anyString(), any(DecrementShardedCounterInput.class))).thenThrow(
+			new InstacountClientException(Errors.empty(503)));
+
+		journalingInstacount.decrementShardedCounter("foo", new DecrementShardedCounterInput(BigInteger.TEN, true));
+		journalingInstacount.drain();
+
+		assertThat(journalingInstacount.getPendingDelta("foo"), is(-10L));
+	}
+
+	@Test
+	public void testPendingDeltasSurviveRestart() throws IOException
+	{
+		journalingInstacount.incrementShardedCounter("foo");
+		journalingInstacount.incrementShardedCounter("foo");
+		journal.close();
+
+		final JournalingInstacount restarted = new JournalingInstacount(delegate, IncrementJournal.open(file), 1,
+			TimeUnit.HOURS, mock(ScheduledExecutorService.class), MoreExecutors.newDirectExecutorService());
+		restarted.drain();
+
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.valueOf(2L), true));
+		assertThat(restarted.getPendingDelta("foo"), is(0L));
+	}
+
+	@Test
+	public void testClosedJournalFallsBackToDelegate()
+	{
+		journal.close();
+		journalingInstacount.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.ONE, true));
+
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.ONE, true));
+	}
+
+	@Test
+	public void testDeltaIsNotResentWhenJournalCannotRecordDrain() throws IOException
+	{
+		final IncrementJournal failingJournal = spy(IncrementJournal.open(new File(temporaryFolder.getRoot(),
+			"failing.journal")));
+		final JournalingInstacount failingJournalingInstacount = new JournalingInstacount(delegate, failingJournal,
+			1, TimeUnit.HOURS, mock(ScheduledExecutorService.class), MoreExecutors.newDirectExecutorService());
+		failingJournalingInstacount.incrementShardedCounter("foo");
+		doThrow(new IOException("Disk full")).when(failingJournal).append("foo", -1L);
+
+		failingJournalingInstacount.drain();
+		failingJournalingInstacount.drain();
+
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.ONE, true));
+		assertThat(failingJournal.getPendingDelta("foo"), is(1L));
+		assertThat(failingJournalingInstacount.getPendingDelta("foo"), is(0L));
+
+		// Once the journal recovers, the drained delta is finally removed from it, and still not sent again.
+		doCallRealMethod().when(failingJournal).append("foo", -1L);
+		failingJournalingInstacount.drain();
+
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.ONE, true));
+		assertThat(failingJournal.getPendingDelta("foo"), is(0L));
+	}
+}
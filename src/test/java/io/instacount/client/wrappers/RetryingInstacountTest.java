@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import feign.RetryableException;
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+import io.instacount.client.retry.RetryPolicy;
+
+/**
+ * Unit tests for {@link RetryingInstacount} and {@link RetryPolicy}.
+ */
+public class RetryingInstacountTest
+{
+	private Instacount delegate;
+	private RetryingInstacount retryingInstacount;
+	private GetShardedCounterResponse response;
+
+	@Before
+	public void before()
+	{
+		delegate = mock(Instacount.class);
+		response = mock(GetShardedCounterResponse.class);
+		retryingInstacount = new RetryingInstacount(delegate, new RetryPolicy(3, 1, 1, 2.0, ImmutableSet.of(503)));
+	}
+
+	@Test
+	public void testServerErrorIsRetried()
+	{
+		when(delegate.getShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(503)))
+			.thenReturn(response);
+
+		assertThat(retryingInstacount.getShardedCounter("foo"), is(sameInstance(response)));
+		verify(delegate, times(2)).getShardedCounter("foo");
+		assertThat(retryingInstacount.getNumRetries(), is(1L));
+	}
+
+	@Test
+	public void testNetworkErrorIsRetried()
+	{
+		when(delegate.getShardedCounter("foo")).thenThrow(new RetryableException("timeout", null))
+			.thenReturn(response);
+
+		assertThat(retryingInstacount.getShardedCounter("foo"), is(sameInstance(response)));
+		verify(delegate, times(2)).getShardedCounter("foo");
+	}
+
+	@Test
+	public void testClientErrorIsNotRetried()
+	{
+		when(delegate.getShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(404)));
+
+		try
+		{
+			retryingInstacount.getShardedCounter("foo");
+			fail();
+		}
+		catch (InstacountClientException e)
+		{
+			assertThat(e.getErrors().getHttpResponseCode(), is(404));
+		}
+		verify(delegate, times(1)).getShardedCounter("foo");
+	}
+
+	@Test
+	public void testRetriesStopAfterMaxAttempts()
+	{
+		when(delegate.getShardedCounter("foo")).thenThrow(new InstacountClientException(Errors.empty(503)));
+
+		try
+		{
+			retryingInstacount.getShardedCounter("foo");
+			fail();
+		}
+		catch (InstacountClientException e)
+		{
+			assertThat(e.getErrors().getHttpResponseCode(), is(503));
+		}
+		verify(delegate, times(3)).getShardedCounter("foo");
+		assertThat(retryingInstacount.getNumRetries(), is(2L));
+	}
+
+	@Test
+	public void testIncrementIsNeverRetried()
+	{
+		when(delegate.incrementShardedCounter("foo")).thenThrow(new RetryableException("timeout", null));
+
+		try
+		{
+			retryingInstacount.incrementShardedCounter("foo");
+			fail();
+		}
+		catch (RetryableException e)
+		{
+			// Expected.
+		}
+		verify(delegate, times(1)).incrementShardedCounter("foo");
+	}
+
+	@Test
+	public void testBackoffIsBounded()
+	{
+		final RetryPolicy retryPolicy = new RetryPolicy(10, 10, 100, 2.0, ImmutableSet.<Integer> of());
+		for (int i = 0; i < 100; i++)
+		{
+			assertThat(retryPolicy.getBackoffMillis(1) <= 10, is(true));
+			assertThat(retryPolicy.getBackoffMillis(3) <= 40, is(true));
+			assertThat(retryPolicy.getBackoffMillis(9) <= 100, is(true));
+			assertThat(retryPolicy.getBackoffMillis(9) >= 0, is(true));
+		}
+	}
+}
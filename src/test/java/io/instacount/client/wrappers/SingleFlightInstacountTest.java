@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.collect.Lists;
+
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.shardedcounters.responses.GetShardedCounterResponse;
+
+/**
+ * Unit tests for {@link SingleFlightInstacount}.
+ */
+public class SingleFlightInstacountTest
+{
+	private static final int NUM_THREADS = 8;
+
+	private Instacount delegate;
+	private SingleFlightInstacount singleFlightInstacount;
+	private ExecutorService executorService;
+	private CountDownLatch release;
+
+	@Before
+	public void before()
+	{
+		delegate = mock(Instacount.class);
+		singleFlightInstacount = new SingleFlightInstacount(delegate);
+		executorService = Executors.newFixedThreadPool(NUM_THREADS);
+		release = new CountDownLatch(1);
+	}
+
+	@After
+	public void after()
+	{
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentReadsShareOneRequest() throws Exception
+	{
+		final GetShardedCounterResponse response = mock(GetShardedCounterResponse.class);
+		when(delegate.getShardedCounter("foo")).thenAnswer(this.blocking(response, null));
+
+		for (final Future<GetShardedCounterResponse> future : this.readConcurrently("foo"))
+		{
+			assertThat(future.get(), is(sameInstance(response)));
+		}
+		verify(delegate, times(1)).getShardedCounter("foo");
+		assertThat(singleFlightInstacount.getNumCollapsedCalls(), is((long) NUM_THREADS - 1));
+	}
+
+	@Test
+	public void testConcurrentReadsShareOneFailure() throws Exception
+	{
+		final InstacountClientException exception = new InstacountClientException(Errors.empty(500));
+		when(delegate.getShardedCounter("foo")).thenAnswer(this.blocking(null, exception));
+
+		for (final Future<GetShardedCounterResponse> future : this.readConcurrently("foo"))
+		{
+			try
+			{
+				future.get();
+				throw new AssertionError("Expected an InstacountClientException!");
+			}
+			catch (ExecutionException e)
+			{
+				assertThat(e.getCause(), is(sameInstance((Throwable) exception)));
+			}
+		}
+		verify(delegate, times(1)).getShardedCounter("foo");
+	}
+
+	@Test
+	public void testSequentialReadsAreNotCollapsed()
+	{
+		singleFlightInstacount.getShardedCounter("foo");
+		singleFlightInstacount.getShardedCounter("foo");
+
+		verify(delegate, times(2)).getShardedCounter("foo");
+		assertThat(singleFlightInstacount.getNumCollapsedCalls(), is(0L));
+	}
+
+	/**
+	 * Helper to read {@code counterName} from {@link #NUM_THREADS} threads at once, releasing the first request only
+	 * once every other thread is waiting for it.
+	 *
+	 * @param counterName
+	 * @return
+	 * @throws InterruptedException
+	 */
+	private List<Future<GetShardedCounterResponse>> readConcurrently(final String counterName)
+			throws InterruptedException
+	{
+		final List<Future<GetShardedCounterResponse>> futures = Lists.newArrayList();
+		for (int i = 0; i < NUM_THREADS; i++)
+		{
+			futures.add(executorService.submit(new Callable<GetShardedCounterResponse>()
+			{
+				@Override
+				public GetShardedCounterResponse call()
+				{
+					return singleFlightInstacount.getShardedCounter(counterName);
+				}
+			}));
+		}
+
+		while (singleFlightInstacount.getNumCollapsedCalls() < NUM_THREADS - 1)
+		{
+			Thread.sleep(1);
+		}
+		release.countDown();
+		return futures;
+	}
+
+	/**
+	 * Helper to construct an {@link Answer} that waits for {@link #release}, then returns {@code response} or throws
+	 * {@code exception}.
+	 *
+	 * @param response
+	 * @param exception
+	 * @return
+	 */
+	private Answer<GetShardedCounterResponse> blocking(final GetShardedCounterResponse response,
+			final RuntimeException exception)
+	{
+		return new Answer<GetShardedCounterResponse>()
+		{
+			@Override
+			public GetShardedCounterResponse answer(final InvocationOnMock invocation) throws Throwable
+			{
+				release.await();
+				if (exception != null)
+				{
+					throw exception;
+				}
+				return response;
+			}
+		};
+	}
+}
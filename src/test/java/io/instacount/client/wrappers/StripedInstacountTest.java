@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2016 Instacount Inc. (developers@instacount.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.instacount.client.wrappers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+
+import feign.Response;
+import io.instacount.client.Instacount;
+import io.instacount.client.exceptions.InstacountClientException;
+import io.instacount.client.model.Errors;
+import io.instacount.client.model.headers.Quota;
+import io.instacount.client.model.shardedcounters.ShardedCounterOperation;
+import io.instacount.client.model.shardedcounters.inputs.DecrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.inputs.IncrementShardedCounterInput;
+import io.instacount.client.model.shardedcounters.responses.DecrementShardedCounterResponse;
+import io.instacount.client.model.shardedcounters.responses.IncrementShardedCounterResponse;
+
+/**
+ * Unit tests for {@link StripedInstacount}.
+ */
+public class StripedInstacountTest
+{
+	private Instacount delegate;
+	private StripedInstacount stripedInstacount;
+
+	@Before
+	public void before()
+	{
+		delegate = mock(Instacount.class);
+		when(delegate.incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class))).thenReturn(
+			new IncrementShardedCounterResponse(Response.create(202, "Accepted",
+				Collections.<String, Collection<String>> emptyMap(), (byte[]) null), new Quota(1L, 1L, 1L, 1L),
+				Optional.<ShardedCounterOperation> absent()));
+		when(delegate.decrementShardedCounter(anyString(), any(DecrementShardedCounterInput.class))).thenReturn(
+			new DecrementShardedCounterResponse(Response.create(202, "Accepted",
+				Collections.<String, Collection<String>> emptyMap(), (byte[]) null), new Quota(1L, 1L, 1L, 1L),
+				Optional.<ShardedCounterOperation> absent()));
+
+		// A flush interval long enough that only explicit flushes run during a test.
+		stripedInstacount = new StripedInstacount(delegate, 1, TimeUnit.HOURS, true,
+			mock(ScheduledExecutorService.class));
+	}
+
+	@Test
+	public void testConcurrentIncrementsAreSummed() throws Exception
+	{
+		final ExecutorService executorService = Executors.newFixedThreadPool(8);
+		final List<Callable<Void>> tasks = Lists.newArrayList();
+		for (int i = 0; i < 8; i++)
+		{
+			tasks.add(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					for (int j = 0; j < 10000; j++)
+					{
+						stripedInstacount.incrementShardedCounter("foo");
+					}
+					return null;
+				}
+			});
+		}
+		executorService.invokeAll(tasks);
+		executorService.shutdown();
+
+		assertThat(stripedInstacount.getPendingDelta("foo"), is(80000L));
+		verify(delegate, never()).incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class));
+
+		stripedInstacount.flush();
+
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.valueOf(80000L),
+			true));
+		assertThat(stripedInstacount.getPendingDelta("foo"), is(0L));
+	}
+
+	@Test
+	public void testAcceptedResponseCarriesLatestQuota()
+	{
+		final IncrementShardedCounterResponse response = stripedInstacount.incrementShardedCounter("foo");
+		assertThat(response.getHttpResponseCode(), is(202));
+		assertThat(response.getQuota().getNumAccessRequestsLimit(), is(0L));
+
+		stripedInstacount.flush();
+
+		assertThat(stripedInstacount.incrementShardedCounter("foo").getQuota().getNumAccessRequestsLimit(), is(1L));
+	}
+
+	@Test
+	public void testSyncIncrementIsNotStriped()
+	{
+		final IncrementShardedCounterInput input = new IncrementShardedCounterInput(BigInteger.TEN, false);
+		stripedInstacount.incrementShardedCounter("foo", input);
+
+		verify(delegate).incrementShardedCounter("foo", input);
+		assertThat(stripedInstacount.getPendingDelta("foo"), is(0L));
+	}
+
+	@Test
+	public void testNetNegativeDeltaIsFlushedAsDecrement()
+	{
+		stripedInstacount.incrementShardedCounter("foo");
+		stripedInstacount.decrementShardedCounter("foo", new DecrementShardedCounterInput(BigInteger.TEN, true));
+
+		stripedInstacount.flush();
+
+		verify(delegate).decrementShardedCounter("foo", new DecrementShardedCounterInput(BigInteger.valueOf(9L), true));
+	}
+
+	@Test
+	public void testFailedFlushKeepsDelta()
+	{
+		when(delegate.incrementShardedCounter(anyString(), any(IncrementShardedCounterInput.class))).thenThrow(
+			new InstacountClientException(Errors.empty(500)));
+
+		stripedInstacount.incrementShardedCounter("foo");
+		stripedInstacount.flush();
+
+		assertThat(stripedInstacount.getPendingDelta("foo"), is(1L));
+	}
+
+	@Test
+	public void testCallsAfterCloseAreForwarded()
+	{
+		stripedInstacount.incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, true));
+		stripedInstacount.close();
+		verify(delegate).incrementShardedCounter("foo", new IncrementShardedCounterInput(BigInteger.TEN, true));
+
+		stripedInstacount.incrementShardedCounter("foo");
+		stripedInstacount.decrementShardedCounter("foo", new DecrementShardedCounterInput(BigInteger.ONE, true));
+
+		verify(delegate).incrementShardedCounter("foo");
+		verify(delegate).decrementShardedCounter("foo", new DecrementShardedCounterInput(BigInteger.ONE, true));
+		assertThat(stripedInstacount.getPendingDelta("foo"), is(0L));
+	}
+}